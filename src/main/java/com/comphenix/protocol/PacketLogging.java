@@ -18,60 +18,44 @@ package com.comphenix.protocol;
 
 import com.comphenix.protocol.PacketType.Protocol;
 import com.comphenix.protocol.PacketType.Sender;
-import com.comphenix.protocol.events.ListeningWhitelist;
-import com.comphenix.protocol.events.PacketEvent;
-import com.comphenix.protocol.events.PacketListener;
-import com.comphenix.protocol.injector.netty.WirePacket;
-import com.comphenix.protocol.reflect.FuzzyReflection;
-import com.comphenix.protocol.reflect.accessors.Accessors;
-import com.comphenix.protocol.reflect.accessors.MethodAccessor;
-import com.comphenix.protocol.utility.MinecraftReflection;
+import com.comphenix.protocol.capture.CaptureReader;
+import com.comphenix.protocol.capture.PacketCapture;
+import com.comphenix.protocol.utility.MinecraftProtocolVersion;
 import org.bukkit.ChatColor;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
 import org.bukkit.command.CommandSender;
 import org.bukkit.plugin.Plugin;
 
-import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
-import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.nio.charset.StandardCharsets;
-import java.text.MessageFormat;
-import java.text.SimpleDateFormat;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.logging.FileHandler;
-import java.util.logging.Formatter;
-import java.util.logging.Handler;
+import java.nio.file.Files;
+import java.util.LinkedHashSet;
+import java.util.Set;
 import java.util.logging.Level;
-import java.util.logging.LogRecord;
-import java.util.logging.Logger;
 
 /**
- * Logs packets to a given stream
+ * Captures packets to binary files, which can be rendered as hex dumps later
  * @author dmulloy2
  */
-public class PacketLogging implements CommandExecutor, PacketListener {
+public class PacketLogging implements CommandExecutor {
 	public static final String NAME = "packetlog";
 
-	private static MethodAccessor HEX_DUMP;
+	private static final String USAGE = "/packetlog <protocol> <sender> <packet> | all | stop | status | render <file>";
 
-	private List<PacketType> sendingTypes = new ArrayList<>();
-	private List<PacketType> receivingTypes = new ArrayList<>();
+	private final Set<PacketType> types = new LinkedHashSet<>();
 
-	private ListeningWhitelist sendingWhitelist;
-	private ListeningWhitelist receivingWhitelist;
+	private PacketCapture capture;
 
-	private Logger fileLogger;
-	private LogLocation location = LogLocation.FILE;
-
-	private final ProtocolManager manager;
+	private final ProtocolConfig config;
 	private final Plugin plugin;
 
-	PacketLogging(Plugin plugin, ProtocolManager manager) {
+	PacketLogging(Plugin plugin, ProtocolConfig config) {
 		this.plugin = plugin;
-		this.manager = manager;
+		this.config = config;
 	}
 
 	@Override
@@ -79,6 +63,32 @@ public class PacketLogging implements CommandExecutor, PacketListener {
 		PacketType type = null;
 
 		try {
+			if (args.length == 1 && args[0].equalsIgnoreCase("all")) {
+				types.clear();
+				if (!startCapture(sender, null)) {
+					return true;
+				}
+				sender.sendMessage(ChatColor.GREEN + "Now capturing every packet to " + capture.getDirectory());
+				return true;
+			}
+
+			if (args.length == 1 && args[0].equalsIgnoreCase("stop")) {
+				types.clear();
+				stopCapture();
+				sender.sendMessage(ChatColor.GREEN + "Stopped capturing packets.");
+				return true;
+			}
+
+			if (args.length == 1 && args[0].equalsIgnoreCase("status")) {
+				sendStatus(sender);
+				return true;
+			}
+
+			if (args.length == 2 && args[0].equalsIgnoreCase("render")) {
+				render(sender, args[1]);
+				return true;
+			}
+
 			if (args.length > 2) {
 				Protocol protocol;
 
@@ -128,34 +138,26 @@ public class PacketLogging implements CommandExecutor, PacketListener {
 					return true;
 				}
 
-				if (args.length > 3) {
-					if (args[3].equalsIgnoreCase("console")) {
-						this.location = LogLocation.CONSOLE;
-					} else {
-						this.location = LogLocation.FILE;
-					}
+				if (types.contains(type)) {
+					types.remove(type);
+				} else {
+					types.add(type);
 				}
 
-				if (pSender == Sender.CLIENT) {
-					if (receivingTypes.contains(type)) {
-						receivingTypes.remove(type);
-					} else {
-						receivingTypes.add(type);
-					}
+				if (types.isEmpty()) {
+					stopCapture();
+					sender.sendMessage(ChatColor.GREEN + "Stopped capturing packets.");
 				} else {
-					if (sendingTypes.contains(type)) {
-						sendingTypes.remove(type);
-					} else {
-						sendingTypes.add(type);
+					if (!startCapture(sender, types)) {
+						types.remove(type);
+						return true;
 					}
+					sender.sendMessage(ChatColor.GREEN + "Now capturing " + types + " to " + capture.getDirectory());
 				}
-
-				startLogging();
-				sender.sendMessage(ChatColor.GREEN + "Now logging " + type.getPacketClass().getSimpleName());
 				return true;
 			}
 
-			sender.sendMessage(ChatColor.RED + "Invalid syntax: /packetlog <protocol> <sender> <packet> [location]");
+			sender.sendMessage(ChatColor.RED + "Invalid syntax: " + USAGE);
 			return true;
 		} catch (Throwable ex) {
 			sender.sendMessage(ChatColor.RED + "Failed to parse command: " + ex.toString());
@@ -163,122 +165,99 @@ public class PacketLogging implements CommandExecutor, PacketListener {
 		}
 	}
 
-	private void startLogging() {
-		manager.removePacketListener(this);
-
-		if (sendingTypes.isEmpty() && receivingTypes.isEmpty()) {
-			return;
-		}
-
-		this.sendingWhitelist = ListeningWhitelist.newBuilder().types(sendingTypes).build();
-		this.receivingWhitelist = ListeningWhitelist.newBuilder().types(receivingTypes).build();
-
-		// Setup the file logger if it hasn't been already
-		if (location == LogLocation.FILE && fileLogger == null) {
-			fileLogger = Logger.getLogger("ProtocolLib-FileLogging");
+	private File getCaptureDirectory() {
+		return new File(plugin.getDataFolder(), "captures");
+	}
 
-			for (Handler handler : fileLogger.getHandlers())
-				fileLogger.removeHandler(handler);
-			fileLogger.setUseParentHandlers(false);
+	private boolean startCapture(CommandSender sender, Set<PacketType> filter) {
+		if (capture == null) {
+			PacketCapture started = new PacketCapture(getCaptureDirectory(),
+					config.getCaptureBufferSize() * 1024 * 1024,
+					config.getCaptureFileSize() * 1024L * 1024L,
+					config.getCaptureFiles(),
+					config.isCaptureCompression(),
+					MinecraftProtocolVersion.getCurrentVersion());
+			started.setFilter(filter);
 
 			try {
-				File logFile = new File(plugin.getDataFolder(), "log.log");
-				FileHandler handler = new FileHandler(logFile.getAbsolutePath(), true);
-				handler.setFormatter(new LogFormatter());
-				fileLogger.addHandler(handler);
-			} catch (IOException ex) {
-				plugin.getLogger().log(Level.SEVERE, "Failed to obtain log file:", ex);
-				return;
+				started.start();
+			} catch (IllegalStateException ex) {
+				sender.sendMessage(ChatColor.RED + "Unable to start capture: " + ex.getMessage());
+				return false;
 			}
+			capture = started;
+		} else {
+			capture.setFilter(filter);
 		}
-
-		manager.addPacketListener(this);
+		return true;
 	}
 
-	@Override
-	public void onPacketSending(PacketEvent event) {
-		log(event);
-	}
-
-	@Override
-	public void onPacketReceiving(PacketEvent event) {
-		log(event);
-	}
-
-	// Here's where the magic happens
+	private void stopCapture() {
+		if (capture == null) {
+			return;
+		}
 
-	private static String hexDump(byte[] bytes) throws IOException {
-		try (ByteArrayOutputStream output = new ByteArrayOutputStream()) {
-			if (HEX_DUMP == null) {
-				Class<?> hexDumpClass = MinecraftReflection.getLibraryClass("org.apache.commons.io.HexDump");
-				HEX_DUMP = Accessors.getMethodAccessor(FuzzyReflection.fromClass(hexDumpClass)
-						.getMethodByParameters("dump", byte[].class, long.class, OutputStream.class, int.class));
+		// don't block the main thread while the remaining packets are written
+		PacketCapture stopped = capture;
+		stopped.deactivate();
+		capture = null;
+		plugin.getServer().getScheduler().runTaskAsynchronously(plugin, () -> {
+			try {
+				stopped.stop();
+			} catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
 			}
-
-			HEX_DUMP.invoke(null, bytes, 0, output, 0);
-			return new String(output.toByteArray(), StandardCharsets.UTF_8);
-		}
+		});
 	}
 
-	private void log(PacketEvent event) {
-		try {
-			byte[] bytes = WirePacket.bytesFromPacket(event.getPacket());
-			String hexDump = hexDump(bytes);
-
-			if (location == LogLocation.FILE) {
-				fileLogger.log(Level.INFO, event.getPacketType() + ":");
-				fileLogger.log(Level.INFO, hexDump);
-				fileLogger.log(Level.INFO, "");
-			} else {
-				System.out.println(event.getPacketType() + ":");
-				System.out.println(hexDump);
-				System.out.println();
+	/**
+	 * Stop capturing packets, and wait for every captured packet to be written.
+	 */
+	void close() {
+		if (capture != null) {
+			try {
+				capture.stop();
+			} catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
 			}
-		} catch (Throwable ex) {
-			plugin.getLogger().log(Level.WARNING, "Failed to log packet " + event.getPacketType() + ":", ex);
-			plugin.getLogger().log(Level.WARNING, "Clearing packet logger...");
-
-			sendingTypes.clear();
-			receivingTypes.clear();
-			startLogging();
+			capture = null;
 		}
 	}
 
-	@Override
-	public ListeningWhitelist getSendingWhitelist() {
-		return sendingWhitelist;
-	}
-
-	@Override
-	public ListeningWhitelist getReceivingWhitelist() {
-		return receivingWhitelist;
-	}
+	private void sendStatus(CommandSender sender) {
+		if (capture == null) {
+			sender.sendMessage(ChatColor.YELLOW + "Not capturing any packets.");
+			return;
+		}
 
-	@Override
-	public Plugin getPlugin() {
-		return plugin;
-	}
+		sender.sendMessage(ChatColor.GREEN + "Capturing " + (types.isEmpty() ? "every packet" : types.toString()) + " to " + capture.getDirectory());
+		sender.sendMessage(ChatColor.GREEN + "Captured: " + capture.getCapturedPackets() + " packets, dropped: " + capture.getDroppedPackets()
+				+ " packets, written: " + capture.getWrittenBytes() / 1024 + " KiB, pending: " + capture.getPendingBytes() / 1024 + " KiB");
 
-	private enum LogLocation {
-		CONSOLE, FILE
+		IOException failure = capture.getFailure();
+		if (failure != null) {
+			sender.sendMessage(ChatColor.RED + "Failed to write capture files: " + failure);
+		}
 	}
 
-	private static class LogFormatter extends Formatter {
-		private static final SimpleDateFormat DATE = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
-		private static final String LINE_SEPARATOR = System.getProperty("line.separator");
-		private static final String FORMAT = "[{0}] {1}";
+	private void render(CommandSender sender, String name) {
+		// only files in the capture directory can be rendered
+		File file = new File(getCaptureDirectory(), new File(name).getName());
+		if (!file.isFile()) {
+			sender.sendMessage(ChatColor.RED + "Unknown capture file: " + file);
+			return;
+		}
 
-		@Override
-		public String format(LogRecord record) {
-			String string = formatMessage(record);
-			if (string.isEmpty()) {
-				return LINE_SEPARATOR;
+		// hex dumps are large, so they're only rendered on request and off the main thread
+		File output = new File(file.getParentFile(), file.getName().replaceAll("\\.plcap(\\.gz)?$", "") + ".txt");
+		plugin.getServer().getScheduler().runTaskAsynchronously(plugin, () -> {
+			try (Writer writer = new OutputStreamWriter(Files.newOutputStream(output.toPath()), StandardCharsets.UTF_8)) {
+				int count = CaptureReader.render(file, writer);
+				sender.sendMessage(ChatColor.GREEN + "Rendered " + count + " packets to " + output);
+			} catch (IOException ex) {
+				plugin.getLogger().log(Level.WARNING, "Failed to render capture file " + file + ":", ex);
+				sender.sendMessage(ChatColor.RED + "Failed to render capture file: " + ex);
 			}
-
-			StringBuilder message = new StringBuilder();
-			message.append(MessageFormat.format(FORMAT, DATE.format(record.getMillis()), string));
-			message.append(LINE_SEPARATOR);
-			return message.toString();
-		}
+		});
 	}
-}
\ No newline at end of file
+}
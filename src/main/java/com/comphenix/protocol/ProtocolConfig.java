@@ -48,6 +48,15 @@ public class ProtocolConfig {
 	private static final String DEBUG_MODE_ENABLED = "debug";
 	private static final String DETAILED_ERROR = "detailed error";
 	private static final String CHAT_WARNINGS = "chat warnings";
+	private static final String SPATIAL_INDEX = "spatial index";
+	private static final String ENTITY_INDEX = "entity index";
+	private static final String ASYNC_WORKER_THREADS = "async worker threads";
+	private static final String ASYNC_VIRTUAL_THREADS = "async virtual threads";
+	private static final String WARM_UP_STRUCTURES = "warm up structures";
+	private static final String CAPTURE_BUFFER_SIZE = "capture buffer size";
+	private static final String CAPTURE_FILE_SIZE = "capture file size";
+	private static final String CAPTURE_FILES = "capture files";
+	private static final String CAPTURE_COMPRESSION = "capture compression";
 
 	private static final String SCRIPT_ENGINE_NAME = "script engine";
 	private static final String SUPPRESSED_REPORTS = "suppressed reports";
@@ -233,6 +242,90 @@ public class ProtocolConfig {
 		return getGlobalValue(CHAT_WARNINGS, true);
 	}
 
+	/**
+	 * Retrieve whether or not the positions of online players should be indexed for broadcasts by location. Default FALSE.
+	 *
+	 * @return TRUE if it is enabled, FALSE otherwise.
+	 */
+	public boolean isSpatialIndex() {
+		return getGlobalValue(SPATIAL_INDEX, false);
+	}
+
+	/**
+	 * Retrieve whether or not the entities of every world should be indexed by their id for lookups off the main thread. Default FALSE.
+	 *
+	 * @return TRUE if it is enabled, FALSE otherwise.
+	 */
+	public boolean isEntityIndex() {
+		return getGlobalValue(ENTITY_INDEX, false);
+	}
+
+	/**
+	 * Retrieve the number of threads shared by the workers of every asynchronous listener. Default 0, which uses the
+	 * number of available processors.
+	 *
+	 * @return The number of threads.
+	 */
+	public int getAsyncWorkerThreads() {
+		return Math.max(0, getGlobalValue(ASYNC_WORKER_THREADS, 0));
+	}
+
+	/**
+	 * Retrieve whether or not the workers of asynchronous listeners should run on virtual threads. Default FALSE.
+	 *
+	 * @return TRUE if they should, FALSE otherwise.
+	 */
+	public boolean isAsyncVirtualThreads() {
+		return getGlobalValue(ASYNC_VIRTUAL_THREADS, false);
+	}
+
+	/**
+	 * Retrieve whether or not the structure of every packet should be looked up in the background after startup. Default FALSE.
+	 *
+	 * @return TRUE if it is enabled, FALSE otherwise.
+	 */
+	public boolean isWarmUpStructures() {
+		return getGlobalValue(WARM_UP_STRUCTURES, false);
+	}
+
+	/**
+	 * Retrieve the size of the buffer that holds captured packets until they're written, in megabytes. Default 8, and
+	 * at most 1024.
+	 *
+	 * @return The size in megabytes.
+	 */
+	public int getCaptureBufferSize() {
+		// the buffer is addressed by an int, so its size in bytes must stay below 2 GiB
+		return Math.min(1024, Math.max(1, getGlobalValue(CAPTURE_BUFFER_SIZE, 8)));
+	}
+
+	/**
+	 * Retrieve the size at which a new capture file is started, in uncompressed megabytes. Default 64.
+	 *
+	 * @return The size in megabytes.
+	 */
+	public int getCaptureFileSize() {
+		return Math.max(1, getGlobalValue(CAPTURE_FILE_SIZE, 64));
+	}
+
+	/**
+	 * Retrieve the number of capture files to keep before the oldest is deleted. Default 10.
+	 *
+	 * @return The number of files.
+	 */
+	public int getCaptureFiles() {
+		return Math.max(1, getGlobalValue(CAPTURE_FILES, 10));
+	}
+
+	/**
+	 * Retrieve whether or not capture files should be compressed with GZIP. Default TRUE.
+	 *
+	 * @return TRUE if they should, FALSE otherwise.
+	 */
+	public boolean isCaptureCompression() {
+		return getGlobalValue(CAPTURE_COMPRESSION, true);
+	}
+
 	/**
 	 * Retrieve whether or not ProtocolLib should determine if a new version has been released.
 	 *
@@ -24,6 +24,8 @@ import com.comphenix.protocol.error.Report;
 import com.comphenix.protocol.error.ReportType;
 import com.comphenix.protocol.injector.InternalManager;
 import com.comphenix.protocol.injector.PacketFilterManager;
+import com.comphenix.protocol.injector.StructureCache;
+import com.comphenix.protocol.metrics.PipelineMetrics;
 import com.comphenix.protocol.metrics.Statistics;
 import com.comphenix.protocol.updater.Updater;
 import com.comphenix.protocol.updater.Updater.UpdateType;
@@ -35,6 +37,7 @@ import com.google.common.base.Splitter;
 import com.google.common.collect.Iterables;
 import java.io.File;
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
 import java.util.HashSet;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
@@ -71,12 +74,23 @@ public class ProtocolLib extends JavaPlugin {
 	public static final ReportType REPORT_METRICS_GENERIC_ERROR = new ReportType(
 			"Unable to enable metrics due to network problems.");
 
+	public static final ReportType REPORT_CANNOT_REGISTER_PIPELINE_METRICS = new ReportType(
+			"Unable to register the packet pipeline metrics with JMX.");
+	public static final ReportType REPORT_CANNOT_UNREGISTER_PIPELINE_METRICS = new ReportType(
+			"Unable to unregister the packet pipeline metrics from JMX.");
+
 	public static final ReportType REPORT_CANNOT_PARSE_MINECRAFT_VERSION = new ReportType(
 			"Unable to retrieve current Minecraft version. Assuming %s");
 	public static final ReportType REPORT_CANNOT_DETECT_CONFLICTING_PLUGINS = new ReportType(
 			"Unable to detect conflicting plugin versions.");
 	public static final ReportType REPORT_CANNOT_REGISTER_COMMAND = new ReportType("Cannot register command %s: %s");
 
+	public static final ReportType REPORT_CANNOT_WARM_UP_STRUCTURES = new ReportType(
+			"Unable to look up the structure of every packet in advance.");
+
+	public static final ReportType REPORT_VIRTUAL_THREADS_UNSUPPORTED = new ReportType(
+			"Cannot run asynchronous listeners on virtual threads, they require Java 21 or later.");
+
 	public static final ReportType REPORT_CANNOT_CREATE_TIMEOUT_TASK = new ReportType(
 			"Unable to create packet timeout task.");
 	public static final ReportType REPORT_CANNOT_UPDATE_PLUGIN = new ReportType("Cannot perform automatic updates.");
@@ -206,7 +220,7 @@ public class ProtocolLib extends JavaPlugin {
 						this.commandPacket = new CommandPacket(reporter, this, logger, this.commandFilter, protocolManager);
 						break;
 					case LOGGING:
-						this.packetLogging = new PacketLogging(this, protocolManager);
+						this.packetLogging = new PacketLogging(this, config);
 						break;
 				}
 			} catch (OutOfMemoryError e) {
@@ -359,6 +373,27 @@ public class ProtocolLib extends JavaPlugin {
 			reporter.reportDetailed(this, Report.newBuilder(REPORT_METRICS_GENERIC_ERROR).error(e).callerParam(
 					this.statistics));
 		}
+
+		// Expose the packet pipeline metrics to JMX
+		try {
+			PipelineMetrics.getInstance().register(ManagementFactory.getPlatformMBeanServer());
+		} catch (OutOfMemoryError e) {
+			throw e;
+		} catch (Throwable e) {
+			reporter.reportWarning(this, Report.newBuilder(REPORT_CANNOT_REGISTER_PIPELINE_METRICS).error(e));
+		}
+
+		// Look up the structure modifiers before the first packets arrive
+		if (config.isWarmUpStructures()) {
+			this.getServer().getScheduler().runTaskAsynchronously(this, () -> {
+				try {
+					int created = StructureCache.warmUp();
+					logger.fine("Looked up the structure of " + created + " packet types in advance.");
+				} catch (Throwable e) {
+					reporter.reportWarning(this, Report.newBuilder(REPORT_CANNOT_WARM_UP_STRUCTURES).error(e));
+				}
+			});
+		}
 	}
 
 	private void checkForIncompatibility(PluginManager manager) {
@@ -519,6 +554,15 @@ public class ProtocolLib extends JavaPlugin {
 
 			// Update the debug flag
 			protocolManager.setDebug(config.isDebug());
+			protocolManager.setSpatialIndexEnabled(config.isSpatialIndex());
+			protocolManager.setEntityIndexEnabled(config.isEntityIndex());
+			protocolManager.setAsyncWorkerThreads(config.getAsyncWorkerThreads());
+
+			try {
+				protocolManager.setAsyncVirtualThreads(config.isAsyncVirtualThreads());
+			} catch (IllegalStateException e) {
+				reporter.reportWarning(this, Report.newBuilder(REPORT_VIRTUAL_THREADS_UNSUPPORTED));
+			}
 		}
 	}
 
@@ -571,6 +615,17 @@ public class ProtocolLib extends JavaPlugin {
 			this.packetTask = -1;
 		}
 
+		try {
+			PipelineMetrics.getInstance().unregister(ManagementFactory.getPlatformMBeanServer());
+		} catch (Throwable e) {
+			reporter.reportWarning(this, Report.newBuilder(REPORT_CANNOT_UNREGISTER_PIPELINE_METRICS).error(e));
+		}
+
+		// Write the remaining captured packets
+		if (this.packetLogging != null) {
+			this.packetLogging.close();
+		}
+
 		// And redirect handler too
 		if (this.redirectHandler != null) {
 			logger.removeHandler(this.redirectHandler);
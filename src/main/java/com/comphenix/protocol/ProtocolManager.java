@@ -34,6 +34,7 @@ import org.bukkit.World;
 import org.bukkit.entity.Entity;
 import org.bukkit.entity.Player;
 import org.bukkit.plugin.Plugin;
+import org.bukkit.util.BoundingBox;
 
 /**
  * Represents an API for accessing the Minecraft protocol.
@@ -109,8 +110,33 @@ public interface ProtocolManager extends PacketStream {
 	 */
 	void broadcastServerPacket(PacketContainer packet, Location origin, int maxObserverDistance);
 
+	/**
+	 * Broadcast a packet to every player within the given bounding box.
+	 *
+	 * @param packet - the packet to broadcast.
+	 * @param world  - the world of the bounding box.
+	 * @param box    - the bounding box the players must be in.
+	 */
+	void broadcastServerPacket(PacketContainer packet, World world, BoundingBox box);
+
 	void broadcastServerPacket(PacketContainer packet, Collection<? extends Player> targetPlayers);
 
+	/**
+	 * Broadcast a packet to the given players, serializing it once for every player whose listeners left it unchanged.
+	 * <p>
+	 * Every player receives a copy of the same serialized packet, which is written to the connection like a
+	 * {@link com.comphenix.protocol.injector.netty.WirePacket wire packet}. The listeners are invoked with a
+	 * {@link PacketContainer#copyOnWrite() copy-on-write view} of the packet for every player, so a change made for one
+	 * player never reaches the others. Players whose packet was changed, replaced or given a network marker receive
+	 * their own copy as usual.
+	 * <p>
+	 * This should only be used for packets which are identical for every receiver.
+	 *
+	 * @param packet        - the packet to broadcast.
+	 * @param targetPlayers - the players that should receive the packet.
+	 */
+	void batchBroadcastServerPacket(PacketContainer packet, Collection<? extends Player> targetPlayers);
+
 	/**
 	 * Retrieves a list of every registered packet listener.
 	 *
@@ -187,10 +213,13 @@ public interface ProtocolManager extends PacketStream {
 
 	/**
 	 * Retrieve the associated entity.
+	 * <p>
+	 * If the entity index is enabled in the configuration, calls from other threads than the main thread are answered
+	 * from the index only, instead of reading the world. Entities that aren't indexed yet are then reported as missing.
 	 *
 	 * @param container - the world the entity belongs to.
 	 * @param id        - the unique ID of the entity.
-	 * @return The associated entity.
+	 * @return The associated entity, or NULL if it cannot be found.
 	 * @throws FieldAccessException Reflection failed.
 	 */
 	Entity getEntityFromID(World container, int id);
@@ -33,6 +33,7 @@ import com.comphenix.protocol.events.PacketEvent;
 import com.comphenix.protocol.events.PacketListener;
 import com.comphenix.protocol.injector.PrioritizedListener;
 import com.comphenix.protocol.injector.SortedPacketListenerList;
+import com.comphenix.protocol.metrics.PipelineMetrics;
 import com.google.common.base.Objects;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
@@ -72,6 +73,9 @@ public class AsyncFilterManager implements AsynchronousManager {
 	// Current packet index
 	private final AtomicInteger currentSendingIndex = new AtomicInteger();
 	
+	// Threads shared by every started asynchronous listener
+	private final AsyncWorkerPool workerPool = new AsyncWorkerPool(0);
+	
 	// Our protocol manager
 	private ProtocolManager manager;
 	
@@ -91,13 +95,73 @@ public class AsyncFilterManager implements AsynchronousManager {
 		this.playerSendingHandler = new PlayerSendingHandler(reporter, serverTimeoutListeners, clientTimeoutListeners);
 		this.serverProcessingQueue = new PacketProcessingQueue(playerSendingHandler);
 		this.clientProcessingQueue = new PacketProcessingQueue(playerSendingHandler);
-		this.playerSendingHandler.initializeScheduler();
+
+		// expose the depth of every queue to the pipeline metrics
+		PipelineMetrics.getInstance().setQueueDepths(
+				() -> this.serverProcessingQueue.size(),
+				() -> this.clientProcessingQueue.size(),
+				() -> queueDepth(this.playerSendingHandler.getServerQueues()),
+				() -> queueDepth(this.playerSendingHandler.getClientQueues()));
 		
 		this.scheduler = scheduler;
 		this.reporter = reporter;
 		this.mainThread = Thread.currentThread();
 	}
 	
+	private static int queueDepth(List<PacketSendingQueue> queues) {
+		int depth = 0;
+		for (PacketSendingQueue queue : queues) {
+			depth += queue.size();
+		}
+		return depth;
+	}
+
+	/**
+	 * Retrieve the pool of threads shared by every started asynchronous listener.
+	 * @return The worker pool.
+	 */
+	AsyncWorkerPool getWorkerPool() {
+		return workerPool;
+	}
+	
+	/**
+	 * Retrieve the number of threads shared by every started asynchronous listener.
+	 * @return The number of threads.
+	 */
+	public int getWorkerThreads() {
+		return workerPool.getParallelism();
+	}
+	
+	/**
+	 * Set the number of threads shared by every started asynchronous listener.
+	 * <p>
+	 * Packets that are already being processed finish on the previous threads.
+	 * @param threads - the number of threads, or zero for the number of available processors.
+	 */
+	public void setWorkerThreads(int threads) {
+		workerPool.setParallelism(threads);
+	}
+	
+	/**
+	 * Determine if the workers of every started asynchronous listener run on virtual threads.
+	 * @return TRUE if they do, FALSE otherwise.
+	 * @see AsyncListenerHandler#startVirtual()
+	 */
+	public boolean isVirtualThreads() {
+		return workerPool.isVirtualThreads();
+	}
+	
+	/**
+	 * Set whether or not the workers of every started asynchronous listener run on virtual threads.
+	 * <p>
+	 * Workers started by {@link AsyncListenerHandler#startVirtual()} always run on virtual threads.
+	 * @param virtualThreads - TRUE to run them on virtual threads, FALSE to run them on the shared worker pool.
+	 * @throws IllegalStateException If virtual threads are not supported by this runtime.
+	 */
+	public void setVirtualThreads(boolean virtualThreads) {
+		workerPool.setVirtualThreads(virtualThreads);
+	}
+
 	/**
 	 * Retrieve the protocol manager.
 	 * @return The protocol manager.
@@ -319,10 +383,17 @@ public class AsyncFilterManager implements AsynchronousManager {
 		Player player = syncPacket.getPlayer();
 		if (player != null) {
 			// Start the process
-			getSendingQueue(syncPacket).enqueue(newEvent);
+			PacketSendingQueue sendingQueue = getSendingQueue(syncPacket);
+			sendingQueue.enqueue(newEvent);
 
 			// We know this is occurring on the main thread, so pass TRUE
-			getProcessingQueue(syncPacket).enqueue(newEvent, true);
+			if (!getProcessingQueue(syncPacket).enqueue(newEvent, true)) {
+				// Too many packets are being processed - the packet must never skip the asynchronous listeners, so drop it
+				PipelineMetrics.getInstance().recordProcessingQueueFull();
+				newEvent.setReadOnly(false);
+				newEvent.setCancelled(true);
+				sendingQueue.signalPacketUpdate(newEvent, true);
+			}
 		}
 	}
 
@@ -387,6 +458,8 @@ public class AsyncFilterManager implements AsynchronousManager {
 		serverProcessingQueue.cleanupAll();
 		playerSendingHandler.cleanupAll();
 		timeoutListeners.clear();
+		workerPool.shutdown();
+		PipelineMetrics.getInstance().clearQueueDepths();
 		
 		serverTimeoutListeners = null;
 		clientTimeoutListeners = null;
@@ -454,21 +527,32 @@ public class AsyncFilterManager implements AsynchronousManager {
 	 * @param packet - packet to signal.
 	 */
 	public void signalFreeProcessingSlot(PacketEvent packet) {
-		getProcessingQueue(packet).signalProcessingDone();
+		PacketProcessingQueue queue = getProcessingQueue(packet);
+		queue.signalProcessingDone();
+		
+		// Start processing the next queued packet now, instead of when another packet is queued
+		queue.signalBeginProcessing(onMainThread());
 	}
 	
 	/**
-	 * Send any due packets, or clean up packets that have expired.
+	 * Send the packets that are waiting for the main thread, or clean up packets that have expired.
+	 * <p>
+	 * Every other packet is sent as soon as it has been processed, by the thread that finished processing it.
 	 * @param tickCounter Tick counter
 	 * @param onMainThread Whether or not to execute on the main thread
 	 */
 	public void sendProcessedPackets(int tickCounter, boolean onMainThread) {
-		// The server queue is unlikely to need checking that often
-		if (tickCounter % 10 == 0) {
-			playerSendingHandler.trySendServerPackets(onMainThread);
+		playerSendingHandler.trySendTimedOutPackets(onMainThread);
+		
+		if (onMainThread) {
+			playerSendingHandler.trySendMainThreadPackets();
 		}
 		
-		playerSendingHandler.trySendClientPackets(onMainThread);
+		// A timeout changed by a listener after its queue started waiting is only noticed by checking every queue
+		if (tickCounter % 20 == 0) {
+			playerSendingHandler.trySendServerPackets(onMainThread);
+			playerSendingHandler.trySendClientPackets(onMainThread);
+		}
 	}
 
 	/**
@@ -17,9 +17,13 @@
 
 package com.comphenix.protocol.async;
 
-import java.util.HashSet;
+import java.util.Queue;
 import java.util.Set;
-import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -27,10 +31,12 @@ import java.util.concurrent.atomic.AtomicInteger;
 import com.comphenix.protocol.ProtocolLibrary;
 import com.comphenix.protocol.error.Report;
 import com.comphenix.protocol.error.ReportType;
+import com.comphenix.protocol.events.ListenerOptions;
 import com.comphenix.protocol.events.ListeningWhitelist;
 import com.comphenix.protocol.events.PacketAdapter;
 import com.comphenix.protocol.events.PacketEvent;
 import com.comphenix.protocol.events.PacketListener;
+import com.comphenix.protocol.metrics.PipelineMetrics;
 import com.comphenix.protocol.timing.TimedListenerManager;
 import com.comphenix.protocol.timing.TimedListenerManager.ListenerType;
 import com.comphenix.protocol.timing.TimedTracker;
@@ -43,22 +49,26 @@ import org.bukkit.plugin.Plugin;
  * Represents a handler for an asynchronous event.
  * <p>
  * Use {@link AsyncMarker#incrementProcessingDelay()} to delay a packet until a certain condition has been met.
+ * <p>
+ * Workers started by {@link #start()} process the queue of this handler on a pool of threads shared by every
+ * asynchronous listener, while workers created by {@link #getListenerLoop()} block the thread they are run on.
+ * Workers started by {@link #startVirtual()} process the queue on virtual threads instead.
+ * <p>
+ * Regardless of how the workers are run, the following ordering guarantees hold:
+ * <ul>
+ *   <li>Packets are taken from the queue in the order they were queued, but a handler with more than one worker may
+ *   process them concurrently, and finish them out of order.</li>
+ *   <li>A packet is only processed by one worker of this handler at a time, and is passed on to the next asynchronous
+ *   listener in order of listener priority.</li>
+ *   <li>Packets are sent or received in the order they were sent or received originally, unless a listener
+ *   explicitly changes it through {@link AsyncMarker#setNewSendingIndex(long)} or a processing delay.</li>
+ * </ul>
  * @author Kristian
  */
 public class AsyncListenerHandler {
 	public static final ReportType REPORT_HANDLER_NOT_STARTED = new ReportType(
 		"Plugin %s did not start the asynchronous handler %s by calling start() or syncStart().");
 
-	/**
-	 * Signal an end to packet processing.
-	 */
-	private static final PacketEvent INTERUPT_PACKET = new PacketEvent(new Object());
-	
-	/**
-	 * Called when the threads have to wake up for something important.
-	 */
-	private static final PacketEvent WAKEUP_PACKET = new PacketEvent(new Object());
-	
 	/**
 	 * The expected number of ticks per second.
 	 */
@@ -70,12 +80,26 @@ public class AsyncListenerHandler {
 	// Default queue capacity
 	private static final int DEFAULT_CAPACITY = 1024;
 	
+	// Maximum number of packets a pooled worker processes before it lets other listeners use the thread
+	private static final int POOLED_BATCH_SIZE = 64;
+	
 	// Cancel the async handler
 	private volatile boolean cancelled;
 	
-	// Number of worker threads
+	// Number of workers, both pooled and running listener loops
 	private final AtomicInteger started = new AtomicInteger();
 	
+	// Number of pooled workers, and how many of them are currently processing the queue
+	private final AtomicInteger pooledWorkers = new AtomicInteger();
+	private final AtomicInteger activeWorkers = new AtomicInteger();
+	private final int pooledWorkerID = nextID.incrementAndGet();
+	
+	// The thread name of the pooled workers, built by the first of them
+	private volatile String pooledWorkerName;
+	
+	// Whether or not the pooled workers run on virtual threads
+	private volatile boolean virtualWorkers;
+	
 	// The packet listener
 	private PacketListener listener;
 
@@ -84,12 +108,17 @@ public class AsyncListenerHandler {
 	private NullPacketListener nullPacketListener;
 	
 	// List of queued packets
-	private ArrayBlockingQueue<PacketEvent> queuedPackets = new ArrayBlockingQueue<PacketEvent>(DEFAULT_CAPACITY);
+	private final Queue<PacketEvent> queuedPackets = new ConcurrentLinkedQueue<>();
+	private final AtomicInteger queueSize = new AtomicInteger();
 	
-	// List of cancelled tasks
-	private final Set<Integer> stoppedTasks = new HashSet<Integer>();
+	// List of cancelled tasks, and the number of arbitrary listener loops to stop
+	private final Set<Integer> stoppedTasks = ConcurrentHashMap.newKeySet();
+	private final AtomicInteger pendingStops = new AtomicInteger();
 	private final Object stopLock = new Object();
 	
+	// Number of listener loops waiting for a packet
+	private volatile int waitingLoops;
+	
 	// Processing task on the main thread
 	private int syncTask = -1;
 	
@@ -194,7 +223,125 @@ public class AsyncListenerHandler {
 		if (packet == null)
 			throw new IllegalArgumentException("packet is NULL");
 		
-		queuedPackets.add(packet);
+		// Reserve a slot first, so the queue never exceeds its capacity
+		if (queueSize.incrementAndGet() > DEFAULT_CAPACITY) {
+			queueSize.decrementAndGet();
+			PipelineMetrics.getInstance().recordListenerQueueFull();
+			throw new IllegalStateException("Queue full");
+		}
+		queuedPackets.offer(packet);
+		PipelineMetrics.getInstance().recordListenerQueued();
+		
+		scheduleWorker();
+		if (waitingLoops > 0) {
+			synchronized (stopLock) {
+				stopLock.notifyAll();
+			}
+		}
+	}
+	
+	/**
+	 * Retrieve the next queued packet.
+	 * @return The next packet, or NULL if the queue is empty.
+	 */
+	private PacketEvent pollPacket() {
+		PacketEvent packet = queuedPackets.poll();
+		
+		if (packet != null) {
+			queueSize.decrementAndGet();
+			PipelineMetrics.getInstance().recordListenerDequeued();
+		}
+		return packet;
+	}
+	
+	/**
+	 * Schedule a pooled worker to process the queue, unless every pooled worker is busy already.
+	 */
+	private void scheduleWorker() {
+		while (true) {
+			int active = activeWorkers.get();
+			if (active >= pooledWorkers.get())
+				return;
+			
+			if (activeWorkers.compareAndSet(active, active + 1)) {
+				try {
+					if (virtualWorkers)
+						filterManager.getWorkerPool().execute(this::pooledLoop, true);
+					else
+						filterManager.getWorkerPool().execute(this::pooledLoop);
+				} catch (RejectedExecutionException | IllegalStateException e) {
+					// The pool has been shut down, or virtual threads are unavailable - release the permit
+					activeWorkers.decrementAndGet();
+				}
+				return;
+			}
+		}
+	}
+	
+	/**
+	 * Process a batch of queued packets on the shared worker pool.
+	 */
+	private void pooledLoop() {
+		if (virtualWorkers || !(Thread.currentThread() instanceof ForkJoinWorkerThread)) {
+			processBatch();
+			return;
+		}
+		
+		// Listeners may block on I/O, so the pool must be able to start another thread for the other listeners
+		try {
+			ForkJoinPool.managedBlock(new ForkJoinPool.ManagedBlocker() {
+				private boolean done;
+				
+				@Override
+				public boolean block() {
+					processBatch();
+					done = true;
+					return true;
+				}
+				
+				@Override
+				public boolean isReleasable() {
+					return done;
+				}
+			});
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+	
+	private void processBatch() {
+		Thread thread = Thread.currentThread();
+		String previousName = thread.getName();
+		
+		try {
+			thread.setName(getPooledWorkerName());
+			
+			// Stop early if some of the pooled workers have been stopped in the meantime
+			for (int i = 0; i < POOLED_BATCH_SIZE && !cancelled && activeWorkers.get() <= pooledWorkers.get(); i++) {
+				PacketEvent packet = pollPacket();
+				
+				if (packet == null)
+					break;
+				if (packet.getAsyncMarker() != null)
+					processPacket(pooledWorkerID, packet, "onAsyncPacket()");
+			}
+		} finally {
+			thread.setName(previousName);
+			activeWorkers.decrementAndGet();
+			
+			// Continue with the remaining packets, including packets queued after the last poll
+			if (queueSize.get() > 0)
+				scheduleWorker();
+		}
+	}
+	
+	private String getPooledWorkerName() {
+		String name = pooledWorkerName;
+		
+		// Every pooled worker shares the same ID, so the name only has to be formatted once
+		if (name == null)
+			pooledWorkerName = name = getFriendlyWorkerName(pooledWorkerID);
+		return name;
 	}
 	
 	/**
@@ -247,9 +394,7 @@ public class AsyncListenerHandler {
 					stoppedTasks.add(id);
 			
 					// Wake up threads - we have a listener to stop
-					for (int i = 0; i < getWorkers(); i++) {
-						queuedPackets.offer(WAKEUP_PACKET);
-					}
+					stopLock.notifyAll();
 					
 					finished.set(true);
 					waitForStops();
@@ -270,7 +415,10 @@ public class AsyncListenerHandler {
 	}
 	
 	/**
-	 * Start a singler worker thread handling the asynchronous listener.
+	 * Start a single worker handling the asynchronous listener.
+	 * <p>
+	 * The worker doesn't own a thread, but processes the queue of this listener on the worker pool shared by every
+	 * asynchronous listener. Packets are still processed by at most as many threads at once as there are workers.
 	 */
 	public synchronized void start() {
 		if (listener.getPlugin() == null)
@@ -278,20 +426,42 @@ public class AsyncListenerHandler {
 		if (cancelled)
 			throw new IllegalStateException("Cannot start a worker when the listener is closing.");
 		
-		final AsyncRunnable listenerLoop = getListenerLoop();
-		
 		stopWarningTask();
-		scheduleAsync(() -> {
-			Thread thread = Thread.currentThread();
-
-			String previousName = thread.getName();
-			String workerName = getFriendlyWorkerName(listenerLoop.getID());
-
-			// Add the friendly worker name
-			thread.setName(workerName);
-			listenerLoop.run();
-			thread.setName(previousName);
-		});
+		pooledWorkers.incrementAndGet();
+		started.incrementAndGet();
+		
+		// Process the packets that were queued before this worker was started
+		scheduleWorker();
+	}
+	
+	/**
+	 * Start a single worker handling the asynchronous listener on virtual threads.
+	 * <p>
+	 * This requires Java 21 or later. Once called, every worker of this listener processes the queue on virtual
+	 * threads, so a listener that blocks on I/O, such as a database lookup, doesn't occupy a thread of the shared
+	 * worker pool. Packets are still processed by at most as many threads at once as there are workers, and the
+	 * ordering guarantees are the same as for {@link #start()}.
+	 * <p>
+	 * Note that a listener is called while holding the {@link AsyncMarker#getProcessingLock() processing lock} of the
+	 * packet. Before Java 24, a virtual thread that blocks while holding a monitor pins its carrier thread, so a
+	 * listener that blocks for a long time still occupies one of the carrier threads until it returns.
+	 * @throws IllegalStateException If virtual threads are not supported by this runtime.
+	 * @see #isVirtualThreadSupported()
+	 */
+	public synchronized void startVirtual() {
+		if (!isVirtualThreadSupported())
+			throw new IllegalStateException("Virtual threads require Java 21 or later.");
+		
+		virtualWorkers = true;
+		start();
+	}
+	
+	/**
+	 * Determine if the current runtime supports workers on virtual threads.
+	 * @return TRUE if it does, FALSE otherwise.
+	 */
+	public static boolean isVirtualThreadSupported() {
+		return AsyncWorkerPool.isVirtualThreadsSupported();
 	}
 	
 	/**
@@ -413,17 +583,11 @@ public class AsyncListenerHandler {
 				long stopTime = System.nanoTime() + unit.convert(time, TimeUnit.NANOSECONDS);
 
 				while (!cancelled) {
-					PacketEvent packet = queuedPackets.poll();
+					PacketEvent packet = pollPacket();
 
-					if (packet == INTERUPT_PACKET || packet == WAKEUP_PACKET) {
-						// Sorry, asynchronous threads!
-						queuedPackets.add(packet);
-
-						// Try again next tick
-						break;
-					} else if (packet != null && packet.getAsyncMarker() != null) {
+					if (packet != null && packet.getAsyncMarker() != null) {
 						processPacket(workerID, packet, "onSyncPacket()");
-					} else {
+					} else if (packet == null) {
 						// No more packets left - wait a tick
 						break;
 					}
@@ -460,8 +624,13 @@ public class AsyncListenerHandler {
 	}
 	
 	/**
-	 * Start multiple worker threads for this listener.
-	 * @param count - number of worker threads to start.
+	 * Start multiple workers for this listener.
+	 * <p>
+	 * The workers share the worker pool with every other asynchronous listener. A worker that blocks, such as on a
+	 * database or HTTP request, lets the pool start a replacement thread, so the pool may temporarily have up to one
+	 * thread per running worker. Listeners that block for long periods should still use as few workers as possible,
+	 * or {@link #startVirtual()} where it's supported.
+	 * @param count - number of workers to start.
 	 */
 	public synchronized void start(int count) {
 		for (int i = 0; i < count; i++)
@@ -469,15 +638,35 @@ public class AsyncListenerHandler {
 	}
 	
 	/**
-	 * Stop a worker thread.
+	 * Stop a worker.
+	 * <p>
+	 * Pooled workers are stopped first. Otherwise, the next listener loop to look for a packet will stop.
 	 */
 	public synchronized void stop() {
-		queuedPackets.add(INTERUPT_PACKET);
+		if (decrementIfPositive(pooledWorkers)) {
+			started.decrementAndGet();
+		} else {
+			pendingStops.incrementAndGet();
+			
+			synchronized (stopLock) {
+				stopLock.notifyAll();
+			}
+		}
+	}
+	
+	private static boolean decrementIfPositive(AtomicInteger value) {
+		while (true) {
+			int current = value.get();
+			if (current <= 0)
+				return false;
+			if (value.compareAndSet(current, current - 1))
+				return true;
+		}
 	}
 	
 	/**
-	 * Stop the given amount of worker threads.
-	 * @param count - number of threads to stop.
+	 * Stop the given amount of workers.
+	 * @param count - number of workers to stop.
 	 */
 	public synchronized void stop(int count) {
 		for (int i = 0; i < count; i++)
@@ -559,23 +748,25 @@ public class AsyncListenerHandler {
 			started.incrementAndGet();
 			
 			while (!cancelled) {
-				PacketEvent packet = queuedPackets.take();
+				// Are we the one who is supposed to stop?
+				if (stoppedTasks.contains(workerID) || decrementIfPositive(pendingStops))
+					return;
+				
+				PacketEvent packet = pollPacket();
 				
-				// Handle cancel requests
-				if (packet == WAKEUP_PACKET) {
-					// This is a bit slow, but it should be safe
+				if (packet == null) {
 					synchronized (stopLock) {
-						// Are we the one who is supposed to stop?
-						if (stoppedTasks.contains(workerID))
-							return;
-						if (waitForStops())
-							return;
+						waitingLoops++;
+						
+						// Check again now that we're waiting, so we cannot miss a new packet
+						try {
+							if (queueSize.get() == 0 && !cancelled && pendingStops.get() == 0 && !stoppedTasks.contains(workerID))
+								stopLock.wait();
+						} finally {
+							waitingLoops--;
+						}
 					}
-				} else if (packet == INTERUPT_PACKET) {
-					return;
-				}
-				
-				if (packet != null && packet.getAsyncMarker() != null) {
+				} else if (packet.getAsyncMarker() != null) {
 					processPacket(workerID, packet, "onAsyncPacket()");
 				}
 			}
@@ -602,6 +793,13 @@ public class AsyncListenerHandler {
 			synchronized (marker.getProcessingLock()) {
 				marker.setListenerHandler(this);
 				marker.setWorkerID(workerID);
+
+				// Only copy the packet once the listener modifies it
+				ListeningWhitelist whitelist = packet.isServerPacket()
+						? listener.getSendingWhitelist() : listener.getReceivingWhitelist();
+				if (whitelist.getOptions() != null && whitelist.getOptions().contains(ListenerOptions.COPY_ON_WRITE)) {
+					packet.setCopyOnWrite();
+				}
 				
 				// We're not THAT worried about performance here
 				if (timedManager.isTiming()) {
@@ -672,14 +870,16 @@ public class AsyncListenerHandler {
 	}
 	
 	/**
-	 * Use the poision pill method to stop every worker thread.
+	 * Stop every worker.
 	 */
 	private void stopThreads() {
-		// Poison Pill Shutdown
-		queuedPackets.clear();
-		stop(started.get());
+		// Drop the remaining packets
+		while (pollPacket() != null) {
+			// keep the metrics up to date
+		}
+		started.addAndGet(-pooledWorkers.getAndSet(0));
 		
-		// Individual shut down is irrelevant now
+		// Every listener loop checks the cancel flag once it wakes up
 		synchronized (stopLock) {
 			stopLock.notifyAll();
 		}
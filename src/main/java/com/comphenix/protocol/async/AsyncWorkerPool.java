@@ -0,0 +1,229 @@
+package com.comphenix.protocol.async;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The threads shared by the workers of every asynchronous listener.
+ * <p>
+ * Each worker started by {@link AsyncListenerHandler#start()} is a permit to process the queue of its listener on this
+ * pool, rather than a thread of its own. The pool is a work-stealing {@link ForkJoinPool} in asynchronous mode, so
+ * the queues of different listeners are processed in the order they were scheduled. Every batch of packets is run as a
+ * {@link ForkJoinPool.ManagedBlocker}, so the pool starts another thread while a listener blocks, instead of leaving
+ * the listeners of every other plugin waiting.
+ * <p>
+ * On Java 21 and later, workers can run on virtual threads instead. Every batch of packets is then processed by a new
+ * virtual thread, so a listener that blocks only parks its virtual thread and leaves the carrier threads to other
+ * listeners.
+ */
+final class AsyncWorkerPool {
+
+	// unique thread ID
+	private static final AtomicInteger nextThreadID = new AtomicInteger();
+
+	// Executors.newVirtualThreadPerTaskExecutor(), if this runtime supports virtual threads
+	private static final Method NEW_VIRTUAL_EXECUTOR = findVirtualExecutorFactory();
+
+	private volatile ExecutorService executor;
+	private volatile ExecutorService virtualExecutor;
+	private volatile boolean virtualThreads;
+	private int parallelism;
+	private boolean closed;
+
+	/**
+	 * Construct a new pool with the given number of threads.
+	 *
+	 * @param parallelism - the number of threads, or zero for the number of available processors.
+	 */
+	AsyncWorkerPool(int parallelism) {
+		this.parallelism = resolveParallelism(parallelism);
+	}
+
+	private static int resolveParallelism(int parallelism) {
+		if (parallelism < 0) {
+			throw new IllegalArgumentException("Number of threads cannot be less than zero.");
+		}
+		return parallelism > 0 ? parallelism : Math.max(2, Runtime.getRuntime().availableProcessors());
+	}
+
+	private static Method findVirtualExecutorFactory() {
+		try {
+			Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+
+			// Java 19 and 20 have the method, but it throws unless preview features are enabled
+			((ExecutorService) factory.invoke(null)).shutdown();
+			return factory;
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Determine if this runtime is able to run workers on virtual threads.
+	 *
+	 * @return TRUE if it is, FALSE otherwise.
+	 */
+	static boolean isVirtualThreadsSupported() {
+		return NEW_VIRTUAL_EXECUTOR != null;
+	}
+
+	private static ExecutorService createVirtualExecutor() {
+		try {
+			return (ExecutorService) NEW_VIRTUAL_EXECUTOR.invoke(null);
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalStateException("Unable to create a virtual thread executor.", e);
+		}
+	}
+
+	private static ExecutorService createExecutor(int parallelism) {
+		return new ForkJoinPool(parallelism, pool -> {
+			ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+			thread.setName("Protocol Worker Pool #" + nextThreadID.incrementAndGet());
+			return thread;
+		}, null, true);
+	}
+
+	/**
+	 * Execute the given task on the pool, starting the pool if necessary.
+	 *
+	 * @param task - the task to execute.
+	 * @throws RejectedExecutionException If the pool has been shut down.
+	 */
+	void execute(Runnable task) {
+		this.execute(task, this.virtualThreads);
+	}
+
+	/**
+	 * Execute the given task on the pool, or on a new virtual thread.
+	 *
+	 * @param task    - the task to execute.
+	 * @param virtual - whether or not to execute the task on a virtual thread.
+	 * @throws RejectedExecutionException If the pool has been shut down.
+	 * @throws IllegalStateException      If virtual threads are not supported by this runtime.
+	 */
+	void execute(Runnable task, boolean virtual) {
+		if (virtual) {
+			ExecutorService current = this.virtualExecutor;
+			if (current == null) {
+				current = this.startVirtual();
+			}
+			// the virtual executor is only ever replaced on shutdown
+			current.execute(task);
+			return;
+		}
+
+		while (true) {
+			ExecutorService current = this.executor;
+			if (current == null) {
+				current = this.start();
+			}
+
+			try {
+				current.execute(task);
+				return;
+			} catch (RejectedExecutionException e) {
+				// the pool might have been replaced in the meantime
+				if (current == this.executor) {
+					throw e;
+				}
+			}
+		}
+	}
+
+	private synchronized ExecutorService start() {
+		if (this.closed) {
+			throw new RejectedExecutionException("The worker pool has been shut down.");
+		}
+		if (this.executor == null) {
+			this.executor = createExecutor(this.parallelism);
+		}
+		return this.executor;
+	}
+
+	private synchronized ExecutorService startVirtual() {
+		if (!isVirtualThreadsSupported()) {
+			throw new IllegalStateException("Virtual threads require Java 21 or later.");
+		}
+		if (this.closed) {
+			throw new RejectedExecutionException("The worker pool has been shut down.");
+		}
+		if (this.virtualExecutor == null) {
+			this.virtualExecutor = createVirtualExecutor();
+		}
+		return this.virtualExecutor;
+	}
+
+	/**
+	 * Determine if workers run on virtual threads unless their listener specifies otherwise.
+	 *
+	 * @return TRUE if they do, FALSE otherwise.
+	 */
+	boolean isVirtualThreads() {
+		return this.virtualThreads;
+	}
+
+	/**
+	 * Set whether or not workers run on virtual threads unless their listener specifies otherwise.
+	 *
+	 * @param virtualThreads - TRUE to run them on virtual threads, FALSE to run them on the pool.
+	 * @throws IllegalStateException If virtual threads are not supported by this runtime.
+	 */
+	void setVirtualThreads(boolean virtualThreads) {
+		if (virtualThreads && !isVirtualThreadsSupported()) {
+			throw new IllegalStateException("Virtual threads require Java 21 or later.");
+		}
+		this.virtualThreads = virtualThreads;
+	}
+
+	/**
+	 * Retrieve the number of threads of the pool.
+	 *
+	 * @return The number of threads.
+	 */
+	synchronized int getParallelism() {
+		return this.parallelism;
+	}
+
+	/**
+	 * Change the number of threads of the pool.
+	 * <p>
+	 * The threads of the current pool finish the tasks they are executing, while new tasks are executed by a new pool.
+	 *
+	 * @param parallelism - the number of threads, or zero for the number of available processors.
+	 */
+	synchronized void setParallelism(int parallelism) {
+		int resolved = resolveParallelism(parallelism);
+		if (resolved != this.parallelism) {
+			this.parallelism = resolved;
+
+			// the next task starts a new pool with the updated number of threads
+			ExecutorService previous = this.executor;
+			this.executor = null;
+			if (previous != null) {
+				previous.shutdown();
+			}
+		}
+	}
+
+	/**
+	 * Stop the pool once every executing task has finished, and reject every new task.
+	 */
+	synchronized void shutdown() {
+		ExecutorService previous = this.executor;
+		ExecutorService previousVirtual = this.virtualExecutor;
+		this.closed = true;
+		this.executor = null;
+		this.virtualExecutor = null;
+		if (previous != null) {
+			previous.shutdown();
+		}
+		if (previousVirtual != null) {
+			previousVirtual.shutdown();
+		}
+	}
+}
@@ -0,0 +1,132 @@
+package com.comphenix.protocol.async;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * A hashed timing wheel that tells when elements are due, given the time they expire.
+ * <p>
+ * The wheel is divided into slots that each cover a fixed span of time. Scheduling an element adds it to the slot of
+ * its expiration time, and advancing the wheel only visits the slots that have elapsed since the previous advance, so
+ * both are cheap regardless of the number of scheduled elements. Elements that expire more than one rotation ahead
+ * are visited once per rotation until they are due.
+ * <p>
+ * Elements are reported with the precision of a single slot, so the consumer should check whether an element has
+ * actually expired, and schedule it again if it hasn't.
+ *
+ * @param <T> - the type of the elements.
+ */
+final class ExpiryWheel<T> {
+
+	private final long resolution;
+	private final List<Entry<T>>[] slots;
+
+	// the last tick that has been advanced past
+	private long currentTick;
+
+	/**
+	 * Construct a new wheel.
+	 *
+	 * @param resolution - the span of time covered by each slot, in milliseconds.
+	 * @param slotCount  - the number of slots, rounded up to a power of two.
+	 * @param now        - the current time, in milliseconds.
+	 */
+	@SuppressWarnings("unchecked")
+	ExpiryWheel(long resolution, int slotCount, long now) {
+		if (resolution <= 0) {
+			throw new IllegalArgumentException("Resolution must be positive.");
+		}
+
+		this.resolution = resolution;
+		this.slots = new List[Integer.highestOneBit(Math.max(2, slotCount) - 1) << 1];
+		for (int i = 0; i < this.slots.length; i++) {
+			this.slots[i] = new ArrayList<>();
+		}
+		this.currentTick = now / resolution;
+	}
+
+	/**
+	 * Schedule the given element to be reported once the given time has passed.
+	 *
+	 * @param element    - the element.
+	 * @param expiration - the time the element expires, in milliseconds.
+	 */
+	synchronized void schedule(T element, long expiration) {
+		// elements that are already due are reported by the next advance
+		long tick = Math.max(expiration / this.resolution, this.currentTick + 1);
+		this.slots[(int) (tick & (this.slots.length - 1))].add(new Entry<>(element, expiration));
+	}
+
+	/**
+	 * Advance the wheel to the given time, and report every element that has expired.
+	 * <p>
+	 * The elements are reported after the wheel has been updated, so they may be scheduled again by the consumer.
+	 *
+	 * @param now      - the current time, in milliseconds.
+	 * @param consumer - the consumer of every expired element.
+	 */
+	void advance(long now, Consumer<? super T> consumer) {
+		List<T> expired = new ArrayList<>();
+
+		synchronized (this) {
+			long tick = now / this.resolution;
+			if (tick <= this.currentTick) {
+				return;
+			}
+
+			// visit every slot at most once, even if the wheel hasn't been advanced for a full rotation
+			long first = Math.max(this.currentTick + 1, tick - this.slots.length + 1);
+			for (long current = first; current <= tick; current++) {
+				Iterator<Entry<T>> iterator = this.slots[(int) (current & (this.slots.length - 1))].iterator();
+
+				while (iterator.hasNext()) {
+					Entry<T> entry = iterator.next();
+					if (entry.expiration / this.resolution <= tick) {
+						expired.add(entry.element);
+						iterator.remove();
+					}
+				}
+			}
+			this.currentTick = tick;
+		}
+
+		for (T element : expired) {
+			consumer.accept(element);
+		}
+	}
+
+	/**
+	 * Retrieve the number of scheduled elements.
+	 *
+	 * @return The number of elements.
+	 */
+	synchronized int size() {
+		int size = 0;
+		for (List<Entry<T>> slot : this.slots) {
+			size += slot.size();
+		}
+		return size;
+	}
+
+	/**
+	 * Remove every scheduled element.
+	 */
+	synchronized void clear() {
+		for (List<Entry<T>> slot : this.slots) {
+			slot.clear();
+		}
+	}
+
+	private static final class Entry<T> {
+
+		private final T element;
+		private final long expiration;
+
+		Entry(T element, long expiration) {
+			this.element = element;
+			this.expiration = expiration;
+		}
+	}
+}
@@ -17,19 +17,14 @@
 
 package com.comphenix.protocol.async;
 
-import java.util.Collection;
 import java.util.Iterator;
-import java.util.PriorityQueue;
-import java.util.Queue;
 import java.util.concurrent.Semaphore;
 
-import com.comphenix.protocol.ProtocolLibrary;
 import com.comphenix.protocol.concurrency.AbstractConcurrentListenerMultimap;
-import com.comphenix.protocol.error.Report;
-import com.comphenix.protocol.error.ReportType;
+import com.comphenix.protocol.concurrency.ListenerDispatchTable;
 import com.comphenix.protocol.events.PacketEvent;
 import com.comphenix.protocol.injector.PrioritizedListener;
-import com.google.common.collect.MinMaxPriorityQueue;
+import com.google.common.collect.Iterators;
 
 
 /**
@@ -38,9 +33,6 @@ import com.google.common.collect.MinMaxPriorityQueue;
  * @author Kristian
  */
 class PacketProcessingQueue extends AbstractConcurrentListenerMultimap<AsyncListenerHandler> {
-	public static final ReportType REPORT_GUAVA_CORRUPT_MISSING = 
-			new ReportType("Guava is either missing or corrupt. Reverting to PriorityQueue.");
-
 	// Initial number of elements
 	public static final int INITIAL_CAPACITY = 64;
 	
@@ -60,8 +52,9 @@ class PacketProcessingQueue extends AbstractConcurrentListenerMultimap<AsyncList
 	private final int maximumConcurrency;
 	private Semaphore concurrentProcessing;
 	
-	// Queued packets for being processed
-	private Queue<PacketEventHolder> processingQueue;
+	// Queued packets for being processed, in order of sending index
+	private final SequencedRingBuffer<PacketEvent> processingQueue;
+	private final int maximumSize;
 	
 	// Packets for sending
 	private PlayerSendingHandler sendingHandler;
@@ -73,21 +66,8 @@ class PacketProcessingQueue extends AbstractConcurrentListenerMultimap<AsyncList
 	public PacketProcessingQueue(PlayerSendingHandler sendingHandler, int initialSize, int maximumSize, int maximumConcurrency) {
 		super();
 
-		try {
-			this.processingQueue = Synchronization.queue(MinMaxPriorityQueue.
-					expectedSize(initialSize).
-					maximumSize(maximumSize).
-					<PacketEventHolder>create(), null);
-		} catch (IncompatibleClassChangeError e) {
-			// Print in the console
-			ProtocolLibrary.getErrorReporter().reportWarning(
-				this, Report.newBuilder(REPORT_GUAVA_CORRUPT_MISSING).error(e));
-			
-			// It's a Beta class after all
-			this.processingQueue = Synchronization.queue(
-					new PriorityQueue<PacketEventHolder>(), null);
-		}
-				
+		this.processingQueue = new SequencedRingBuffer<>(initialSize);
+		this.maximumSize = maximumSize;
 		this.maximumConcurrency = maximumConcurrency;
 		this.concurrentProcessing = new Semaphore(maximumConcurrency);
 		this.sendingHandler = sendingHandler;
@@ -100,15 +80,15 @@ class PacketProcessingQueue extends AbstractConcurrentListenerMultimap<AsyncList
 	 * @return TRUE if we sucessfully queued the packet, FALSE if the queue ran out if space.
 	 */
 	public boolean enqueue(PacketEvent packet, boolean onMainThread) {
-		try {
-			processingQueue.add(new PacketEventHolder(packet));
-
-			// Begin processing packets
-			signalBeginProcessing(onMainThread);
-			return true;
-		} catch (IllegalStateException e) {
-			return false;
+		synchronized (processingQueue) {
+			if (processingQueue.size() >= maximumSize)
+				return false;
+			processingQueue.add(packet, packet.getAsyncMarker().getNewSendingIndex());
 		}
+
+		// Begin processing packets
+		signalBeginProcessing(onMainThread);
+		return true;
 	}
 	
 	/**
@@ -116,7 +96,15 @@ class PacketProcessingQueue extends AbstractConcurrentListenerMultimap<AsyncList
 	 * @return The number of packet events in the queue.
 	 */
 	public int size() {
-		return processingQueue.size();
+		synchronized (processingQueue) {
+			return processingQueue.size();
+		}
+	}
+	
+	private PacketEvent poll() {
+		synchronized (processingQueue) {
+			return processingQueue.poll();
+		}
 	}
 	
 	/**
@@ -125,25 +113,24 @@ class PacketProcessingQueue extends AbstractConcurrentListenerMultimap<AsyncList
 	 */
 	public void signalBeginProcessing(boolean onMainThread) {	
 		while (concurrentProcessing.tryAcquire()) {
-			PacketEventHolder holder = processingQueue.poll();
+			PacketEvent packet = poll();
 			
 			// Any packet queued?
-			if (holder != null) {
-				PacketEvent packet = holder.getEvent();
+			if (packet != null) {
 				AsyncMarker marker = packet.getAsyncMarker();
-				Collection<PrioritizedListener<AsyncListenerHandler>> list = getListener(packet.getPacketType());
+				ListenerDispatchTable.Entry<AsyncListenerHandler> entry =
+						getDispatchTable().getEntry(packet.getPacket().getHandle().getClass());
 				
 				marker.incrementProcessingDelay();
 				
 				// Yes, removing the marker will cause the chain to stop
-				if (list != null) {
-					Iterator<PrioritizedListener<AsyncListenerHandler>> iterator = list.iterator();
+				if (entry != null && entry.getListeners().length > 0) {
+					// The entry array is immutable, so the traversal is unaffected by later registrations
+					Iterator<PrioritizedListener<AsyncListenerHandler>> iterator = Iterators.forArray(entry.getListeners());
 					
-					if (iterator.hasNext()) {
-						marker.setListenerTraversal(iterator);
-						iterator.next().getListener().enqueuePacket(packet);
-						continue;
-					}
+					marker.setListenerTraversal(iterator);
+					iterator.next().getListener().enqueuePacket(packet);
+					continue;
 				}
 				
 				// The packet has no further listeners. Just send it.
@@ -191,6 +178,8 @@ class PacketProcessingQueue extends AbstractConcurrentListenerMultimap<AsyncList
 		clearListeners();
 		
 		// Remove every packet in the queue
-		processingQueue.clear();
+		synchronized (processingQueue) {
+			processingQueue.clear();
+		}
 	}
 }
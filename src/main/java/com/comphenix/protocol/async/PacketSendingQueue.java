@@ -21,8 +21,6 @@ import java.io.IOException;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
-import java.util.concurrent.Executor;
-import java.util.concurrent.PriorityBlockingQueue;
 
 import com.comphenix.protocol.PacketType;
 import com.comphenix.protocol.events.PacketEvent;
@@ -32,29 +30,35 @@ import org.bukkit.entity.Player;
 
 /**
  * Represents packets ready to be transmitted to a client.
+ * <p>
+ * Packets are kept in order of their sending index, and only the packet with the lowest index is ever examined. Once
+ * it has been processed, it is sent along with every processed packet after it, until a packet that is still being
+ * processed is reached. The queue then waits for that packet to be processed, or to time out.
+ * <p>
+ * Packets are sent by the thread that finishes processing them. Only client packets that Minecraft must handle on
+ * the main thread wait for the next main thread heartbeat.
  *
  * @author Kristian
  */
 abstract class PacketSendingQueue {
 
-	public static final int INITIAL_CAPACITY = 10;
+	public static final int INITIAL_CAPACITY = 16;
 	// Whether or not packet transmission must occur on a specific thread
 	private final boolean notThreadSafe;
-	private final PriorityBlockingQueue<PacketEventHolder> sendingQueue;
-	// Asynchronous packet sending
-	private final Executor asynchronousSender;
+	private final SequencedRingBuffer<PacketEvent> sendingQueue;
 	// Whether or not we've run the cleanup procedure
 	private boolean cleanedUp = false;
+	// The earliest timeout the queue has asked to be checked at
+	private long scheduledTimeout = Long.MAX_VALUE;
 
 	/**
 	 * Create a packet sending queue.
 	 *
 	 * @param notThreadSafe - whether or not to synchronize with the main thread or a background thread.
 	 */
-	public PacketSendingQueue(boolean notThreadSafe, Executor asynchronousSender) {
-		this.sendingQueue = new PriorityBlockingQueue<>(INITIAL_CAPACITY);
+	public PacketSendingQueue(boolean notThreadSafe) {
+		this.sendingQueue = new SequencedRingBuffer<>(INITIAL_CAPACITY);
 		this.notThreadSafe = notThreadSafe;
-		this.asynchronousSender = asynchronousSender;
 	}
 
 	/**
@@ -62,7 +66,7 @@ abstract class PacketSendingQueue {
 	 *
 	 * @return The number of packet events in the queue.
 	 */
-	public int size() {
+	public synchronized int size() {
 		return sendingQueue.size();
 	}
 
@@ -71,8 +75,9 @@ abstract class PacketSendingQueue {
 	 *
 	 * @param packet - packet to queue.
 	 */
-	public void enqueue(PacketEvent packet) {
-		sendingQueue.add(new PacketEventHolder(packet));
+	public synchronized void enqueue(PacketEvent packet) {
+		AsyncMarker marker = packet.getAsyncMarker();
+		sendingQueue.add(packet, marker != null ? marker.getNewSendingIndex() : 0);
 	}
 
 	/**
@@ -111,8 +116,8 @@ abstract class PacketSendingQueue {
 		Set<PacketType> lookup = new HashSet<>(packetsRemoved);
 
 		// Note that this is O(n), so it might be expensive
-		for (PacketEventHolder holder : sendingQueue) {
-			PacketEvent event = holder.getEvent();
+		for (int i = 0; i < sendingQueue.size(); i++) {
+			PacketEvent event = sendingQueue.get(i);
 
 			if (lookup.contains(event.getPacketType())) {
 				event.getAsyncMarker().setProcessed(true);
@@ -128,38 +133,48 @@ abstract class PacketSendingQueue {
 	 *
 	 * @param onMainThread - whether or not this is occuring on the main thread.
 	 */
-	public void trySendPackets(boolean onMainThread) {
-		// Whether or not to continue sending packets
-		boolean sending = true;
-
+	public synchronized void trySendPackets(boolean onMainThread) {
 		// Transmit as many packets as we can
-		while (sending) {
-			PacketEventHolder holder = sendingQueue.poll();
-
-			if (holder != null) {
-				sending = processPacketHolder(onMainThread, holder);
-
-				if (!sending) {
-					// Add it back again
-					sendingQueue.add(holder);
+		while (!sendingQueue.isEmpty()) {
+			long sendingIndex = sendingQueue.peekSequence();
+			PacketEvent current = sendingQueue.poll();
+
+			if (!processPacketHolder(onMainThread, current)) {
+				// Put it back at the head, in front of any packet with the same sending index
+				sendingQueue.addFirst(current, sendingIndex);
+
+				AsyncMarker marker = current.getAsyncMarker();
+				if (marker.isProcessed()) {
+					// Only the main thread may send it
+					onMainThreadRequired();
+				} else if (marker.getTimeout() < scheduledTimeout) {
+					// Check it again once it has timed out, unless it is processed before then
+					scheduledTimeout = marker.getTimeout();
+					onTimeoutScheduled(scheduledTimeout);
 				}
-
-			} else {
-				// No more packets to send
-				sending = false;
+				return;
 			}
 		}
 	}
 
+	/**
+	 * Invoked when the earliest timeout the queue has asked to be checked at has passed.
+	 *
+	 * @param onMainThread - whether or not this is occuring on the main thread.
+	 */
+	public synchronized void signalTimeout(boolean onMainThread) {
+		scheduledTimeout = Long.MAX_VALUE;
+		trySendPackets(onMainThread);
+	}
+
 	/**
 	 * Invoked when a packet might be ready for transmission.
 	 *
 	 * @param onMainThread - TRUE if we're on the main thread, FALSE otherwise.
-	 * @param holder       - packet container.
+	 * @param current      - the packet.
 	 * @return TRUE to continue sending packets, FALSE otherwise.
 	 */
-	private boolean processPacketHolder(boolean onMainThread, final PacketEventHolder holder) {
-		PacketEvent current = holder.getEvent();
+	private boolean processPacketHolder(boolean onMainThread, final PacketEvent current) {
 		AsyncMarker marker = current.getAsyncMarker();
 		boolean hasExpired = marker.hasExpired();
 
@@ -189,23 +204,10 @@ abstract class PacketSendingQueue {
 				// Make sure we're on the main thread
 				if (notThreadSafe) {
 					try {
-						boolean wantAsync = marker.isMinecraftAsync(current);
-						boolean wantSync = !wantAsync;
-
 						// Wait for the next main thread heartbeat if we haven't fulfilled our promise
-						if (!onMainThread && wantSync) {
+						if (!onMainThread && !marker.isMinecraftAsync(current)) {
 							return false;
 						}
-
-						// Let's give it what it wants
-						if (onMainThread && wantAsync) {
-							// We know this isn't on the main thread
-							asynchronousSender.execute(() -> processPacketHolder(false, holder));
-
-							// Scheduler will do the rest
-							return true;
-						}
-
 					} catch (FieldAccessException e) {
 						e.printStackTrace();
 
@@ -214,7 +216,8 @@ abstract class PacketSendingQueue {
 					}
 				}
 
-				// Silently skip players that have logged out
+				// Silently skip players that have logged out - the packet stream hands the packet to the event loop of
+				// the player, so this never blocks the main thread on asynchronous packets
 				if (isOnline(current.getPlayer())) {
 					sendPacket(current);
 				}
@@ -235,6 +238,22 @@ abstract class PacketSendingQueue {
 	 */
 	protected abstract void onPacketTimeout(PacketEvent event);
 
+	/**
+	 * Invoked when the next packet is still being processed, and should be checked again once it times out.
+	 * <p>
+	 * The queue must be signalled through {@link #signalTimeout(boolean)} once the given time has passed.
+	 *
+	 * @param timeout - the time the packet times out, in milliseconds since 01.01.1970 00:00.
+	 */
+	protected abstract void onTimeoutScheduled(long timeout);
+
+	/**
+	 * Invoked when the next packet has been processed, but must be sent on the main thread.
+	 * <p>
+	 * The queue must be signalled through {@link #trySendPackets(boolean)} on the main thread.
+	 */
+	protected abstract void onMainThreadRequired();
+
 	private boolean isOnline(Player player) {
 		return player != null && player.isOnline();
 	}
@@ -244,10 +263,10 @@ abstract class PacketSendingQueue {
 	 */
 	private void forceSend() {
 		while (true) {
-			PacketEventHolder holder = sendingQueue.poll();
+			PacketEvent current = sendingQueue.poll();
 
-			if (holder != null) {
-				sendPacket(holder.getEvent());
+			if (current != null) {
+				sendPacket(current);
 			} else {
 				break;
 			}
@@ -284,7 +303,7 @@ abstract class PacketSendingQueue {
 	/**
 	 * Automatically transmits every delayed packet.
 	 */
-	public void cleanupAll() {
+	public synchronized void cleanupAll() {
 		if (!cleanedUp) {
 			// Note that the cleanup itself will always occur on the main thread
 			forceSend();
@@ -293,4 +312,12 @@ abstract class PacketSendingQueue {
 			cleanedUp = true;
 		}
 	}
+
+	/**
+	 * Drop every delayed packet without sending it.
+	 */
+	public synchronized void discardAll() {
+		sendingQueue.clear();
+		cleanedUp = true;
+	}
 }
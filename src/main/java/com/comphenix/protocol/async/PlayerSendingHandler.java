@@ -19,17 +19,15 @@ package com.comphenix.protocol.async;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
-import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ThreadFactory;
 
 import com.comphenix.protocol.PacketType;
 import com.comphenix.protocol.concurrency.ConcurrentPlayerMap;
 import com.comphenix.protocol.error.ErrorReporter;
 import com.comphenix.protocol.events.PacketEvent;
 import com.comphenix.protocol.injector.SortedPacketListenerList;
-import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 import org.bukkit.entity.Player;
 
@@ -39,19 +37,44 @@ import org.bukkit.entity.Player;
  * @author Kristian
  */
 class PlayerSendingHandler {
+	// Resolution and number of slots of the timeout wheel - one rotation spans 12.8 seconds
+	private static final long TIMEOUT_RESOLUTION = 50;
+	private static final int TIMEOUT_SLOTS = 256;
+	
 	private final ErrorReporter reporter;
 	private final ConcurrentMap<Player, QueueContainer> playerSendingQueues;
 	
+	// Queues waiting for a packet to time out, and queues waiting for the main thread
+	private final ExpiryWheel<PacketSendingQueue> timeoutWheel =
+			new ExpiryWheel<>(TIMEOUT_RESOLUTION, TIMEOUT_SLOTS, System.currentTimeMillis());
+	private final Set<PacketSendingQueue> mainThreadQueues = ConcurrentHashMap.newKeySet();
+	
 	// Timeout listeners
 	private final SortedPacketListenerList serverTimeoutListeners;
 	private final SortedPacketListenerList clientTimeoutListeners;
 	
-	// Asynchronous packet sending
-	private Executor asynchronousSender;
-	
 	// Whether or not we're currently cleaning up
 	private volatile boolean cleaningUp;
 	
+	/**
+	 * A sending queue that is checked again by this handler when it has to wait.
+	 */
+	private abstract class PlayerSendingQueue extends PacketSendingQueue {
+		PlayerSendingQueue(boolean notThreadSafe) {
+			super(notThreadSafe);
+		}
+
+		@Override
+		protected void onTimeoutScheduled(long timeout) {
+			timeoutWheel.schedule(this, timeout);
+		}
+
+		@Override
+		protected void onMainThreadRequired() {
+			mainThreadQueues.add(this);
+		}
+	}
+	
 	/**
 	 * Sending queues for a given player.
 	 * 
@@ -63,7 +86,7 @@ class PlayerSendingHandler {
 		
 		public QueueContainer() {
 			// Server packets can be sent concurrently
-			serverQueue = new PacketSendingQueue(false, asynchronousSender) {
+			serverQueue = new PlayerSendingQueue(false) {
 				@Override
 				protected void onPacketTimeout(PacketEvent event) {
 					if (!cleaningUp) {
@@ -73,7 +96,7 @@ class PlayerSendingHandler {
 			};
 			
 			// Client packets must be synchronized
-			clientQueue = new PacketSendingQueue(true, asynchronousSender) {
+			clientQueue = new PlayerSendingQueue(true) {
 				@Override
 				protected void onPacketTimeout(PacketEvent event) {
 					if (!cleaningUp) {
@@ -82,6 +105,16 @@ class PlayerSendingHandler {
 				}
 			};
 		}
+		
+		/**
+		 * Drop every delayed packet of this player.
+		 */
+		public void discardAll() {
+			serverQueue.discardAll();
+			clientQueue.discardAll();
+			mainThreadQueues.remove(serverQueue);
+			mainThreadQueues.remove(clientQueue);
+		}
 
 		public PacketSendingQueue getServerQueue() {
 			return serverQueue;
@@ -109,19 +142,6 @@ class PlayerSendingHandler {
 		this.playerSendingQueues = ConcurrentPlayerMap.usingAddress();
 	}
 	
-	/**
-	 * Start the asynchronous packet sender.
-	 */
-	public synchronized void initializeScheduler() {
-		if (asynchronousSender == null) {
-			ThreadFactory factory = new ThreadFactoryBuilder().
-				setDaemon(true).
-				setNameFormat("ProtocolLib-AsyncSender %s").
-				build();
-			asynchronousSender = Executors.newSingleThreadExecutor(factory);
-		}
-	}
-
 	/**
 	 * Retrieve the sending queue this packet belongs to.
 	 * @param packet - the packet.
@@ -196,6 +216,29 @@ class PlayerSendingHandler {
 		}
 	}
 	
+	/**
+	 * Send or drop the packets that have timed out, along with every processed packet after them.
+	 * <p>
+	 * Only the queues waiting for a packet that has timed out are visited.
+	 * @param onMainThread - whether this is occurring on the main thread.
+	 */
+	public void trySendTimedOutPackets(boolean onMainThread) {
+		timeoutWheel.advance(System.currentTimeMillis(), queue -> queue.signalTimeout(onMainThread));
+	}
+	
+	/**
+	 * Send the processed packets that are waiting for the main thread.
+	 * <p>
+	 * This must be called on the main thread.
+	 */
+	public void trySendMainThreadPackets() {
+		for (PacketSendingQueue queue : mainThreadQueues) {
+			// Queues that are still waiting after this are added again
+			mainThreadQueues.remove(queue);
+			queue.trySendPackets(true);
+		}
+	}
+	
 	/**
 	 * Send any outstanding server packets.
 	 * @param onMainThread - whether this is occurring on the main thread.
@@ -249,6 +292,8 @@ class PlayerSendingHandler {
 			
 			sendAllPackets();
 			playerSendingQueues.clear();
+			timeoutWheel.clear();
+			mainThreadQueues.clear();
 		}
 	}
 
@@ -258,6 +303,10 @@ class PlayerSendingHandler {
 	 */
 	public void removePlayer(Player player) {
 		// Every packet will be dropped - there's nothing we can do
-		playerSendingQueues.remove(player);
+		QueueContainer queues = playerSendingQueues.remove(player);
+		
+		// The timeout wheel might still refer to the queues, so don't let it hold on to the packets
+		if (queues != null)
+			queues.discardAll();
 	}
 }
@@ -0,0 +1,209 @@
+package com.comphenix.protocol.async;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * A ring buffer of elements ordered by an increasing sequence number, such as the sending index of a packet.
+ * <p>
+ * Sequence numbers are mostly added in increasing order, which appends to the end of the buffer in constant time, and
+ * elements are always removed from the head in constant time. Elements that arrive out of order are inserted at
+ * their position by shifting the elements after it. Elements with the same sequence number keep the order they were
+ * added in, except for elements that are put back at the head with {@link #addFirst(Object, long)}.
+ * <p>
+ * This class is not thread safe.
+ *
+ * @param <T> - the type of the elements.
+ */
+final class SequencedRingBuffer<T> {
+
+	private Object[] elements;
+	private long[] sequences;
+
+	// the position of the head, and the number of elements
+	private int head;
+	private int size;
+
+	/**
+	 * Construct a new buffer with the given initial capacity.
+	 *
+	 * @param initialCapacity - the initial capacity, rounded up to a power of two.
+	 */
+	SequencedRingBuffer(int initialCapacity) {
+		int capacity = Integer.highestOneBit(Math.max(2, initialCapacity) - 1) << 1;
+		this.elements = new Object[capacity];
+		this.sequences = new long[capacity];
+	}
+
+	private int mask() {
+		return this.elements.length - 1;
+	}
+
+	// the physical position of the element at the given logical index
+	private int position(int index) {
+		return (this.head + index) & this.mask();
+	}
+
+	/**
+	 * Add an element with the given sequence number.
+	 *
+	 * @param element  - the element to add.
+	 * @param sequence - the sequence number of the element.
+	 */
+	void add(T element, long sequence) {
+		if (this.size == this.elements.length) {
+			this.grow();
+		}
+
+		if (this.size == 0 || sequence >= this.sequences[this.position(this.size - 1)]) {
+			this.set(this.position(this.size), element, sequence);
+		} else if (sequence < this.sequences[this.head]) {
+			this.head = (this.head - 1) & this.mask();
+			this.set(this.head, element, sequence);
+		} else {
+			// find the first element with a greater sequence number, and shift it and every element after it
+			int low = 0;
+			int high = this.size - 1;
+			while (low < high) {
+				int middle = (low + high) >>> 1;
+				if (this.sequences[this.position(middle)] > sequence) {
+					high = middle;
+				} else {
+					low = middle + 1;
+				}
+			}
+
+			for (int i = this.size; i > low; i--) {
+				int from = this.position(i - 1);
+				this.set(this.position(i), this.elements[from], this.sequences[from]);
+			}
+			this.set(this.position(low), element, sequence);
+		}
+		this.size++;
+	}
+
+	/**
+	 * Add an element in front of every other element, such as an element that was just removed by {@link #poll()}.
+	 * <p>
+	 * This is done in constant time, unless the sequence number is greater than the sequence number of the head, in
+	 * which case the element is inserted at its position like {@link #add(Object, long)}.
+	 *
+	 * @param element  - the element to add.
+	 * @param sequence - the sequence number of the element.
+	 */
+	void addFirst(T element, long sequence) {
+		if (this.size > 0 && sequence > this.sequences[this.head]) {
+			this.add(element, sequence);
+			return;
+		}
+
+		if (this.size == this.elements.length) {
+			this.grow();
+		}
+
+		this.head = (this.head - 1) & this.mask();
+		this.set(this.head, element, sequence);
+		this.size++;
+	}
+
+	private void set(int position, Object element, long sequence) {
+		this.elements[position] = element;
+		this.sequences[position] = sequence;
+	}
+
+	private void grow() {
+		Object[] grownElements = new Object[this.elements.length << 1];
+		long[] grownSequences = new long[grownElements.length];
+
+		for (int i = 0; i < this.size; i++) {
+			int position = this.position(i);
+			grownElements[i] = this.elements[position];
+			grownSequences[i] = this.sequences[position];
+		}
+
+		this.elements = grownElements;
+		this.sequences = grownSequences;
+		this.head = 0;
+	}
+
+	/**
+	 * Retrieve the element with the lowest sequence number, without removing it.
+	 *
+	 * @return The element, or NULL if the buffer is empty.
+	 */
+	T peek() {
+		return this.size > 0 ? this.get(0) : null;
+	}
+
+	/**
+	 * Retrieve the lowest sequence number in the buffer.
+	 *
+	 * @return The sequence number of the head.
+	 * @throws NoSuchElementException If the buffer is empty.
+	 */
+	long peekSequence() {
+		if (this.size == 0) {
+			throw new NoSuchElementException("The buffer is empty.");
+		}
+		return this.sequences[this.head];
+	}
+
+	/**
+	 * Remove the element with the lowest sequence number.
+	 *
+	 * @return The removed element, or NULL if the buffer is empty.
+	 */
+	T poll() {
+		if (this.size == 0) {
+			return null;
+		}
+
+		T element = this.get(0);
+		this.elements[this.head] = null;
+		this.head = (this.head + 1) & this.mask();
+		this.size--;
+		return element;
+	}
+
+	/**
+	 * Retrieve the element at the given position, in order of sequence number.
+	 *
+	 * @param index - the position of the element, where zero is the head.
+	 * @return The element.
+	 * @throws NoSuchElementException If the index is out of bounds.
+	 */
+	@SuppressWarnings("unchecked")
+	T get(int index) {
+		if (index < 0 || index >= this.size) {
+			throw new NoSuchElementException("No element at index " + index);
+		}
+		return (T) this.elements[this.position(index)];
+	}
+
+	/**
+	 * Retrieve the number of elements in the buffer.
+	 *
+	 * @return The number of elements.
+	 */
+	int size() {
+		return this.size;
+	}
+
+	/**
+	 * Determine if the buffer is empty.
+	 *
+	 * @return TRUE if it is, FALSE otherwise.
+	 */
+	boolean isEmpty() {
+		return this.size == 0;
+	}
+
+	/**
+	 * Remove every element from the buffer.
+	 */
+	void clear() {
+		Arrays.fill(this.elements, null);
+		this.head = 0;
+		this.size = 0;
+	}
+}
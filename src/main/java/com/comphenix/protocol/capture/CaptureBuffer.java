@@ -0,0 +1,183 @@
+package com.comphenix.protocol.capture;
+
+import io.netty.buffer.ByteBuf;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+
+/**
+ * A preallocated ring buffer of capture records, stored outside the heap.
+ * <p>
+ * Records are added by the threads that capture packets, and removed in bulk by a single writer thread. Adding a
+ * record only copies its bytes into the buffer while holding its lock, and never waits for the writer - a record
+ * that doesn't fit is dropped instead.
+ */
+final class CaptureBuffer {
+
+	// length, timestamp, direction, protocol, packet id and length of the player name
+	static final int HEADER_SIZE = 4 + 8 + 1 + 1 + 4 + 2;
+
+	// the largest packet allowed by the vanilla frame decoder, along with its header
+	static final int MAX_RECORD_LENGTH = (1 << 21) + HEADER_SIZE + CaptureReader.MAX_NAME_LENGTH;
+
+	private final ByteBuffer buffer;
+	private final int capacity;
+
+	// scratch space for the header of a record
+	private final byte[] header;
+	private final ByteBuffer headerBuffer;
+
+	// positions since the buffer was created, so they never wrap around
+	private long readPosition;
+	private long writePosition;
+
+	private long capturedRecords;
+	private long droppedRecords;
+
+	/**
+	 * Construct a new ring buffer.
+	 *
+	 * @param capacity - the size of the buffer in bytes.
+	 */
+	CaptureBuffer(int capacity) {
+		if (capacity < 1024) {
+			throw new IllegalArgumentException("Capacity must be at least 1024 bytes.");
+		}
+
+		this.buffer = ByteBuffer.allocateDirect(capacity);
+		this.capacity = capacity;
+		this.header = new byte[HEADER_SIZE + CaptureReader.MAX_NAME_LENGTH];
+		this.headerBuffer = ByteBuffer.wrap(this.header);
+	}
+
+	/**
+	 * Add a record to the buffer.
+	 *
+	 * @param timestamp - the time the packet was captured, in milliseconds since 01.01.1970 00:00.
+	 * @param direction - the direction of the packet.
+	 * @param protocol  - the protocol of the packet.
+	 * @param packetId  - the id of the packet.
+	 * @param player    - the UTF-8 encoded name of the player, at most {@link CaptureReader#MAX_NAME_LENGTH} bytes.
+	 * @param frame     - the encoded packet, which isn't modified.
+	 * @return TRUE if the record was added, FALSE if it was dropped because the buffer is full.
+	 */
+	synchronized boolean offer(long timestamp, byte direction, byte protocol, int packetId, byte[] player, ByteBuf frame) {
+		int frameLength = frame.readableBytes();
+		int headerLength = HEADER_SIZE + player.length;
+
+		int length = headerLength + frameLength;
+
+		if (length > MAX_RECORD_LENGTH || length > this.capacity - (this.writePosition - this.readPosition)) {
+			this.droppedRecords++;
+			return false;
+		}
+
+		this.headerBuffer.putInt(0, headerLength - 4 + frameLength);
+		this.headerBuffer.putLong(4, timestamp);
+		this.header[12] = direction;
+		this.header[13] = protocol;
+		this.headerBuffer.putInt(14, packetId);
+		this.headerBuffer.putShort(18, (short) player.length);
+		System.arraycopy(player, 0, this.header, HEADER_SIZE, player.length);
+
+		this.put(this.header, headerLength);
+		this.put(frame, frame.readerIndex(), frameLength);
+		this.capturedRecords++;
+		return true;
+	}
+
+	private void put(byte[] source, int length) {
+		int offset = (int) (this.writePosition % this.capacity);
+		int first = Math.min(length, this.capacity - offset);
+
+		this.select(offset, first).put(source, 0, first);
+		if (first < length) {
+			this.select(0, length - first).put(source, first, length - first);
+		}
+		this.writePosition += length;
+	}
+
+	private void put(ByteBuf source, int index, int length) {
+		int offset = (int) (this.writePosition % this.capacity);
+		int first = Math.min(length, this.capacity - offset);
+
+		source.getBytes(index, this.select(offset, first));
+		if (first < length) {
+			source.getBytes(index + first, this.select(0, length - first));
+		}
+		this.writePosition += length;
+	}
+
+	private ByteBuffer select(int offset, int length) {
+		// called through Buffer, as these methods return ByteBuffer from Java 9 onwards
+		((Buffer) this.buffer).clear();
+		((Buffer) this.buffer).position(offset).limit(offset + length);
+		return this.buffer;
+	}
+
+	/**
+	 * Move as many complete records as possible from the buffer to the given array.
+	 *
+	 * @param target - the array to copy the records to, which must be able to hold {@link #MAX_RECORD_LENGTH} bytes.
+	 * @return The number of bytes copied.
+	 */
+	synchronized int drainTo(byte[] target) {
+		int length = 0;
+
+		// absolute reads are still bounded by the limit of the last copy
+		((Buffer) this.buffer).clear();
+
+		// only copy complete records, so the writer can rotate files between any two chunks
+		while (this.readPosition + length < this.writePosition) {
+			int recordLength = 4 + this.getInt(this.readPosition + length);
+			if (length + recordLength > target.length) {
+				break;
+			}
+			length += recordLength;
+		}
+
+		int offset = (int) (this.readPosition % this.capacity);
+		int first = Math.min(length, this.capacity - offset);
+
+		this.select(offset, first).get(target, 0, first);
+		if (first < length) {
+			this.select(0, length - first).get(target, first, length - first);
+		}
+		this.readPosition += length;
+		return length;
+	}
+
+	private int getInt(long position) {
+		int value = 0;
+		for (int i = 0; i < 4; i++) {
+			value = (value << 8) | (this.buffer.get((int) ((position + i) % this.capacity)) & 0xFF);
+		}
+		return value;
+	}
+
+	/**
+	 * Retrieve the number of bytes waiting to be written.
+	 *
+	 * @return The number of bytes.
+	 */
+	synchronized int getPendingBytes() {
+		return (int) (this.writePosition - this.readPosition);
+	}
+
+	/**
+	 * Retrieve the number of records that have been added to the buffer.
+	 *
+	 * @return The number of records.
+	 */
+	synchronized long getCapturedRecords() {
+		return this.capturedRecords;
+	}
+
+	/**
+	 * Retrieve the number of records that have been dropped because the buffer was full.
+	 *
+	 * @return The number of records.
+	 */
+	synchronized long getDroppedRecords() {
+		return this.droppedRecords;
+	}
+}
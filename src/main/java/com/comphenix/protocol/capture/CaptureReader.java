@@ -0,0 +1,292 @@
+package com.comphenix.protocol.capture;
+
+import com.comphenix.protocol.PacketType.Protocol;
+import com.comphenix.protocol.PacketType.Sender;
+import com.comphenix.protocol.utility.HexDumper;
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reads the records of a capture file written by {@link PacketCapture}.
+ * <p>
+ * A capture file starts with a header of the magic number {@link #MAGIC}, the format version and the protocol version
+ * of the server. It's followed by any number of records, each consisting of:
+ * <ul>
+ *   <li>the length of the rest of the record (int)</li>
+ *   <li>the time the packet was captured, in milliseconds since 01.01.1970 00:00 (long)</li>
+ *   <li>the ordinal of the {@link Sender} (byte)</li>
+ *   <li>the ordinal of the {@link Protocol}, or -1 if it's unknown (byte)</li>
+ *   <li>the packet id (int)</li>
+ *   <li>the length of the player name (short), followed by the UTF-8 encoded name</li>
+ *   <li>the uncompressed packet as sent on the wire, starting with its id</li>
+ * </ul>
+ * Files may be compressed with GZIP, which is detected automatically.
+ */
+public final class CaptureReader implements Closeable {
+
+	/**
+	 * The first four bytes of every capture file.
+	 */
+	public static final int MAGIC = 0x504C4350;
+
+	/**
+	 * The current version of the capture format.
+	 */
+	public static final short VERSION = 1;
+
+	/**
+	 * The maximum length of an encoded player name.
+	 */
+	public static final int MAX_NAME_LENGTH = 255;
+
+	private final DataInputStream input;
+	private final int protocolVersion;
+
+	/**
+	 * Open a capture file.
+	 *
+	 * @param file - the capture file.
+	 * @throws IOException If the file cannot be read or isn't a capture file.
+	 */
+	public CaptureReader(File file) throws IOException {
+		this(new FileInputStream(file));
+	}
+
+	/**
+	 * Read a capture from the given stream.
+	 *
+	 * @param stream - the stream, which is closed along with this reader.
+	 * @throws IOException If the stream cannot be read or doesn't contain a capture.
+	 */
+	public CaptureReader(InputStream stream) throws IOException {
+		BufferedInputStream buffered = new BufferedInputStream(stream);
+
+		try {
+			// the two bytes that start every GZIP stream
+			buffered.mark(2);
+			int first = buffered.read();
+			int second = buffered.read();
+			buffered.reset();
+
+			InputStream source = first == 0x1F && second == 0x8B ? new BufferedInputStream(new GZIPInputStream(buffered)) : buffered;
+			this.input = new DataInputStream(source);
+
+			if (this.input.readInt() != MAGIC) {
+				throw new IOException("Not a capture file.");
+			}
+
+			short version = this.input.readShort();
+			if (version != VERSION) {
+				throw new IOException("Unsupported capture version " + version);
+			}
+
+			this.protocolVersion = this.input.readInt();
+		} catch (IOException ex) {
+			buffered.close();
+			throw ex;
+		}
+	}
+
+	/**
+	 * Retrieve the protocol version of the server that wrote the capture.
+	 *
+	 * @return The protocol version.
+	 */
+	public int getProtocolVersion() {
+		return this.protocolVersion;
+	}
+
+	/**
+	 * Read the next record of the capture.
+	 *
+	 * @return The record, or NULL if the end of the capture has been reached.
+	 * @throws IOException If the record cannot be read.
+	 */
+	public Record next() throws IOException {
+		int length;
+		try {
+			length = this.input.readInt();
+		} catch (EOFException ex) {
+			return null;
+		}
+
+		if (length < CaptureBuffer.HEADER_SIZE - 4) {
+			throw new IOException("Corrupt record of length " + length);
+		}
+
+		long timestamp = this.input.readLong();
+		byte sender = this.input.readByte();
+		byte protocol = this.input.readByte();
+		int packetId = this.input.readInt();
+
+		byte[] name = new byte[this.input.readUnsignedShort()];
+		this.input.readFully(name);
+
+		int frameLength = length - (CaptureBuffer.HEADER_SIZE - 4) - name.length;
+		if (frameLength < 0) {
+			throw new IOException("Corrupt record of length " + length);
+		}
+
+		byte[] frame = new byte[frameLength];
+		this.input.readFully(frame);
+
+		return new Record(timestamp,
+				sender >= 0 && sender < Sender.values().length ? Sender.values()[sender] : null,
+				protocol >= 0 && protocol < Protocol.values().length ? Protocol.values()[protocol] : null,
+				packetId,
+				new String(name, StandardCharsets.UTF_8),
+				frame);
+	}
+
+	@Override
+	public void close() throws IOException {
+		this.input.close();
+	}
+
+	/**
+	 * Write a hex dump of every record in a capture file.
+	 *
+	 * @param file   - the capture file.
+	 * @param output - the writer to print the dump to.
+	 * @return The number of records.
+	 * @throws IOException If the file cannot be read, or the dump cannot be written.
+	 */
+	public static int render(File file, Writer output) throws IOException {
+		SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS");
+		HexDumper dumper = HexDumper.defaultDumper().lineDelimiter(System.lineSeparator());
+		PrintWriter writer = new PrintWriter(output);
+		int count = 0;
+
+		try (CaptureReader reader = new CaptureReader(file)) {
+			writer.println("# " + file.getName() + ", protocol version " + reader.getProtocolVersion());
+
+			for (Record record = reader.next(); record != null; record = reader.next()) {
+				writer.printf("[%s] %s %s %s 0x%02X, %d bytes%n",
+						format.format(new Date(record.getTimestamp())),
+						record.getPlayer(),
+						record.getSender(),
+						record.getProtocol(),
+						record.getPacketId(),
+						record.getFrame().length);
+				dumper.appendTo(writer, record.getFrame());
+				writer.println();
+				writer.println();
+				count++;
+			}
+		}
+
+		writer.flush();
+		if (writer.checkError()) {
+			throw new IOException("Unable to write hex dump of " + file);
+		}
+		return count;
+	}
+
+	/**
+	 * Print a hex dump of the given capture files to standard output, without a running server.
+	 *
+	 * @param args - the capture files.
+	 * @throws IOException If a file cannot be read.
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length == 0) {
+			System.err.println("Usage: java -cp ProtocolLib.jar " + CaptureReader.class.getName() + " <file>...");
+			System.exit(1);
+		}
+
+		Writer output = new OutputStreamWriter(System.out, StandardCharsets.UTF_8);
+		for (String path : args) {
+			render(new File(path), output);
+		}
+		output.flush();
+	}
+
+	/**
+	 * A captured packet.
+	 */
+	public static final class Record {
+
+		private final long timestamp;
+		private final Sender sender;
+		private final Protocol protocol;
+		private final int packetId;
+		private final String player;
+		private final byte[] frame;
+
+		private Record(long timestamp, Sender sender, Protocol protocol, int packetId, String player, byte[] frame) {
+			this.timestamp = timestamp;
+			this.sender = sender;
+			this.protocol = protocol;
+			this.packetId = packetId;
+			this.player = player;
+			this.frame = frame;
+		}
+
+		/**
+		 * Retrieve the time the packet was captured.
+		 *
+		 * @return The time in milliseconds since 01.01.1970 00:00.
+		 */
+		public long getTimestamp() {
+			return this.timestamp;
+		}
+
+		/**
+		 * Retrieve the sender of the packet.
+		 *
+		 * @return The sender, or NULL if it's unknown.
+		 */
+		public Sender getSender() {
+			return this.sender;
+		}
+
+		/**
+		 * Retrieve the protocol the packet was sent in.
+		 *
+		 * @return The protocol, or NULL if it's unknown.
+		 */
+		public Protocol getProtocol() {
+			return this.protocol;
+		}
+
+		/**
+		 * Retrieve the id of the packet.
+		 *
+		 * @return The packet id, or -1 if it could not be read.
+		 */
+		public int getPacketId() {
+			return this.packetId;
+		}
+
+		/**
+		 * Retrieve the name of the player, or their address if they hadn't logged in yet.
+		 *
+		 * @return The player.
+		 */
+		public String getPlayer() {
+			return this.player;
+		}
+
+		/**
+		 * Retrieve the packet as sent on the wire, starting with its id, without the length prefix or compression.
+		 *
+		 * @return The packet.
+		 */
+		public byte[] getFrame() {
+			return this.frame;
+		}
+	}
+}
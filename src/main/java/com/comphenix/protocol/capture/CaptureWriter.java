@@ -0,0 +1,200 @@
+package com.comphenix.protocol.capture;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streams the records of a capture buffer to rotating capture files on a background thread.
+ */
+final class CaptureWriter implements Runnable {
+
+	static final String FILE_PREFIX = "capture-";
+	static final String FILE_EXTENSION = ".plcap";
+	static final String COMPRESSED_EXTENSION = ".plcap.gz";
+
+	// how long to wait for new records when the buffer is empty
+	private static final long IDLE_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+	private final CaptureBuffer buffer;
+	private final File directory;
+	private final long maxFileSize;
+	private final int maxFiles;
+	private final boolean compressed;
+	private final int protocolVersion;
+
+	private final byte[] chunk = new byte[CaptureBuffer.MAX_RECORD_LENGTH];
+
+	private volatile Thread thread;
+	private volatile boolean running;
+	private volatile IOException failure;
+	private volatile long writtenBytes;
+
+	private DataOutputStream output;
+	private File file;
+	private long fileSize;
+	private int fileCount;
+
+	/**
+	 * Construct a new writer.
+	 *
+	 * @param buffer          - the buffer to drain.
+	 * @param directory       - the directory to write capture files to.
+	 * @param maxFileSize     - the number of uncompressed bytes after which a new file is started.
+	 * @param maxFiles        - the number of files to keep in the directory.
+	 * @param compressed      - whether or not to compress the files with GZIP.
+	 * @param protocolVersion - the protocol version written to the header of every file.
+	 */
+	CaptureWriter(CaptureBuffer buffer, File directory, long maxFileSize, int maxFiles, boolean compressed, int protocolVersion) {
+		this.buffer = buffer;
+		this.directory = directory;
+		this.maxFileSize = maxFileSize;
+		this.maxFiles = maxFiles;
+		this.compressed = compressed;
+		this.protocolVersion = protocolVersion;
+	}
+
+	/**
+	 * Start writing records on a new daemon thread.
+	 */
+	void start() {
+		Thread thread = new Thread(this, "ProtocolLib Capture Writer");
+		thread.setDaemon(true);
+
+		this.running = true;
+		this.thread = thread;
+		thread.start();
+	}
+
+	/**
+	 * Stop the writer after every remaining record has been written, and wait for it to finish.
+	 *
+	 * @throws InterruptedException If the current thread was interrupted while waiting.
+	 */
+	void stop() throws InterruptedException {
+		Thread thread = this.thread;
+		this.running = false;
+
+		if (thread != null) {
+			LockSupport.unpark(thread);
+			thread.join();
+		}
+	}
+
+	@Override
+	public void run() {
+		try {
+			while (true) {
+				int length = this.buffer.drainTo(this.chunk);
+
+				if (length > 0) {
+					this.write(length);
+				} else if (this.running) {
+					// the buffer is filled in bursts, so there's no point in waking up for every record
+					LockSupport.parkNanos(this, IDLE_NANOS);
+				} else {
+					break;
+				}
+			}
+		} catch (IOException ex) {
+			this.failure = ex;
+		} finally {
+			this.closeFile();
+		}
+	}
+
+	private void write(int length) throws IOException {
+		if (this.output == null || this.fileSize >= this.maxFileSize) {
+			this.closeFile();
+			this.openFile();
+		}
+
+		this.output.write(this.chunk, 0, length);
+		this.fileSize += length;
+		this.writtenBytes += length;
+	}
+
+	private void openFile() throws IOException {
+		if (!this.directory.isDirectory() && !this.directory.mkdirs()) {
+			throw new IOException("Unable to create directory " + this.directory);
+		}
+
+		String timestamp = new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date());
+		// padded, so the names of the files sort in the order they were written
+		File file = new File(this.directory, FILE_PREFIX + timestamp + "-" + String.format("%06d", ++this.fileCount)
+				+ (this.compressed ? COMPRESSED_EXTENSION : FILE_EXTENSION));
+
+		OutputStream stream = new FileOutputStream(file);
+		if (this.compressed) {
+			stream = new GZIPOutputStream(stream, 64 * 1024);
+		}
+
+		this.output = new DataOutputStream(new BufferedOutputStream(stream, 64 * 1024));
+		this.output.writeInt(CaptureReader.MAGIC);
+		this.output.writeShort(CaptureReader.VERSION);
+		this.output.writeInt(this.protocolVersion);
+		this.fileSize = 0;
+		this.file = file;
+
+		this.deleteOldFiles();
+	}
+
+	private void closeFile() {
+		if (this.output != null) {
+			try {
+				this.output.close();
+			} catch (IOException ex) {
+				if (this.failure == null) {
+					this.failure = ex;
+				}
+			}
+			this.output = null;
+		}
+	}
+
+	private void deleteOldFiles() {
+		File[] files = this.directory.listFiles((dir, name) -> name.startsWith(FILE_PREFIX)
+				&& (name.endsWith(FILE_EXTENSION) || name.endsWith(COMPRESSED_EXTENSION)));
+
+		if (files != null && files.length > this.maxFiles) {
+			Arrays.sort(files, Comparator.comparing(File::getName));
+
+			int excess = files.length - this.maxFiles;
+			for (int i = 0; i < files.length && excess > 0; i++) {
+				// the file being written is never deleted, even if a name from another capture sorts after it
+				if (!files[i].equals(this.file)) {
+					files[i].delete();
+					excess--;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Retrieve the error that stopped the writer.
+	 *
+	 * @return The error, or NULL if the writer hasn't failed.
+	 */
+	IOException getFailure() {
+		return this.failure;
+	}
+
+	/**
+	 * Retrieve the number of uncompressed bytes that have been written.
+	 *
+	 * @return The number of bytes.
+	 */
+	long getWrittenBytes() {
+		return this.writtenBytes;
+	}
+}
@@ -0,0 +1,222 @@
+package com.comphenix.protocol.capture;
+
+import com.comphenix.protocol.PacketType;
+import com.comphenix.protocol.PacketType.Protocol;
+import com.comphenix.protocol.PacketType.Sender;
+import io.netty.buffer.ByteBuf;
+import java.io.File;
+import java.io.IOException;
+import java.util.Collection;
+
+/**
+ * Captures the packets of every connection to binary capture files.
+ * <p>
+ * Packets are captured by the network threads as they're sent or received, after the vanilla encoder and before the
+ * vanilla decoder, so they're never encoded twice. Capturing only copies the bytes of the packet into a preallocated
+ * off-heap buffer, which is written to disk by a background thread - if the writer falls behind, packets are dropped
+ * instead of slowing down the network threads. The capture files can be read with {@link CaptureReader}.
+ * <p>
+ * At most one capture may be active at a time.
+ */
+public final class PacketCapture {
+
+	// the number of ids in the filter of each protocol and sender
+	private static final int IDS_PER_TYPE = 256;
+
+	private static volatile PacketCapture active;
+
+	private final File directory;
+	private final CaptureBuffer buffer;
+	private final CaptureWriter writer;
+
+	// a bit for every captured packet type, or NULL to capture every packet
+	private volatile long[] filter;
+
+	/**
+	 * Construct a new packet capture.
+	 *
+	 * @param directory       - the directory to write capture files to.
+	 * @param bufferSize      - the size of the buffer of captured packets in bytes.
+	 * @param maxFileSize     - the number of uncompressed bytes after which a new file is started.
+	 * @param maxFiles        - the number of files to keep in the directory.
+	 * @param compressed      - whether or not to compress the files with GZIP.
+	 * @param protocolVersion - the protocol version of the server.
+	 */
+	public PacketCapture(File directory, int bufferSize, long maxFileSize, int maxFiles, boolean compressed, int protocolVersion) {
+		this.directory = directory;
+		this.buffer = new CaptureBuffer(bufferSize);
+		this.writer = new CaptureWriter(this.buffer, directory, maxFileSize, maxFiles, compressed, protocolVersion);
+	}
+
+	/**
+	 * Retrieve the capture that is currently active.
+	 *
+	 * @return The active capture, or NULL if there is none.
+	 */
+	public static PacketCapture getActive() {
+		return active;
+	}
+
+	/**
+	 * Start writing captured packets, and make this the active capture.
+	 *
+	 * @throws IllegalStateException If another capture is already active.
+	 */
+	public void start() {
+		synchronized (PacketCapture.class) {
+			if (active != null) {
+				throw new IllegalStateException("A capture is already active.");
+			}
+
+			this.writer.start();
+			active = this;
+		}
+	}
+
+	/**
+	 * Stop capturing packets, without waiting for the captured packets to be written. Another capture may be started
+	 * as soon as this returns.
+	 */
+	public void deactivate() {
+		synchronized (PacketCapture.class) {
+			if (active == this) {
+				active = null;
+			}
+		}
+	}
+
+	/**
+	 * Stop capturing packets, and wait for every captured packet to be written.
+	 *
+	 * @throws InterruptedException If the current thread was interrupted while waiting.
+	 */
+	public void stop() throws InterruptedException {
+		this.deactivate();
+		this.writer.stop();
+	}
+
+	/**
+	 * Set the packet types to capture.
+	 *
+	 * @param types - the packet types, or NULL to capture every packet.
+	 */
+	public void setFilter(Collection<PacketType> types) {
+		if (types == null) {
+			this.filter = null;
+			return;
+		}
+
+		long[] filter = new long[Protocol.values().length * Sender.values().length * IDS_PER_TYPE / 64];
+		for (PacketType type : types) {
+			if (type.isSupported()) {
+				int index = filterIndex(type.getProtocol(), type.getSender(), type.getCurrentId());
+				if (index >= 0) {
+					filter[index >> 6] |= 1L << index;
+				}
+			}
+		}
+		this.filter = filter;
+	}
+
+	private static int filterIndex(Protocol protocol, Sender sender, int packetId) {
+		if (protocol == null || packetId < 0 || packetId >= IDS_PER_TYPE) {
+			return -1;
+		}
+		return (protocol.ordinal() * Sender.values().length + sender.ordinal()) * IDS_PER_TYPE + packetId;
+	}
+
+	/**
+	 * Determine if packets with the given id should be captured.
+	 *
+	 * @param sender   - the sender of the packet.
+	 * @param protocol - the protocol of the packet, or NULL if it's unknown.
+	 * @param packetId - the id of the packet.
+	 * @return TRUE if they should, FALSE otherwise.
+	 */
+	public boolean isCaptured(Sender sender, Protocol protocol, int packetId) {
+		long[] filter = this.filter;
+		if (filter == null) {
+			return true;
+		}
+
+		int index = filterIndex(protocol, sender, packetId);
+		return index >= 0 && (filter[index >> 6] & (1L << index)) != 0;
+	}
+
+	/**
+	 * Capture a packet, if it passes the filter.
+	 *
+	 * @param sender   - the sender of the packet.
+	 * @param protocol - the protocol of the packet, or NULL if it's unknown.
+	 * @param packetId - the id of the packet.
+	 * @param player   - the UTF-8 encoded name of the player, at most {@link CaptureReader#MAX_NAME_LENGTH} bytes.
+	 * @param frame    - the encoded packet starting with its id, which isn't modified.
+	 * @return TRUE if the packet was captured, FALSE if it was filtered or dropped.
+	 */
+	public boolean capture(Sender sender, Protocol protocol, int packetId, byte[] player, ByteBuf frame) {
+		if (!this.isCaptured(sender, protocol, packetId)) {
+			return false;
+		}
+
+		return this.buffer.offer(System.currentTimeMillis(),
+				(byte) sender.ordinal(),
+				(byte) (protocol != null ? protocol.ordinal() : -1),
+				packetId,
+				player,
+				frame);
+	}
+
+	/**
+	 * Retrieve the directory the capture files are written to.
+	 *
+	 * @return The directory.
+	 */
+	public File getDirectory() {
+		return this.directory;
+	}
+
+	/**
+	 * Retrieve the number of packets that have been captured.
+	 *
+	 * @return The number of packets.
+	 */
+	public long getCapturedPackets() {
+		return this.buffer.getCapturedRecords();
+	}
+
+	/**
+	 * Retrieve the number of packets that were dropped because the writer couldn't keep up.
+	 *
+	 * @return The number of packets.
+	 */
+	public long getDroppedPackets() {
+		return this.buffer.getDroppedRecords();
+	}
+
+	/**
+	 * Retrieve the number of bytes waiting to be written.
+	 *
+	 * @return The number of bytes.
+	 */
+	public int getPendingBytes() {
+		return this.buffer.getPendingBytes();
+	}
+
+	/**
+	 * Retrieve the number of uncompressed bytes that have been written.
+	 *
+	 * @return The number of bytes.
+	 */
+	public long getWrittenBytes() {
+		return this.writer.getWrittenBytes();
+	}
+
+	/**
+	 * Retrieve the error that stopped the capture files from being written.
+	 *
+	 * @return The error, or NULL if the files are written successfully.
+	 */
+	public IOException getFailure() {
+		return this.writer.getFailure();
+	}
+}
@@ -20,10 +20,13 @@ package com.comphenix.protocol.concurrency;
 import com.comphenix.protocol.PacketType;
 import com.comphenix.protocol.events.ListeningWhitelist;
 import com.comphenix.protocol.injector.PrioritizedListener;
+import com.comphenix.protocol.injector.packet.PacketRegistry;
 import com.google.common.collect.Iterables;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
@@ -38,8 +41,12 @@ public abstract class AbstractConcurrentListenerMultimap<T> {
 	// The core of our map
 	private final ConcurrentMap<PacketType, SortedCopyOnWriteArray<PrioritizedListener<T>>> mapListeners;
 
+	// Class indexed snapshot of the map above, rebuilt on every change
+	private final ListenerDispatchTable<T> dispatchTable;
+
 	public AbstractConcurrentListenerMultimap() {
 		this.mapListeners = new ConcurrentHashMap<>();
+		this.dispatchTable = new ListenerDispatchTable<>();
 	}
 
 	/**
@@ -53,6 +60,7 @@ public abstract class AbstractConcurrentListenerMultimap<T> {
 		for (PacketType type : whitelist.getTypes()) {
 			this.addListener(type, prioritized);
 		}
+		this.updateDispatchTable();
 	}
 
 	// Add the listener to a specific packet notifcation list
@@ -106,6 +114,8 @@ public abstract class AbstractConcurrentListenerMultimap<T> {
 			}
 			// Move on to the next
 		}
+
+		this.updateDispatchTable();
 		return removedPackets;
 	}
 
@@ -121,6 +131,67 @@ public abstract class AbstractConcurrentListenerMultimap<T> {
 		return this.mapListeners.get(type);
 	}
 
+	/**
+	 * Retrieve the class indexed dispatch table of the registered listeners.
+	 * <p>
+	 * The table is replaced atomically whenever a listener is added or removed.
+	 *
+	 * @return The dispatch table.
+	 */
+	public ListenerDispatchTable<T> getDispatchTable() {
+		return this.dispatchTable;
+	}
+
+	/**
+	 * Determine if the given listener must be executed on the main thread for the given packet type.
+	 *
+	 * @param type     - the packet type.
+	 * @param listener - the registered listener.
+	 * @return TRUE if it must, FALSE otherwise.
+	 */
+	protected boolean isMainThreadListener(PacketType type, PrioritizedListener<T> listener) {
+		return false;
+	}
+
+	/**
+	 * Rebuild and publish the dispatch table from the current listener map.
+	 */
+	@SuppressWarnings("unchecked")
+	protected synchronized void updateDispatchTable() {
+		Map<Class<?>, ListenerDispatchTable.Entry<T>> entries = new HashMap<>();
+
+		for (PacketType type : this.mapListeners.keySet()) {
+			Class<?> packetClass = type.getPacketClass();
+			if (packetClass == null) {
+				continue;
+			}
+
+			// Packets are dispatched using the type the registry associates with the class
+			PacketType registered = PacketRegistry.getPacketType(packetClass);
+			PacketType dispatchType = registered != null ? registered : type;
+
+			SortedCopyOnWriteArray<PrioritizedListener<T>> list = this.mapListeners.get(dispatchType);
+			PrioritizedListener<T>[] listeners = list != null
+					? list.toArray(new PrioritizedListener[0])
+					: new PrioritizedListener[0];
+
+			boolean mainThread = false;
+			for (PrioritizedListener<T> listener : listeners) {
+				mainThread |= this.isMainThreadListener(dispatchType, listener);
+			}
+
+			// Several types may share the same class, any one of them may require the main thread
+			ListenerDispatchTable.Entry<T> previous = entries.get(packetClass);
+			if (previous != null) {
+				mainThread |= previous.isMainThread();
+			}
+
+			entries.put(packetClass, new ListenerDispatchTable.Entry<>(dispatchType, listeners, mainThread));
+		}
+
+		this.dispatchTable.publish(entries);
+	}
+
 	/**
 	 * Retrieve every listener.
 	 *
@@ -144,5 +215,6 @@ public abstract class AbstractConcurrentListenerMultimap<T> {
 	 */
 	protected void clearListeners() {
 		this.mapListeners.clear();
+		this.updateDispatchTable();
 	}
 }
@@ -0,0 +1,179 @@
+package com.comphenix.protocol.concurrency;
+
+import com.comphenix.protocol.PacketType;
+import com.comphenix.protocol.events.ListenerPriority;
+import com.comphenix.protocol.injector.PrioritizedListener;
+import java.util.Map;
+
+/**
+ * An immutable dispatch table which maps packet classes to their registered listeners.
+ * <p>
+ * Every packet class is assigned a dense index once, the registered listeners are then stored in a plain array at
+ * that index. The table is never modified in place: a new array is published whenever a listener is added or removed,
+ * which means that a lookup is a single class index resolution followed by an array read, without any locking.
+ *
+ * @param <T> - type of the listeners in the table.
+ */
+public final class ListenerDispatchTable<T> {
+
+	private static final Entry<?>[] EMPTY_ENTRIES = new Entry<?>[0];
+
+	// the current snapshot, replaced as a whole on every change
+	private volatile Entry<T>[] entries = emptyEntries();
+
+	@SuppressWarnings("unchecked")
+	private static <T> Entry<T>[] emptyEntries() {
+		return (Entry<T>[]) EMPTY_ENTRIES;
+	}
+
+	/**
+	 * Retrieve the dispatch entry of the given packet class.
+	 *
+	 * @param packetClass - the packet class.
+	 * @return The entry, or NULL if no listener is registered for the packet class.
+	 */
+	public Entry<T> getEntry(Class<?> packetClass) {
+		int index = PacketClassIndex.indexOf(packetClass);
+		Entry<T>[] current = this.entries;
+		return index < current.length ? current[index] : null;
+	}
+
+	/**
+	 * Determine if there is any listener registered for the given packet class.
+	 *
+	 * @param packetClass - the packet class.
+	 * @return TRUE if there is, FALSE otherwise.
+	 */
+	public boolean hasListener(Class<?> packetClass) {
+		return this.getEntry(packetClass) != null;
+	}
+
+	/**
+	 * Determine if there is a listener for the given packet class that must be executed on the main thread.
+	 *
+	 * @param packetClass - the packet class.
+	 * @return TRUE if there is, FALSE otherwise.
+	 */
+	public boolean hasMainThreadListener(Class<?> packetClass) {
+		Entry<T> entry = this.getEntry(packetClass);
+		return entry != null && entry.isMainThread();
+	}
+
+	/**
+	 * Atomically replace the content of this table with the given entries.
+	 *
+	 * @param newEntries - the new entries, indexed by packet class.
+	 */
+	@SuppressWarnings("unchecked")
+	void publish(Map<Class<?>, Entry<T>> newEntries) {
+		int length = 0;
+		for (Class<?> packetClass : newEntries.keySet()) {
+			length = Math.max(length, PacketClassIndex.indexOf(packetClass) + 1);
+		}
+
+		Entry<T>[] table = (Entry<T>[]) new Entry<?>[length];
+		for (Map.Entry<Class<?>, Entry<T>> entry : newEntries.entrySet()) {
+			table[PacketClassIndex.indexOf(entry.getKey())] = entry.getValue();
+		}
+
+		this.entries = table;
+	}
+
+	/**
+	 * Represents the immutable dispatch information of a single packet class.
+	 *
+	 * @param <T> - type of the listeners.
+	 */
+	public static final class Entry<T> {
+
+		// the highest slot of any listener priority
+		private static final int MAX_SLOT = ListenerPriority.MONITOR.getSlot();
+
+		private final PacketType type;
+		private final PrioritizedListener<T>[] listeners;
+		private final boolean mainThread;
+
+		// index of the first listener with a slot greater than or equal to the array index
+		private final int[] sliceStarts;
+
+		Entry(PacketType type, PrioritizedListener<T>[] listeners, boolean mainThread) {
+			this.type = type;
+			this.listeners = listeners;
+			this.mainThread = mainThread;
+			this.sliceStarts = new int[MAX_SLOT + 2];
+
+			// the listeners are sorted by their slot, so every priority occupies a contiguous slice
+			int index = 0;
+			for (int slot = 0; slot <= MAX_SLOT + 1; slot++) {
+				while (index < listeners.length && listeners[index].getPriority().getSlot() < slot) {
+					index++;
+				}
+				this.sliceStarts[slot] = index;
+			}
+		}
+
+		/**
+		 * Retrieve the packet type of the packet class.
+		 *
+		 * @return The packet type.
+		 */
+		public PacketType getType() {
+			return this.type;
+		}
+
+		/**
+		 * Retrieve the registered listeners, in order from the lowest to the highest priority.
+		 * <p>
+		 * The returned array is shared and must not be modified.
+		 *
+		 * @return Registered listeners.
+		 */
+		public PrioritizedListener<T>[] getListeners() {
+			return this.listeners;
+		}
+
+		/**
+		 * Retrieve the index of the first listener with the given priority.
+		 *
+		 * @param priority - the priority.
+		 * @return The first index of the priority slice, inclusive.
+		 */
+		public int getStartIndex(ListenerPriority priority) {
+			return this.sliceStarts[priority.getSlot()];
+		}
+
+		/**
+		 * Retrieve the index after the last listener with the given priority.
+		 *
+		 * @param priority - the priority.
+		 * @return The last index of the priority slice, exclusive.
+		 */
+		public int getEndIndex(ListenerPriority priority) {
+			return this.sliceStarts[priority.getSlot() + 1];
+		}
+
+		/**
+		 * Determine if there is at least one listener with the given priority.
+		 *
+		 * @param priority - the priority.
+		 * @return TRUE if there is, FALSE otherwise.
+		 */
+		public boolean hasListeners(ListenerPriority priority) {
+			return this.getStartIndex(priority) < this.getEndIndex(priority);
+		}
+
+		/**
+		 * Determine if any of the listeners must be executed on the main thread.
+		 *
+		 * @return TRUE if at least one listener must, FALSE otherwise.
+		 */
+		public boolean isMainThread() {
+			return this.mainThread;
+		}
+
+		@Override
+		public String toString() {
+			return "Entry[type=" + this.type + ", listeners=" + this.listeners.length + ", mainThread=" + this.mainThread + "]";
+		}
+	}
+}
@@ -0,0 +1,32 @@
+package com.comphenix.protocol.concurrency;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Assigns a dense index to every packet class, which is shared by every table indexed by packet class.
+ */
+final class PacketClassIndex {
+
+	// dense indices of every packet class we've ever seen
+	private static final AtomicInteger NEXT_CLASS_INDEX = new AtomicInteger();
+	private static final ClassValue<Integer> CLASS_INDEX = new ClassValue<Integer>() {
+		@Override
+		protected Integer computeValue(Class<?> type) {
+			return NEXT_CLASS_INDEX.getAndIncrement();
+		}
+	};
+
+	private PacketClassIndex() {
+		// static utility
+	}
+
+	/**
+	 * Retrieve the index of the given packet class, assigning a new index the first time a class is seen.
+	 *
+	 * @param packetClass - the packet class.
+	 * @return The index of the class.
+	 */
+	static int indexOf(Class<?> packetClass) {
+		return CLASS_INDEX.get(packetClass);
+	}
+}
@@ -2,29 +2,30 @@ package com.comphenix.protocol.concurrency;
 
 import com.comphenix.protocol.PacketType;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
 import java.util.Collection;
-import java.util.HashSet;
 import java.util.Set;
 
 /**
  * Represents a concurrent set of packet types.
+ * <p>
+ * The content of the set is an immutable snapshot that is replaced as a whole whenever a type is added or removed, so
+ * a lookup never blocks and always sees a consistent set. Lookups by packet class test a single bit, indexed by the
+ * same dense class index as the {@link ListenerDispatchTable}.
  *
  * @author Kristian
  */
 public class PacketTypeSet {
 
-	private final Set<PacketType> types;
-	private final Set<Class<?>> classes;
+	private static final Snapshot EMPTY = new Snapshot(ImmutableSet.of());
+
+	// the current snapshot, replaced as a whole on every change
+	private volatile Snapshot snapshot = EMPTY;
 
 	public PacketTypeSet() {
-		this.types = new HashSet<>(16, 0.9f);
-		this.classes = new HashSet<>(16, 0.9f);
 	}
 
 	public PacketTypeSet(Collection<? extends PacketType> values) {
-		this.types = new HashSet<>(values.size(), 0.9f);
-		this.classes = new HashSet<>(values.size(), 0.9f);
-
 		this.addAll(values);
 	}
 
@@ -33,12 +34,10 @@ public class PacketTypeSet {
 	 *
 	 * @param type - the type to add.
 	 */
-	public void addType(PacketType type) {
-		this.types.add(type);
-
-		Class<?> packetClass = type.getPacketClass();
-		if (packetClass != null) {
-			this.classes.add(packetClass);
+	public synchronized void addType(PacketType type) {
+		Snapshot current = this.snapshot;
+		if (!current.types.contains(type)) {
+			this.snapshot = new Snapshot(ImmutableSet.<PacketType>builder().addAll(current.types).add(type).build());
 		}
 	}
 
@@ -47,10 +46,8 @@ public class PacketTypeSet {
 	 *
 	 * @param types - the types to add.
 	 */
-	public void addAll(Iterable<? extends PacketType> types) {
-		for (PacketType type : types) {
-			this.addType(type);
-		}
+	public synchronized void addAll(Iterable<? extends PacketType> types) {
+		this.snapshot = new Snapshot(ImmutableSet.<PacketType>builder().addAll(this.snapshot.types).addAll(types).build());
 	}
 
 	/**
@@ -58,12 +55,10 @@ public class PacketTypeSet {
 	 *
 	 * @param type - the type to remove.
 	 */
-	public void removeType(PacketType type) {
-		this.types.remove(type);
-
-		Class<?> packetClass = type.getPacketClass();
-		if (packetClass != null) {
-			this.classes.remove(packetClass);
+	public synchronized void removeType(PacketType type) {
+		Snapshot current = this.snapshot;
+		if (current.types.contains(type)) {
+			this.snapshot = new Snapshot(Sets.difference(current.types, ImmutableSet.of(type)).immutableCopy());
 		}
 	}
 
@@ -72,10 +67,9 @@ public class PacketTypeSet {
 	 *
 	 * @param types Types to remove
 	 */
-	public void removeAll(Iterable<? extends PacketType> types) {
-		for (PacketType type : types) {
-			this.removeType(type);
-		}
+	public synchronized void removeAll(Iterable<? extends PacketType> types) {
+		Set<PacketType> removed = ImmutableSet.copyOf(types);
+		this.snapshot = new Snapshot(Sets.difference(this.snapshot.types, removed).immutableCopy());
 	}
 
 	/**
@@ -85,7 +79,7 @@ public class PacketTypeSet {
 	 * @return TRUE if it does, FALSE otherwise.
 	 */
 	public boolean contains(PacketType type) {
-		return this.types.contains(type);
+		return this.snapshot.types.contains(type);
 	}
 
 	/**
@@ -95,7 +89,7 @@ public class PacketTypeSet {
 	 * @return TRUE if it does, FALSE otherwise.
 	 */
 	public boolean contains(Class<?> packetClass) {
-		return this.classes.contains(packetClass);
+		return this.snapshot.containsClass(PacketClassIndex.indexOf(packetClass));
 	}
 
 	/**
@@ -105,16 +99,16 @@ public class PacketTypeSet {
 	 * @return TRUE if it is, FALSE otherwise.
 	 */
 	public boolean containsPacket(Object packet) {
-		return packet != null && this.classes.contains(packet.getClass());
+		return packet != null && this.contains(packet.getClass());
 	}
 
 	/**
-	 * Retrieve a view of this packet type set.
+	 * Retrieve an immutable snapshot of this packet type set.
 	 *
 	 * @return The packet type values.
 	 */
 	public Set<PacketType> values() {
-		return ImmutableSet.copyOf(this.types);
+		return this.snapshot.types;
 	}
 
 	/**
@@ -123,11 +117,46 @@ public class PacketTypeSet {
 	 * @return The number of entries.
 	 */
 	public int size() {
-		return this.types.size();
+		return this.snapshot.types.size();
 	}
 
-	public void clear() {
-		this.types.clear();
-		this.classes.clear();
+	public synchronized void clear() {
+		this.snapshot = EMPTY;
+	}
+
+	/**
+	 * The immutable content of the set at one point in time.
+	 */
+	private static final class Snapshot {
+
+		private final ImmutableSet<PacketType> types;
+		// bit set of the packet classes of every type, indexed by class index
+		private final long[] classes;
+
+		Snapshot(ImmutableSet<PacketType> types) {
+			this.types = types;
+
+			int maxIndex = -1;
+			int[] indices = new int[types.size()];
+			int count = 0;
+
+			for (PacketType type : types) {
+				Class<?> packetClass = type.getPacketClass();
+				if (packetClass != null) {
+					indices[count] = PacketClassIndex.indexOf(packetClass);
+					maxIndex = Math.max(maxIndex, indices[count++]);
+				}
+			}
+
+			this.classes = new long[(maxIndex >> 6) + 1];
+			for (int i = 0; i < count; i++) {
+				this.classes[indices[i] >>> 6] |= 1L << indices[i];
+			}
+		}
+
+		boolean containsClass(int index) {
+			int word = index >>> 6;
+			return word < this.classes.length && (this.classes[word] & (1L << index)) != 0;
+		}
 	}
 }
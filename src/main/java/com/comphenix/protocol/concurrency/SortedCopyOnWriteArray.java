@@ -18,29 +18,39 @@
 package com.comphenix.protocol.concurrency;
 
 import com.google.common.base.Objects;
-import com.google.common.collect.Iterables;
+import com.google.common.collect.Iterators;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.Iterator;
-import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.function.Consumer;
 
 /**
  * An implicitly sorted array list that preserves insertion order and maintains duplicates.
+ * <p>
+ * The elements are stored in a plain array that is never modified after it has been published. Every modification
+ * creates a copy of the array and swaps it in using compare-and-set, so readers never block and never see a partially
+ * modified array.
  *
  * @param <T> - type of the elements in the list.
  */
 public class SortedCopyOnWriteArray<T extends Comparable<T>> implements Collection<T> {
 
-	// Prevent reordering
-	private volatile List<T> list;
+	private static final Object[] EMPTY_ARRAY = new Object[0];
+
+	@SuppressWarnings("rawtypes")
+	private static final AtomicReferenceFieldUpdater<SortedCopyOnWriteArray, Object[]> ARRAY_UPDATER =
+			AtomicReferenceFieldUpdater.newUpdater(SortedCopyOnWriteArray.class, Object[].class, "array");
+
+	// The current snapshot, never modified after publication
+	private volatile Object[] array;
 
 	/**
 	 * Construct an empty sorted array.
 	 */
 	public SortedCopyOnWriteArray() {
-		this.list = new ArrayList<>();
+		this.array = EMPTY_ARRAY;
 	}
 
 	/**
@@ -49,56 +59,84 @@ public class SortedCopyOnWriteArray<T extends Comparable<T>> implements Collecti
 	 * @param wrapped - the collection whose elements are to be placed into the list.
 	 */
 	public SortedCopyOnWriteArray(Collection<T> wrapped) {
-		this.list = new ArrayList<>(wrapped);
-		Collections.sort(this.list);
+		Object[] elements = wrapped.toArray();
+		Arrays.sort(elements);
+		this.array = elements;
 	}
 
 	/**
 	 * Inserts the given element in the proper location.
+	 * <p>
+	 * The element is placed after every element that compares equal to it, thus preserving insertion order.
 	 *
 	 * @param value - element to insert.
 	 */
 	@Override
-	public synchronized boolean add(T value) {
+	public boolean add(T value) {
 		// We use NULL as a special marker, so we don't allow it
 		if (value == null) throw new IllegalArgumentException("value cannot be NULL");
 
-		List<T> copy = new ArrayList<>();
-		boolean inserted = false;
+		Object[] current;
+		Object[] copy;
 
-		for (T element : this.list) {
-			// If the value is now greater than the current element, it should be placed right before it
-			if (!inserted && value.compareTo(element) < 0) {
-				copy.add(value);
-				inserted = true;
-			}
-			copy.add(element);
-		}
+		do {
+			current = this.array;
+			int index = insertionPoint(current, value);
 
-		// Don't forget to add it
-		if (!inserted) {
-			copy.add(value);
-		}
+			copy = new Object[current.length + 1];
+			System.arraycopy(current, 0, copy, 0, index);
+			copy[index] = value;
+			System.arraycopy(current, index, copy, index + 1, current.length - index);
+		} while (!ARRAY_UPDATER.compareAndSet(this, current, copy));
 
-		this.list = copy;
 		return true;
 	}
 
+	/**
+	 * Find the index after the last element that is less than or equal to the given value.
+	 *
+	 * @param elements - the sorted elements.
+	 * @param value    - the value to insert.
+	 * @return The insertion index.
+	 */
+	@SuppressWarnings("unchecked")
+	private static <T extends Comparable<T>> int insertionPoint(Object[] elements, T value) {
+		int low = 0;
+		int high = elements.length;
+
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+
+			if (value.compareTo((T) elements[middle]) < 0) {
+				high = middle;
+			} else {
+				low = middle + 1;
+			}
+		}
+		return low;
+	}
+
 	@Override
-	public synchronized boolean addAll(Collection<? extends T> values) {
+	public boolean addAll(Collection<? extends T> values) {
 		if (values == null) throw new IllegalArgumentException("values cannot be NULL");
 
 		if (values.size() == 0) {
 			return false;
 		}
 
-		List<T> copy = new ArrayList<>(this.list);
+		Object[] added = values.toArray();
+		Object[] current;
+		Object[] copy;
+
+		do {
+			current = this.array;
+			copy = Arrays.copyOf(current, current.length + added.length);
 
-		// Insert the new content and sort it
-		copy.addAll(values);
-		Collections.sort(copy);
+			// Insert the new content and sort it - the sort is stable
+			System.arraycopy(added, 0, copy, current.length, added.length);
+			Arrays.sort(copy);
+		} while (!ARRAY_UPDATER.compareAndSet(this, current, copy));
 
-		this.list = copy;
 		return true;
 	}
 
@@ -110,24 +148,32 @@ public class SortedCopyOnWriteArray<T extends Comparable<T>> implements Collecti
 	 * @param value - value to remove.
 	 */
 	@Override
-	public synchronized boolean remove(Object value) {
-		List<T> copy = new ArrayList<>();
-		boolean result = false;
+	public boolean remove(Object value) {
+		Object[] current;
+		Object[] copy;
 
 		// Note that there's not much to be gained from using BinarySearch, as we
 		// have to copy (and thus read) the entire list regardless.
+		do {
+			current = this.array;
+			copy = new Object[current.length];
+			int size = 0;
+
+			// Copy every element except the one given to us.
+			for (Object element : current) {
+				if (!Objects.equal(value, element)) {
+					copy[size++] = element;
+				}
+			}
 
-		// Copy every element except the one given to us.
-		for (T element : this.list) {
-			if (!Objects.equal(value, element)) {
-				copy.add(element);
-			} else {
-				result = true;
+			if (size == current.length) {
+				return false;
 			}
-		}
 
-		this.list = copy;
-		return result;
+			copy = Arrays.copyOf(copy, size);
+		} while (!ARRAY_UPDATER.compareAndSet(this, current, copy));
+
+		return true;
 	}
 
 	@Override
@@ -139,10 +185,23 @@ public class SortedCopyOnWriteArray<T extends Comparable<T>> implements Collecti
 			return false;
 		}
 
-		List<T> copy = new ArrayList<>(this.list);
-		copy.removeAll(values);
+		Object[] current;
+		Object[] copy;
+
+		do {
+			current = this.array;
+			copy = new Object[current.length];
+			int size = 0;
+
+			for (Object element : current) {
+				if (!values.contains(element)) {
+					copy[size++] = element;
+				}
+			}
+
+			copy = Arrays.copyOf(copy, size);
+		} while (!ARRAY_UPDATER.compareAndSet(this, current, copy));
 
-		this.list = copy;
 		return true;
 	}
 
@@ -153,11 +212,7 @@ public class SortedCopyOnWriteArray<T extends Comparable<T>> implements Collecti
 
 		if (values.isEmpty()) return false;
 
-		List<T> copy = new ArrayList<>(this.list);
-		copy.removeAll(values);
-
-		this.list = copy;
-		return true;
+		return this.removeAll(values);
 	}
 
 	/**
@@ -165,11 +220,20 @@ public class SortedCopyOnWriteArray<T extends Comparable<T>> implements Collecti
 	 *
 	 * @param index - index of the element to remove.
 	 */
-	public synchronized void remove(int index) {
-		List<T> copy = new ArrayList<>(this.list);
+	public void remove(int index) {
+		Object[] current;
+		Object[] copy;
+
+		do {
+			current = this.array;
+			if (index < 0 || index >= current.length) {
+				throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + current.length);
+			}
 
-		copy.remove(index);
-		this.list = copy;
+			copy = new Object[current.length - 1];
+			System.arraycopy(current, 0, copy, 0, index);
+			System.arraycopy(current, index + 1, copy, index, current.length - index - 1);
+		} while (!ARRAY_UPDATER.compareAndSet(this, current, copy));
 	}
 
 	/**
@@ -178,8 +242,13 @@ public class SortedCopyOnWriteArray<T extends Comparable<T>> implements Collecti
 	 * @param index - index of element to retrieve.
 	 * @return The element at the given location.
 	 */
+	@SuppressWarnings("unchecked")
 	public T get(int index) {
-		return this.list.get(index);
+		Object[] current = this.array;
+		if (index < 0 || index >= current.length) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + current.length);
+		}
+		return (T) current[index];
 	}
 
 	/**
@@ -188,50 +257,96 @@ public class SortedCopyOnWriteArray<T extends Comparable<T>> implements Collecti
 	 * @return Size of the list.
 	 */
 	public int size() {
-		return this.list.size();
+		return this.array.length;
+	}
+
+	/**
+	 * Retrieve the current content of the list as an array, in sorted order.
+	 * <p>
+	 * The returned array is the internal snapshot and is shared with every other caller. It will not reflect later
+	 * modifications and must never be modified. Indexing it directly is the cheapest way to iterate over the list.
+	 *
+	 * @return The current snapshot.
+	 */
+	public Object[] getSnapshot() {
+		return this.array;
+	}
+
+	/**
+	 * Performs the given action for every element of the current snapshot, without allocating an iterator.
+	 *
+	 * @param action - the action to perform.
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public void forEach(Consumer<? super T> action) {
+		Object[] current = this.array;
+		for (int i = 0; i < current.length; i++) {
+			action.accept((T) current[i]);
+		}
 	}
 
 	/**
 	 * Retrieves an iterator over the elements in the given list. Warning: No not attempt to remove elements using the
 	 * iterator.
 	 */
+	@SuppressWarnings("unchecked")
 	public Iterator<T> iterator() {
-		return Iterables.unmodifiableIterable(this.list).iterator();
+		return (Iterator<T>) (Iterator<?>) Iterators.forArray(this.array);
 	}
 
 	@Override
 	public void clear() {
-		this.list = new ArrayList<>();
+		this.array = EMPTY_ARRAY;
 	}
 
 	@Override
 	public boolean contains(Object value) {
-		return this.list.contains(value);
+		for (Object element : this.array) {
+			if (Objects.equal(value, element)) {
+				return true;
+			}
+		}
+		return false;
 	}
 
 	@Override
 	public boolean containsAll(Collection<?> values) {
-		return this.list.containsAll(values);
+		for (Object value : values) {
+			if (!this.contains(value)) {
+				return false;
+			}
+		}
+		return true;
 	}
 
 	@Override
 	public boolean isEmpty() {
-		return this.list.isEmpty();
+		return this.array.length == 0;
 	}
 
 	@Override
 	public Object[] toArray() {
-		return this.list.toArray();
+		return this.array.clone();
 	}
 
-	@SuppressWarnings("hiding")
+	@SuppressWarnings({"hiding", "unchecked"})
 	@Override
 	public <T> T[] toArray(T[] a) {
-		return this.list.toArray(a);
+		Object[] current = this.array;
+		if (a.length < current.length) {
+			return (T[]) Arrays.copyOf(current, current.length, a.getClass());
+		}
+
+		System.arraycopy(current, 0, a, 0, current.length);
+		if (a.length > current.length) {
+			a[current.length] = null;
+		}
+		return a;
 	}
 
 	@Override
 	public String toString() {
-		return this.list.toString();
+		return Arrays.toString(this.array);
 	}
 }
@@ -49,6 +49,14 @@ public abstract class AbstractStructure {
         return handle;
     }
 
+    /**
+     * Retrieves the handle that fields are written to. This is the handle itself, unless it's copied on write.
+     * @return The handle to write to.
+     */
+    protected Object getWriteHandle() {
+        return handle;
+    }
+
     public StructureModifier<Object> getModifier() {
         return structureModifier;
     }
@@ -63,6 +71,144 @@ public abstract class AbstractStructure {
         return structureModifier.withType(primitiveType);
     }
 
+    /**
+     * Retrieves a cached view of every field with the given type, shared by every structure of the same class.
+     * <p>
+     * The view has no target, so the handle must be passed to every read and write. This doesn't allocate a new
+     * modifier on every call, for instance:
+     * <pre><code>
+     * int entityId = packet.getView(int.class).read(packet.getHandle(), 0);
+     * </code></pre>
+     * @param <T> Type
+     * @param fieldType - the type to find.
+     * @return A view for this specific type.
+     */
+    public <T> StructureModifier<T> getView(Class<T> fieldType) {
+        return structureModifier.view(fieldType);
+    }
+
+    /**
+     * Retrieves a cached view of every field with the given type, shared by every structure of the same class.
+     * <p>
+     * Views are cached by the identity of the converter, so the same converter instance should be passed on every call.
+     * @param <T> Type
+     * @param fieldType - the type to find.
+     * @param converter - converts objects into the given type.
+     * @return A view for this specific type.
+     * @see #getView(Class)
+     */
+    public <T> StructureModifier<T> getView(Class<?> fieldType, EquivalentConverter<T> converter) {
+        return structureModifier.view(fieldType, converter);
+    }
+
+    /**
+     * Reads the int field with the given index, counting only int fields, without boxing it.
+     * @param index - the index of the field among every int field.
+     * @return The value of the field.
+     */
+    public int readInt(int index) {
+        return structureModifier.view(int.class).readInt(handle, index);
+    }
+
+    /**
+     * Writes the int field with the given index, counting only int fields, without boxing it.
+     * @param index - the index of the field among every int field.
+     * @param value - the new value of the field.
+     */
+    public void writeInt(int index, int value) {
+        structureModifier.view(int.class).writeInt(getWriteHandle(), index, value);
+    }
+
+    /**
+     * Reads the long field with the given index, counting only long fields, without boxing it.
+     * @param index - the index of the field among every long field.
+     * @return The value of the field.
+     */
+    public long readLong(int index) {
+        return structureModifier.view(long.class).readLong(handle, index);
+    }
+
+    /**
+     * Writes the long field with the given index, counting only long fields, without boxing it.
+     * @param index - the index of the field among every long field.
+     * @param value - the new value of the field.
+     */
+    public void writeLong(int index, long value) {
+        structureModifier.view(long.class).writeLong(getWriteHandle(), index, value);
+    }
+
+    /**
+     * Reads the short field with the given index, counting only short fields, without boxing it.
+     * @param index - the index of the field among every short field.
+     * @return The value of the field.
+     */
+    public short readShort(int index) {
+        return structureModifier.view(short.class).readShort(handle, index);
+    }
+
+    /**
+     * Writes the short field with the given index, counting only short fields, without boxing it.
+     * @param index - the index of the field among every short field.
+     * @param value - the new value of the field.
+     */
+    public void writeShort(int index, short value) {
+        structureModifier.view(short.class).writeShort(getWriteHandle(), index, value);
+    }
+
+    /**
+     * Reads the byte field with the given index, counting only byte fields, without boxing it.
+     * @param index - the index of the field among every byte field.
+     * @return The value of the field.
+     */
+    public byte readByte(int index) {
+        return structureModifier.view(byte.class).readByte(handle, index);
+    }
+
+    /**
+     * Writes the byte field with the given index, counting only byte fields, without boxing it.
+     * @param index - the index of the field among every byte field.
+     * @param value - the new value of the field.
+     */
+    public void writeByte(int index, byte value) {
+        structureModifier.view(byte.class).writeByte(getWriteHandle(), index, value);
+    }
+
+    /**
+     * Reads the float field with the given index, counting only float fields, without boxing it.
+     * @param index - the index of the field among every float field.
+     * @return The value of the field.
+     */
+    public float readFloat(int index) {
+        return structureModifier.view(float.class).readFloat(handle, index);
+    }
+
+    /**
+     * Writes the float field with the given index, counting only float fields, without boxing it.
+     * @param index - the index of the field among every float field.
+     * @param value - the new value of the field.
+     */
+    public void writeFloat(int index, float value) {
+        structureModifier.view(float.class).writeFloat(getWriteHandle(), index, value);
+    }
+
+    /**
+     * Reads the double field with the given index, counting only double fields, without boxing it.
+     * @param index - the index of the field among every double field.
+     * @return The value of the field.
+     */
+    public double readDouble(int index) {
+        return structureModifier.view(double.class).readDouble(handle, index);
+    }
+
+    /**
+     * Writes the double field with the given index, counting only double fields, without boxing it.
+     * @param index - the index of the field among every double field.
+     * @param value - the new value of the field.
+     */
+    public void writeDouble(int index, double value) {
+        structureModifier.view(double.class).writeDouble(getWriteHandle(), index, value);
+    }
+
     /**
      * Retrieves a read/write structure for every byte field.
      * @return A modifier for every byte field.
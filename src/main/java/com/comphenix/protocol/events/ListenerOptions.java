@@ -29,5 +29,11 @@ public enum ListenerOptions {
 	 * Notify ProtocolLib that {@link PacketListener#onPacketReceiving(PacketEvent)} must be executed on the main server
 	 * thread.
 	 */
-	SYNC
+	SYNC,
+
+	/**
+	 * Notify ProtocolLib that packets should be copied the first time the listener modifies them, so they can be
+	 * modified without affecting other players that receive the same packet. See {@link PacketEvent#setCopyOnWrite()}.
+	 */
+	COPY_ON_WRITE
 }
@@ -21,8 +21,10 @@ import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -34,6 +36,7 @@ import java.util.function.Function;
 
 import com.comphenix.protocol.PacketType;
 import com.comphenix.protocol.injector.StructureCache;
+import com.comphenix.protocol.reflect.CopyOnWriteTarget;
 import com.comphenix.protocol.reflect.FuzzyReflection;
 import com.comphenix.protocol.reflect.ObjectWriter;
 import com.comphenix.protocol.reflect.StructureModifier;
@@ -56,7 +59,6 @@ import com.comphenix.protocol.utility.MinecraftMethods;
 import com.comphenix.protocol.utility.MinecraftReflection;
 import com.comphenix.protocol.utility.MinecraftVersion;
 import com.comphenix.protocol.wrappers.Converters;
-import com.google.common.collect.Sets;
 import io.netty.buffer.ByteBuf;
 import io.netty.util.ReferenceCountUtil;
 import javax.annotation.Nullable;
@@ -72,6 +74,9 @@ public class PacketContainer extends AbstractStructure implements Serializable {
 
 	private PacketType type;
 
+	// Copies the handle on the first write, if this is a copy-on-write view
+	private transient CopyOnWriteHandle copyOnWriteHandle;
+
 	// Support for serialization
 	private static final Map<PacketType, Function<Object, Object>> PACKET_DESERIALIZER_METHODS = new ConcurrentHashMap<>();
 
@@ -102,12 +107,15 @@ public class PacketContainer extends AbstractStructure implements Serializable {
 			.build();
 
 	// Packets that cannot be cloned by our default deep cloner
-	private static final Set<PacketType> FAST_CLONE_UNSUPPORTED = Sets.newHashSet(
-		PacketType.Play.Server.BOSS,
-		PacketType.Play.Server.ADVANCEMENTS,
-		PacketType.Play.Client.USE_ENTITY,
-		PacketType.Status.Server.SERVER_INFO
-	);
+	private static final Set<PacketType> FAST_CLONE_UNSUPPORTED = ConcurrentHashMap.newKeySet();
+
+	static {
+		Collections.addAll(FAST_CLONE_UNSUPPORTED,
+			PacketType.Play.Server.BOSS,
+			PacketType.Play.Server.ADVANCEMENTS,
+			PacketType.Play.Client.USE_ENTITY,
+			PacketType.Status.Server.SERVER_INFO);
+	}
 
 	/**
 	 * Creates a packet container for a new packet.
@@ -172,6 +180,11 @@ public class PacketContainer extends AbstractStructure implements Serializable {
 		return handle;
 	}
 
+	@Override
+	protected Object getWriteHandle() {
+		return copyOnWriteHandle != null ? copyOnWriteHandle.getWriteTarget() : handle;
+	}
+
 	/**
 	 * Retrieves the generic structure modifier for this packet.
 	 * @return Structure modifier.
@@ -217,6 +230,35 @@ public class PacketContainer extends AbstractStructure implements Serializable {
 		return new PacketContainer(getType(), clonedPacket);
 	}
 
+	/**
+	 * Create a copy-on-write view of the current packet.
+	 * <p>
+	 * The view reads the fields of this packet until it's written to, either directly or through any modifier retrieved
+	 * from it. The first write replaces the handle of the view with a shallow copy of this packet, so this packet is
+	 * never modified by the view. Objects read from the packet, such as collections or the structures returned by
+	 * {@link #getStructures()}, are not copied and must still be cloned before they're modified.
+	 *
+	 * @return A copy-on-write view of the current packet.
+	 */
+	public PacketContainer copyOnWrite() {
+		PacketContainer view = new PacketContainer();
+		view.type = type;
+		view.handle = getHandle();
+		view.copyOnWriteHandle = view.new CopyOnWriteHandle();
+		view.structureModifier = structureModifier.withCopyOnWriteTarget(view.copyOnWriteHandle);
+		return view;
+	}
+
+	/**
+	 * Determine if this is a copy-on-write view that has not been written to yet.
+	 *
+	 * @return TRUE if the handle is still shared with the original packet, FALSE otherwise.
+	 * @see #copyOnWrite()
+	 */
+	public boolean isSharedHandle() {
+		return copyOnWriteHandle != null && !copyOnWriteHandle.copied;
+	}
+
 	/**
 	 * Create a deep copy of the current packet.
 	 * <p>
@@ -260,19 +302,13 @@ public class PacketContainer extends AbstractStructure implements Serializable {
 		return new com.google.common.base.Function<BuilderParameters, Cloner>() {
 			@Override
 			public Cloner apply(@Nullable BuilderParameters param) {
-				return new FieldCloner(param.getAggregateCloner(), param.getInstanceProvider()) {{
-					this.writer = new ObjectWriter() {
-						@Override
-						protected void transformField(StructureModifier<Object> modifierSource,
-													  StructureModifier<Object> modifierDest, int fieldIndex) {
-							// No need to clone inflated buffers
-							if (modifierSource.getField(fieldIndex).getName().startsWith("inflatedBuffer"))
-								modifierDest.write(fieldIndex, modifierSource.read(fieldIndex));
-							else
-								defaultTransform(modifierSource, modifierDest, getDefaultCloner(), fieldIndex);
-						};
-					};
-				}};
+				return new FieldCloner(param.getAggregateCloner(), param.getInstanceProvider()) {
+					@Override
+					protected boolean isCloned(Field field) {
+						// No need to clone inflated buffers
+						return !field.getName().startsWith("inflatedBuffer");
+					}
+				};
 			}
 		};
 	}
@@ -465,4 +501,29 @@ public class PacketContainer extends AbstractStructure implements Serializable {
 	public String toString() {
 		return "PacketContainer[type=" + type + ", structureModifier=" + structureModifier + "]";
 	}
+
+	/**
+	 * Replaces the handle of a copy-on-write view with a shallow copy on the first write.
+	 */
+	private final class CopyOnWriteHandle implements CopyOnWriteTarget {
+		private volatile boolean copied;
+
+		@Override
+		public Object getReadTarget() {
+			return handle;
+		}
+
+		@Override
+		public Object getWriteTarget() {
+			if (!copied) {
+				synchronized (this) {
+					if (!copied) {
+						handle = SHALLOW_CLONER.clone(handle);
+						copied = true;
+					}
+				}
+			}
+			return handle;
+		}
+	}
 }
@@ -71,6 +71,8 @@ public class PacketEvent extends EventObject implements Cancellable {
 	// Whether or not a packet event is read only
 	private boolean readOnly;
 	private boolean filtered;
+	// Whether or not the packet has been replaced with a copy-on-write view
+	private boolean copyOnWrite;
 
 	@Nullable
 	private PacketEvent bundle;
@@ -113,6 +115,7 @@ public class PacketEvent extends EventObject implements Cancellable {
 		this.networkMarker = original.networkMarker;
 		this.asyncMarker = asyncMarker;
 		this.asynchronous = true;
+		this.copyOnWrite = original.copyOnWrite;
 	}
 
 	/**
@@ -279,6 +282,32 @@ public class PacketEvent extends EventObject implements Cancellable {
 		this.packet = packet;
 	}
 
+	/**
+	 * Replace the packet with a copy-on-write view of it, unless that has already been done.
+	 * <p>
+	 * The packet is then only copied the first time it's modified, and the copy is the packet that will be sent or
+	 * received. This is done automatically for listeners with {@link ListenerOptions#COPY_ON_WRITE}.
+	 *
+	 * @see PacketContainer#copyOnWrite()
+	 */
+	public void setCopyOnWrite() {
+		if (!copyOnWrite) {
+			// bypass the read-only check, the packet the event represents doesn't change
+			this.packet = packet.copyOnWrite();
+			this.copyOnWrite = true;
+		}
+	}
+
+	/**
+	 * Determine if the packet has been replaced with a copy-on-write view.
+	 *
+	 * @return TRUE if it has, FALSE otherwise.
+	 * @see #setCopyOnWrite()
+	 */
+	public boolean isCopyOnWrite() {
+		return copyOnWrite;
+	}
+
 	/**
 	 * Retrieves the packet ID.
 	 * <p>
@@ -553,6 +582,30 @@ public class PacketEvent extends EventObject implements Cancellable {
 		return bundle;
 	}
 
+	/**
+	 * <b>Internal method</b>. Reuse this event for the next packet of the same bundle.
+	 * <p>
+	 * This resets the cancellation, read-only and asynchronous state of the event, so listeners must not retain a
+	 * reference to events of bundled packets.
+	 *
+	 * @param packet - the next packet of the bundle.
+	 * @throws IllegalStateException If this event doesn't belong to a bundle.
+	 */
+	public void reuseForBundledPacket(PacketContainer packet) {
+		if (bundle == null) {
+			throw new IllegalStateException("Only events of bundled packets can be reused.");
+		}
+		if (packet == null) {
+			throw new IllegalArgumentException("packet cannot be null");
+		}
+		this.packet = packet;
+		this.cancel = false;
+		this.readOnly = false;
+		this.copyOnWrite = false;
+		this.asyncMarker = null;
+		this.asynchronous = false;
+	}
+
 	@Override
 	public String toString() {
 		return "PacketEvent[player=" + getPlayer() + ", packet=" + packet + "]";
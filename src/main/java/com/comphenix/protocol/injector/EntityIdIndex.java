@@ -0,0 +1,137 @@
+package com.comphenix.protocol.injector;
+
+import java.lang.ref.WeakReference;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.bukkit.World;
+import org.bukkit.entity.Entity;
+
+/**
+ * An index of the entities of every world, by their entity id.
+ * <p>
+ * Entities are added and removed on the main thread as they enter and leave a world, but the index can be read from
+ * any thread, including the netty event loops which must not touch the world state themselves. The index only holds
+ * weak references to the entities, and entries of entities that have left their world without being removed are
+ * ignored on lookup and dropped by {@link #sweep()}.
+ */
+final class EntityIdIndex {
+
+	private final ConcurrentMap<World, ConcurrentMap<Integer, WeakReference<Entity>>> worlds = new ConcurrentHashMap<>();
+
+	/**
+	 * Add the given entity to the index of its current world.
+	 *
+	 * @param entity - the entity to add.
+	 */
+	void add(Entity entity) {
+		World world = entity.getWorld();
+		if (world != null) {
+			this.worlds.computeIfAbsent(world, key -> new ConcurrentHashMap<>())
+					.put(entity.getEntityId(), new WeakReference<>(entity));
+		}
+	}
+
+	/**
+	 * Add every given entity to the index of its current world.
+	 *
+	 * @param entities - the entities to add.
+	 */
+	void addAll(Iterable<? extends Entity> entities) {
+		for (Entity entity : entities) {
+			this.add(entity);
+		}
+	}
+
+	/**
+	 * Remove the given entity from the index of every world.
+	 * <p>
+	 * Players keep their entity id when they change worlds, so they might still be indexed in their previous world.
+	 *
+	 * @param entity - the entity to remove.
+	 */
+	void remove(Entity entity) {
+		Integer id = entity.getEntityId();
+		for (ConcurrentMap<Integer, WeakReference<Entity>> entities : this.worlds.values()) {
+			WeakReference<Entity> reference = entities.get(id);
+			if (reference != null && reference.get() == entity) {
+				entities.remove(id, reference);
+			}
+		}
+	}
+
+	/**
+	 * Remove every entity of the given world from the index.
+	 *
+	 * @param world - the world to remove.
+	 */
+	void removeWorld(World world) {
+		this.worlds.remove(world);
+	}
+
+	/**
+	 * Remove every entity from the index.
+	 */
+	void clear() {
+		this.worlds.clear();
+	}
+
+	/**
+	 * Retrieve the indexed entity with the given id in the given world.
+	 *
+	 * @param world - the world of the entity.
+	 * @param id    - the entity id.
+	 * @return The entity, or NULL if it is not indexed or has left the world.
+	 */
+	Entity getEntity(World world, int id) {
+		ConcurrentMap<Integer, WeakReference<Entity>> entities = this.worlds.get(world);
+		if (entities == null) {
+			return null;
+		}
+
+		WeakReference<Entity> reference = entities.get(id);
+		Entity entity = reference != null ? reference.get() : null;
+
+		// the entity might have been removed or changed worlds since it was indexed
+		if (entity != null && entity.isValid() && world.equals(entity.getWorld())) {
+			return entity;
+		}
+		return null;
+	}
+
+	/**
+	 * Drop every entry of an entity that has been garbage collected or has left its world.
+	 * <p>
+	 * This must be called on the main thread.
+	 *
+	 * @return The number of dropped entries.
+	 */
+	int sweep() {
+		int removed = 0;
+		for (Map.Entry<World, ConcurrentMap<Integer, WeakReference<Entity>>> world : this.worlds.entrySet()) {
+			Iterator<WeakReference<Entity>> iterator = world.getValue().values().iterator();
+			while (iterator.hasNext()) {
+				Entity entity = iterator.next().get();
+				if (entity == null || !entity.isValid() || !world.getKey().equals(entity.getWorld())) {
+					iterator.remove();
+					removed++;
+				}
+			}
+		}
+		return removed;
+	}
+
+	/**
+	 * Retrieve the number of indexed entities, including entities that haven't been swept yet.
+	 *
+	 * @return The number of entries.
+	 */
+	int size() {
+		int size = 0;
+		for (ConcurrentMap<Integer, WeakReference<Entity>> entities : this.worlds.values()) {
+			size += entities.size();
+		}
+		return size;
+	}
+}
@@ -37,4 +37,38 @@ public interface InternalManager extends ProtocolManager {
 	 * @param debug - TRUE if it is, FALSE otherwise.
 	 */
 	void setDebug(boolean debug);
+
+	/**
+	 * Set whether or not the positions of all online players are indexed to speed up broadcasting by location.
+	 * <p>
+	 * The index is updated every tick, so the player positions used by a broadcast may be one tick old.
+	 *
+	 * @param enabled - TRUE if the index should be maintained, FALSE otherwise.
+	 */
+	void setSpatialIndexEnabled(boolean enabled);
+
+	/**
+	 * Set whether or not the entities of every world are indexed by their id, for lookups off the main thread.
+	 * <p>
+	 * The index is used by {@link com.comphenix.protocol.ProtocolManager#getEntityFromID(org.bukkit.World, int)} when
+	 * it is called from another thread, such as a netty event loop.
+	 *
+	 * @param enabled - TRUE if the index should be maintained, FALSE otherwise.
+	 */
+	void setEntityIndexEnabled(boolean enabled);
+
+	/**
+	 * Set the number of threads shared by the workers of every asynchronous listener.
+	 *
+	 * @param threads - the number of threads, or zero for the number of available processors.
+	 */
+	void setAsyncWorkerThreads(int threads);
+
+	/**
+	 * Set whether or not the workers of asynchronous listeners run on virtual threads.
+	 *
+	 * @param enabled - TRUE to run them on virtual threads, FALSE to run them on the shared worker pool.
+	 * @throws IllegalStateException If virtual threads are not supported by this runtime.
+	 */
+	void setAsyncVirtualThreads(boolean enabled);
 }
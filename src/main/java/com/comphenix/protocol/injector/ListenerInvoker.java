@@ -18,7 +18,9 @@
 package com.comphenix.protocol.injector;
 
 import com.comphenix.protocol.PacketType;
+import com.comphenix.protocol.concurrency.ListenerDispatchTable;
 import com.comphenix.protocol.events.PacketEvent;
+import com.comphenix.protocol.events.PacketListener;
 
 /**
  * Represents an object that initiate the packet listeners.
@@ -41,6 +43,40 @@ public interface ListenerInvoker {
 	 */
 	void invokePacketSending(PacketEvent event);
 
+	/**
+	 * Invokes the given packet event for every listener in the given inbound dispatch entry.
+	 * <p>
+	 * This saves a second lookup of the registered listeners if the caller already retrieved the entry.
+	 *
+	 * @param event - the packet event to invoke.
+	 * @param entry - the dispatch entry of the packet, or NULL if no listener is registered.
+	 */
+	void invokePacketReceiving(PacketEvent event, ListenerDispatchTable.Entry<PacketListener> entry);
+
+	/**
+	 * Invokes the given packet event for every listener in the given outbound dispatch entry.
+	 * <p>
+	 * This saves a second lookup of the registered listeners if the caller already retrieved the entry.
+	 *
+	 * @param event - the packet event to invoke.
+	 * @param entry - the dispatch entry of the packet, or NULL if no listener is registered.
+	 */
+	void invokePacketSending(PacketEvent event, ListenerDispatchTable.Entry<PacketListener> entry);
+
+	/**
+	 * Retrieve the class indexed table of every registered inbound listener.
+	 *
+	 * @return The inbound dispatch table.
+	 */
+	ListenerDispatchTable<PacketListener> getInboundDispatchTable();
+
+	/**
+	 * Retrieve the class indexed table of every registered outbound listener.
+	 *
+	 * @return The outbound dispatch table.
+	 */
+	ListenerDispatchTable<PacketListener> getOutboundDispatchTable();
+
 	/**
 	 * Retrieve the associated type of a packet.
 	 *
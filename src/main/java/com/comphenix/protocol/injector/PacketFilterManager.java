@@ -5,9 +5,11 @@ import com.comphenix.protocol.PacketType;
 import com.comphenix.protocol.PacketType.Sender;
 import com.comphenix.protocol.ProtocolLibrary;
 import com.comphenix.protocol.async.AsyncFilterManager;
+import com.comphenix.protocol.concurrency.ListenerDispatchTable;
 import com.comphenix.protocol.error.ErrorReporter;
 import com.comphenix.protocol.error.Report;
 import com.comphenix.protocol.error.ReportType;
+import com.comphenix.protocol.events.ConnectionSide;
 import com.comphenix.protocol.events.ListenerOptions;
 import com.comphenix.protocol.events.ListenerPriority;
 import com.comphenix.protocol.events.ListeningWhitelist;
@@ -17,16 +19,20 @@ import com.comphenix.protocol.events.PacketContainer;
 import com.comphenix.protocol.events.PacketEvent;
 import com.comphenix.protocol.events.PacketListener;
 import com.comphenix.protocol.injector.PluginVerifier.VerificationResult;
+import com.comphenix.protocol.injector.netty.SharedWirePacket;
 import com.comphenix.protocol.injector.netty.WirePacket;
 import com.comphenix.protocol.injector.netty.manager.NetworkManagerInjector;
 import com.comphenix.protocol.injector.packet.PacketInjector;
 import com.comphenix.protocol.injector.packet.PacketRegistry;
 import com.comphenix.protocol.injector.player.PlayerInjectionHandler;
 import com.comphenix.protocol.injector.player.PlayerInjectionHandler.ConflictStrategy;
+import com.comphenix.protocol.metrics.PipelineMetrics;
 import com.comphenix.protocol.utility.MinecraftReflection;
 import com.comphenix.protocol.utility.MinecraftVersion;
+import com.comphenix.protocol.utility.Util;
 import com.google.common.collect.ImmutableSet;
 import io.netty.channel.Channel;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
@@ -42,13 +48,20 @@ import org.bukkit.entity.Entity;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
+import org.bukkit.event.HandlerList;
 import org.bukkit.event.Listener;
+import org.bukkit.event.entity.EntitySpawnEvent;
+import org.bukkit.event.player.PlayerChangedWorldEvent;
 import org.bukkit.event.player.PlayerJoinEvent;
 import org.bukkit.event.player.PlayerLoginEvent;
 import org.bukkit.event.player.PlayerQuitEvent;
 import org.bukkit.event.server.PluginDisableEvent;
+import org.bukkit.event.world.EntitiesLoadEvent;
+import org.bukkit.event.world.EntitiesUnloadEvent;
+import org.bukkit.event.world.WorldUnloadEvent;
 import org.bukkit.plugin.Plugin;
 import org.bukkit.plugin.PluginManager;
+import org.bukkit.util.BoundingBox;
 
 public class PacketFilterManager implements ListenerInvoker, InternalManager {
 
@@ -60,6 +73,9 @@ public class PacketFilterManager implements ListenerInvoker, InternalManager {
 	private static final ReportType UNSUPPORTED_PACKET = new ReportType(
 			"Plugin %s tried to register listener for unknown packet %s [direction: from %s]");
 
+	// the number of ticks between removing entities that have left their world from the entity index
+	private static final long ENTITY_INDEX_SWEEP_INTERVAL = 20L * 60;
+
 	// bukkit references
 	private final Plugin plugin;
 	private final Server server;
@@ -83,6 +99,16 @@ public class PacketFilterManager implements ListenerInvoker, InternalManager {
 	private final PlayerInjectionHandler playerInjectionHandler;
 	private final NetworkManagerInjector networkManagerInjector;
 
+	// the optional index of player positions and the task keeping it up to date
+	private volatile PlayerSpatialIndex spatialIndex;
+	private int spatialIndexTask = -1;
+
+	// the optional index of entity ids, with the listener and task keeping it up to date
+	private volatile EntityIdIndex entityIndex;
+	private Listener entityIndexListener;
+	private Listener entityChunkListener;
+	private int entityIndexTask = -1;
+
 	// status of this manager
 	private boolean debug = false;
 	private boolean closed = false;
@@ -104,8 +130,8 @@ public class PacketFilterManager implements ListenerInvoker, InternalManager {
 
 		// packet listeners
 		this.registeredListeners = new HashSet<>();
-		this.inboundListeners = new SortedPacketListenerList();
-		this.outboundListeners = new SortedPacketListenerList();
+		this.inboundListeners = new SortedPacketListenerList(ConnectionSide.CLIENT_SIDE);
+		this.outboundListeners = new SortedPacketListenerList(ConnectionSide.SERVER_SIDE);
 
 		// injectors
 		this.networkManagerInjector = new NetworkManagerInjector(
@@ -166,18 +192,25 @@ public class PacketFilterManager implements ListenerInvoker, InternalManager {
 				// ensure we are on the main thread if any listener requires that
 				if (this.playerInjectionHandler.hasMainThreadListener(packet.getType()) && !this.server.isPrimaryThread()) {
 					NetworkMarker copy = marker; // okay fine
+					PipelineMetrics.getInstance().recordRescheduled(packet.getType());
 					this.server.getScheduler().scheduleSyncDelayedTask(
 							this.plugin,
 							() -> this.sendServerPacket(receiver, packet, copy, false));
 					return;
 				}
 
-				// construct the event and post to all monitor listeners
-				PacketEvent event = PacketEvent.fromServer(this, packet, marker, receiver, false);
-				this.outboundListeners.invokePacketSending(this.reporter, event, ListenerPriority.MONITOR);
-
-				// update the marker of the event without accidentally constructing it
-				marker = NetworkMarker.getNetworkMarker(event);
+				// only construct the event if there is a monitor listener, bundles may contain packets which have one
+				ListenerDispatchTable.Entry<PacketListener> entry = this.getOutboundDispatchTable().getEntry(
+						packet.getHandle().getClass());
+				if ((entry != null && entry.hasListeners(ListenerPriority.MONITOR))
+						|| packet.getType() == PacketType.Play.Server.BUNDLE) {
+					// construct the event and post to all monitor listeners
+					PacketEvent event = PacketEvent.fromServer(this, packet, marker, receiver, false);
+					this.outboundListeners.invokePacketSending(this.reporter, event, entry, ListenerPriority.MONITOR);
+
+					// update the marker of the event without accidentally constructing it
+					marker = NetworkMarker.getNetworkMarker(event);
+				}
 			}
 
 			// process outbound
@@ -218,6 +251,7 @@ public class PacketFilterManager implements ListenerInvoker, InternalManager {
 		if (!this.closed) {
 			// make sure we are on the main thread if any listener of the packet needs it
 			if (this.playerInjectionHandler.hasMainThreadListener(packet.getType()) && !this.server.isPrimaryThread()) {
+				PipelineMetrics.getInstance().recordRescheduled(packet.getType());
 				this.server.getScheduler().scheduleSyncDelayedTask(
 						this.plugin,
 						() -> this.receiveClientPacket(sender, packet, marker, filters));
@@ -236,8 +270,12 @@ public class PacketFilterManager implements ListenerInvoker, InternalManager {
 				// prevent possible de-sync
 				nmsPacket = event.getPacket().getHandle();
 			} else {
-				PacketEvent event = PacketEvent.fromClient(this, packet, marker, sender, false);
-				this.inboundListeners.invokePacketRecieving(this.reporter, event, ListenerPriority.MONITOR);
+				// only post to the monitor listeners, if there are any
+				ListenerDispatchTable.Entry<PacketListener> entry = this.getInboundDispatchTable().getEntry(nmsPacket.getClass());
+				if (entry != null && entry.hasListeners(ListenerPriority.MONITOR)) {
+					PacketEvent event = PacketEvent.fromClient(this, packet, marker, sender, false);
+					this.inboundListeners.invokePacketRecieving(this.reporter, event, entry, ListenerPriority.MONITOR);
+				}
 			}
 
 			// post to the player inject, reset our cancel state change
@@ -275,18 +313,50 @@ public class PacketFilterManager implements ListenerInvoker, InternalManager {
 				throw new IllegalArgumentException("The given location " + origin + " has no world associated!");
 			}
 
-			Location copy = origin.clone();
-			int maxDistance = maxObserverDistance * maxObserverDistance;
+			double x = origin.getX();
+			double y = origin.getY();
+			double z = origin.getZ();
+
+			// prefer the index if it's enabled, the positions in it are at most one tick old
+			PlayerSpatialIndex index = this.spatialIndex;
+			if (index != null) {
+				index.forEachPlayer(world, x, y, z, maxObserverDistance, player -> this.sendServerPacket(player, packet));
+				return;
+			}
+
+			double maxDistance = (double) maxObserverDistance * maxObserverDistance;
+			Location location = new Location(null, 0, 0, 0);
 
-			// filter out all target players
-			Collection<Player> targetPlayers = new HashSet<>();
+			// send to all players in range, the location is reused for every player
 			for (Player player : world.getPlayers()) {
-				if (player.getLocation().distanceSquared(copy) <= maxDistance) {
-					targetPlayers.add(player);
+				player.getLocation(location);
+
+				double dx = location.getX() - x;
+				double dy = location.getY() - y;
+				double dz = location.getZ() - z;
+				if (dx * dx + dy * dy + dz * dz <= maxDistance) {
+					this.sendServerPacket(player, packet);
 				}
 			}
+		}
+	}
 
-			this.broadcastServerPacket(packet, targetPlayers);
+	@Override
+	public void broadcastServerPacket(PacketContainer packet, World world, BoundingBox box) {
+		if (!this.closed) {
+			PlayerSpatialIndex index = this.spatialIndex;
+			if (index != null) {
+				index.forEachPlayer(world, box, player -> this.sendServerPacket(player, packet));
+				return;
+			}
+
+			Location location = new Location(null, 0, 0, 0);
+			for (Player player : world.getPlayers()) {
+				player.getLocation(location);
+				if (box.contains(location.getX(), location.getY(), location.getZ())) {
+					this.sendServerPacket(player, packet);
+				}
+			}
 		}
 	}
 
@@ -297,6 +367,82 @@ public class PacketFilterManager implements ListenerInvoker, InternalManager {
 		}
 	}
 
+	@Override
+	public void batchBroadcastServerPacket(PacketContainer packet, Collection<? extends Player> targetPlayers) {
+		if (this.closed) {
+			return;
+		}
+
+		// bundles are split by the server before they are encoded, and we only know the ids of play packets for sure
+		PacketType type = packet.getType();
+		if (type == PacketType.Play.Server.BUNDLE || type.getProtocol() != PacketType.Protocol.PLAY) {
+			this.broadcastServerPacket(packet, targetPlayers);
+			return;
+		}
+
+		Object handle = packet.getHandle();
+		ListenerDispatchTable.Entry<PacketListener> entry = this.getOutboundDispatchTable().getEntry(handle.getClass());
+
+		// ensure we are on the main thread if any listener requires that
+		if (entry != null && entry.isMainThread() && !this.server.isPrimaryThread()) {
+			List<Player> receivers = new ArrayList<>(targetPlayers);
+			PipelineMetrics.getInstance().recordRescheduled(type);
+			this.server.getScheduler().scheduleSyncDelayedTask(
+					this.plugin,
+					() -> this.batchBroadcastServerPacket(packet, receivers));
+			return;
+		}
+
+		// collect the channels of all players which can receive the serialized packet. listeners are invoked with a
+		// copy-on-write view of the packet, so only receivers whose packet was changed need to get their own copy
+		List<Channel> channels = new ArrayList<>(targetPlayers.size());
+		for (Player receiver : targetPlayers) {
+			if (entry != null) {
+				PacketEvent event = PacketEvent.fromServer(this, packet, receiver);
+				event.setCopyOnWrite();
+				this.invokePacketSending(event, entry);
+				if (event.isCancelled()) {
+					continue;
+				}
+
+				// the packet was written to, replaced or needs to be post-processed for this receiver
+				NetworkMarker marker = NetworkMarker.getNetworkMarker(event);
+				PacketContainer sent = event.getPacket();
+				if (marker != null || !sent.isSharedHandle() || sent.getHandle() != handle) {
+					this.playerInjectionHandler.sendServerPacket(receiver, sent, marker, false);
+					continue;
+				}
+			}
+
+			Channel channel = this.playerInjectionHandler.getChannel(receiver);
+			if (channel == null) {
+				if (entry != null) {
+					// the listeners were already invoked above
+					this.playerInjectionHandler.sendServerPacket(receiver, packet, null, false);
+				} else {
+					this.sendServerPacket(receiver, packet);
+				}
+				continue;
+			}
+
+			channels.add(channel);
+		}
+
+		if (channels.isEmpty()) {
+			return;
+		}
+
+		// serialize once and write a duplicate of the buffer to every channel, which releases it after writing
+		SharedWirePacket serialized = SharedWirePacket.fromPacket(packet);
+		try {
+			for (Channel channel : channels) {
+				channel.writeAndFlush(serialized.retainedDuplicate());
+			}
+		} finally {
+			serialized.release();
+		}
+	}
+
 	@Override
 	public ImmutableSet<PacketListener> getPacketListeners() {
 		return ImmutableSet.copyOf(this.registeredListeners);
@@ -408,6 +554,12 @@ public class PacketFilterManager implements ListenerInvoker, InternalManager {
 
 	@Override
 	public Entity getEntityFromID(World container, int id) {
+		// the world must not be accessed off the main thread, so only the index is consulted there
+		EntityIdIndex index = this.entityIndex;
+		if (index != null && !this.server.isPrimaryThread()) {
+			return index.getEntity(container, id);
+		}
+
 		return EntityUtilities.getInstance().getEntity(container, id);
 	}
 
@@ -494,6 +646,10 @@ public class PacketFilterManager implements ListenerInvoker, InternalManager {
 			this.closed = true;
 			this.injected = false;
 
+			// stop updating the player and entity index
+			this.setSpatialIndexEnabled(false);
+			this.setEntityIndexEnabled(false);
+
 			// uninject all clutter
 			this.networkManagerInjector.close();
 			this.playerInjectionHandler.close();
@@ -505,6 +661,123 @@ public class PacketFilterManager implements ListenerInvoker, InternalManager {
 		}
 	}
 
+	@Override
+	public void setSpatialIndexEnabled(boolean enabled) {
+		if (enabled && this.spatialIndexTask == -1 && !this.closed) {
+			PlayerSpatialIndex index = new PlayerSpatialIndex();
+			index.update(this.server.getOnlinePlayers());
+
+			// refresh the player positions every tick
+			this.spatialIndexTask = this.server.getScheduler().scheduleSyncRepeatingTask(
+					this.plugin,
+					() -> index.update(this.server.getOnlinePlayers()),
+					1L,
+					1L);
+			if (this.spatialIndexTask != -1) {
+				this.spatialIndex = index;
+			}
+		} else if (!enabled && this.spatialIndexTask != -1) {
+			this.server.getScheduler().cancelTask(this.spatialIndexTask);
+			this.spatialIndexTask = -1;
+			this.spatialIndex = null;
+		}
+	}
+
+	@Override
+	public void setEntityIndexEnabled(boolean enabled) {
+		if (enabled && this.entityIndexTask == -1 && !this.closed) {
+			EntityIdIndex index = new EntityIdIndex();
+			Listener listener = new Listener() {
+
+				@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+				public void handleSpawn(EntitySpawnEvent event) {
+					index.add(event.getEntity());
+				}
+
+				@EventHandler(priority = EventPriority.LOWEST)
+				public void handleJoin(PlayerJoinEvent event) {
+					index.add(event.getPlayer());
+				}
+
+				@EventHandler(priority = EventPriority.MONITOR)
+				public void handleChangedWorld(PlayerChangedWorldEvent event) {
+					index.remove(event.getPlayer());
+					index.add(event.getPlayer());
+				}
+
+				@EventHandler(priority = EventPriority.MONITOR)
+				public void handleQuit(PlayerQuitEvent event) {
+					index.remove(event.getPlayer());
+				}
+
+				@EventHandler(priority = EventPriority.MONITOR)
+				public void handleWorldUnload(WorldUnloadEvent event) {
+					index.removeWorld(event.getWorld());
+				}
+			};
+
+			// entities are loaded with their chunks since 1.17, which has its own events
+			Listener chunkListener = null;
+			if (Util.classExists("org.bukkit.event.world.EntitiesLoadEvent")) {
+				chunkListener = new Listener() {
+
+					@EventHandler(priority = EventPriority.MONITOR)
+					public void handleEntitiesLoad(EntitiesLoadEvent event) {
+						index.addAll(event.getEntities());
+					}
+
+					@EventHandler(priority = EventPriority.MONITOR)
+					public void handleEntitiesUnload(EntitiesUnloadEvent event) {
+						for (Entity entity : event.getEntities()) {
+							index.remove(entity);
+						}
+					}
+				};
+			}
+
+			// entities that are removed without an event are dropped periodically
+			this.entityIndexTask = this.server.getScheduler().scheduleSyncRepeatingTask(
+					this.plugin,
+					index::sweep,
+					ENTITY_INDEX_SWEEP_INTERVAL,
+					ENTITY_INDEX_SWEEP_INTERVAL);
+			if (this.entityIndexTask != -1) {
+				for (World world : this.server.getWorlds()) {
+					index.addAll(world.getEntities());
+				}
+				this.server.getPluginManager().registerEvents(listener, this.plugin);
+				if (chunkListener != null) {
+					this.server.getPluginManager().registerEvents(chunkListener, this.plugin);
+				}
+
+				this.entityIndexListener = listener;
+				this.entityChunkListener = chunkListener;
+				this.entityIndex = index;
+			}
+		} else if (!enabled && this.entityIndexTask != -1) {
+			this.server.getScheduler().cancelTask(this.entityIndexTask);
+			HandlerList.unregisterAll(this.entityIndexListener);
+			if (this.entityChunkListener != null) {
+				HandlerList.unregisterAll(this.entityChunkListener);
+			}
+
+			this.entityIndexTask = -1;
+			this.entityIndexListener = null;
+			this.entityChunkListener = null;
+			this.entityIndex = null;
+		}
+	}
+
+	@Override
+	public void setAsyncWorkerThreads(int threads) {
+		this.asyncFilterManager.setWorkerThreads(threads);
+	}
+
+	@Override
+	public void setAsyncVirtualThreads(boolean enabled) {
+		this.asyncFilterManager.setVirtualThreads(enabled);
+	}
+
 	@Override
 	public boolean isDebug() {
 		return this.debug;
@@ -517,18 +790,38 @@ public class PacketFilterManager implements ListenerInvoker, InternalManager {
 
 	@Override
 	public void invokePacketReceiving(PacketEvent event) {
+		this.invokePacketReceiving(event, this.getInboundDispatchTable().getEntry(event.getPacket().getHandle().getClass()));
+	}
+
+	@Override
+	public void invokePacketSending(PacketEvent event) {
+		this.invokePacketSending(event, this.getOutboundDispatchTable().getEntry(event.getPacket().getHandle().getClass()));
+	}
+
+	@Override
+	public void invokePacketReceiving(PacketEvent event, ListenerDispatchTable.Entry<PacketListener> entry) {
 		if (!this.closed) {
-			this.postPacketToListeners(this.inboundListeners, event, false);
+			this.postPacketToListeners(this.inboundListeners, event, entry, false);
 		}
 	}
 
 	@Override
-	public void invokePacketSending(PacketEvent event) {
+	public void invokePacketSending(PacketEvent event, ListenerDispatchTable.Entry<PacketListener> entry) {
 		if (!this.closed) {
-			this.postPacketToListeners(this.outboundListeners, event, true);
+			this.postPacketToListeners(this.outboundListeners, event, entry, true);
 		}
 	}
 
+	@Override
+	public ListenerDispatchTable<PacketListener> getInboundDispatchTable() {
+		return this.inboundListeners.getDispatchTable();
+	}
+
+	@Override
+	public ListenerDispatchTable<PacketListener> getOutboundDispatchTable() {
+		return this.outboundListeners.getDispatchTable();
+	}
+
 	@Override
 	public PacketType getPacketType(Object packet) {
 		if (!MinecraftReflection.isPacketClass(packet)) {
@@ -543,7 +836,14 @@ public class PacketFilterManager implements ListenerInvoker, InternalManager {
 		throw new IllegalArgumentException("Unable to associate given packet " + packet + " with a registered packet!");
 	}
 
-	private void postPacketToListeners(SortedPacketListenerList listeners, PacketEvent event, boolean outbound) {
+	private void postPacketToListeners(
+			SortedPacketListenerList listeners,
+			PacketEvent event,
+			ListenerDispatchTable.Entry<PacketListener> entry,
+			boolean outbound
+	) {
+		PipelineMetrics metrics = PipelineMetrics.getInstance();
+		long dispatchToken = metrics.beginDispatch();
 		try {
 			// append async marker if any async listener for the packet was registered
 			if (this.asyncFilterManager.hasAsynchronousListeners(event)) {
@@ -552,9 +852,9 @@ public class PacketFilterManager implements ListenerInvoker, InternalManager {
 
 			// post to sync listeners
 			if (outbound) {
-				listeners.invokePacketSending(this.reporter, event);
+				listeners.invokePacketSending(this.reporter, event, entry, null);
 			} else {
-				listeners.invokePacketRecieving(this.reporter, event);
+				listeners.invokePacketRecieving(this.reporter, event, entry, null);
 			}
 
 			// check if we need to post the packet to the async handler
@@ -567,6 +867,8 @@ public class PacketFilterManager implements ListenerInvoker, InternalManager {
 			}
 		} catch (Throwable t) {
 			plugin.getLogger().log(Level.WARNING, "Failed to process " + (outbound ? "outbound" : "inbound") + " packet event: " + event, t);
+		} finally {
+			metrics.endDispatch(dispatchToken, this.server.isPrimaryThread());
 		}
 	}
 
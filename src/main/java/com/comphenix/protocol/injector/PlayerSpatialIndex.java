@@ -0,0 +1,346 @@
+package com.comphenix.protocol.injector;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.bukkit.util.BoundingBox;
+
+/**
+ * A grid of the online players of every world, indexed by the chunk section they are in.
+ * <p>
+ * The index is updated from the current player positions by {@link #update(Collection)}, which must be called on the
+ * main thread. Only the worlds in which a player joined, left or crossed into another chunk section are re-indexed,
+ * players that stayed in their section only have their position updated. Every re-indexed world is published as an
+ * immutable snapshot, so queries can be executed from any thread and see the player positions of the last update.
+ */
+final class PlayerSpatialIndex {
+
+	// the section coordinates are packed into one key, ordered by the column first and then by the height
+	private static final int SECTION_SHIFT = 4;
+	private static final int XZ_BITS = 22;
+	private static final int Y_BITS = 20;
+
+	private static final int XZ_LIMIT = 1 << (XZ_BITS - 1);
+	private static final int Y_LIMIT = 1 << (Y_BITS - 1);
+
+	private static final Comparator<IndexedPlayer> KEY_ORDER = Comparator.comparingLong(player -> player.key);
+
+	// the current entry of every indexed player, only accessed by the main thread
+	private final Map<Player, IndexedPlayer> entries = new HashMap<>();
+	private final Map<World, List<IndexedPlayer>> added = new HashMap<>();
+	private final Set<World> changed = new HashSet<>();
+	private final Location location = new Location(null, 0, 0, 0);
+	private int generation;
+
+	private volatile Map<World, WorldIndex> worlds = Collections.emptyMap();
+
+	/**
+	 * Update the index with the current positions of the given players.
+	 *
+	 * @param players - every online player.
+	 */
+	void update(Collection<? extends Player> players) {
+		int generation = ++this.generation;
+		int seen = 0;
+
+		for (Player player : players) {
+			// reuse the same location, the player will only copy its position
+			player.getLocation(this.location);
+			World world = this.location.getWorld();
+			if (world == null) {
+				continue;
+			}
+
+			double x = this.location.getX();
+			double y = this.location.getY();
+			double z = this.location.getZ();
+			long key = key(section(x, XZ_LIMIT), section(y, Y_LIMIT), section(z, XZ_LIMIT));
+			seen++;
+
+			IndexedPlayer entry = this.entries.get(player);
+			if (entry != null && entry.world == world && entry.key == key) {
+				// the order of the index only depends on the section, so the snapshot stays valid
+				entry.move(x, y, z, generation);
+				continue;
+			}
+
+			// the snapshots might still be read, so the entry of a player that left its section is replaced
+			IndexedPlayer moved = new IndexedPlayer(player, world, x, y, z, key, generation);
+			this.entries.put(player, moved);
+			this.added.computeIfAbsent(world, ignored -> new ArrayList<>()).add(moved);
+			if (entry != null) {
+				this.changed.add(entry.world);
+			}
+		}
+
+		// every seen player has an entry, so any other entry belongs to a player that left
+		if (this.entries.size() > seen) {
+			Iterator<IndexedPlayer> iterator = this.entries.values().iterator();
+			while (iterator.hasNext()) {
+				IndexedPlayer entry = iterator.next();
+				if (entry.generation != generation) {
+					iterator.remove();
+					this.changed.add(entry.world);
+				}
+			}
+		}
+
+		if (this.added.isEmpty() && this.changed.isEmpty()) {
+			return;
+		}
+
+		this.changed.addAll(this.added.keySet());
+		Map<World, WorldIndex> result = new HashMap<>(this.worlds);
+
+		for (World world : this.changed) {
+			List<IndexedPlayer> added = this.added.get(world);
+			WorldIndex index = new WorldIndex(result.get(world), added != null ? added : Collections.emptyList(), this.entries);
+
+			if (index.players.length > 0) {
+				result.put(world, index);
+			} else {
+				result.remove(world);
+			}
+		}
+
+		this.added.clear();
+		this.changed.clear();
+		this.worlds = result;
+	}
+
+	/**
+	 * Remove every player from the index.
+	 */
+	void clear() {
+		this.entries.clear();
+		this.worlds = Collections.emptyMap();
+	}
+
+	/**
+	 * Invoke the given action for every indexed player within the given distance of the origin.
+	 *
+	 * @param world  - the world of the origin.
+	 * @param x      - the x coordinate of the origin.
+	 * @param y      - the y coordinate of the origin.
+	 * @param z      - the z coordinate of the origin.
+	 * @param radius - the maximum distance to the origin.
+	 * @param action - the action to invoke.
+	 */
+	void forEachPlayer(World world, double x, double y, double z, double radius, Consumer<Player> action) {
+		WorldIndex index = this.worlds.get(world);
+		if (index != null) {
+			index.forEachPlayer(null, x, y, z, radius, action);
+		}
+	}
+
+	/**
+	 * Invoke the given action for every indexed player within the given bounding box.
+	 *
+	 * @param world  - the world of the bounding box.
+	 * @param box    - the bounding box.
+	 * @param action - the action to invoke.
+	 */
+	void forEachPlayer(World world, BoundingBox box, Consumer<Player> action) {
+		WorldIndex index = this.worlds.get(world);
+		if (index != null) {
+			index.forEachPlayer(box, 0, 0, 0, 0, action);
+		}
+	}
+
+	private static double square(double value) {
+		return value * value;
+	}
+
+	private static int section(double coordinate, int limit) {
+		int section = ((int) Math.floor(coordinate)) >> SECTION_SHIFT;
+		return Math.max(-limit, Math.min(limit - 1, section));
+	}
+
+	private static long key(int sectionX, int sectionY, int sectionZ) {
+		// offset every coordinate so that the order of the keys matches the order of the coordinates
+		return ((long) (sectionX + XZ_LIMIT) << (XZ_BITS + Y_BITS))
+				| ((long) (sectionZ + XZ_LIMIT) << Y_BITS)
+				| (sectionY + Y_LIMIT);
+	}
+
+	/**
+	 * The last known position of a player, within the chunk section of its key.
+	 */
+	private static final class IndexedPlayer {
+
+		private final Player player;
+		private final World world;
+		private final long key;
+
+		// updated by the main thread while the player stays in the same section
+		private volatile double x;
+		private volatile double y;
+		private volatile double z;
+		private int generation;
+
+		IndexedPlayer(Player player, World world, double x, double y, double z, long key, int generation) {
+			this.player = player;
+			this.world = world;
+			this.key = key;
+			this.x = x;
+			this.y = y;
+			this.z = z;
+			this.generation = generation;
+		}
+
+		void move(double x, double y, double z, int generation) {
+			if (x != this.x || y != this.y || z != this.z) {
+				this.x = x;
+				this.y = y;
+				this.z = z;
+			}
+			this.generation = generation;
+		}
+	}
+
+	/**
+	 * The immutable index of a single world, sorted by the key of the chunk section of every player.
+	 */
+	private static final class WorldIndex {
+
+		private final long[] keys;
+		private final IndexedPlayer[] players;
+
+		/**
+		 * Merge the players that entered the world or one of its sections into the previous index of the world.
+		 *
+		 * @param previous - the previous index, or NULL if the world wasn't indexed.
+		 * @param added    - the entries of the players that entered the world or one of its sections.
+		 * @param current  - the current entry of every player, entries of the previous index that aren't current are
+		 *                 dropped.
+		 */
+		WorldIndex(WorldIndex previous, List<IndexedPlayer> added, Map<Player, IndexedPlayer> current) {
+			IndexedPlayer[] sorted = added.toArray(new IndexedPlayer[0]);
+			Arrays.sort(sorted, KEY_ORDER);
+
+			IndexedPlayer[] kept = previous != null ? previous.players : new IndexedPlayer[0];
+			IndexedPlayer[] players = new IndexedPlayer[kept.length + sorted.length];
+			int count = 0;
+			int next = 0;
+
+			// both arrays are already sorted, so they only have to be merged
+			for (IndexedPlayer player : kept) {
+				if (current.get(player.player) != player) {
+					continue;
+				}
+				while (next < sorted.length && sorted[next].key < player.key) {
+					players[count++] = sorted[next++];
+				}
+				players[count++] = player;
+			}
+			while (next < sorted.length) {
+				players[count++] = sorted[next++];
+			}
+
+			this.players = count == players.length ? players : Arrays.copyOf(players, count);
+			this.keys = new long[count];
+			for (int i = 0; i < count; i++) {
+				this.keys[i] = this.players[i].key;
+			}
+		}
+
+		/**
+		 * Invoke the given action for every player within the given box, or the given distance of the origin.
+		 *
+		 * @param box    - the box, or NULL to check the distance to the origin.
+		 * @param x      - the x coordinate of the origin.
+		 * @param y      - the y coordinate of the origin.
+		 * @param z      - the z coordinate of the origin.
+		 * @param radius - the maximum distance to the origin.
+		 * @param action - the action to invoke.
+		 */
+		void forEachPlayer(BoundingBox box, double x, double y, double z, double radius, Consumer<Player> action) {
+			int minSectionX;
+			int minSectionY;
+			int minSectionZ;
+			int maxSectionX;
+			int maxSectionY;
+			int maxSectionZ;
+
+			if (box != null) {
+				minSectionX = section(box.getMinX(), XZ_LIMIT);
+				minSectionY = section(box.getMinY(), Y_LIMIT);
+				minSectionZ = section(box.getMinZ(), XZ_LIMIT);
+				maxSectionX = section(box.getMaxX(), XZ_LIMIT);
+				maxSectionY = section(box.getMaxY(), Y_LIMIT);
+				maxSectionZ = section(box.getMaxZ(), XZ_LIMIT);
+			} else {
+				minSectionX = section(x - radius, XZ_LIMIT);
+				minSectionY = section(y - radius, Y_LIMIT);
+				minSectionZ = section(z - radius, XZ_LIMIT);
+				maxSectionX = section(x + radius, XZ_LIMIT);
+				maxSectionY = section(y + radius, Y_LIMIT);
+				maxSectionZ = section(z + radius, XZ_LIMIT);
+			}
+
+			double radiusSquared = radius * radius;
+
+			// visiting every column is more expensive than checking every player if the area is large enough
+			long columns = (long) (maxSectionX - minSectionX + 1) * (maxSectionZ - minSectionZ + 1);
+			if (columns >= this.players.length) {
+				for (IndexedPlayer player : this.players) {
+					visit(player, box, x, y, z, radiusSquared, action);
+				}
+				return;
+			}
+
+			// every column is a contiguous range of keys, ordered by height
+			for (int sectionX = minSectionX; sectionX <= maxSectionX; sectionX++) {
+				for (int sectionZ = minSectionZ; sectionZ <= maxSectionZ; sectionZ++) {
+					long lastKey = key(sectionX, maxSectionY, sectionZ);
+					for (int i = this.lowerBound(key(sectionX, minSectionY, sectionZ)); i < this.keys.length && this.keys[i] <= lastKey; i++) {
+						visit(this.players[i], box, x, y, z, radiusSquared, action);
+					}
+				}
+			}
+		}
+
+		private int lowerBound(long key) {
+			int low = 0;
+			int high = this.keys.length;
+
+			while (low < high) {
+				int middle = (low + high) >>> 1;
+				if (this.keys[middle] < key) {
+					low = middle + 1;
+				} else {
+					high = middle;
+				}
+			}
+			return low;
+		}
+
+		private static void visit(IndexedPlayer player, BoundingBox box, double x, double y, double z, double radiusSquared,
+				Consumer<Player> action) {
+			double px = player.x;
+			double py = player.y;
+			double pz = player.z;
+
+			boolean inside = box != null
+					? box.contains(px, py, pz)
+					: square(px - x) + square(py - y) + square(pz - z) <= radiusSquared;
+
+			// the player might have logged out since the last update
+			if (inside && player.player.isOnline()) {
+				action.accept(player.player);
+			}
+		}
+	}
+}
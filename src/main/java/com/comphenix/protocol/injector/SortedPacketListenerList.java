@@ -18,18 +18,23 @@
 package com.comphenix.protocol.injector;
 
 import java.util.ArrayList;
-import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 import java.util.logging.Level;
 
 import com.comphenix.protocol.PacketType;
 import com.comphenix.protocol.ProtocolLibrary;
 import com.comphenix.protocol.concurrency.AbstractConcurrentListenerMultimap;
+import com.comphenix.protocol.concurrency.ListenerDispatchTable;
 import com.comphenix.protocol.error.ErrorReporter;
+import com.comphenix.protocol.events.ConnectionSide;
+import com.comphenix.protocol.events.ListenerOptions;
 import com.comphenix.protocol.events.ListenerPriority;
 import com.comphenix.protocol.events.PacketContainer;
 import com.comphenix.protocol.events.PacketEvent;
 import com.comphenix.protocol.events.PacketListener;
+import com.comphenix.protocol.reflect.StructureModifier;
 import com.comphenix.protocol.timing.TimedListenerManager;
 import com.comphenix.protocol.timing.TimedListenerManager.ListenerType;
 import com.comphenix.protocol.timing.TimedTracker;
@@ -44,9 +49,37 @@ import javax.annotation.Nullable;
 public final class SortedPacketListenerList extends AbstractConcurrentListenerMultimap<PacketListener> {
 	// The current listener manager
 	private TimedListenerManager timedManager = TimedListenerManager.getInstance();
+
+	// The side of the listeners, used to determine if a listener must run on the main thread
+	private final ConnectionSide side;
 	
 	public SortedPacketListenerList() {
+		this(null);
+	}
+
+	/**
+	 * Construct a new listener registry for the given connection side.
+	 * @param side - the side of the registered listeners, or NULL if main thread requirements should be ignored.
+	 */
+	public SortedPacketListenerList(@Nullable ConnectionSide side) {
 		super();
+		this.side = side;
+	}
+
+	@Override
+	protected boolean isMainThreadListener(PacketType type, PrioritizedListener<PacketListener> listener) {
+		if (this.side == null || type.isAsyncForced()) {
+			return false;
+		}
+
+		// Sending listeners run on the main thread unless they're marked as async, receiving listeners the other way round
+		if (this.side == ConnectionSide.SERVER_SIDE) {
+			Set<ListenerOptions> options = listener.getListener().getSendingWhitelist().getOptions();
+			return options == null || !options.contains(ListenerOptions.ASYNC);
+		} else {
+			Set<ListenerOptions> options = listener.getListener().getReceivingWhitelist().getOptions();
+			return options != null && options.contains(ListenerOptions.SYNC);
+		}
 	}
 
 	/**
@@ -55,26 +88,7 @@ public final class SortedPacketListenerList extends AbstractConcurrentListenerMu
 	 * @param event - the packet event to invoke.
 	 */
 	public void invokePacketRecieving(ErrorReporter reporter, PacketEvent event) {
-		Collection<PrioritizedListener<PacketListener>> list = getListener(event.getPacketType());
-		
-		if (list == null)
-			return;
-
-		// The returned list is thread-safe
-		if (timedManager.isTiming()) {
-			for (PrioritizedListener<PacketListener> element : list) {
-				TimedTracker tracker = timedManager.getTracker(element.getListener(), ListenerType.SYNC_CLIENT_SIDE);
-				long token = tracker.beginTracking();
-				
-				// Measure and record the execution time
-				invokeReceivingListener(reporter, event, element);
-				tracker.endTracking(token, event.getPacketType());
-			}
-		} else {
-			for (PrioritizedListener<PacketListener> element : list) {
-				invokeReceivingListener(reporter, event, element);
-			}
-		}
+		invokePacketRecieving(reporter, event, lookupEntry(event), null);
 	}
 	
 	/**
@@ -84,32 +98,62 @@ public final class SortedPacketListenerList extends AbstractConcurrentListenerMu
 	 * @param priorityFilter - the required priority for a listener to be invoked.
 	 */
 	public void invokePacketRecieving(ErrorReporter reporter, PacketEvent event, ListenerPriority priorityFilter) {
-		Collection<PrioritizedListener<PacketListener>> list = getListener(event.getPacketType());
-		
-		if (list == null)
+		invokePacketRecieving(reporter, event, lookupEntry(event), priorityFilter);
+	}
+
+	/**
+	 * Invokes the given packet event for every listener of the given dispatch entry.
+	 * @param reporter - the error reporter that will be used to inform about listener exceptions.
+	 * @param event - the packet event to invoke.
+	 * @param entry - the dispatch entry of the packet in this registry, or NULL if there is none.
+	 * @param priorityFilter - the priority for a listener to be invoked. If null is provided, every listener will be invoked.
+	 */
+	public void invokePacketRecieving(ErrorReporter reporter, PacketEvent event,
+			@Nullable ListenerDispatchTable.Entry<PacketListener> entry, @Nullable ListenerPriority priorityFilter) {
+		if (entry == null)
 			return;
 
-		// The returned list is thread-safe
+		// The entry is immutable, so we can directly visit the slice of the requested priority
+		PrioritizedListener<PacketListener>[] listeners = entry.getListeners();
+		int start = priorityFilter == null ? 0 : entry.getStartIndex(priorityFilter);
+		int end = priorityFilter == null ? listeners.length : entry.getEndIndex(priorityFilter);
+
 		if (timedManager.isTiming()) {
-			for (PrioritizedListener<PacketListener> element : list) {
-				if (element.getPriority() == priorityFilter) {
-					TimedTracker tracker = timedManager.getTracker(element.getListener(), ListenerType.SYNC_CLIENT_SIDE);
-					long token = tracker.beginTracking();
-					
-					// Measure and record the execution time
-					invokeReceivingListener(reporter, event, element);
-					tracker.endTracking(token, event.getPacketType());
-				}
+			for (int i = start; i < end; i++) {
+				PrioritizedListener<PacketListener> element = listeners[i];
+				TimedTracker tracker = timedManager.getTracker(element.getListener(), ListenerType.SYNC_CLIENT_SIDE);
+				long token = tracker.beginTracking();
+				
+				// Measure and record the execution time
+				invokeReceivingListener(reporter, event, element);
+				tracker.endTracking(token, event.getPacketType());
 			}
 		} else {
-			for (PrioritizedListener<PacketListener> element : list) {
-				if (element.getPriority() == priorityFilter) {
-					invokeReceivingListener(reporter, event, element);
-				}
+			for (int i = start; i < end; i++) {
+				invokeReceivingListener(reporter, event, listeners[i]);
 			}
 		}
 	}
+
+	/**
+	 * Retrieve the dispatch entry of the packet in the given event.
+	 * @param event - the packet event.
+	 * @return The dispatch entry, or NULL if no listener is registered for the packet.
+	 */
+	private ListenerDispatchTable.Entry<PacketListener> lookupEntry(PacketEvent event) {
+		Object handle = event.getPacket().getHandle();
+		return handle != null ? getDispatchTable().getEntry(handle.getClass()) : null;
+	}
 	
+	/**
+	 * Determine if a listener with the given options should receive a copy-on-write view of the packet.
+	 * @param options - the options of the listener, or NULL.
+	 * @return TRUE if it should, FALSE otherwise.
+	 */
+	private static boolean isCopyOnWrite(@Nullable Set<ListenerOptions> options) {
+		return options != null && options.contains(ListenerOptions.COPY_ON_WRITE);
+	}
+
 	/**
 	 * Invoke a particular receiving listener.
 	 * @param reporter - the error reporter.
@@ -119,6 +163,9 @@ public final class SortedPacketListenerList extends AbstractConcurrentListenerMu
 	private void invokeReceivingListener(ErrorReporter reporter, PacketEvent event, PrioritizedListener<PacketListener> element) {
 		try {
 			event.setReadOnly(element.getPriority() == ListenerPriority.MONITOR);
+			if (isCopyOnWrite(element.getListener().getReceivingWhitelist().getOptions())) {
+				event.setCopyOnWrite();
+			}
 			element.getListener().onPacketReceiving(event);
 			
 		} catch (OutOfMemoryError | ThreadDeath e) {
@@ -146,63 +193,135 @@ public final class SortedPacketListenerList extends AbstractConcurrentListenerMu
 	 * @param priorityFilter - the priority for a listener to be invoked. If null is provided, every registered listener will be invoked
 	 */
 	public void invokePacketSending(ErrorReporter reporter, PacketEvent event, @Nullable ListenerPriority priorityFilter) {
-		invokeUnpackedPacketSending(reporter, event, priorityFilter);
+		invokePacketSending(reporter, event, lookupEntry(event), priorityFilter);
+	}
+
+	/**
+	 * Invokes the given packet event for every listener of the given dispatch entry.
+	 * @param reporter - the error reporter that will be used to inform about listener exceptions.
+	 * @param event - the packet event to invoke.
+	 * @param entry - the dispatch entry of the packet in this registry, or NULL if there is none.
+	 * @param priorityFilter - the priority for a listener to be invoked. If null is provided, every listener will be invoked.
+	 */
+	public void invokePacketSending(ErrorReporter reporter, PacketEvent event,
+			@Nullable ListenerDispatchTable.Entry<PacketListener> entry, @Nullable ListenerPriority priorityFilter) {
+		invokeUnpackedPacketSending(reporter, event, entry, priorityFilter);
 		if (event.getPacketType() == PacketType.Play.Server.BUNDLE && !event.isCancelled()) {
-			// unpack the bundle and invoke for each packet in the bundle
-			Iterable<PacketContainer> packets = event.getPacket().getPacketBundles().read(0);
-			List<PacketContainer> outPackets = new ArrayList<>();
-			for (PacketContainer subPacket : packets) {
-				if(subPacket == null) {
-					ProtocolLibrary.getPlugin().getLogger().log(Level.WARNING, "Failed to invoke packet event " + (priorityFilter == null ? "" : ("with priority " + priorityFilter)) + " in bundle because bundle contains null packet: " + packets, new Throwable());
-					continue;
-				}
-				PacketEvent subPacketEvent = PacketEvent.fromServer(this, subPacket, event.getNetworkMarker(), event.getPlayer());
-				invokeUnpackedPacketSending(reporter, subPacketEvent, priorityFilter);
-
-				if (!subPacketEvent.isCancelled()) {
-					// if the packet event has been cancelled, the packet will be removed from the bundle
-					PacketContainer packet = subPacketEvent.getPacket();
-					if(packet == null) {
-						ProtocolLibrary.getPlugin().getLogger().log(Level.WARNING, "null packet container returned for " + subPacketEvent, new Throwable());
-					} else if(packet.getHandle() == null) {
-						ProtocolLibrary.getPlugin().getLogger().log(Level.WARNING, "null packet handle returned for " + subPacketEvent, new Throwable());
+			invokeBundledPacketSending(reporter, event, priorityFilter);
+		}
+	}
+
+	/**
+	 * Invokes the listeners of every packet in the bundle of the given event.
+	 * <p>
+	 * Packets without a listener are skipped entirely, and the bundle is only rewritten if a listener cancelled or
+	 * replaced one of its packets.
+	 * @param reporter - the error reporter that will be used to inform about listener exceptions.
+	 * @param event - the packet event of the bundle.
+	 * @param priorityFilter - the priority for a listener to be invoked. If null is provided, every listener will be invoked.
+	 */
+	private void invokeBundledPacketSending(ErrorReporter reporter, PacketEvent event, @Nullable ListenerPriority priorityFilter) {
+		// work on the raw packets, we only need a container for the packets that are actually listened to
+		StructureModifier<Iterable<Object>> bundleModifier = event.getPacket().getModifier().withType(Iterable.class);
+		Iterable<Object> packets = bundleModifier.read(0);
+
+		if (packets == null || !packets.iterator().hasNext()) {
+			// cancel entire packet if the bundle is empty
+			event.setCancelled(true);
+			return;
+		}
+
+		// one event is shared by every packet of the bundle
+		PacketEvent subPacketEvent = null;
+		List<Object> outPackets = null;
+		int index = 0;
+
+		for (Object subPacket : packets) {
+			Object result = subPacket;
+
+			if (subPacket == null) {
+				ProtocolLibrary.getPlugin().getLogger().log(Level.WARNING, "Failed to invoke packet event " + (priorityFilter == null ? "" : ("with priority " + priorityFilter)) + " in bundle because bundle contains null packet: " + packets, new Throwable());
+				result = null;
+			} else {
+				ListenerDispatchTable.Entry<PacketListener> subEntry = getDispatchTable().getEntry(subPacket.getClass());
+
+				if (subEntry != null && (priorityFilter == null || subEntry.hasListeners(priorityFilter))) {
+					PacketContainer container = PacketContainer.fromPacket(subPacket);
+
+					if (subPacketEvent == null) {
+						subPacketEvent = PacketEvent.fromServer(this, container, event.getNetworkMarker(), event.getPlayer(), true, event);
 					} else {
-						outPackets.add(packet);
+						subPacketEvent.reuseForBundledPacket(container);
 					}
+					invokeUnpackedPacketSending(reporter, subPacketEvent, subEntry, priorityFilter);
+					result = getBundledPacketResult(subPacketEvent);
 				}
 			}
 
-			if (packets.iterator().hasNext()) {
-				event.getPacket().getPacketBundles().write(0, outPackets);
-			} else {
-				// cancel entire packet if each individual packet has been cancelled
-				event.setCancelled(true);
+			if (outPackets == null && result != subPacket) {
+				// first change to the bundle, copy every packet we've left untouched so far
+				outPackets = new ArrayList<>();
+				Iterator<Object> previous = packets.iterator();
+				for (int i = 0; i < index; i++) {
+					outPackets.add(previous.next());
+				}
+			}
+			if (outPackets != null && result != null) {
+				outPackets.add(result);
 			}
+			index++;
+		}
+
+		if (outPackets != null) {
+			bundleModifier.write(0, outPackets);
 		}
 	}
 
-	private void invokeUnpackedPacketSending(ErrorReporter reporter, PacketEvent event, @org.jetbrains.annotations.Nullable ListenerPriority priorityFilter) {
-		Collection<PrioritizedListener<PacketListener>> list = getListener(event.getPacketType());
+	/**
+	 * Retrieve the packet that should replace the original packet in a bundle after the listeners were invoked.
+	 * @param subPacketEvent - the packet event of the packet in the bundle.
+	 * @return The packet handle, or NULL if the packet should be removed from the bundle.
+	 */
+	private Object getBundledPacketResult(PacketEvent subPacketEvent) {
+		// if the packet event has been cancelled, the packet will be removed from the bundle
+		if (subPacketEvent.isCancelled()) {
+			return null;
+		}
+
+		PacketContainer packet = subPacketEvent.getPacket();
+		if (packet == null) {
+			ProtocolLibrary.getPlugin().getLogger().log(Level.WARNING, "null packet container returned for " + subPacketEvent, new Throwable());
+			return null;
+		} else if (packet.getHandle() == null) {
+			ProtocolLibrary.getPlugin().getLogger().log(Level.WARNING, "null packet handle returned for " + subPacketEvent, new Throwable());
+			return null;
+		}
+		return packet.getHandle();
+	}
 
-		if (list == null)
+	private void invokeUnpackedPacketSending(ErrorReporter reporter, PacketEvent event,
+			@Nullable ListenerDispatchTable.Entry<PacketListener> entry, @Nullable ListenerPriority priorityFilter) {
+		if (entry == null)
 			return;
 
+		// Only visit the slice of the requested priority
+		PrioritizedListener<PacketListener>[] listeners = entry.getListeners();
+		int start = priorityFilter == null ? 0 : entry.getStartIndex(priorityFilter);
+		int end = priorityFilter == null ? listeners.length : entry.getEndIndex(priorityFilter);
+
 		if (timedManager.isTiming()) {
-			for (PrioritizedListener<PacketListener> element : list) {
-				if (priorityFilter == null || element.getPriority() == priorityFilter) {
-					TimedTracker tracker = timedManager.getTracker(element.getListener(), ListenerType.SYNC_SERVER_SIDE);
-					long token = tracker.beginTracking();
-
-					// Measure and record the execution time
-					invokeSendingListener(reporter, event, element);
-					tracker.endTracking(token, event.getPacketType());
-				}
+			for (int i = start; i < end; i++) {
+				PrioritizedListener<PacketListener> element = listeners[i];
+				TimedTracker tracker = timedManager.getTracker(element.getListener(), ListenerType.SYNC_SERVER_SIDE);
+				long token = tracker.beginTracking();
+
+				// Measure and record the execution time
+				invokeSendingListener(reporter, event, element);
+				tracker.endTracking(token, event.getPacketType());
 			}
 		} else {
-			for (PrioritizedListener<PacketListener> element : list) {
-				if (priorityFilter == null || element.getPriority() == priorityFilter) {
-					invokeSendingListener(reporter, event, element);
-				}
+			for (int i = start; i < end; i++) {
+				invokeSendingListener(reporter, event, listeners[i]);
 			}
 		}
 	}
@@ -216,6 +335,9 @@ public final class SortedPacketListenerList extends AbstractConcurrentListenerMu
 	private void invokeSendingListener(ErrorReporter reporter, PacketEvent event, PrioritizedListener<PacketListener> element) {
 		try {
 			event.setReadOnly(element.getPriority() == ListenerPriority.MONITOR);
+			if (isCopyOnWrite(element.getListener().getSendingWhitelist().getOptions())) {
+				event.setCopyOnWrite();
+			}
 			element.getListener().onPacketSending(event);
 			
 		} catch (OutOfMemoryError | ThreadDeath e) {
@@ -18,8 +18,10 @@
 package com.comphenix.protocol.injector;
 
 import java.security.PublicKey;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Supplier;
 
@@ -147,6 +149,28 @@ public class StructureCache {
 		});
 	}
 
+	/**
+	 * Create the structure modifier of every registered packet type ahead of time, so the first packet of each type
+	 * doesn't have to wait for its fields to be looked up. This is safe to call from any thread.
+	 *
+	 * @return The number of packet types with a structure modifier.
+	 */
+	public static int warmUp() {
+		Set<PacketType> types = new HashSet<>(PacketRegistry.getServerPacketTypes());
+		types.addAll(PacketRegistry.getClientPacketTypes());
+
+		int created = 0;
+		for (PacketType type : types) {
+			try {
+				getStructure(type);
+				created++;
+			} catch (RuntimeException ignored) {
+				// this packet can't be created in this version, it will fail the same way when it's first used
+			}
+		}
+		return created;
+	}
+
 	/**
 	 * Returns a new mocked null data serializer instance, if possible.
 	 *
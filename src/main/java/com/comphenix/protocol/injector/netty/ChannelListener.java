@@ -1,9 +1,11 @@
 package com.comphenix.protocol.injector.netty;
 
 import com.comphenix.protocol.PacketType;
+import com.comphenix.protocol.concurrency.ListenerDispatchTable;
 import com.comphenix.protocol.error.ErrorReporter;
 import com.comphenix.protocol.events.NetworkMarker;
 import com.comphenix.protocol.events.PacketEvent;
+import com.comphenix.protocol.events.PacketListener;
 
 /**
  * Represents a listener for received or sent packets.
@@ -20,9 +22,11 @@ public interface ChannelListener {
 	 * @param injector - the channel injector.
 	 * @param packet   - the packet.
 	 * @param marker   - the network marker.
+	 * @param entry    - the outbound dispatch entry of the packet, or NULL if there is none.
 	 * @return The packet even that was passed to the listeners, with a possible packet change, or NULL.
 	 */
-	PacketEvent onPacketSending(Injector injector, Object packet, NetworkMarker marker);
+	PacketEvent onPacketSending(Injector injector, Object packet, NetworkMarker marker,
+			ListenerDispatchTable.Entry<PacketListener> entry);
 
 	/**
 	 * Invoked when a packet is being received from a client.
@@ -32,12 +36,34 @@ public interface ChannelListener {
 	 * @param injector - the channel injector.
 	 * @param packet   - the packet.
 	 * @param marker   - the associated network marker, if any.
+	 * @param entry    - the inbound dispatch entry of the packet, or NULL if there is none.
 	 * @return The packet even that was passed to the listeners, with a possible packet change, or NULL.
 	 */
-	PacketEvent onPacketReceiving(Injector injector, Object packet, NetworkMarker marker);
+	PacketEvent onPacketReceiving(Injector injector, Object packet, NetworkMarker marker,
+			ListenerDispatchTable.Entry<PacketListener> entry);
 
 	/**
-	 * Determine if there is a packet listener for the given packet.
+	 * Retrieve the class indexed table of all listeners for packets received from a client.
+	 * <p>
+	 * A single lookup in this table answers whether a packet should be intercepted, whether it has to be processed
+	 * on the main thread and which listeners must be invoked.
+	 *
+	 * @return The inbound dispatch table.
+	 */
+	ListenerDispatchTable<PacketListener> getInboundListeners();
+
+	/**
+	 * Retrieve the class indexed table of all listeners for packets sent to a client.
+	 *
+	 * @return The outbound dispatch table.
+	 * @see #getInboundListeners()
+	 */
+	ListenerDispatchTable<PacketListener> getOutboundListeners();
+
+	/**
+	 * Determine if there is a packet listener for the given packet, in either direction.
+	 * <p>
+	 * Use {@link #getInboundListeners()} or {@link #getOutboundListeners()} to only check a single direction.
 	 *
 	 * @param packetClass - the packet class to check.
 	 * @return TRUE if there is such a listener, FALSE otherwise.
@@ -45,7 +71,7 @@ public interface ChannelListener {
 	boolean hasListener(Class<?> packetClass);
 
 	/**
-	 * Determine if there is a server packet listener that must be executed on the main thread.
+	 * Determine if there is a packet listener that must be executed on the main thread, in either direction.
 	 *
 	 * @param packetClass - the packet class to check.
 	 * @return TRUE if there is, FALSE otherwise.
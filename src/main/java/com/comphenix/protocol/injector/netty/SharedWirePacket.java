@@ -0,0 +1,90 @@
+package com.comphenix.protocol.injector.netty;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.comphenix.protocol.events.PacketContainer;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.DefaultByteBufHolder;
+
+/**
+ * A packet which was serialized once, including its id, and can be written to multiple channels.
+ * <p>
+ * The content is reference counted. Every channel must receive its own {@link #retainedDuplicate() retained duplicate},
+ * the duplicate is released once it was written to the channel.
+ */
+public final class SharedWirePacket extends DefaultByteBufHolder {
+
+	/**
+	 * Constructs a new shared wire packet from the given serialized packet.
+	 *
+	 * @param content - the packet id followed by the packet contents.
+	 */
+	public SharedWirePacket(ByteBuf content) {
+		super(content);
+	}
+
+	/**
+	 * Serializes the given packet into a new shared wire packet.
+	 *
+	 * @param packet - the packet to serialize.
+	 * @return The shared wire packet, with a reference count of one.
+	 */
+	public static SharedWirePacket fromPacket(PacketContainer packet) {
+		checkNotNull(packet, "packet cannot be null!");
+		return new SharedWirePacket(WirePacket.fromPacket(packet).serialize());
+	}
+
+	/**
+	 * Writes the serialized packet to the given output, without changing the reader index of the content.
+	 *
+	 * @param output - the output to write to.
+	 */
+	public void writeFully(ByteBuf output) {
+		ByteBuf content = this.content();
+		output.writeBytes(content, content.readerIndex(), content.readableBytes());
+	}
+
+	@Override
+	public SharedWirePacket copy() {
+		return this.replace(this.content().copy());
+	}
+
+	@Override
+	public SharedWirePacket duplicate() {
+		return this.replace(this.content().duplicate());
+	}
+
+	@Override
+	public SharedWirePacket retainedDuplicate() {
+		return this.replace(this.content().retainedDuplicate());
+	}
+
+	@Override
+	public SharedWirePacket replace(ByteBuf content) {
+		return new SharedWirePacket(content);
+	}
+
+	@Override
+	public SharedWirePacket retain() {
+		super.retain();
+		return this;
+	}
+
+	@Override
+	public SharedWirePacket retain(int increment) {
+		super.retain(increment);
+		return this;
+	}
+
+	@Override
+	public SharedWirePacket touch() {
+		super.touch();
+		return this;
+	}
+
+	@Override
+	public SharedWirePacket touch(Object hint) {
+		super.touch(hint);
+		return this;
+	}
+}
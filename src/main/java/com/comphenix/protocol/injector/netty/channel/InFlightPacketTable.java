@@ -0,0 +1,198 @@
+package com.comphenix.protocol.injector.netty.channel;
+
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+
+import com.comphenix.protocol.events.NetworkMarker;
+
+/**
+ * Tracks the packets which were sent through an injector and did not yet reach the outbound processing of the channel.
+ * <p>
+ * Packets are compared by identity, which means that neither their hash code nor the identity hash code is ever
+ * computed. Packets are usually processed in the order they were sent, so a lookup almost always ends at the first
+ * slot. The slots form a ring, which means that removing the oldest packet doesn't move any other slot. Every packet is
+ * only weakly referenced, packets which never reach the outbound processing (for example because the connection was
+ * closed while they were queued) are dropped once they were garbage collected.
+ */
+final class InFlightPacketTable {
+
+	// must be a power of two
+	private static final int INITIAL_CAPACITY = 8;
+
+	private InFlightPacket[] slots = new InFlightPacket[INITIAL_CAPACITY];
+	private int head;
+	private int size;
+
+	// the size, readable without acquiring the lock
+	private volatile int count;
+
+	/**
+	 * Determine if there are no packets in flight. This check does not acquire a lock.
+	 *
+	 * @return TRUE if there are none, FALSE otherwise.
+	 */
+	boolean isEmpty() {
+		return this.count == 0;
+	}
+
+	/**
+	 * Mark the given packet as in flight.
+	 *
+	 * @param packet - the packet.
+	 * @param marker - the network marker of the packet, or NULL to keep the current marker.
+	 * @param skipped - whether the packet should not be posted to any listener.
+	 */
+	synchronized void put(Object packet, NetworkMarker marker, boolean skipped) {
+		int index = this.indexOf(packet);
+		if (index >= 0) {
+			InFlightPacket existing = this.slots[this.slot(index)];
+			if (marker != null) {
+				existing.marker = marker;
+			}
+			existing.skipped |= skipped;
+			return;
+		}
+
+		if (this.size == this.slots.length) {
+			// drop every packet which was garbage collected in the meantime before we consider growing
+			this.expungeStaleEntries();
+			if (this.size == this.slots.length) {
+				this.grow();
+			}
+		}
+
+		this.slots[this.slot(this.size++)] = new InFlightPacket(packet, marker, skipped);
+		this.count = this.size;
+	}
+
+	/**
+	 * Retrieve the network marker of the given in flight packet.
+	 *
+	 * @param packet - the packet.
+	 * @return The network marker, or NULL if the packet has none.
+	 */
+	synchronized NetworkMarker getMarker(Object packet) {
+		int index = this.indexOf(packet);
+		return index >= 0 ? this.slots[this.slot(index)].marker : null;
+	}
+
+	/**
+	 * Remove the given packet from the table, it has reached the outbound processing.
+	 *
+	 * @param packet - the packet.
+	 * @return The in flight information of the packet, or NULL if the packet wasn't sent through the injector.
+	 */
+	synchronized InFlightPacket remove(Object packet) {
+		int index = this.indexOf(packet);
+		if (index < 0) {
+			return null;
+		}
+
+		InFlightPacket removed = this.slots[this.slot(index)];
+		this.removeAt(index);
+		return removed;
+	}
+
+	/**
+	 * Remove every packet from this table.
+	 */
+	synchronized void clear() {
+		Arrays.fill(this.slots, null);
+		this.head = 0;
+		this.size = 0;
+		this.count = 0;
+	}
+
+	// the slot of the packet at the given position, counted from the oldest packet
+	private int slot(int index) {
+		return (this.head + index) & (this.slots.length - 1);
+	}
+
+	private int indexOf(Object packet) {
+		for (int i = 0; i < this.size; i++) {
+			if (this.slots[this.slot(i)].get() == packet) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private void removeAt(int index) {
+		// keep the insertion order, the oldest packet is the most likely to be processed next
+		if (index < this.size / 2) {
+			// move the older packets towards the end, which is a no-op for the oldest packet
+			for (int i = index; i > 0; i--) {
+				this.slots[this.slot(i)] = this.slots[this.slot(i - 1)];
+			}
+			this.slots[this.head] = null;
+			this.head = this.slot(1);
+		} else {
+			for (int i = index; i < this.size - 1; i++) {
+				this.slots[this.slot(i)] = this.slots[this.slot(i + 1)];
+			}
+			this.slots[this.slot(this.size - 1)] = null;
+		}
+
+		this.size--;
+		this.count = this.size;
+	}
+
+	private void grow() {
+		InFlightPacket[] grown = new InFlightPacket[this.slots.length * 2];
+		for (int i = 0; i < this.size; i++) {
+			grown[i] = this.slots[this.slot(i)];
+		}
+
+		this.slots = grown;
+		this.head = 0;
+	}
+
+	private void expungeStaleEntries() {
+		int newSize = 0;
+		for (int i = 0; i < this.size; i++) {
+			InFlightPacket slot = this.slots[this.slot(i)];
+			if (slot.get() != null) {
+				this.slots[this.slot(newSize++)] = slot;
+			}
+		}
+
+		for (int i = newSize; i < this.size; i++) {
+			this.slots[this.slot(i)] = null;
+		}
+		this.size = newSize;
+		this.count = newSize;
+	}
+
+	/**
+	 * Represents a packet which is in flight, together with the information attached to it when it was sent.
+	 */
+	static final class InFlightPacket extends WeakReference<Object> {
+
+		private NetworkMarker marker;
+		private boolean skipped;
+
+		private InFlightPacket(Object packet, NetworkMarker marker, boolean skipped) {
+			super(packet);
+			this.marker = marker;
+			this.skipped = skipped;
+		}
+
+		/**
+		 * Retrieve the network marker of the packet.
+		 *
+		 * @return The network marker, or NULL if the packet has none.
+		 */
+		NetworkMarker getMarker() {
+			return this.marker;
+		}
+
+		/**
+		 * Determine if the packet should not be posted to any listener.
+		 *
+		 * @return TRUE if the packet should be skipped, FALSE otherwise.
+		 */
+		boolean isSkipped() {
+			return this.skipped;
+		}
+	}
+}
@@ -1,6 +1,9 @@
 package com.comphenix.protocol.injector.netty.channel;
 
+import com.comphenix.protocol.concurrency.ListenerDispatchTable;
+import com.comphenix.protocol.events.PacketListener;
 import com.comphenix.protocol.injector.netty.ChannelListener;
+import com.comphenix.protocol.metrics.PipelineMetrics;
 import com.comphenix.protocol.utility.MinecraftReflection;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
@@ -22,15 +25,17 @@ final class InboundPacketInterceptor extends ChannelInboundHandlerAdapter {
 			// process the login if the packet is one before posting the packet to any handler to provide "real" data
 			// the method invocation will do nothing if the packet is not a login packet
 			this.injector.tryProcessLogin(msg);
+			PipelineMetrics.getInstance().recordSeen(messageClass);
 
 			// check if there are any listeners bound for the packet - if not just post the packet down the pipeline
-			if (!this.channelListener.hasListener(messageClass)) {
+			ListenerDispatchTable.Entry<PacketListener> entry = this.channelListener.getInboundListeners().getEntry(messageClass);
+			if (entry == null) {
 				ctx.fireChannelRead(msg);
 				return;
 			}
 
 			// call all inbound listeners
-			this.injector.processInboundPacket(ctx, msg, messageClass);
+			this.injector.processInboundPacket(ctx, msg, entry);
 		} else {
 			// just pass the message down the pipeline
 			ctx.fireChannelRead(msg);
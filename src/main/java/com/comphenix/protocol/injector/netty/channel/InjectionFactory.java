@@ -49,6 +49,7 @@ public class InjectionFactory {
 
 	// protocol lib stuff
 	private final ErrorReporter errorReporter;
+	private final MainThreadHandoff mainThreadHandoff;
 
 	// state of the factory
 	private boolean closed;
@@ -57,6 +58,7 @@ public class InjectionFactory {
 		this.plugin = plugin;
 		this.server = server;
 		this.errorReporter = errorReporter;
+		this.mainThreadHandoff = new MainThreadHandoff(plugin, server, errorReporter);
 	}
 
 	/**
@@ -68,6 +70,15 @@ public class InjectionFactory {
 		return this.plugin;
 	}
 
+	/**
+	 * Retrieve the queue that hands packets over to the main thread for every injector created by this factory.
+	 *
+	 * @return The main thread handoff.
+	 */
+	MainThreadHandoff getMainThreadHandoff() {
+		return this.mainThreadHandoff;
+	}
+
 	/**
 	 * Construct or retrieve a channel injector from an existing Bukkit player.
 	 *
@@ -277,6 +288,7 @@ public class InjectionFactory {
 	public void close() {
 		if (!this.closed) {
 			this.closed = true;
+			this.mainThreadHandoff.close();
 
 			// Close everything
 			for (Injector injector : this.playerLookup.values()) {
@@ -0,0 +1,160 @@
+package com.comphenix.protocol.injector.netty.channel;
+
+import com.comphenix.protocol.error.ErrorReporter;
+import com.comphenix.protocol.error.Report;
+import com.comphenix.protocol.error.ReportType;
+import io.netty.channel.ChannelHandlerContext;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.bukkit.Server;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
+
+/**
+ * Hands packets that must be processed by a main thread listener over from the netty event loops to the main thread.
+ * <p>
+ * Instead of scheduling a task for every packet, packets are added to a single lock-free queue which is drained once
+ * every tick by a repeating task. Packets are processed in the order they were handed off. Each tick only processes
+ * the packets that were pending when it started, and the task is cancelled once the queue is empty.
+ */
+final class MainThreadHandoff {
+
+	private static final ReportType REPORT_CANNOT_PROCESS_PACKET = new ReportType(
+			"Unable to process packet %s on the main thread.");
+
+	private final Queue<PendingPacket> pendingPackets = new ConcurrentLinkedQueue<>();
+	// the size of the queue, as counting the elements of a concurrent queue isn't constant time
+	private final AtomicInteger pendingCount = new AtomicInteger();
+
+	private final Plugin plugin;
+	private final Server server;
+	private final ErrorReporter errorReporter;
+
+	// the repeating task draining the queue, running only while packets are pending
+	private volatile BukkitTask drainTask;
+	private volatile boolean closed;
+
+	MainThreadHandoff(Plugin plugin, Server server, ErrorReporter errorReporter) {
+		this.plugin = plugin;
+		this.server = server;
+		this.errorReporter = errorReporter;
+	}
+
+	/**
+	 * Hand off a packet sent by the server. The packet is sent again with filters once it reaches the main thread.
+	 *
+	 * @param injector - the injector of the receiver of the packet.
+	 * @param packet   - the packet.
+	 */
+	void handOffOutbound(NettyChannelInjector injector, Object packet) {
+		this.handOff(new PendingPacket(injector, null, packet));
+	}
+
+	/**
+	 * Hand off a packet received from the client. The packet is posted to the listeners once it reaches the main thread,
+	 * and is then fired down the pipeline of the given context.
+	 *
+	 * @param injector - the injector of the sender of the packet.
+	 * @param ctx      - the context of the pipeline the packet was received in.
+	 * @param packet   - the packet.
+	 */
+	void handOffInbound(NettyChannelInjector injector, ChannelHandlerContext ctx, Object packet) {
+		this.handOff(new PendingPacket(injector, ctx, packet));
+	}
+
+	private void handOff(PendingPacket pendingPacket) {
+		if (this.closed) {
+			return;
+		}
+
+		this.pendingPackets.add(pendingPacket);
+		this.pendingCount.incrementAndGet();
+		if (this.drainTask == null) {
+			this.startDrainTask();
+		}
+	}
+
+	private synchronized void startDrainTask() {
+		if (this.drainTask == null && !this.closed) {
+			this.drainTask = this.server.getScheduler().runTaskTimer(this.plugin, this::drain, 0L, 1L);
+		}
+	}
+
+	private synchronized void stopDrainTaskIfIdle() {
+		if (this.drainTask != null && this.pendingPackets.isEmpty()) {
+			this.drainTask.cancel();
+			this.drainTask = null;
+
+			// a packet handed off while cancelling saw the old task, so it's up to us to start a new one
+			if (!this.pendingPackets.isEmpty()) {
+				this.startDrainTask();
+			}
+		}
+	}
+
+	/**
+	 * Process the packets that are pending when this method is called. Packets handed off in the meantime are left for
+	 * the next tick, so a steady stream of packets cannot stall the main thread. Must be called on the main thread.
+	 */
+	void drain() {
+		int budget = this.pendingCount.get();
+		for (int i = 0; i < budget; i++) {
+			PendingPacket pendingPacket = this.pendingPackets.poll();
+			if (pendingPacket == null) {
+				break;
+			}
+			this.pendingCount.decrementAndGet();
+
+			try {
+				if (pendingPacket.ctx == null) {
+					pendingPacket.injector.sendServerPacket(pendingPacket.packet, null, true);
+				} else {
+					pendingPacket.injector.processInboundPacket(pendingPacket.ctx, pendingPacket.packet);
+				}
+			} catch (Throwable throwable) {
+				// one failing packet must not prevent the others from being processed
+				this.errorReporter.reportWarning(this, Report.newBuilder(REPORT_CANNOT_PROCESS_PACKET)
+						.messageParam(pendingPacket.packet)
+						.error(throwable)
+						.build());
+			}
+		}
+
+		if (this.pendingCount.get() == 0) {
+			this.stopDrainTaskIfIdle();
+		}
+	}
+
+	/**
+	 * Stop draining the queue and discard every pending packet.
+	 */
+	synchronized void close() {
+		if (!this.closed) {
+			this.closed = true;
+
+			if (this.drainTask != null) {
+				this.drainTask.cancel();
+				this.drainTask = null;
+			}
+			this.pendingPackets.clear();
+			this.pendingCount.set(0);
+		}
+	}
+
+	/**
+	 * A packet waiting to be processed on the main thread.
+	 */
+	private static final class PendingPacket {
+
+		private final NettyChannelInjector injector;
+		private final ChannelHandlerContext ctx; // null for outbound packets
+		private final Object packet;
+
+		PendingPacket(NettyChannelInjector injector, ChannelHandlerContext ctx, Object packet) {
+			this.injector = injector;
+			this.ctx = ctx;
+			this.packet = packet;
+		}
+	}
+}
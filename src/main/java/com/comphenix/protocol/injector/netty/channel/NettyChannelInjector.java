@@ -7,22 +7,24 @@ import java.util.HashSet;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.NoSuchElementException;
-import java.util.Set;
-import java.util.WeakHashMap;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ThreadLocalRandom;
 
 import com.comphenix.protocol.PacketType;
 import com.comphenix.protocol.PacketType.Protocol;
+import com.comphenix.protocol.async.AsyncMarker;
+import com.comphenix.protocol.concurrency.ListenerDispatchTable;
 import com.comphenix.protocol.error.ErrorReporter;
 import com.comphenix.protocol.error.Report;
 import com.comphenix.protocol.error.ReportType;
 import com.comphenix.protocol.events.NetworkMarker;
 import com.comphenix.protocol.events.PacketEvent;
+import com.comphenix.protocol.events.PacketListener;
 import com.comphenix.protocol.injector.NetworkProcessor;
 import com.comphenix.protocol.injector.netty.ChannelListener;
 import com.comphenix.protocol.injector.netty.Injector;
+import com.comphenix.protocol.metrics.PipelineMetrics;
 import com.comphenix.protocol.reflect.FuzzyReflection;
 import com.comphenix.protocol.reflect.accessors.Accessors;
 import com.comphenix.protocol.reflect.accessors.FieldAccessor;
@@ -61,7 +63,7 @@ public class NettyChannelInjector implements Injector {
 
 	// all registered channel handlers to easier make sure we unregister them all from the pipeline
 	private static final String[] PROTOCOL_LIB_HANDLERS = new String[]{
-			WIRE_PACKET_ENCODER_NAME, INTERCEPTOR_NAME
+			WIRE_PACKET_ENCODER_NAME, INTERCEPTOR_NAME, PacketCaptureTap.INBOUND_NAME, PacketCaptureTap.OUTBOUND_NAME
 	};
 
 	private static final ReportType REPORT_CANNOT_SEND_PACKET = new ReportType("Unable to send packet %s to %s");
@@ -95,8 +97,7 @@ public class NettyChannelInjector implements Injector {
 	private final FieldAccessor channelField;
 
 	// packet marking
-	private final Map<Object, NetworkMarker> savedMarkers = new WeakHashMap<>(16, 0.9f);
-	private final Set<Object> skippedPackets = ConcurrentHashMap.newKeySet();
+	private final InFlightPacketTable inFlightPackets = new InFlightPacketTable();
 	protected final ThreadLocal<Boolean> processedPackets = ThreadLocal.withInitial(() -> Boolean.FALSE);
 
 	// status of this injector
@@ -210,6 +211,7 @@ public class NettyChannelInjector implements Injector {
 					"decoder",
 					INTERCEPTOR_NAME,
 					new InboundPacketInterceptor(this, this.channelListener));
+			PacketCaptureTap.install(this);
 
 			this.injected = true;
 			return true;
@@ -255,8 +257,7 @@ public class NettyChannelInjector implements Injector {
 			this.uninject();
 
 			// cleanup
-			this.savedMarkers.clear();
-			this.skippedPackets.clear();
+			this.inFlightPackets.clear();
 
 			// wipe this injector completely
 			this.injectionFactory.invalidate(this.getPlayer(), this.playerName);
@@ -270,13 +271,14 @@ public class NettyChannelInjector implements Injector {
 			return;
 		}
 
-		// register the packet as filtered if we shouldn't post it to any listener
-		if (!filtered) {
-			this.skippedPackets.add(packet);
+		PipelineMetrics.getInstance().recordInjected(packet.getClass());
+
+		// save the given packet marker and register the packet as filtered if we shouldn't post it to any listener
+		if (marker != null || !filtered) {
+			this.inFlightPackets.put(packet, marker, !filtered);
 		}
 
-		// save the given packet marker and send the packet
-		this.saveMarker(packet, marker);
+		// send the packet
 		try {
 			if (this.resolvedPlayer instanceof ByteBuddyGenerated) {
 				MinecraftMethods.getNetworkManagerHandleMethod().invoke(this.networkManager, packet);
@@ -302,6 +304,8 @@ public class NettyChannelInjector implements Injector {
 			return;
 		}
 
+		PipelineMetrics.getInstance().recordInjected(packet.getClass());
+
 		Runnable receiveAction = () -> {
 			try {
 				// try to invoke the method, this should normally not fail
@@ -336,13 +340,13 @@ public class NettyChannelInjector implements Injector {
 
 	@Override
 	public NetworkMarker getMarker(Object packet) {
-		return this.savedMarkers.get(packet);
+		return this.inFlightPackets.isEmpty() ? null : this.inFlightPackets.getMarker(packet);
 	}
 
 	@Override
 	public void saveMarker(Object packet, NetworkMarker marker) {
 		if (marker != null && !this.closed) {
-			this.savedMarkers.put(packet, marker);
+			this.inFlightPackets.put(packet, marker, false);
 		}
 	}
 
@@ -393,6 +397,10 @@ public class NettyChannelInjector implements Injector {
 		return this.closed;
 	}
 
+	String getPlayerName() {
+		return this.playerName;
+	}
+
 	void tryProcessLogin(Object packet) {
 		// check if the given packet is a login packet
 		if (LOGIN_PACKET_START_CLASS != null && LOGIN_PACKET_START_CLASS.equals(packet.getClass())) {
@@ -487,24 +495,30 @@ public class NettyChannelInjector implements Injector {
 		}
 	}
 
-	void processInboundPacket(ChannelHandlerContext ctx, Object packet, Class<?> packetClass) {
-		if (this.channelListener.hasMainThreadListener(packetClass) && !this.server.isPrimaryThread()) {
-			// not on the main thread but we are required to be - re-schedule the packet on the main thread
-			this.server.getScheduler().runTask(
-					this.injectionFactory.getPlugin(),
-					() -> this.processInboundPacket(ctx, packet, packetClass));
+	void processInboundPacket(ChannelHandlerContext ctx, Object packet) {
+		// the listeners might have changed since the packet was handed off, so look them up again
+		this.processInboundPacket(ctx, packet, this.channelListener.getInboundListeners().getEntry(packet.getClass()));
+	}
+
+	void processInboundPacket(ChannelHandlerContext ctx, Object packet, ListenerDispatchTable.Entry<PacketListener> entry) {
+		if (entry != null && entry.isMainThread() && !this.server.isPrimaryThread()) {
+			// not on the main thread but we are required to be - hand the packet off to the main thread
+			PipelineMetrics.getInstance().recordRescheduled(entry.getType());
+			this.injectionFactory.getMainThreadHandoff().handOffInbound(this, ctx, packet);
 			return;
 		}
 
 		// call packet handlers, a null result indicates that we shouldn't change anything
-		PacketEvent interceptionResult = this.channelListener.onPacketReceiving(this, packet, null);
+		PacketEvent interceptionResult = this.channelListener.onPacketReceiving(this, packet, null, entry);
 		if (interceptionResult == null) {
 			this.ensureInEventLoop(ctx.channel().eventLoop(), () -> ctx.fireChannelRead(packet));
 			return;
 		}
 
 		// fire the intercepted packet down the pipeline if it wasn't cancelled
-		if (!interceptionResult.isCancelled()) {
+		if (interceptionResult.isCancelled()) {
+			recordCancelled(interceptionResult);
+		} else {
 			this.ensureInEventLoop(
 					ctx.channel().eventLoop(),
 					() -> ctx.fireChannelRead(interceptionResult.getPacket().getHandle()));
@@ -532,11 +546,14 @@ public class NettyChannelInjector implements Injector {
 			return action;
 		}
 
+		Class<?> packetClass = packet.getClass();
+		PipelineMetrics.getInstance().recordSeen(packetClass);
+
 		// filter out all packets which were explicitly send to not be processed by any event
-		// pre-checking isEmpty will reduce the need of hashing packets which don't override the
-		// hashCode method; this presents calls to the very slow identityHashCode default implementation
-		NetworkMarker marker = this.savedMarkers.isEmpty() ? null : this.savedMarkers.remove(packet);
-		if (!this.skippedPackets.isEmpty() && this.skippedPackets.remove(packet)) {
+		// pre-checking isEmpty prevents acquiring the lock for packets which weren't sent by us
+		InFlightPacketTable.InFlightPacket inFlight = this.inFlightPackets.isEmpty() ? null : this.inFlightPackets.remove(packet);
+		NetworkMarker marker = inFlight == null ? null : inFlight.getMarker();
+		if (inFlight != null && inFlight.isSkipped()) {
 			// if a marker was set there might be scheduled packets to execute after the packet send
 			// for this to work we need to proxy the input action to provide access to them
 			if (marker != null) {
@@ -547,23 +564,25 @@ public class NettyChannelInjector implements Injector {
 			return action;
 		}
 
+		// a single lookup tells us if there are any listeners and if they need to run on the main thread
+		ListenerDispatchTable.Entry<PacketListener> entry = this.channelListener.getOutboundListeners().getEntry(packetClass);
+
 		// no listener and no marker - no magic :)
-		if (!this.channelListener.hasListener(packet.getClass()) && marker == null && !MinecraftReflection.isBundlePacket(packet.getClass())) {
+		if (entry == null && marker == null && !MinecraftReflection.isBundlePacket(packetClass)) {
 			return action;
 		}
 
 		// ensure that we are on the main thread if we need to
-		if (this.channelListener.hasMainThreadListener(packet.getClass()) && !this.server.isPrimaryThread()) {
-			// not on the main thread but we are required to be - re-schedule the packet on the main thread
-			this.server.getScheduler().scheduleSyncDelayedTask(
-					this.injectionFactory.getPlugin(),
-					() -> this.sendServerPacket(packet, null, true));
+		if (entry != null && entry.isMainThread() && !this.server.isPrimaryThread()) {
+			// not on the main thread but we are required to be - hand the packet off to the main thread
+			PipelineMetrics.getInstance().recordRescheduled(entry.getType());
+			this.injectionFactory.getMainThreadHandoff().handOffOutbound(this, packet);
 			return null;
 		}
 
 		// call all listeners which are listening to the outbound packet, if any
 		// null indicates that no listener was affected by the packet, meaning that we can directly send the original packet
-		PacketEvent event = this.channelListener.onPacketSending(this, packet, marker);
+		PacketEvent event = this.channelListener.onPacketSending(this, packet, marker, entry);
 		if (event == null) {
 			return action;
 		}
@@ -589,9 +608,20 @@ public class NettyChannelInjector implements Injector {
 		}
 
 		// return null if the event was cancelled to schedule a no-op event
+		recordCancelled(event);
 		return null;
 	}
 
+	private static void recordCancelled(PacketEvent event) {
+		// packets handed to asynchronous listeners are cancelled as well, but are sent once they are processed
+		AsyncMarker asyncMarker = event.getAsyncMarker();
+		if (asyncMarker != null && asyncMarker.isQueued()) {
+			PipelineMetrics.getInstance().recordDeferred(event.getPacketType());
+		} else {
+			PipelineMetrics.getInstance().recordCancelled(event.getPacketType());
+		}
+	}
+
 	@SuppressWarnings("unchecked")
 	private <T> T proxyAction(T action, PacketEvent event, NetworkMarker marker) {
 		// hack - we only know that the given action is either a runnable or callable, but we need to work out which thing
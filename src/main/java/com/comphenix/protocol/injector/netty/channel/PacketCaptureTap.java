@@ -0,0 +1,141 @@
+package com.comphenix.protocol.injector.netty.channel;
+
+import com.comphenix.protocol.PacketType.Protocol;
+import com.comphenix.protocol.PacketType.Sender;
+import com.comphenix.protocol.capture.CaptureReader;
+import com.comphenix.protocol.capture.PacketCapture;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Copies the encoded packets of a channel to the active {@link PacketCapture}.
+ * <p>
+ * The inbound tap sits right before the vanilla decoder, and the outbound tap right after the vanilla encoder, where
+ * every frame is a single uncompressed packet. Vanilla adds its compression handlers next to the coders once
+ * compression is enabled, which would put them between the tap and the coder - so the tap moves itself whenever it
+ * sees a compression handler it isn't behind yet.
+ */
+final class PacketCaptureTap extends ChannelDuplexHandler {
+
+	static final String INBOUND_NAME = "protocol_lib_inbound_capture";
+	static final String OUTBOUND_NAME = "protocol_lib_outbound_capture";
+
+	private final NettyChannelInjector injector;
+	private final Sender sender;
+
+	// whether or not the tap is already between the compression handler and the coder
+	private final boolean relocated;
+
+	// the encoded name of the player, and the name it was encoded from
+	private String encodedName;
+	private byte[] player;
+
+	private PacketCaptureTap(NettyChannelInjector injector, Sender sender, boolean relocated) {
+		this.injector = injector;
+		this.sender = sender;
+		this.relocated = relocated;
+	}
+
+	/**
+	 * Add the inbound and outbound taps to the pipeline of the injected channel.
+	 *
+	 * @param injector - the injector of the channel.
+	 */
+	static void install(NettyChannelInjector injector) {
+		install(injector, Sender.CLIENT);
+		install(injector, Sender.SERVER);
+	}
+
+	private static void install(NettyChannelInjector injector, Sender sender) {
+		boolean compressed = injector.getWrappedChannel().pipeline().get(compressionName(sender)) != null;
+		injector.getWrappedChannel().pipeline().addBefore(
+				coderName(sender),
+				sender == Sender.CLIENT ? INBOUND_NAME : OUTBOUND_NAME,
+				new PacketCaptureTap(injector, sender, compressed));
+	}
+
+	private static String coderName(Sender sender) {
+		return sender == Sender.CLIENT ? "decoder" : "encoder";
+	}
+
+	private static String compressionName(Sender sender) {
+		return sender == Sender.CLIENT ? "decompress" : "compress";
+	}
+
+	@Override
+	public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+		if (this.sender == Sender.CLIENT && msg instanceof ByteBuf) {
+			PacketCapture capture = PacketCapture.getActive();
+			if (capture != null && this.isInPlace(ctx)) {
+				this.capture(capture, (ByteBuf) msg);
+			}
+		}
+		ctx.fireChannelRead(msg);
+	}
+
+	@Override
+	public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+		if (this.sender == Sender.SERVER && msg instanceof ByteBuf) {
+			PacketCapture capture = PacketCapture.getActive();
+			// the frame that revealed the compression handler is already compressed, so it's skipped
+			if (capture != null && this.isInPlace(ctx)) {
+				this.capture(capture, (ByteBuf) msg);
+			}
+		}
+		ctx.write(msg, promise);
+	}
+
+	private boolean isInPlace(ChannelHandlerContext ctx) {
+		if (this.relocated || ctx.pipeline().get(compressionName(this.sender)) == null) {
+			return true;
+		}
+
+		// inbound frames still pass the compression handler after this one, and are captured by the replacement
+		ctx.pipeline().remove(this);
+		ctx.pipeline().addBefore(coderName(this.sender), ctx.name(), new PacketCaptureTap(this.injector, this.sender, true));
+		return false;
+	}
+
+	private void capture(PacketCapture capture, ByteBuf frame) {
+		Protocol protocol = this.injector.getCurrentProtocol();
+		int packetId = readPacketId(frame);
+
+		if (capture.isCaptured(this.sender, protocol, packetId)) {
+			capture.capture(this.sender, protocol, packetId, this.getPlayer(), frame);
+		}
+	}
+
+	private byte[] getPlayer() {
+		String name = this.injector.getPlayerName();
+		if (name == null) {
+			name = String.valueOf(this.injector.getWrappedChannel().remoteAddress());
+		}
+
+		if (!name.equals(this.encodedName)) {
+			byte[] encoded = name.getBytes(StandardCharsets.UTF_8);
+			this.player = encoded.length > CaptureReader.MAX_NAME_LENGTH ? Arrays.copyOf(encoded, CaptureReader.MAX_NAME_LENGTH) : encoded;
+			this.encodedName = name;
+		}
+		return this.player;
+	}
+
+	// read the var int at the start of the frame, without moving its reader index
+	private static int readPacketId(ByteBuf frame) {
+		int index = frame.readerIndex();
+		int end = Math.min(frame.writerIndex(), index + 5);
+		int value = 0;
+
+		for (int shift = 0; index < end; shift += 7) {
+			byte current = frame.getByte(index++);
+			value |= (current & 0x7F) << shift;
+			if ((current & 0x80) == 0) {
+				return value;
+			}
+		}
+		return -1;
+	}
+}
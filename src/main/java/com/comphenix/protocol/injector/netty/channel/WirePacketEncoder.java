@@ -1,20 +1,26 @@
 package com.comphenix.protocol.injector.netty.channel;
 
+import com.comphenix.protocol.injector.netty.SharedWirePacket;
 import com.comphenix.protocol.injector.netty.WirePacket;
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.MessageToByteEncoder;
 
-final class WirePacketEncoder extends MessageToByteEncoder<WirePacket> {
+final class WirePacketEncoder extends MessageToByteEncoder<Object> {
 
 	@Override
-	protected void encode(ChannelHandlerContext ctx, WirePacket msg, ByteBuf out) throws Exception {
-		msg.writeFully(out);
+	protected void encode(ChannelHandlerContext ctx, Object msg, ByteBuf out) throws Exception {
+		// the shared packet is released by our super class after writing it
+		if (msg instanceof SharedWirePacket) {
+			((SharedWirePacket) msg).writeFully(out);
+		} else {
+			((WirePacket) msg).writeFully(out);
+		}
 	}
 
 	@Override
 	public boolean acceptOutboundMessage(Object msg) {
-		return msg instanceof WirePacket;
+		return msg instanceof WirePacket || msg instanceof SharedWirePacket;
 	}
 
 	@Override
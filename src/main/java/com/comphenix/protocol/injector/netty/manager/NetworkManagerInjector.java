@@ -9,11 +9,13 @@ import java.util.Set;
 
 import com.comphenix.protocol.PacketType;
 import com.comphenix.protocol.ProtocolLogger;
+import com.comphenix.protocol.concurrency.ListenerDispatchTable;
 import com.comphenix.protocol.concurrency.PacketTypeSet;
 import com.comphenix.protocol.error.ErrorReporter;
 import com.comphenix.protocol.events.NetworkMarker;
 import com.comphenix.protocol.events.PacketContainer;
 import com.comphenix.protocol.events.PacketEvent;
+import com.comphenix.protocol.events.PacketListener;
 import com.comphenix.protocol.injector.ListenerInvoker;
 import com.comphenix.protocol.injector.netty.ChannelListener;
 import com.comphenix.protocol.injector.netty.Injector;
@@ -22,6 +24,7 @@ import com.comphenix.protocol.injector.packet.PacketInjector;
 import com.comphenix.protocol.injector.packet.PacketRegistry;
 import com.comphenix.protocol.injector.player.PlayerInjectionHandler;
 import com.comphenix.protocol.injector.temporary.TemporaryPlayerFactory;
+import com.comphenix.protocol.metrics.PipelineMetrics;
 import com.comphenix.protocol.reflect.FuzzyReflection;
 import com.comphenix.protocol.reflect.accessors.Accessors;
 import com.comphenix.protocol.reflect.accessors.FieldAccessor;
@@ -88,16 +91,19 @@ public class NetworkManagerInjector implements ChannelListener {
 	}
 
 	@Override
-	public PacketEvent onPacketSending(Injector injector, Object packet, NetworkMarker marker) {
+	public PacketEvent onPacketSending(Injector injector, Object packet, NetworkMarker marker,
+			ListenerDispatchTable.Entry<PacketListener> entry) {
 		// check if we need to intercept the packet
 		Class<?> packetClass = packet.getClass();
-		if (marker != null || MinecraftReflection.isBundlePacket(packetClass) || outboundListeners.contains(packetClass)) {
-			// wrap packet and construct the event
-			PacketContainer container = new PacketContainer(PacketRegistry.getPacketType(packetClass), packet);
+		if (marker != null || entry != null || MinecraftReflection.isBundlePacket(packetClass)) {
+			// wrap packet and construct the event, the dispatch entry already knows the packet type
+			PacketType type = entry != null ? entry.getType() : PacketRegistry.getPacketType(packetClass);
+			PacketContainer container = new PacketContainer(type, packet);
 			PacketEvent packetEvent = PacketEvent.fromServer(this, container, marker, injector.getPlayer());
+			PipelineMetrics.getInstance().recordIntercepted(type);
 
 			// post to all listeners, then return the packet event we constructed
-			this.listenerInvoker.invokePacketSending(packetEvent);
+			this.listenerInvoker.invokePacketSending(packetEvent, entry);
 			return packetEvent;
 		}
 
@@ -106,16 +112,18 @@ public class NetworkManagerInjector implements ChannelListener {
 	}
 
 	@Override
-	public PacketEvent onPacketReceiving(Injector injector, Object packet, NetworkMarker marker) {
+	public PacketEvent onPacketReceiving(Injector injector, Object packet, NetworkMarker marker,
+			ListenerDispatchTable.Entry<PacketListener> entry) {
 		// check if we need to intercept the packet
-		Class<?> packetClass = packet.getClass();
-		if (marker != null || inboundListeners.contains(packetClass)) {
+		if (marker != null || entry != null) {
 			// wrap the packet and construct the event
-			PacketContainer container = new PacketContainer(PacketRegistry.getPacketType(packetClass), packet);
+			PacketType type = entry != null ? entry.getType() : PacketRegistry.getPacketType(packet.getClass());
+			PacketContainer container = new PacketContainer(type, packet);
 			PacketEvent packetEvent = PacketEvent.fromClient(this, container, marker, injector.getPlayer());
+			PipelineMetrics.getInstance().recordIntercepted(type);
 
 			// post to all listeners, then return the packet event we constructed
-			this.listenerInvoker.invokePacketReceiving(packetEvent);
+			this.listenerInvoker.invokePacketReceiving(packetEvent, entry);
 			return packetEvent;
 		}
 
@@ -123,14 +131,25 @@ public class NetworkManagerInjector implements ChannelListener {
 		return null;
 	}
 
+	@Override
+	public ListenerDispatchTable<PacketListener> getInboundListeners() {
+		return this.listenerInvoker.getInboundDispatchTable();
+	}
+
+	@Override
+	public ListenerDispatchTable<PacketListener> getOutboundListeners() {
+		return this.listenerInvoker.getOutboundDispatchTable();
+	}
+
 	@Override
 	public boolean hasListener(Class<?> packetClass) {
-		return this.outboundListeners.contains(packetClass) || this.inboundListeners.contains(packetClass);
+		return this.getOutboundListeners().hasListener(packetClass) || this.getInboundListeners().hasListener(packetClass);
 	}
 
 	@Override
 	public boolean hasMainThreadListener(Class<?> packetClass) {
-		return this.mainThreadListeners.contains(packetClass);
+		return this.getOutboundListeners().hasMainThreadListener(packetClass)
+				|| this.getInboundListeners().hasMainThreadListener(packetClass);
 	}
 
 	@Override
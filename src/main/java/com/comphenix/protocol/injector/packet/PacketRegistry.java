@@ -48,6 +48,21 @@ public class PacketRegistry {
 		final Map<PacketType, Optional<Class<?>>> typeToClass = new ConcurrentHashMap<>();
 		final Map<Class<?>, PacketType> classToType = new ConcurrentHashMap<>();
 
+		// resolved packet type of every class, without hashing on the hot path
+		final ClassValue<PacketType> classLookup = new ClassValue<PacketType>() {
+			@Override
+			protected PacketType computeValue(Class<?> type) {
+				if (MinecraftReflection.isBundlePacket(type)) {
+					return PacketType.Play.Server.BUNDLE;
+				}
+				return classToType.get(type);
+			}
+		};
+
+		// dense ids of every registered type, and the types indexed by their id
+		final Map<PacketType, Integer> typeToId = new ConcurrentHashMap<>();
+		volatile PacketType[] idToType = new PacketType[0];
+
 		volatile Set<PacketType> serverPackets = new HashSet<>();
 		volatile Set<PacketType> clientPackets = new HashSet<>();
 		final List<MapContainer> containers = new ArrayList<>();
@@ -57,6 +72,7 @@ public class PacketRegistry {
 		public void registerPacket(PacketType type, Class<?> clazz, Sender sender) {
 			typeToClass.put(type, Optional.of(clazz));
 			classToType.put(clazz, type);
+			assignId(type);
 			if (sender == Sender.CLIENT) {
 				clientPackets.add(type);
 			} else {
@@ -64,6 +80,26 @@ public class PacketRegistry {
 			}
 		}
 
+		/**
+		 * Assign the next dense id to the given type, unless it already has one.
+		 * @param type - the packet type.
+		 * @return The id of the type.
+		 */
+		synchronized int assignId(PacketType type) {
+			Integer id = typeToId.get(type);
+			if (id != null) {
+				return id;
+			}
+
+			PacketType[] types = Arrays.copyOf(idToType, idToType.length + 1);
+			types[types.length - 1] = type;
+
+			// publish the type before its id, so every id handed out can be resolved
+			idToType = types;
+			typeToId.put(type, types.length - 1);
+			return types.length - 1;
+		}
+
 		public void addContainer(MapContainer container) {
 			containers.add(container);
 		}
@@ -268,9 +304,11 @@ public class PacketRegistry {
 		if (clazz != null) {
 			REGISTER.typeToClass.put(type, Optional.of(clazz));
 			REGISTER.classToType.put(clazz, type);
+			REGISTER.classLookup.remove(clazz);
 		} else {
 			REGISTER.typeToClass.put(type, Optional.empty());
 		}
+		REGISTER.assignId(type);
 	}
 
 	private static final Object registryLock = new Object();
@@ -402,12 +440,64 @@ public class PacketRegistry {
 	 */
 	public static PacketType getPacketType(Class<?> packet) {
 		initialize();
+		return REGISTER.classLookup.get(packet);
+	}
+
+	/**
+	 * Retrieve the dense id of the given packet type.
+	 * <p>
+	 * Every type is assigned an id the first time it is registered or looked up, counting up from zero. The ids are
+	 * only valid for the lifetime of the server, but they may be used to index flat arrays that are sized by
+	 * {@link #getPacketTypeCount()}.
+	 * @param type - the packet type.
+	 * @return The id of the type.
+	 */
+	public static int getPacketTypeId(PacketType type) {
+		initialize();
 
-		if (MinecraftReflection.isBundlePacket(packet)) {
-			return PacketType.Play.Server.BUNDLE;
+		Integer id = REGISTER.typeToId.get(type);
+		if (id != null) {
+			return id;
 		}
-		
-		return REGISTER.classToType.get(packet);
+
+		// resolving the class of the type associates it, and assigns its id
+		tryGetPacketClass(type);
+		return REGISTER.assignId(type);
+	}
+
+	/**
+	 * Retrieve the dense id of the packet type of the given packet class.
+	 * @param packet - the class of the packet.
+	 * @return The id of the type, or -1 if the class is not a registered packet.
+	 * @see #getPacketTypeId(PacketType)
+	 */
+	public static int getPacketTypeId(Class<?> packet) {
+		PacketType type = getPacketType(packet);
+		return type != null ? getPacketTypeId(type) : -1;
+	}
+
+	/**
+	 * Retrieve the packet type with the given dense id.
+	 * @param id - the id of the type.
+	 * @return The packet type, or NULL if no type has been assigned this id.
+	 * @see #getPacketTypeId(PacketType)
+	 */
+	public static PacketType getPacketTypeById(int id) {
+		initialize();
+
+		PacketType[] types = REGISTER.idToType;
+		return id >= 0 && id < types.length ? types[id] : null;
+	}
+
+	/**
+	 * Retrieve the number of packet types that have been assigned a dense id so far.
+	 * <p>
+	 * This may grow when types that weren't registered with the server are looked up for the first time.
+	 * @return The number of ids.
+	 */
+	public static int getPacketTypeCount() {
+		initialize();
+		return REGISTER.idToType.length;
 	}
 	
 	/**
@@ -0,0 +1,99 @@
+package com.comphenix.protocol.metrics;
+
+import com.comphenix.protocol.PacketType;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The pipeline counters of a single packet type.
+ * <p>
+ * Every counter is striped, so threads incrementing the same counter rarely contend with each other.
+ */
+public final class PacketCounters implements PacketCountersMXBean {
+
+	private final PacketType type;
+
+	final LongAdder seen = new LongAdder();
+	final LongAdder intercepted = new LongAdder();
+	final LongAdder cancelled = new LongAdder();
+	final LongAdder rescheduled = new LongAdder();
+	final LongAdder deferred = new LongAdder();
+	final LongAdder injected = new LongAdder();
+
+	PacketCounters(PacketType type) {
+		this.type = type;
+	}
+
+	/**
+	 * Retrieve the packet type these counters belong to.
+	 *
+	 * @return The packet type.
+	 */
+	public PacketType getType() {
+		return this.type;
+	}
+
+	@Override
+	public String getProtocol() {
+		return this.type.getProtocol().name();
+	}
+
+	@Override
+	public String getSender() {
+		return this.type.getSender().name();
+	}
+
+	@Override
+	public String getName() {
+		return this.type.name();
+	}
+
+	@Override
+	public long getSeen() {
+		return this.seen.sum();
+	}
+
+	@Override
+	public long getIntercepted() {
+		return this.intercepted.sum();
+	}
+
+	@Override
+	public long getCancelled() {
+		return this.cancelled.sum();
+	}
+
+	@Override
+	public long getRescheduled() {
+		return this.rescheduled.sum();
+	}
+
+	@Override
+	public long getDeferred() {
+		return this.deferred.sum();
+	}
+
+	@Override
+	public long getInjected() {
+		return this.injected.sum();
+	}
+
+	void reset() {
+		this.seen.reset();
+		this.intercepted.reset();
+		this.cancelled.reset();
+		this.rescheduled.reset();
+		this.deferred.reset();
+		this.injected.reset();
+	}
+
+	@Override
+	public String toString() {
+		return "PacketCounters[type=" + this.type
+				+ ", seen=" + this.getSeen()
+				+ ", intercepted=" + this.getIntercepted()
+				+ ", cancelled=" + this.getCancelled()
+				+ ", rescheduled=" + this.getRescheduled()
+				+ ", deferred=" + this.getDeferred()
+				+ ", injected=" + this.getInjected() + "]";
+	}
+}
@@ -0,0 +1,71 @@
+package com.comphenix.protocol.metrics;
+
+/**
+ * The management interface of the counters of a single packet type.
+ */
+public interface PacketCountersMXBean {
+
+	/**
+	 * Retrieve the protocol of the packet type, such as PLAY.
+	 *
+	 * @return The protocol.
+	 */
+	String getProtocol();
+
+	/**
+	 * Retrieve the sender of the packet type, either SERVER or CLIENT.
+	 *
+	 * @return The sender.
+	 */
+	String getSender();
+
+	/**
+	 * Retrieve the name of the packet type.
+	 *
+	 * @return The name.
+	 */
+	String getName();
+
+	/**
+	 * Retrieve the number of packets that passed the injector.
+	 *
+	 * @return The number of packets.
+	 */
+	long getSeen();
+
+	/**
+	 * Retrieve the number of packets that were posted to at least one listener.
+	 *
+	 * @return The number of packets.
+	 */
+	long getIntercepted();
+
+	/**
+	 * Retrieve the number of packets that were cancelled by a listener.
+	 *
+	 * @return The number of packets.
+	 */
+	long getCancelled();
+
+	/**
+	 * Retrieve the number of packets that had to be rescheduled to the main thread.
+	 *
+	 * @return The number of packets.
+	 */
+	long getRescheduled();
+
+	/**
+	 * Retrieve the number of packets that were handed to asynchronous listeners, and sent or received once they were
+	 * processed.
+	 *
+	 * @return The number of packets.
+	 */
+	long getDeferred();
+
+	/**
+	 * Retrieve the number of packets that were sent or received by plugins through the protocol manager.
+	 *
+	 * @return The number of packets.
+	 */
+	long getInjected();
+}
@@ -0,0 +1,472 @@
+package com.comphenix.protocol.metrics;
+
+import com.comphenix.protocol.PacketType;
+import com.comphenix.protocol.PacketType.Sender;
+import com.comphenix.protocol.injector.packet.PacketRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+import java.util.function.ToLongFunction;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Continuously records how many packets pass through the packet pipeline, and how much time is spent dispatching them
+ * to the listeners.
+ * <p>
+ * Every counter is a {@link LongAdder}, and only one out of {@link #DISPATCH_SAMPLE_RATE} listener dispatches is
+ * timed, so recording is cheap enough to be always enabled. The metrics are exposed to JMX by
+ * {@link #register(MBeanServer)}, one bean for the pipeline and one for every packet type.
+ */
+public final class PipelineMetrics implements PipelineMetricsMXBean {
+
+	/**
+	 * The domain of the object names of every registered bean.
+	 */
+	public static final String DOMAIN = "com.comphenix.protocol";
+
+	/**
+	 * The average number of listener dispatches per timed dispatch, must be a power of two.
+	 */
+	public static final int DISPATCH_SAMPLE_RATE = 64;
+
+	private static final long NOT_SAMPLED = Long.MIN_VALUE;
+	private static final IntSupplier NO_QUEUE = () -> 0;
+
+	private static final PipelineMetrics INSTANCE = new PipelineMetrics();
+
+	private final ConcurrentMap<PacketType, PacketCounters> counters = new ConcurrentHashMap<>();
+	private final ClassValue<PacketCounters> countersByClass = new ClassValue<PacketCounters>() {
+		@Override
+		protected PacketCounters computeValue(Class<?> type) {
+			PacketType packetType = PacketRegistry.getPacketType(type);
+			return packetType == null ? null : PipelineMetrics.this.getCounters(packetType);
+		}
+	};
+
+	private final DispatchTimer mainThreadDispatches = new DispatchTimer();
+	private final DispatchTimer networkThreadDispatches = new DispatchTimer();
+
+	// packets waiting in the queues of asynchronous listeners, and packets those queues had to reject
+	private final LongAdder listenerQueueDepth = new LongAdder();
+	private final LongAdder listenerQueueRejections = new LongAdder();
+	// packets dropped because too many packets were waiting for the asynchronous listeners
+	private final LongAdder processingQueueRejections = new LongAdder();
+
+	private final List<ObjectName> registeredNames = new ArrayList<>();
+
+	private volatile IntSupplier serverProcessingQueue = NO_QUEUE;
+	private volatile IntSupplier clientProcessingQueue = NO_QUEUE;
+	private volatile IntSupplier serverSendingQueue = NO_QUEUE;
+	private volatile IntSupplier clientSendingQueue = NO_QUEUE;
+
+	PipelineMetrics() {
+	}
+
+	/**
+	 * Retrieve the metrics of the packet pipeline.
+	 *
+	 * @return The pipeline metrics.
+	 */
+	public static PipelineMetrics getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Retrieve the counters of the given packet type, creating them if necessary.
+	 *
+	 * @param type - the packet type.
+	 * @return The counters of the packet type.
+	 */
+	public PacketCounters getCounters(PacketType type) {
+		PacketCounters result = this.counters.get(type);
+		if (result == null) {
+			result = this.counters.computeIfAbsent(type, PacketCounters::new);
+		}
+		return result;
+	}
+
+	private PacketCounters getClassCounters(Class<?> packetClass) {
+		PacketCounters result = this.countersByClass.get(packetClass);
+
+		// the miss is cached, but the class might have been associated with its type since then
+		if (result == null && PacketRegistry.getPacketType(packetClass) != null) {
+			this.countersByClass.remove(packetClass);
+			result = this.countersByClass.get(packetClass);
+		}
+		return result;
+	}
+
+	/**
+	 * Record that a packet of the given class passed the injector.
+	 *
+	 * @param packetClass - the class of the packet.
+	 */
+	public void recordSeen(Class<?> packetClass) {
+		PacketCounters result = this.getClassCounters(packetClass);
+		if (result != null) {
+			result.seen.increment();
+		}
+	}
+
+	/**
+	 * Record that a packet of the given type was posted to its listeners.
+	 *
+	 * @param type - the packet type.
+	 */
+	public void recordIntercepted(PacketType type) {
+		this.getCounters(type).intercepted.increment();
+	}
+
+	/**
+	 * Record that a packet of the given type was cancelled by a listener.
+	 *
+	 * @param type - the packet type.
+	 */
+	public void recordCancelled(PacketType type) {
+		this.getCounters(type).cancelled.increment();
+	}
+
+	/**
+	 * Record that a packet of the given type was rescheduled to the main thread.
+	 *
+	 * @param type - the packet type.
+	 */
+	public void recordRescheduled(PacketType type) {
+		this.getCounters(type).rescheduled.increment();
+	}
+
+	/**
+	 * Record that a packet of the given type was handed to its asynchronous listeners, instead of being cancelled.
+	 *
+	 * @param type - the packet type.
+	 */
+	public void recordDeferred(PacketType type) {
+		this.getCounters(type).deferred.increment();
+	}
+
+	/**
+	 * Record that a packet of the given class was sent or received by a plugin through the protocol manager.
+	 *
+	 * @param packetClass - the class of the packet.
+	 */
+	public void recordInjected(Class<?> packetClass) {
+		PacketCounters result = this.getClassCounters(packetClass);
+		if (result != null) {
+			result.injected.increment();
+		}
+	}
+
+	/**
+	 * Begin a listener dispatch, which is timed if it is sampled.
+	 *
+	 * @return The token to pass to {@link #endDispatch(long, boolean)}.
+	 */
+	public long beginDispatch() {
+		if ((ThreadLocalRandom.current().nextInt() & (DISPATCH_SAMPLE_RATE - 1)) != 0) {
+			return NOT_SAMPLED;
+		}
+		return System.nanoTime();
+	}
+
+	/**
+	 * End a listener dispatch started by {@link #beginDispatch()}.
+	 *
+	 * @param token      - the token returned when the dispatch began.
+	 * @param mainThread - TRUE if the dispatch happened on the main thread, FALSE otherwise.
+	 */
+	public void endDispatch(long token, boolean mainThread) {
+		DispatchTimer timer = mainThread ? this.mainThreadDispatches : this.networkThreadDispatches;
+		timer.dispatches.increment();
+
+		if (token != NOT_SAMPLED) {
+			timer.sampledNanos.add(System.nanoTime() - token);
+			timer.samples.increment();
+		}
+	}
+
+	/**
+	 * Record that a packet was added to the queue of an asynchronous listener.
+	 */
+	public void recordListenerQueued() {
+		this.listenerQueueDepth.increment();
+	}
+
+	/**
+	 * Record that a packet was removed from the queue of an asynchronous listener.
+	 */
+	public void recordListenerDequeued() {
+		this.listenerQueueDepth.decrement();
+	}
+
+	/**
+	 * Record that a packet was rejected because the queue of an asynchronous listener was full.
+	 */
+	public void recordListenerQueueFull() {
+		this.listenerQueueRejections.increment();
+	}
+
+	/**
+	 * Record that a packet was dropped because the asynchronous processing queue was full.
+	 */
+	public void recordProcessingQueueFull() {
+		this.processingQueueRejections.increment();
+	}
+
+	/**
+	 * Set the sources of the depths of the asynchronous packet queues.
+	 *
+	 * @param serverProcessing - the number of server packets waiting for an asynchronous listener.
+	 * @param clientProcessing - the number of client packets waiting for an asynchronous listener.
+	 * @param serverSending    - the number of server packets waiting to be sent in order.
+	 * @param clientSending    - the number of client packets waiting to be received in order.
+	 */
+	public void setQueueDepths(IntSupplier serverProcessing, IntSupplier clientProcessing, IntSupplier serverSending,
+			IntSupplier clientSending) {
+		this.serverProcessingQueue = serverProcessing;
+		this.clientProcessingQueue = clientProcessing;
+		this.serverSendingQueue = serverSending;
+		this.clientSendingQueue = clientSending;
+	}
+
+	/**
+	 * Remove the sources of the depths of the asynchronous packet queues.
+	 */
+	public void clearQueueDepths() {
+		this.setQueueDepths(NO_QUEUE, NO_QUEUE, NO_QUEUE, NO_QUEUE);
+	}
+
+	/**
+	 * Register the pipeline bean and a bean for every supported packet type with the given server.
+	 *
+	 * @param server - the bean server.
+	 * @throws JMException If a bean could not be registered.
+	 */
+	public synchronized void register(MBeanServer server) throws JMException {
+		this.unregister(server);
+
+		this.registerBean(server, this, new ObjectName(DOMAIN + ":type=Pipeline"));
+		for (PacketType type : PacketRegistry.getServerPacketTypes()) {
+			this.registerPacketType(server, type);
+		}
+		for (PacketType type : PacketRegistry.getClientPacketTypes()) {
+			this.registerPacketType(server, type);
+		}
+	}
+
+	/**
+	 * Unregister every bean registered by {@link #register(MBeanServer)}.
+	 *
+	 * @param server - the bean server.
+	 * @throws JMException If a bean could not be unregistered.
+	 */
+	public synchronized void unregister(MBeanServer server) throws JMException {
+		try {
+			for (ObjectName name : this.registeredNames) {
+				if (server.isRegistered(name)) {
+					server.unregisterMBean(name);
+				}
+			}
+		} finally {
+			this.registeredNames.clear();
+		}
+	}
+
+	private void registerPacketType(MBeanServer server, PacketType type) throws JMException {
+		ObjectName name = new ObjectName(DOMAIN + ":type=Packets"
+				+ ",protocol=" + type.getProtocol().name()
+				+ ",sender=" + type.getSender().name()
+				+ ",name=" + ObjectName.quote(type.name()));
+		this.registerBean(server, this.getCounters(type), name);
+	}
+
+	private void registerBean(MBeanServer server, Object bean, ObjectName name) throws JMException {
+		// a previous instance of the plugin might not have been disabled cleanly
+		if (server.isRegistered(name)) {
+			server.unregisterMBean(name);
+		}
+		server.registerMBean(bean, name);
+		this.registeredNames.add(name);
+	}
+
+	private long sum(Sender sender, ToLongFunction<PacketCounters> counter) {
+		long result = 0;
+		for (PacketCounters value : this.counters.values()) {
+			if (value.getType().getSender() == sender) {
+				result += counter.applyAsLong(value);
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public long getServerPacketsSeen() {
+		return this.sum(Sender.SERVER, PacketCounters::getSeen);
+	}
+
+	@Override
+	public long getClientPacketsSeen() {
+		return this.sum(Sender.CLIENT, PacketCounters::getSeen);
+	}
+
+	@Override
+	public long getServerPacketsIntercepted() {
+		return this.sum(Sender.SERVER, PacketCounters::getIntercepted);
+	}
+
+	@Override
+	public long getClientPacketsIntercepted() {
+		return this.sum(Sender.CLIENT, PacketCounters::getIntercepted);
+	}
+
+	@Override
+	public long getServerPacketsCancelled() {
+		return this.sum(Sender.SERVER, PacketCounters::getCancelled);
+	}
+
+	@Override
+	public long getClientPacketsCancelled() {
+		return this.sum(Sender.CLIENT, PacketCounters::getCancelled);
+	}
+
+	@Override
+	public long getServerPacketsRescheduled() {
+		return this.sum(Sender.SERVER, PacketCounters::getRescheduled);
+	}
+
+	@Override
+	public long getClientPacketsRescheduled() {
+		return this.sum(Sender.CLIENT, PacketCounters::getRescheduled);
+	}
+
+	@Override
+	public long getServerPacketsDeferred() {
+		return this.sum(Sender.SERVER, PacketCounters::getDeferred);
+	}
+
+	@Override
+	public long getClientPacketsDeferred() {
+		return this.sum(Sender.CLIENT, PacketCounters::getDeferred);
+	}
+
+	@Override
+	public long getServerPacketsInjected() {
+		return this.sum(Sender.SERVER, PacketCounters::getInjected);
+	}
+
+	@Override
+	public long getClientPacketsInjected() {
+		return this.sum(Sender.CLIENT, PacketCounters::getInjected);
+	}
+
+	@Override
+	public int getServerProcessingQueueDepth() {
+		return this.serverProcessingQueue.getAsInt();
+	}
+
+	@Override
+	public int getClientProcessingQueueDepth() {
+		return this.clientProcessingQueue.getAsInt();
+	}
+
+	@Override
+	public int getServerSendingQueueDepth() {
+		return this.serverSendingQueue.getAsInt();
+	}
+
+	@Override
+	public int getClientSendingQueueDepth() {
+		return this.clientSendingQueue.getAsInt();
+	}
+
+	@Override
+	public int getListenerQueueDepth() {
+		return (int) this.listenerQueueDepth.sum();
+	}
+
+	@Override
+	public long getListenerQueueRejections() {
+		return this.listenerQueueRejections.sum();
+	}
+
+	@Override
+	public long getProcessingQueueRejections() {
+		return this.processingQueueRejections.sum();
+	}
+
+	@Override
+	public long getMainThreadDispatches() {
+		return this.mainThreadDispatches.dispatches.sum();
+	}
+
+	@Override
+	public long getNetworkThreadDispatches() {
+		return this.networkThreadDispatches.dispatches.sum();
+	}
+
+	@Override
+	public long getMainThreadDispatchNanos() {
+		return this.mainThreadDispatches.getEstimatedNanos();
+	}
+
+	@Override
+	public long getNetworkThreadDispatchNanos() {
+		return this.networkThreadDispatches.getEstimatedNanos();
+	}
+
+	@Override
+	public double getMainThreadMeanDispatchNanos() {
+		return this.mainThreadDispatches.getMeanNanos();
+	}
+
+	@Override
+	public double getNetworkThreadMeanDispatchNanos() {
+		return this.networkThreadDispatches.getMeanNanos();
+	}
+
+	@Override
+	public int getDispatchSampleRate() {
+		return DISPATCH_SAMPLE_RATE;
+	}
+
+	@Override
+	public void reset() {
+		for (PacketCounters value : this.counters.values()) {
+			value.reset();
+		}
+		this.mainThreadDispatches.reset();
+		this.networkThreadDispatches.reset();
+		this.listenerQueueRejections.reset();
+		this.processingQueueRejections.reset();
+	}
+
+	/**
+	 * The number of listener dispatches of a kind of thread, and the time spent in the sampled dispatches.
+	 */
+	private static final class DispatchTimer {
+
+		private final LongAdder dispatches = new LongAdder();
+		private final LongAdder samples = new LongAdder();
+		private final LongAdder sampledNanos = new LongAdder();
+
+		double getMeanNanos() {
+			long sampleCount = this.samples.sum();
+			return sampleCount == 0 ? 0 : (double) this.sampledNanos.sum() / sampleCount;
+		}
+
+		long getEstimatedNanos() {
+			return (long) (this.getMeanNanos() * this.dispatches.sum());
+		}
+
+		void reset() {
+			this.dispatches.reset();
+			this.samples.reset();
+			this.sampledNanos.reset();
+		}
+	}
+}
@@ -0,0 +1,197 @@
+package com.comphenix.protocol.metrics;
+
+/**
+ * The management interface of the packet pipeline metrics, summed over every packet type of a direction.
+ */
+public interface PipelineMetricsMXBean {
+
+	/**
+	 * Retrieve the number of server packets that passed the injector.
+	 *
+	 * @return The number of packets.
+	 */
+	long getServerPacketsSeen();
+
+	/**
+	 * Retrieve the number of client packets that passed the injector.
+	 *
+	 * @return The number of packets.
+	 */
+	long getClientPacketsSeen();
+
+	/**
+	 * Retrieve the number of server packets that were posted to at least one listener.
+	 *
+	 * @return The number of packets.
+	 */
+	long getServerPacketsIntercepted();
+
+	/**
+	 * Retrieve the number of client packets that were posted to at least one listener.
+	 *
+	 * @return The number of packets.
+	 */
+	long getClientPacketsIntercepted();
+
+	/**
+	 * Retrieve the number of server packets that were cancelled by a listener.
+	 *
+	 * @return The number of packets.
+	 */
+	long getServerPacketsCancelled();
+
+	/**
+	 * Retrieve the number of client packets that were cancelled by a listener.
+	 *
+	 * @return The number of packets.
+	 */
+	long getClientPacketsCancelled();
+
+	/**
+	 * Retrieve the number of server packets that had to be rescheduled to the main thread.
+	 *
+	 * @return The number of packets.
+	 */
+	long getServerPacketsRescheduled();
+
+	/**
+	 * Retrieve the number of client packets that had to be rescheduled to the main thread.
+	 *
+	 * @return The number of packets.
+	 */
+	long getClientPacketsRescheduled();
+
+	/**
+	 * Retrieve the number of server packets that were handed to asynchronous listeners.
+	 *
+	 * @return The number of packets.
+	 */
+	long getServerPacketsDeferred();
+
+	/**
+	 * Retrieve the number of client packets that were handed to asynchronous listeners.
+	 *
+	 * @return The number of packets.
+	 */
+	long getClientPacketsDeferred();
+
+	/**
+	 * Retrieve the number of server packets that were sent by plugins.
+	 *
+	 * @return The number of packets.
+	 */
+	long getServerPacketsInjected();
+
+	/**
+	 * Retrieve the number of client packets that were received on behalf of a player by plugins.
+	 *
+	 * @return The number of packets.
+	 */
+	long getClientPacketsInjected();
+
+	/**
+	 * Retrieve the number of server packets waiting for an asynchronous listener.
+	 *
+	 * @return The number of packets.
+	 */
+	int getServerProcessingQueueDepth();
+
+	/**
+	 * Retrieve the number of client packets waiting for an asynchronous listener.
+	 *
+	 * @return The number of packets.
+	 */
+	int getClientProcessingQueueDepth();
+
+	/**
+	 * Retrieve the number of server packets processed by asynchronous listeners, waiting to be sent in order.
+	 *
+	 * @return The number of packets.
+	 */
+	int getServerSendingQueueDepth();
+
+	/**
+	 * Retrieve the number of client packets processed by asynchronous listeners, waiting to be received in order.
+	 *
+	 * @return The number of packets.
+	 */
+	int getClientSendingQueueDepth();
+
+	/**
+	 * Retrieve the number of packets waiting in the queues of every asynchronous listener.
+	 *
+	 * @return The number of packets.
+	 */
+	int getListenerQueueDepth();
+
+	/**
+	 * Retrieve the number of packets that could not be queued because the queue of an asynchronous listener was full.
+	 *
+	 * @return The number of packets.
+	 */
+	long getListenerQueueRejections();
+
+	/**
+	 * Retrieve the number of packets that were dropped because too many packets were waiting for the asynchronous
+	 * listeners.
+	 *
+	 * @return The number of packets.
+	 */
+	long getProcessingQueueRejections();
+
+	/**
+	 * Retrieve the number of listener dispatches on the main thread.
+	 *
+	 * @return The number of dispatches.
+	 */
+	long getMainThreadDispatches();
+
+	/**
+	 * Retrieve the number of listener dispatches on any other thread, usually a netty event loop.
+	 *
+	 * @return The number of dispatches.
+	 */
+	long getNetworkThreadDispatches();
+
+	/**
+	 * Retrieve the estimated total time spent in listener dispatches on the main thread, extrapolated from the sampled
+	 * dispatches.
+	 *
+	 * @return The estimated time in nanoseconds.
+	 */
+	long getMainThreadDispatchNanos();
+
+	/**
+	 * Retrieve the estimated total time spent in listener dispatches on any other thread, extrapolated from the sampled
+	 * dispatches.
+	 *
+	 * @return The estimated time in nanoseconds.
+	 */
+	long getNetworkThreadDispatchNanos();
+
+	/**
+	 * Retrieve the mean time of a sampled listener dispatch on the main thread.
+	 *
+	 * @return The mean time in nanoseconds.
+	 */
+	double getMainThreadMeanDispatchNanos();
+
+	/**
+	 * Retrieve the mean time of a sampled listener dispatch on any other thread.
+	 *
+	 * @return The mean time in nanoseconds.
+	 */
+	double getNetworkThreadMeanDispatchNanos();
+
+	/**
+	 * Retrieve the average number of listener dispatches per timed dispatch.
+	 *
+	 * @return The sample rate.
+	 */
+	int getDispatchSampleRate();
+
+	/**
+	 * Reset every counter to zero.
+	 */
+	void reset();
+}
@@ -0,0 +1,26 @@
+package com.comphenix.protocol.reflect;
+
+/**
+ * Represents the target of a structure modifier that is only copied once it is written to.
+ * <p>
+ * A modifier bound to this target looks it up on every read and write, so every modifier derived from it sees the copy
+ * as soon as the first write creates it.
+ *
+ * @see StructureModifier#withCopyOnWriteTarget(CopyOnWriteTarget)
+ */
+public interface CopyOnWriteTarget {
+
+	/**
+	 * Retrieve the object to read fields from.
+	 *
+	 * @return The original object, or its copy if it has been written to.
+	 */
+	Object getReadTarget();
+
+	/**
+	 * Retrieve the object to write fields to, copying the original object if this is the first write.
+	 *
+	 * @return The copy of the original object.
+	 */
+	Object getWriteTarget();
+}
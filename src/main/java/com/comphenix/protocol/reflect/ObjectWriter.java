@@ -22,10 +22,21 @@ import com.comphenix.protocol.injector.StructureCache;
 import com.comphenix.protocol.injector.packet.PacketRegistry;
 import com.comphenix.protocol.utility.MinecraftReflection;
 import com.comphenix.protocol.utility.StreamSerializer;
+import com.comphenix.protocol.reflect.accessors.ByteFieldAccessor;
+import com.comphenix.protocol.reflect.accessors.DoubleFieldAccessor;
+import com.comphenix.protocol.reflect.accessors.FieldAccessor;
+import com.comphenix.protocol.reflect.accessors.FloatFieldAccessor;
+import com.comphenix.protocol.reflect.accessors.IntFieldAccessor;
+import com.comphenix.protocol.reflect.accessors.LongFieldAccessor;
+import com.comphenix.protocol.reflect.accessors.ShortFieldAccessor;
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Can copy an object field by field.
@@ -35,7 +46,12 @@ import java.util.Map;
 public class ObjectWriter {
 
 	// Cache structure modifiers
-	private static final Map<Class<?>, StructureModifier<Object>> CACHE = new HashMap<>();
+	private static final Map<Class<?>, StructureModifier<Object>> CACHE = new ConcurrentHashMap<>();
+	// Cache of every field to copy from a type, including the fields of its superclasses
+	private static final Map<Class<?>, FieldAccessor[]> COPY_PLANS = new ConcurrentHashMap<>();
+
+	// whether fields are copied as they are, in which case transformField doesn't need to be called
+	private final boolean directCopy = this.getClass() == ObjectWriter.class;
 
 	/**
 	 * Retrieve a usable structure modifier for the given object type.
@@ -61,18 +77,95 @@ public class ObjectWriter {
 		// Create the structure modifier if we haven't already
 		StructureModifier<Object> modifier = CACHE.get(type);
 		if (modifier == null) {
-			StructureModifier<Object> value = new StructureModifier<>(type, null, false);
-			modifier = CACHE.putIfAbsent(type, value);
-
-			if (modifier == null) {
-				modifier = value;
-			}
+			modifier = CACHE.computeIfAbsent(type, key -> new StructureModifier<>(key, null, false));
 		}
 
 		// And we're done
 		return modifier;
 	}
 
+	/**
+	 * Retrieve every field that is copied from the given type, in the order they are copied.
+	 *
+	 * @param commonType - type containing each field to copy.
+	 * @return Every field to copy.
+	 */
+	private FieldAccessor[] getCopyPlan(Class<?> commonType) {
+		FieldAccessor[] plan = COPY_PLANS.get(commonType);
+		if (plan == null) {
+			plan = COPY_PLANS.computeIfAbsent(commonType, this::createCopyPlan);
+		}
+		return plan;
+	}
+
+	private FieldAccessor[] createCopyPlan(Class<?> commonType) {
+		List<FieldAccessor> plan = new ArrayList<>();
+
+		// the same fields copyToInternal visits, public fields are only copied from the common type itself
+		Class<?> type = commonType;
+		boolean copyPublic = true;
+		while (true) {
+			for (FieldAccessor accessor : this.getModifier(type).getFields()) {
+				int mod = accessor.getField().getModifiers();
+				if (!Modifier.isStatic(mod) && (!Modifier.isPublic(mod) || copyPublic)) {
+					plan.add(accessor);
+				}
+			}
+
+			Class<?> superclass = type.getSuperclass();
+			if (superclass == null || superclass.equals(Object.class)) {
+				break;
+			}
+
+			type = superclass;
+			copyPublic = false;
+		}
+
+		return plan.toArray(new FieldAccessor[0]);
+	}
+
+	/**
+	 * Retrieve every field that is copied from the given type by {@link #copyTo(Object, Object, Class)}, in the order
+	 * they are copied.
+	 *
+	 * @param commonType - type containing each field to copy.
+	 * @return Every field to copy.
+	 */
+	public List<FieldAccessor> getCopiedFields(Class<?> commonType) {
+		return Collections.unmodifiableList(Arrays.asList(this.getCopyPlan(commonType)));
+	}
+
+	/**
+	 * Copy the value of a field from one object to another, without boxing the value of primitive fields.
+	 *
+	 * @param accessor    - the field to copy.
+	 * @param source      - the object to copy the value from.
+	 * @param destination - the object to copy the value to.
+	 */
+	public static void copyField(FieldAccessor accessor, Object source, Object destination) {
+		if (accessor instanceof IntFieldAccessor) {
+			IntFieldAccessor typed = (IntFieldAccessor) accessor;
+			typed.setInt(destination, typed.getInt(source));
+		} else if (accessor instanceof LongFieldAccessor) {
+			LongFieldAccessor typed = (LongFieldAccessor) accessor;
+			typed.setLong(destination, typed.getLong(source));
+		} else if (accessor instanceof DoubleFieldAccessor) {
+			DoubleFieldAccessor typed = (DoubleFieldAccessor) accessor;
+			typed.setDouble(destination, typed.getDouble(source));
+		} else if (accessor instanceof FloatFieldAccessor) {
+			FloatFieldAccessor typed = (FloatFieldAccessor) accessor;
+			typed.setFloat(destination, typed.getFloat(source));
+		} else if (accessor instanceof ShortFieldAccessor) {
+			ShortFieldAccessor typed = (ShortFieldAccessor) accessor;
+			typed.setShort(destination, typed.getShort(source));
+		} else if (accessor instanceof ByteFieldAccessor) {
+			ByteFieldAccessor typed = (ByteFieldAccessor) accessor;
+			typed.setByte(destination, typed.getByte(source));
+		} else {
+			accessor.set(destination, accessor.get(source));
+		}
+	}
+
 	/**
 	 * Copy every field in object A to object B. Each value is copied directly, and is not cloned.
 	 * <p>
@@ -83,6 +176,18 @@ public class ObjectWriter {
 	 * @param commonType  - type containing each field to copy.
 	 */
 	public void copyTo(Object source, Object destination, Class<?> commonType) {
+		if (this.directCopy) {
+			// no field is transformed, so we can copy every field directly without creating any modifier
+			try {
+				for (FieldAccessor accessor : this.getCopyPlan(commonType)) {
+					copyField(accessor, source, destination);
+				}
+			} catch (Exception e) {
+				throw new RuntimeException("Unable to copy fields from " + commonType.getName(), e);
+			}
+			return;
+		}
+
 		// Note that we indicate that public fields will be copied the first time around
 		this.copyToInternal(source, destination, commonType, true);
 	}
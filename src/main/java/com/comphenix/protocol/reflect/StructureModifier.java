@@ -18,16 +18,19 @@
 package com.comphenix.protocol.reflect;
 
 import com.comphenix.protocol.reflect.accessors.Accessors;
+import com.comphenix.protocol.reflect.accessors.ByteFieldAccessor;
+import com.comphenix.protocol.reflect.accessors.DoubleFieldAccessor;
 import com.comphenix.protocol.reflect.accessors.FieldAccessor;
+import com.comphenix.protocol.reflect.accessors.FloatFieldAccessor;
+import com.comphenix.protocol.reflect.accessors.IntFieldAccessor;
+import com.comphenix.protocol.reflect.accessors.LongFieldAccessor;
+import com.comphenix.protocol.reflect.accessors.ShortFieldAccessor;
 import com.comphenix.protocol.reflect.instances.BannedGenerator;
 import com.comphenix.protocol.reflect.instances.DefaultInstances;
 import com.comphenix.protocol.reflect.instances.InstanceProvider;
 import com.comphenix.protocol.utility.MinecraftReflection;
-import com.google.common.collect.HashBasedTable;
-import com.google.common.collect.Table;
+import com.google.common.cache.CacheBuilder;
 
-import java.lang.ref.Reference;
-import java.lang.ref.SoftReference;
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
 import java.lang.reflect.ParameterizedType;
@@ -40,6 +43,8 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
 
@@ -55,6 +60,9 @@ public class StructureModifier<T> {
 
 	// Instance generator we will use
 	private static final DefaultInstances DEFAULT_GENERATOR = getDefaultGenerator();
+	// the maximum number of cached views per target type, and of converted views per field type
+	private static final int MAX_CACHED_VIEWS = 64;
+	private static final int MAX_CACHED_CONVERTERS = 16;
 	// a structure modifier which does nothing
 	private static final StructureModifier<Object> NO_OP_MODIFIER = new StructureModifier<Object>() {
 		@Override
@@ -67,6 +75,16 @@ public class StructureModifier<T> {
 			return this;
 		}
 
+		@Override
+		public Object read(Object target, int fieldIndex) throws FieldAccessException {
+			return null;
+		}
+
+		@Override
+		public StructureModifier<Object> write(Object target, int fieldIndex, Object value) throws FieldAccessException {
+			return this;
+		}
+
 		@Override
 		protected FieldAccessor findFieldAccessor(int fieldIndex) {
 			return null;
@@ -76,6 +94,8 @@ public class StructureModifier<T> {
 	// Object and its type
 	protected Object target;
 	protected Class<?> targetType;
+	// Looked up on every access instead of the target, if the target is copied on write. May be NULL.
+	private CopyOnWriteTarget copyOnWriteTarget;
 
 	// The fields to read in order
 	protected Class<?> fieldType;
@@ -88,6 +108,11 @@ public class StructureModifier<T> {
 	protected Map<FieldAccessor, Integer> defaultFields;
 	// Cache of previous types
 	protected Map<Class<?>, StructureModifier<?>> subtypeCache;
+	// Cache of previous types with type parameters, shared with every copy of this modifier
+	private ConcurrentMap<List<Class<?>>, StructureModifier<?>> paramTypeCache;
+	// Cache of target independent views, shared with every copy of this modifier. Bounded, as the views reference their
+	// field type and converter, so they would never be released otherwise
+	private ConcurrentMap<Class<?>, TypedViews> viewCache;
 
 	// Whether or subclasses should handle conversion
 	protected boolean customConvertHandling;
@@ -116,7 +141,8 @@ public class StructureModifier<T> {
 		List<FieldAccessor> fields = getFields(targetType, superclassExclude);
 		Map<FieldAccessor, Integer> defaults = requireDefault ? generateDefaultFields(fields) : new HashMap<>();
 
-		this.initialize(targetType, Object.class, fields, defaults, null, new HashMap<>());
+		this.initialize(targetType, Object.class, fields, defaults, null, new ConcurrentHashMap<>());
+		this.initializeCaches();
 	}
 
 	/**
@@ -156,9 +182,14 @@ public class StructureModifier<T> {
 		return requireDefaults;
 	}
 
-	// Used to filter out irrelevant fields
-	private static final ThreadLocal<Table<Class<?>, Class<?>, Reference<List<FieldAccessor>>>>
-		fieldCacheLocal = ThreadLocal.withInitial(HashBasedTable::create);
+	// The fields of every class, indexed by the excluded superclass. Computed once and shared by every thread
+	private static final ClassValue<ConcurrentMap<Class<?>, List<FieldAccessor>>> FIELD_CACHE =
+		new ClassValue<ConcurrentMap<Class<?>, List<FieldAccessor>>>() {
+			@Override
+			protected ConcurrentMap<Class<?>, List<FieldAccessor>> computeValue(Class<?> type) {
+				return new ConcurrentHashMap<>(2);
+			}
+		};
 	private static final Class<?> NULL_CACHE_CLASS_REPLACEMENT = Void.class;
 
 	// Used to filter out irrelevant fields
@@ -166,23 +197,20 @@ public class StructureModifier<T> {
 		if (type == null) {
 			throw new IllegalArgumentException("Type cannot be NULL.");
 		}
-		Table<Class<?>, Class<?>, Reference<List<FieldAccessor>>> fieldCache = fieldCacheLocal.get();
+
+		Map<Class<?>, List<FieldAccessor>> fieldCache = FIELD_CACHE.get(type);
 		Class<?> superclassKey = superclassExclude == null ? NULL_CACHE_CLASS_REPLACEMENT : superclassExclude;
-		Reference<List<FieldAccessor>> cacheEntryReference = fieldCache.get(type, superclassKey);
-		if (cacheEntryReference != null) {
-			List<FieldAccessor> cacheEntry = cacheEntryReference.get();
-			if (cacheEntry != null) {
-				return cacheEntry;
-			}
+
+		List<FieldAccessor> accessors = fieldCache.get(superclassKey);
+		if (accessors == null) {
+			accessors = fieldCache.computeIfAbsent(superclassKey, key -> Collections.unmodifiableList(
+				FuzzyReflection.fromClass(type, true)
+					.getDeclaredFields(superclassExclude)
+					.stream()
+					.filter(field -> !Modifier.isStatic(field.getModifiers()))
+					.map(Accessors::getFieldAccessor)
+					.collect(Collectors.toList())));
 		}
-		List<FieldAccessor> accessors = FuzzyReflection.fromClass(type, true)
-			.getDeclaredFields(superclassExclude)
-			.stream()
-			.filter(field -> !Modifier.isStatic(field.getModifiers()))
-			.map(Accessors::getFieldAccessor)
-			.collect(Collectors.toList());
-		fieldCache.put(type, superclassKey, new SoftReference<>(accessors));
-		fieldCache.cellSet().removeIf(entry -> entry.getValue().get() == null);
 		return accessors;
 	}
 
@@ -192,13 +220,16 @@ public class StructureModifier<T> {
 	 * @param other - information to set.
 	 */
 	protected void initialize(StructureModifier<T> other) {
-		this.initialize(
-				other.targetType,
-				other.fieldType,
-				other.accessors,
-				other.defaultFields,
-				other.converter,
-				other.subtypeCache);
+		// the caches are shared with the other modifier, so they're assigned directly instead of being allocated first
+		this.targetType = other.targetType;
+		this.fieldType = other.fieldType;
+		this.accessors = other.accessors;
+		this.defaultFields = other.defaultFields;
+		this.converter = other.converter;
+		this.subtypeCache = other.subtypeCache;
+		this.copyOnWriteTarget = other.copyOnWriteTarget;
+		this.paramTypeCache = other.paramTypeCache;
+		this.viewCache = other.viewCache;
 	}
 
 	/**
@@ -227,6 +258,21 @@ public class StructureModifier<T> {
 		this.subtypeCache = subTypeCache;
 	}
 
+	// create the caches of a new set of fields, copies of this modifier share them
+	private void initializeCaches() {
+		this.paramTypeCache = new ConcurrentHashMap<>();
+		this.viewCache = newViewCache(MAX_CACHED_VIEWS);
+	}
+
+	private static <K, V> ConcurrentMap<K, V> newViewCache(int maximumSize) {
+		// a single segment, otherwise the size is split between the segments and views are evicted early
+		return CacheBuilder.newBuilder()
+				.concurrencyLevel(1)
+				.maximumSize(maximumSize)
+				.<K, V>build()
+				.asMap();
+	}
+
 	/**
 	 * Reads the value of a field given its index.
 	 * <p>
@@ -289,15 +335,49 @@ public class StructureModifier<T> {
 		return Optional.ofNullable(this.readSafely(fieldIndex));
 	}
 
-	@SuppressWarnings("unchecked")
+	/**
+	 * Reads the value of a field of the given target, regardless of the target of this modifier.
+	 * <p>
+	 * Together with {@link #view(Class, EquivalentConverter)}, this allows reading fields without creating a modifier
+	 * for every target.
+	 *
+	 * @param target     - the object to read from, must be an instance of the target type.
+	 * @param fieldIndex - index of the field.
+	 * @return Value of the field.
+	 * @throws FieldAccessException if the given field index is out of bounds.
+	 */
+	public T read(Object target, int fieldIndex) throws FieldAccessException {
+		return this.readInternal(target, this.accessorAt(fieldIndex));
+	}
+
+	/**
+	 * Reads the value of a field of the given target only if it exists, regardless of the target of this modifier.
+	 *
+	 * @param target     - the object to read from, must be an instance of the target type.
+	 * @param fieldIndex - index of the field.
+	 * @return Value of the field, or NULL if it doesn't exist.
+	 * @see #readSafely(int)
+	 */
+	public T readSafely(Object target, int fieldIndex) throws FieldAccessException {
+		if (fieldIndex < 0 || fieldIndex >= this.accessors.size()) {
+			return null;
+		}
+		return this.readInternal(target, this.accessors.get(fieldIndex));
+	}
+
 	private T readInternal(FieldAccessor accessor) {
+		return this.readInternal(this.getTarget(), accessor);
+	}
+
+	@SuppressWarnings("unchecked")
+	private T readInternal(Object target, FieldAccessor accessor) {
 		// just return null if the accessor is null
 		if (accessor == null) {
 			return null;
 		}
 
 		// get the field value and convert it if needed
-		Object fieldValue = accessor.get(this.target);
+		Object fieldValue = accessor.get(target);
 		return this.needConversion() ? this.converter.getSpecific(fieldValue) : (T) fieldValue;
 	}
 
@@ -348,7 +428,267 @@ public class StructureModifier<T> {
 		return this.write(fieldIndex, select.apply(value));
 	}
 
+	/**
+	 * Writes the value of a field of the given target, regardless of the target of this modifier.
+	 *
+	 * @param target     - the object to write to, must be an instance of the target type.
+	 * @param fieldIndex - index of the field.
+	 * @param value      - new value of the field.
+	 * @return This structure modifier - for chaining.
+	 * @throws FieldAccessException The field doesn't exist, or it cannot be accessed under the current security
+	 *                              contraints.
+	 */
+	public StructureModifier<T> write(Object target, int fieldIndex, T value) throws FieldAccessException {
+		return this.writeInternal(target, this.accessorAt(fieldIndex), value);
+	}
+
+	/**
+	 * Reads the value of an int field of the given target without boxing it.
+	 * <p>
+	 * Any converter of this modifier is ignored.
+	 *
+	 * @param target     - the object to read from, must be an instance of the target type.
+	 * @param fieldIndex - index of the field.
+	 * @return Value of the field.
+	 * @throws FieldAccessException if the given field index is out of bounds.
+	 */
+	public int readInt(Object target, int fieldIndex) throws FieldAccessException {
+		FieldAccessor accessor = this.accessorAt(fieldIndex);
+		if (accessor instanceof IntFieldAccessor) {
+			return ((IntFieldAccessor) accessor).getInt(target);
+		}
+		return (Integer) accessor.get(target);
+	}
+
+	/**
+	 * Writes the value of an int field of the given target without boxing it.
+	 * <p>
+	 * Any converter of this modifier is ignored.
+	 *
+	 * @param target     - the object to write to, must be an instance of the target type.
+	 * @param fieldIndex - index of the field.
+	 * @param value      - new value of the field.
+	 * @return This structure modifier - for chaining.
+	 * @throws FieldAccessException if the given field index is out of bounds.
+	 */
+	public StructureModifier<T> writeInt(Object target, int fieldIndex, int value) throws FieldAccessException {
+		FieldAccessor accessor = this.accessorAt(fieldIndex);
+		if (accessor instanceof IntFieldAccessor) {
+			((IntFieldAccessor) accessor).setInt(target, value);
+		} else {
+			accessor.set(target, value);
+		}
+		return this;
+	}
+
+	/**
+	 * Reads the value of a long field of the given target without boxing it.
+	 * <p>
+	 * Any converter of this modifier is ignored.
+	 *
+	 * @param target     - the object to read from, must be an instance of the target type.
+	 * @param fieldIndex - index of the field.
+	 * @return Value of the field.
+	 * @throws FieldAccessException if the given field index is out of bounds.
+	 */
+	public long readLong(Object target, int fieldIndex) throws FieldAccessException {
+		FieldAccessor accessor = this.accessorAt(fieldIndex);
+		if (accessor instanceof LongFieldAccessor) {
+			return ((LongFieldAccessor) accessor).getLong(target);
+		}
+		return (Long) accessor.get(target);
+	}
+
+	/**
+	 * Writes the value of a long field of the given target without boxing it.
+	 * <p>
+	 * Any converter of this modifier is ignored.
+	 *
+	 * @param target     - the object to write to, must be an instance of the target type.
+	 * @param fieldIndex - index of the field.
+	 * @param value      - new value of the field.
+	 * @return This structure modifier - for chaining.
+	 * @throws FieldAccessException if the given field index is out of bounds.
+	 */
+	public StructureModifier<T> writeLong(Object target, int fieldIndex, long value) throws FieldAccessException {
+		FieldAccessor accessor = this.accessorAt(fieldIndex);
+		if (accessor instanceof LongFieldAccessor) {
+			((LongFieldAccessor) accessor).setLong(target, value);
+		} else {
+			accessor.set(target, value);
+		}
+		return this;
+	}
+
+	/**
+	 * Reads the value of a short field of the given target without boxing it.
+	 * <p>
+	 * Any converter of this modifier is ignored.
+	 *
+	 * @param target     - the object to read from, must be an instance of the target type.
+	 * @param fieldIndex - index of the field.
+	 * @return Value of the field.
+	 * @throws FieldAccessException if the given field index is out of bounds.
+	 */
+	public short readShort(Object target, int fieldIndex) throws FieldAccessException {
+		FieldAccessor accessor = this.accessorAt(fieldIndex);
+		if (accessor instanceof ShortFieldAccessor) {
+			return ((ShortFieldAccessor) accessor).getShort(target);
+		}
+		return (Short) accessor.get(target);
+	}
+
+	/**
+	 * Writes the value of a short field of the given target without boxing it.
+	 * <p>
+	 * Any converter of this modifier is ignored.
+	 *
+	 * @param target     - the object to write to, must be an instance of the target type.
+	 * @param fieldIndex - index of the field.
+	 * @param value      - new value of the field.
+	 * @return This structure modifier - for chaining.
+	 * @throws FieldAccessException if the given field index is out of bounds.
+	 */
+	public StructureModifier<T> writeShort(Object target, int fieldIndex, short value) throws FieldAccessException {
+		FieldAccessor accessor = this.accessorAt(fieldIndex);
+		if (accessor instanceof ShortFieldAccessor) {
+			((ShortFieldAccessor) accessor).setShort(target, value);
+		} else {
+			accessor.set(target, value);
+		}
+		return this;
+	}
+
+	/**
+	 * Reads the value of a byte field of the given target without boxing it.
+	 * <p>
+	 * Any converter of this modifier is ignored.
+	 *
+	 * @param target     - the object to read from, must be an instance of the target type.
+	 * @param fieldIndex - index of the field.
+	 * @return Value of the field.
+	 * @throws FieldAccessException if the given field index is out of bounds.
+	 */
+	public byte readByte(Object target, int fieldIndex) throws FieldAccessException {
+		FieldAccessor accessor = this.accessorAt(fieldIndex);
+		if (accessor instanceof ByteFieldAccessor) {
+			return ((ByteFieldAccessor) accessor).getByte(target);
+		}
+		return (Byte) accessor.get(target);
+	}
+
+	/**
+	 * Writes the value of a byte field of the given target without boxing it.
+	 * <p>
+	 * Any converter of this modifier is ignored.
+	 *
+	 * @param target     - the object to write to, must be an instance of the target type.
+	 * @param fieldIndex - index of the field.
+	 * @param value      - new value of the field.
+	 * @return This structure modifier - for chaining.
+	 * @throws FieldAccessException if the given field index is out of bounds.
+	 */
+	public StructureModifier<T> writeByte(Object target, int fieldIndex, byte value) throws FieldAccessException {
+		FieldAccessor accessor = this.accessorAt(fieldIndex);
+		if (accessor instanceof ByteFieldAccessor) {
+			((ByteFieldAccessor) accessor).setByte(target, value);
+		} else {
+			accessor.set(target, value);
+		}
+		return this;
+	}
+
+	/**
+	 * Reads the value of a float field of the given target without boxing it.
+	 * <p>
+	 * Any converter of this modifier is ignored.
+	 *
+	 * @param target     - the object to read from, must be an instance of the target type.
+	 * @param fieldIndex - index of the field.
+	 * @return Value of the field.
+	 * @throws FieldAccessException if the given field index is out of bounds.
+	 */
+	public float readFloat(Object target, int fieldIndex) throws FieldAccessException {
+		FieldAccessor accessor = this.accessorAt(fieldIndex);
+		if (accessor instanceof FloatFieldAccessor) {
+			return ((FloatFieldAccessor) accessor).getFloat(target);
+		}
+		return (Float) accessor.get(target);
+	}
+
+	/**
+	 * Writes the value of a float field of the given target without boxing it.
+	 * <p>
+	 * Any converter of this modifier is ignored.
+	 *
+	 * @param target     - the object to write to, must be an instance of the target type.
+	 * @param fieldIndex - index of the field.
+	 * @param value      - new value of the field.
+	 * @return This structure modifier - for chaining.
+	 * @throws FieldAccessException if the given field index is out of bounds.
+	 */
+	public StructureModifier<T> writeFloat(Object target, int fieldIndex, float value) throws FieldAccessException {
+		FieldAccessor accessor = this.accessorAt(fieldIndex);
+		if (accessor instanceof FloatFieldAccessor) {
+			((FloatFieldAccessor) accessor).setFloat(target, value);
+		} else {
+			accessor.set(target, value);
+		}
+		return this;
+	}
+
+	/**
+	 * Reads the value of a double field of the given target without boxing it.
+	 * <p>
+	 * Any converter of this modifier is ignored.
+	 *
+	 * @param target     - the object to read from, must be an instance of the target type.
+	 * @param fieldIndex - index of the field.
+	 * @return Value of the field.
+	 * @throws FieldAccessException if the given field index is out of bounds.
+	 */
+	public double readDouble(Object target, int fieldIndex) throws FieldAccessException {
+		FieldAccessor accessor = this.accessorAt(fieldIndex);
+		if (accessor instanceof DoubleFieldAccessor) {
+			return ((DoubleFieldAccessor) accessor).getDouble(target);
+		}
+		return (Double) accessor.get(target);
+	}
+
+	/**
+	 * Writes the value of a double field of the given target without boxing it.
+	 * <p>
+	 * Any converter of this modifier is ignored.
+	 *
+	 * @param target     - the object to write to, must be an instance of the target type.
+	 * @param fieldIndex - index of the field.
+	 * @param value      - new value of the field.
+	 * @return This structure modifier - for chaining.
+	 * @throws FieldAccessException if the given field index is out of bounds.
+	 */
+	public StructureModifier<T> writeDouble(Object target, int fieldIndex, double value) throws FieldAccessException {
+		FieldAccessor accessor = this.accessorAt(fieldIndex);
+		if (accessor instanceof DoubleFieldAccessor) {
+			((DoubleFieldAccessor) accessor).setDouble(target, value);
+		} else {
+			accessor.set(target, value);
+		}
+		return this;
+	}
+
 	private StructureModifier<T> writeInternal(FieldAccessor accessor, T value) throws FieldAccessException {
+		// don't copy the target if there's nothing to write
+		if (accessor == null) {
+			return this;
+		}
+		return this.writeInternal(this.getWriteTarget(), accessor, value);
+	}
+
+	private Object getWriteTarget() {
+		return this.copyOnWriteTarget != null ? this.copyOnWriteTarget.getWriteTarget() : this.target;
+	}
+
+	private StructureModifier<T> writeInternal(Object target, FieldAccessor accessor, T value) throws FieldAccessException {
 		// just ignore if the accessor is not present
 		if (accessor == null) {
 			return this;
@@ -356,13 +696,23 @@ public class StructureModifier<T> {
 
 		// convert and write
 		Object fieldValue = this.needConversion() ? this.converter.getGeneric(value) : value;
-		accessor.set(this.target, fieldValue);
+		accessor.set(target, fieldValue);
 
 		return this;
 	}
 
+	private FieldAccessor accessorAt(int fieldIndex) {
+		if (fieldIndex < 0 || fieldIndex >= this.accessors.size()) {
+			throw FieldAccessException.fromFormat(
+					"Field index %d is out of bounds for length %s",
+					fieldIndex,
+					this.accessors.size());
+		}
+		return this.accessors.get(fieldIndex);
+	}
+
 	protected FieldAccessor findFieldAccessor(int fieldIndex) {
-		if (this.target == null) {
+		if (this.target == null && this.copyOnWriteTarget == null) {
 			throw new IllegalStateException("Cannot read from modifier which has no target!");
 		}
 
@@ -390,19 +740,21 @@ public class StructureModifier<T> {
 	 * @throws FieldAccessException If we're unable to write to the fields due to a security limitation.
 	 */
 	public StructureModifier<T> writeDefaults() throws FieldAccessException {
+		Object target = this.defaultFields.isEmpty() ? this.target : this.getWriteTarget();
+
 		// Write a default instance to every field
 		for (FieldAccessor accessor : this.defaultFields.keySet()) {
 			// Special case for Spigot's custom chat components
 			// They must be null or messages will be blank
 			Field field = accessor.getField();
 			if (field.getType().getCanonicalName().equals("net.md_5.bungee.api.chat.BaseComponent[]")) {
-				accessor.set(this.target, null);
+				accessor.set(target, null);
 				continue;
 			}
 
 			// get the default value and write the field
 			Object defaultValue = DEFAULT_GENERATOR.getDefault(field.getType());
-			accessor.set(this.target, defaultValue);
+			accessor.set(target, defaultValue);
 		}
 
 		return this;
@@ -432,7 +784,7 @@ public class StructureModifier<T> {
 	 * @return Object we're modifying.
 	 */
 	public Object getTarget() {
-		return this.target;
+		return this.copyOnWriteTarget != null ? this.copyOnWriteTarget.getReadTarget() : this.target;
 	}
 
 	/**
@@ -531,53 +883,126 @@ public class StructureModifier<T> {
 		}
 
 		// Do we need to update the cache?
-		StructureModifier<R> result = (StructureModifier<R>) this.subtypeCache.get(fieldType);
-		if (result == null) {
-			List<FieldAccessor> fields = new ArrayList<>();
-			Map<FieldAccessor, Integer> defaults = new HashMap<>();
-
-			// filter out all fields we don't need
-			for (int i = 0; i < this.accessors.size(); i++) {
-				FieldAccessor accessor = this.accessors.get(i);
-				Field field = accessor.getField();
-
-				// check if the field type matches
-				if (!fieldType.isAssignableFrom(field.getType())) {
-					continue;
-				}
+		StructureModifier<R> result;
+		if (paramTypes.length == 0) {
+			result = (StructureModifier<R>) this.subtypeCache.get(fieldType);
+			if (result == null) {
+				// Cache structure modifiers
+				result = this.filterFields(fieldType);
+				this.subtypeCache.putIfAbsent(fieldType, result);
+			}
+		} else {
+			// the type parameters are part of the key, otherwise List<A> and List<B> would share a modifier
+			List<Class<?>> key = new ArrayList<>(paramTypes.length + 1);
+			key.add(fieldType);
+			Collections.addAll(key, paramTypes);
+
+			if (this.paramTypeCache == null) {
+				// a subclass initialized its own fields without any caches
+				result = this.filterFields(fieldType, paramTypes);
+			} else if ((result = (StructureModifier<R>) this.paramTypeCache.get(key)) == null) {
+				result = (StructureModifier<R>) this.paramTypeCache.computeIfAbsent(key,
+						ignored -> this.filterFields(fieldType, paramTypes));
+			}
+		}
+
+		// Add the target too
+		result = result.withTargetOf(this);
+		result.converter = converter;
+
+		return result;
+	}
 
-				// check if we need to check for parameters
-				if (paramTypes.length > 0) {
-					// check if the field is parameterized
-					Type generic = field.getGenericType();
-					if (!(generic instanceof ParameterizedType)) {
-						continue;
-					}
-
-					// check if the type arguments of the field are matching
-					ParameterizedType parameterized = (ParameterizedType) generic;
-					if (!Arrays.equals(parameterized.getActualTypeArguments(), paramTypes)) {
-						continue;
-					}
+	/**
+	 * Retrieves a cached view of every field of the given type, which does not have a target.
+	 *
+	 * @param <R>       Type
+	 * @param fieldType - the type, or supertype, of every field to modify.
+	 * @return A view of the fields of this type.
+	 * @see #view(Class, EquivalentConverter)
+	 */
+	public <R> StructureModifier<R> view(Class<?> fieldType) {
+		return this.view(fieldType, null);
+	}
+
+	/**
+	 * Retrieves a cached view of every field of the given type, which does not have a target.
+	 * <p>
+	 * Unlike {@link #withType(Class, EquivalentConverter)}, this doesn't create a new modifier on every call. The view
+	 * is shared by every modifier of the same target type, so it must be used with the methods that take the target as
+	 * an argument, such as {@link #read(Object, int)} and {@link #write(Object, int, Object)}. Views are cached by the
+	 * identity of the converter, so the same converter instance should be passed on every call.
+	 *
+	 * @param <R>       Type
+	 * @param fieldType - the type, or supertype, of every field to modify.
+	 * @param converter - converts objects into the given type, or NULL.
+	 * @return A view of the fields of this type.
+	 */
+	@SuppressWarnings("unchecked")
+	public <R> StructureModifier<R> view(Class<?> fieldType, EquivalentConverter<R> converter) {
+		if (fieldType == null) {
+			// It's not supported in this version, so return an empty modifier
+			return (StructureModifier<R>) NO_OP_MODIFIER;
+		}
+
+		if (this.viewCache == null) {
+			// a subclass initialized its own fields without any caches, the filtered modifier is a new copy
+			StructureModifier<R> view = this.filterFields(fieldType);
+			view.setConverter(converter);
+			return view;
+		}
+
+		TypedViews views = this.viewCache.get(fieldType);
+		if (views == null) {
+			views = this.viewCache.computeIfAbsent(fieldType, type -> new TypedViews(this.filterFields(type)));
+		}
+		return (StructureModifier<R>) views.withConverter(converter);
+	}
+
+	/**
+	 * Create a new structure modifier, without a target, for every field matching the given type.
+	 *
+	 * @param fieldType  - the type, or supertype, of every field to include.
+	 * @param paramTypes - the type parameters every field must have, if any.
+	 * @return The new structure modifier.
+	 */
+	private <R> StructureModifier<R> filterFields(Class<?> fieldType, Class<?>... paramTypes) {
+		List<FieldAccessor> fields = new ArrayList<>();
+		Map<FieldAccessor, Integer> defaults = new HashMap<>();
+
+		// filter out all fields we don't need
+		for (int i = 0; i < this.accessors.size(); i++) {
+			FieldAccessor accessor = this.accessors.get(i);
+			Field field = accessor.getField();
+
+			// check if the field type matches
+			if (!fieldType.isAssignableFrom(field.getType())) {
+				continue;
+			}
+
+			// check if we need to check for parameters
+			if (paramTypes.length > 0) {
+				// check if the field is parameterized
+				Type generic = field.getGenericType();
+				if (!(generic instanceof ParameterizedType)) {
+					continue;
 				}
 
-				// this field should be included
-				fields.add(accessor);
-				if (this.defaultFields.containsKey(accessor)) {
-					defaults.put(accessor, i);
+				// check if the type arguments of the field are matching
+				ParameterizedType parameterized = (ParameterizedType) generic;
+				if (!Arrays.equals(parameterized.getActualTypeArguments(), paramTypes)) {
+					continue;
 				}
 			}
 
-			// Cache structure modifiers
-			result = this.withFieldType(fieldType, fields, defaults);
-			this.subtypeCache.put(fieldType, result);
+			// this field should be included
+			fields.add(accessor);
+			if (this.defaultFields.containsKey(accessor)) {
+				defaults.put(accessor, i);
+			}
 		}
 
-		// Add the target too
-		result = result.withTarget(this.target);
-		result.converter = converter;
-
-		return result;
+		return this.withFieldType(fieldType, fields, defaults);
 	}
 
 	/**
@@ -621,7 +1046,8 @@ public class StructureModifier<T> {
 				filtered,
 				defaults,
 				converter,
-				new HashMap<>());
+				new ConcurrentHashMap<>());
+		result.initializeCaches();
 		return result;
 	}
 
@@ -637,9 +1063,36 @@ public class StructureModifier<T> {
 		// Create a new instance
 		copy.initialize(this);
 		copy.target = target;
+		copy.copyOnWriteTarget = null;
 		return copy;
 	}
 
+	/**
+	 * Retrieves a structure modifier of the same type for an object that is only copied once it is written to.
+	 * <p>
+	 * Every read and write looks up the current object of the given target, including the reads and writes of every
+	 * modifier derived from the returned modifier.
+	 *
+	 * @param target - the target that copies the object on the first write.
+	 * @return Structure modifier with the new target.
+	 */
+	public StructureModifier<T> withCopyOnWriteTarget(CopyOnWriteTarget target) {
+		StructureModifier<T> copy = new StructureModifier<>();
+
+		// Create a new instance
+		copy.initialize(this);
+		copy.target = target.getReadTarget();
+		copy.copyOnWriteTarget = target;
+		return copy;
+	}
+
+	// Retrieves a copy of this modifier with the same target as the given modifier
+	private StructureModifier<T> withTargetOf(StructureModifier<?> other) {
+		return other.copyOnWriteTarget != null
+				? this.withCopyOnWriteTarget(other.copyOnWriteTarget)
+				: this.withTarget(other.target);
+	}
+
 	/**
 	 * Retrieves a structure modifier with the same type and target, but using a new object converter.
 	 *
@@ -648,7 +1101,7 @@ public class StructureModifier<T> {
 	 */
 	@SuppressWarnings("unchecked")
 	private <V> StructureModifier<V> withConverter(EquivalentConverter<V> converter) {
-		StructureModifier<V> copy = (StructureModifier<V>) this.withTarget(this.target);
+		StructureModifier<V> copy = (StructureModifier<V>) this.withTargetOf(this);
 		copy.setConverter(converter);
 		return copy;
 	}
@@ -666,4 +1119,36 @@ public class StructureModifier<T> {
 	public String toString() {
 		return "StructureModifier[fieldType=" + this.fieldType + ", data=" + this.accessors + "]";
 	}
+
+	/**
+	 * The cached views of the fields of a single type, one for every converter.
+	 */
+	private static final class TypedViews {
+
+		private final StructureModifier<?> unconverted;
+		private final ConcurrentMap<EquivalentConverter<?>, StructureModifier<?>> converted = newViewCache(MAX_CACHED_CONVERTERS);
+
+		TypedViews(StructureModifier<?> unconverted) {
+			this.unconverted = unconverted;
+		}
+
+		@SuppressWarnings({"unchecked", "rawtypes"})
+		StructureModifier<?> withConverter(EquivalentConverter<?> converter) {
+			if (converter == null) {
+				return this.unconverted;
+			}
+
+			StructureModifier<?> view = this.converted.get(converter);
+			if (view == null) {
+				view = this.converted.computeIfAbsent(converter, key -> {
+					// views are never modified after they're published, so every copy can share the accessors
+					StructureModifier copy = new StructureModifier<>();
+					copy.initialize(this.unconverted);
+					copy.setConverter(key);
+					return copy;
+				});
+			}
+			return view;
+		}
+	}
 }
@@ -6,7 +6,7 @@ import java.lang.reflect.Modifier;
 
 import com.google.common.base.Preconditions;
 
-final class DefaultFieldAccessor implements FieldAccessor {
+class DefaultFieldAccessor implements FieldAccessor {
 
 	private final Field field;
 	private final boolean staticField;
@@ -21,6 +21,10 @@ final class DefaultFieldAccessor implements FieldAccessor {
 		this.staticField = staticField;
 	}
 
+	DefaultFieldAccessor(DefaultFieldAccessor other) {
+		this(other.field, other.setter, other.getter, other.staticField);
+	}
+
 	@Override
 	public Object get(Object instance) {
 		try {
@@ -0,0 +1,24 @@
+package com.comphenix.protocol.reflect.accessors;
+
+/**
+ * Represents an accessor of a float field which reads and writes the value without boxing it.
+ */
+public interface FloatFieldAccessor extends FieldAccessor {
+
+	/**
+	 * Retrieve the value of the field for a particular instance.
+	 *
+	 * @param instance - the instance.
+	 * @return The value of the field.
+	 * @throws IllegalStateException If the current security context prohibits reflection.
+	 */
+	float getFloat(Object instance);
+
+	/**
+	 * Set the value of the field for a particular instance.
+	 *
+	 * @param instance - the instance.
+	 * @param value    - the new value of the field.
+	 */
+	void setFloat(Object instance, float value);
+}
@@ -96,15 +96,6 @@ final class MethodHandleHelper {
 				setter = LOOKUP.findSetter(field.getDeclaringClass(), field.getName(), field.getType());
 			}
 
-			// generify the method type so that we don't need to worry about it when using the handles
-			if (staticField) {
-				getter = getter.asType(STATIC_FIELD_GETTER);
-				setter = setter.asType(STATIC_FIELD_SETTER);
-			} else {
-				getter = getter.asType(VIRTUAL_FIELD_GETTER);
-				setter = setter.asType(VIRTUAL_FIELD_SETTER);
-			}
-
 			if (getter == null) {
 				throw new IllegalStateException("Unable to access field " + field + ". Could not find getter");
 			}
@@ -113,7 +104,28 @@ final class MethodHandleHelper {
 				throw new IllegalStateException("Unable to access field " + field + ". Could not find setter");
 			}
 
-			return new DefaultFieldAccessor(field, setter, getter, staticField);
+			// generify the method type so that we don't need to worry about it when using the handles
+			DefaultFieldAccessor accessor;
+			if (staticField) {
+				accessor = new DefaultFieldAccessor(
+						field,
+						setter.asType(STATIC_FIELD_SETTER),
+						getter.asType(STATIC_FIELD_GETTER),
+						true);
+			} else {
+				accessor = new DefaultFieldAccessor(
+						field,
+						setter.asType(VIRTUAL_FIELD_SETTER),
+						getter.asType(VIRTUAL_FIELD_GETTER),
+						false);
+
+				// primitive fields can additionally be accessed without boxing through handles of the exact type
+				if (field.getType().isPrimitive()) {
+					return PrimitiveFieldAccessors.create(field, getter, setter, accessor);
+				}
+			}
+
+			return accessor;
 		} catch (IllegalAccessException | NoSuchFieldException ex) {
 			// NoSuchFieldException can never happen, the field always exists
 			throw new IllegalStateException("Unable to access field " + field, ex);
@@ -0,0 +1,226 @@
+package com.comphenix.protocol.reflect.accessors;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+
+/**
+ * Field accessors of primitive instance fields, which invoke method handles of the exact field type in addition to the
+ * generic handles, so that reading and writing the field through the primitive methods doesn't box the value.
+ */
+final class PrimitiveFieldAccessors {
+
+	// sealed class
+	private PrimitiveFieldAccessors() {
+	}
+
+	/**
+	 * Create an accessor of the given instance field.
+	 *
+	 * @param field   - the field.
+	 * @param getter  - the getter, with the exact type of the field.
+	 * @param setter  - the setter, with the exact type of the field.
+	 * @param generic - the accessor using the generic handles.
+	 * @return The primitive accessor, or the generic accessor if the field type has no primitive accessor.
+	 */
+	static DefaultFieldAccessor create(Field field, MethodHandle getter, MethodHandle setter, DefaultFieldAccessor generic) {
+		Class<?> type = field.getType();
+		MethodHandle exactGetter = getter.asType(MethodType.methodType(type, Object.class));
+		MethodHandle exactSetter = setter.asType(MethodType.methodType(void.class, Object.class, type));
+
+		if (type == int.class) {
+			return new IntAccessor(generic, exactGetter, exactSetter);
+		} else if (type == long.class) {
+			return new LongAccessor(generic, exactGetter, exactSetter);
+		} else if (type == short.class) {
+			return new ShortAccessor(generic, exactGetter, exactSetter);
+		} else if (type == byte.class) {
+			return new ByteAccessor(generic, exactGetter, exactSetter);
+		} else if (type == float.class) {
+			return new FloatAccessor(generic, exactGetter, exactSetter);
+		} else if (type == double.class) {
+			return new DoubleAccessor(generic, exactGetter, exactSetter);
+		}
+		return generic;
+	}
+
+	static final class IntAccessor extends DefaultFieldAccessor implements IntFieldAccessor {
+
+		private final MethodHandle intGetter;
+		private final MethodHandle intSetter;
+
+		IntAccessor(DefaultFieldAccessor generic, MethodHandle getter, MethodHandle setter) {
+			super(generic);
+			this.intGetter = getter;
+			this.intSetter = setter;
+		}
+
+		@Override
+		public int getInt(Object instance) {
+			try {
+				return (int) this.intGetter.invokeExact(instance);
+			} catch (Throwable throwable) {
+				throw new IllegalStateException("Unable to read field value of " + this.getField(), throwable);
+			}
+		}
+
+		@Override
+		public void setInt(Object instance, int value) {
+			try {
+				this.intSetter.invokeExact(instance, value);
+			} catch (Throwable throwable) {
+				throw new IllegalStateException("Unable to set value of field " + this.getField(), throwable);
+			}
+		}
+	}
+
+	static final class LongAccessor extends DefaultFieldAccessor implements LongFieldAccessor {
+
+		private final MethodHandle longGetter;
+		private final MethodHandle longSetter;
+
+		LongAccessor(DefaultFieldAccessor generic, MethodHandle getter, MethodHandle setter) {
+			super(generic);
+			this.longGetter = getter;
+			this.longSetter = setter;
+		}
+
+		@Override
+		public long getLong(Object instance) {
+			try {
+				return (long) this.longGetter.invokeExact(instance);
+			} catch (Throwable throwable) {
+				throw new IllegalStateException("Unable to read field value of " + this.getField(), throwable);
+			}
+		}
+
+		@Override
+		public void setLong(Object instance, long value) {
+			try {
+				this.longSetter.invokeExact(instance, value);
+			} catch (Throwable throwable) {
+				throw new IllegalStateException("Unable to set value of field " + this.getField(), throwable);
+			}
+		}
+	}
+
+	static final class ShortAccessor extends DefaultFieldAccessor implements ShortFieldAccessor {
+
+		private final MethodHandle shortGetter;
+		private final MethodHandle shortSetter;
+
+		ShortAccessor(DefaultFieldAccessor generic, MethodHandle getter, MethodHandle setter) {
+			super(generic);
+			this.shortGetter = getter;
+			this.shortSetter = setter;
+		}
+
+		@Override
+		public short getShort(Object instance) {
+			try {
+				return (short) this.shortGetter.invokeExact(instance);
+			} catch (Throwable throwable) {
+				throw new IllegalStateException("Unable to read field value of " + this.getField(), throwable);
+			}
+		}
+
+		@Override
+		public void setShort(Object instance, short value) {
+			try {
+				this.shortSetter.invokeExact(instance, value);
+			} catch (Throwable throwable) {
+				throw new IllegalStateException("Unable to set value of field " + this.getField(), throwable);
+			}
+		}
+	}
+
+	static final class ByteAccessor extends DefaultFieldAccessor implements ByteFieldAccessor {
+
+		private final MethodHandle byteGetter;
+		private final MethodHandle byteSetter;
+
+		ByteAccessor(DefaultFieldAccessor generic, MethodHandle getter, MethodHandle setter) {
+			super(generic);
+			this.byteGetter = getter;
+			this.byteSetter = setter;
+		}
+
+		@Override
+		public byte getByte(Object instance) {
+			try {
+				return (byte) this.byteGetter.invokeExact(instance);
+			} catch (Throwable throwable) {
+				throw new IllegalStateException("Unable to read field value of " + this.getField(), throwable);
+			}
+		}
+
+		@Override
+		public void setByte(Object instance, byte value) {
+			try {
+				this.byteSetter.invokeExact(instance, value);
+			} catch (Throwable throwable) {
+				throw new IllegalStateException("Unable to set value of field " + this.getField(), throwable);
+			}
+		}
+	}
+
+	static final class FloatAccessor extends DefaultFieldAccessor implements FloatFieldAccessor {
+
+		private final MethodHandle floatGetter;
+		private final MethodHandle floatSetter;
+
+		FloatAccessor(DefaultFieldAccessor generic, MethodHandle getter, MethodHandle setter) {
+			super(generic);
+			this.floatGetter = getter;
+			this.floatSetter = setter;
+		}
+
+		@Override
+		public float getFloat(Object instance) {
+			try {
+				return (float) this.floatGetter.invokeExact(instance);
+			} catch (Throwable throwable) {
+				throw new IllegalStateException("Unable to read field value of " + this.getField(), throwable);
+			}
+		}
+
+		@Override
+		public void setFloat(Object instance, float value) {
+			try {
+				this.floatSetter.invokeExact(instance, value);
+			} catch (Throwable throwable) {
+				throw new IllegalStateException("Unable to set value of field " + this.getField(), throwable);
+			}
+		}
+	}
+
+	static final class DoubleAccessor extends DefaultFieldAccessor implements DoubleFieldAccessor {
+
+		private final MethodHandle doubleGetter;
+		private final MethodHandle doubleSetter;
+
+		DoubleAccessor(DefaultFieldAccessor generic, MethodHandle getter, MethodHandle setter) {
+			super(generic);
+			this.doubleGetter = getter;
+			this.doubleSetter = setter;
+		}
+
+		@Override
+		public double getDouble(Object instance) {
+			try {
+				return (double) this.doubleGetter.invokeExact(instance);
+			} catch (Throwable throwable) {
+				throw new IllegalStateException("Unable to read field value of " + this.getField(), throwable);
+			}
+		}
+
+		@Override
+		public void setDouble(Object instance, double value) {
+			try {
+				this.doubleSetter.invokeExact(instance, value);
+			} catch (Throwable throwable) {
+				throw new IllegalStateException("Unable to set value of field " + this.getField(), throwable);
+			}
+		}
+	}
+}
@@ -21,12 +21,16 @@ import com.comphenix.protocol.reflect.instances.DefaultInstances;
 import com.comphenix.protocol.reflect.instances.ExistingGenerator;
 import com.comphenix.protocol.reflect.instances.InstanceProvider;
 import com.google.common.base.Function;
+import com.google.common.collect.ImmutableSet;
 
 import java.lang.ref.WeakReference;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Implements a cloning procedure by trying multiple methods in turn until one is successful.
@@ -166,11 +170,18 @@ public class AggregateCloner implements Cloner {
 			andThen(FieldCloner.class).
 			build();
 
+	// Cloners that only look at the class of an object to determine if they can clone it
+	private static final Set<Class<?>> CLASS_BASED_CLONERS = ImmutableSet.of(
+			BukkitCloner.class, ImmutableDetector.class, JavaOptionalCloner.class, GuavaOptionalCloner.class,
+			CollectionCloner.class, FieldCloner.class, SerializableCloner.class, NullableCloner.class);
+
 	// List of clone methods
 	private List<Cloner> cloners;
 
-	private WeakReference<Object> lastObject;
-	private int lastResult;
+	// The index of the first cloner capable of cloning each class, or NULL if the cloners must be asked every time
+	private ConcurrentMap<Class<?>, Integer> clonerIndex;
+
+	private volatile LastResult lastResult;
 
 	/**
 	 * Begins constructing a new aggregate cloner.
@@ -201,14 +212,31 @@ public class AggregateCloner implements Cloner {
 	 */
 	private void setCloners(Collection<? extends Cloner> cloners) {
 		this.cloners = new ArrayList<>(cloners);
+		this.clonerIndex = this.cloners.stream().allMatch(AggregateCloner::isClassBased) ? new ConcurrentHashMap<>() : null;
+	}
+
+	/**
+	 * Determine if the given cloner only considers the class of an object in {@link Cloner#canClone(Object)}.
+	 * @param cloner - the cloner.
+	 * @return TRUE if it does, FALSE if it may consider the object itself.
+	 */
+	private static boolean isClassBased(Cloner cloner) {
+		try {
+			return CLASS_BASED_CLONERS.contains(cloner.getClass().getMethod("canClone", Object.class).getDeclaringClass());
+		} catch (NoSuchMethodException e) {
+			return false;
+		}
 	}
 
 	@Override
 	public boolean canClone(Object source) {
+		int index = getFirstCloner(source);
+
 		// Optimize a bit
-		lastResult = getFirstCloner(source);
-		lastObject = new WeakReference<>(source);
-		return lastResult >= 0 && lastResult < cloners.size();
+		if (clonerIndex == null) {
+			lastResult = new LastResult(source, index);
+		}
+		return index >= 0 && index < cloners.size();
 	}
 
 	/**
@@ -219,6 +247,20 @@ public class AggregateCloner implements Cloner {
 	 * @return The index of the cloner object.
 	 */
 	private int getFirstCloner(Object source) {
+		if (clonerIndex != null && source != null) {
+			Class<?> type = source.getClass();
+			Integer index = clonerIndex.get(type);
+
+			if (index == null) {
+				index = probeCloners(source);
+				clonerIndex.putIfAbsent(type, index);
+			}
+			return index;
+		}
+		return probeCloners(source);
+	}
+
+	private int probeCloners(Object source) {
 		for (int i = 0; i < cloners.size(); i++) {
 			if (cloners.get(i).canClone(source))
 				return i;
@@ -231,11 +273,12 @@ public class AggregateCloner implements Cloner {
 	public Object clone(Object source) {
 		if (source == null)
 			throw new IllegalAccessError("source cannot be NULL.");
-		int index = 0;
+		int index;
 
 		// Are we dealing with the same object?
-		if (lastObject != null && lastObject.get() == source) {
-			index = lastResult;
+		LastResult last = lastResult;
+		if (clonerIndex == null && last != null && last.object.get() == source) {
+			index = last.index;
 		} else {
 			index = getFirstCloner(source);
 		}
@@ -254,4 +297,17 @@ public class AggregateCloner implements Cloner {
 		// Damn - failure
 		throw new IllegalArgumentException("Cannot clone " + source + " ( " + source.getClass() + "): No cloner is suitable.");
 	}
+
+	/**
+	 * The cloner found by the last call to {@link #canClone(Object)}.
+	 */
+	private static final class LastResult {
+		private final WeakReference<Object> object;
+		private final int index;
+
+		LastResult(Object object, int index) {
+			this.object = new WeakReference<>(object);
+			this.index = index;
+		}
+	}
 }
@@ -19,8 +19,14 @@ package com.comphenix.protocol.reflect.cloning;
 
 import com.comphenix.protocol.reflect.ObjectWriter;
 import com.comphenix.protocol.reflect.StructureModifier;
+import com.comphenix.protocol.reflect.accessors.FieldAccessor;
 import com.comphenix.protocol.reflect.instances.InstanceProvider;
 import com.comphenix.protocol.reflect.instances.NotConstructableException;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Represents a class capable of cloning objects by deeply copying its fields.
@@ -33,6 +39,13 @@ public class FieldCloner implements Cloner {
 	
 	// Used to clone objects
 	protected ObjectWriter writer;
+
+	// The writer created by this class, which is replaced by the clone plans below
+	private final ObjectWriter planWriter;
+
+	// Whether or not every class can be constructed, and how to clone it
+	private final ConcurrentMap<Class<?>, Boolean> constructable = new ConcurrentHashMap<>();
+	private final ConcurrentMap<Class<?>, ClonePlan> plans = new ConcurrentHashMap<>();
 	
 	/**
 	 * Constructs a field cloner that copies objects by reading and writing the internal fields directly.
@@ -48,9 +61,10 @@ public class FieldCloner implements Cloner {
 			@Override
 			protected void transformField(StructureModifier<Object> modifierSource,
 					StructureModifier<Object> modifierDest, int fieldIndex) {
-				defaultTransform(modifierDest, modifierDest, getDefaultCloner(), fieldIndex);
+				defaultTransform(modifierSource, modifierDest, getDefaultCloner(), fieldIndex);
 			}
 		};
+		this.planWriter = this.writer;
 	}
 
 	/**
@@ -72,14 +86,35 @@ public class FieldCloner implements Cloner {
 		if (source == null)
 			return false;
 		
+		// Only attempt to create each type once
+		Class<?> type = source.getClass();
+		Boolean result = constructable.get(type);
+		if (result == null) {
+			result = constructable.computeIfAbsent(type, this::canConstruct);
+		}
+		return result;
+	}
+
+	private boolean canConstruct(Class<?> type) {
 		// Attempt to create the type
 		try {
-			return instanceProvider.create(source.getClass()) != null;
+			return instanceProvider.create(type) != null;
 		} catch (NotConstructableException e) {
 			return false;
 		}
 	}
 
+	/**
+	 * Determine if the value of the given field should be cloned, or if it may be copied as it is.
+	 * <p>
+	 * This is only consulted once for every field of every class, as long as the writer hasn't been replaced.
+	 * @param field - the field.
+	 * @return TRUE if the value should be cloned, FALSE otherwise.
+	 */
+	protected boolean isCloned(Field field) {
+		return true;
+	}
+
 	@Override
 	public Object clone(Object source) {
 		if (source == null)
@@ -88,9 +123,38 @@ public class FieldCloner implements Cloner {
 		Object copy = instanceProvider.create(source.getClass());
 		
 		// Copy public and private fields alike. Skip static fields.
-		writer.copyTo(source, copy, source.getClass());
+		if (writer == planWriter) {
+			getPlan(source.getClass()).apply(source, copy, defaultCloner);
+		} else {
+			writer.copyTo(source, copy, source.getClass());
+		}
 		return copy;
 	}
+
+	private ClonePlan getPlan(Class<?> type) {
+		ClonePlan plan = plans.get(type);
+		if (plan == null) {
+			plan = plans.computeIfAbsent(type, this::createPlan);
+		}
+		return plan;
+	}
+
+	private ClonePlan createPlan(Class<?> type) {
+		List<FieldAccessor> copied = new ArrayList<>();
+		List<FieldAccessor> cloned = new ArrayList<>();
+
+		for (FieldAccessor accessor : writer.getCopiedFields(type)) {
+			Field field = accessor.getField();
+
+			// every value of these fields is immutable, so cloning them would return the same value
+			if (!isCloned(field) || ImmutableDetector.isImmutableField(field.getType())) {
+				copied.add(accessor);
+			} else {
+				cloned.add(accessor);
+			}
+		}
+		return new ClonePlan(copied, cloned);
+	}
 	
 	/**
 	 * Retrieve the default cloner used to clone the content of each field.
@@ -107,4 +171,30 @@ public class FieldCloner implements Cloner {
 	public InstanceProvider getInstanceProvider() {
 		return instanceProvider;
 	}
+
+	/**
+	 * The fields of a class that are copied as they are, and the fields that are cloned.
+	 */
+	private static final class ClonePlan {
+		private final FieldAccessor[] copied;
+		private final FieldAccessor[] cloned;
+
+		ClonePlan(List<FieldAccessor> copied, List<FieldAccessor> cloned) {
+			this.copied = copied.toArray(new FieldAccessor[0]);
+			this.cloned = cloned.toArray(new FieldAccessor[0]);
+		}
+
+		void apply(Object source, Object copy, Cloner cloner) {
+			try {
+				for (FieldAccessor accessor : copied) {
+					ObjectWriter.copyField(accessor, source, copy);
+				}
+				for (FieldAccessor accessor : cloned) {
+					accessor.set(copy, cloner.clone(accessor.get(source)));
+				}
+			} catch (Exception e) {
+				throw new RuntimeException("Unable to copy fields from " + source.getClass().getName(), e);
+			}
+		}
+	}
 }
@@ -17,6 +17,7 @@
 
 package com.comphenix.protocol.reflect.cloning;
 
+import java.lang.reflect.Modifier;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.net.Inet4Address;
@@ -157,6 +158,23 @@ public class ImmutableDetector implements Cloner {
 		return false;
 	}
 	
+	/**
+	 * Determine if every value of a field of the given type is probably immutable, including subclasses of the type.
+	 * @param type - the declared type of the field.
+	 * @return TRUE if every value is immutable, FALSE otherwise.
+	 */
+	public static boolean isImmutableField(Class<?> type) {
+		if (type.isPrimitive()) {
+			return true;
+		}
+		if (!isImmutable(type)) {
+			return false;
+		}
+
+		// Enums and Minecraft classes are matched including their subclasses, the other classes aren't
+		return Modifier.isFinal(type.getModifiers()) || isEnumWorkaround(type) || !immutableClasses.contains(type);
+	}
+
 	// This is just great. Just great.
 	private static boolean isEnumWorkaround(Class<?> enumClass) {
 		while (enumClass != null) {
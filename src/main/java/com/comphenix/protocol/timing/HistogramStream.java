@@ -1,125 +1,235 @@
 package com.comphenix.protocol.timing;
 
-import java.util.ArrayList;
-import java.util.List;
-
-import com.google.common.base.Preconditions;
-import com.google.common.collect.ImmutableList;
+import java.util.Arrays;
 
 /**
- * Represents an online algortihm of computing histograms over time.
+ * Represents an online algortihm of computing a histogram of observed values, such as execution times in nanoseconds.
+ * <p>
+ * Values are counted in buckets with a logarithmic width. Every power of two is split into {@link #SUB_BUCKET_COUNT}
+ * linear buckets, so a percentile is accurate to within about three percent regardless of its magnitude. Negative
+ * values are counted as zero, and values above {@link #MAX_VALUE} are counted as the maximum value.
+ * <p>
+ * This class is not thread safe. Use {@link TimedTracker} to record values from multiple threads.
+ *
  * @author Kristian
  */
 public class HistogramStream extends OnlineComputation {
+
 	/**
-	 * Each bin in the histogram, indexed by time.
+	 * The number of bits used to address a bucket within a power of two.
 	 */
-	protected List<StatisticsStream> bins;
-	
+	static final int SUB_BUCKET_BITS = 5;
+
 	/**
-	 * The current statistics stream we are updating.
+	 * The number of linear buckets every power of two is split into.
 	 */
-	protected StatisticsStream current;
+	static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
 
 	/**
-	 * The maximum number of observations in each bin.
+	 * The largest value that can be distinguished from larger values, a little more than two minutes in nanoseconds.
 	 */
-	protected int binWidth;
-	
+	public static final long MAX_VALUE = (1L << 37) - 1;
+
 	/**
-	 * The number of total observations.
+	 * The total number of buckets.
 	 */
-	protected int count;
-	
+	static final int BUCKET_COUNT = indexOf(MAX_VALUE) + 1;
+
+	private final long[] buckets;
+	private long count;
+
+	// the moments of every observation, used to compute the mean and standard deviation
+	private double sum;
+	private double sumOfSquares;
+	private double minimum = Double.MAX_VALUE;
+	private double maximum;
+
 	/**
-	 * Construct a new histogram stream which splits up every observation in different bins, ordered by time. 
-	 * @param binWidth - maximum number of observations in each bin.
+	 * Construct a new histogram stream with no observations.
 	 */
-	public HistogramStream(int binWidth) {
-		this(new ArrayList<StatisticsStream>(), new StatisticsStream(), binWidth);
+	public HistogramStream() {
+		this.buckets = new long[BUCKET_COUNT];
 	}
-	
+
 	/**
 	 * Construct a new copy of the given histogram.
+	 *
 	 * @param other - the histogram to copy.
 	 */
 	public HistogramStream(HistogramStream other) {
-		// Deep cloning
-		for (StatisticsStream stream : other.bins) {
-			StatisticsStream copy = stream.copy();
-			
-			// Update current
-			if (stream == other.current)
-				this.current = copy;
-			this.bins.add(copy);
-		}
-		this.binWidth = other.binWidth;
+		this.buckets = other.buckets.clone();
+		this.count = other.count;
+		this.sum = other.sum;
+		this.sumOfSquares = other.sumOfSquares;
+		this.minimum = other.minimum;
+		this.maximum = other.maximum;
 	}
-	
+
+	/**
+	 * Retrieve the index of the bucket that counts the given value.
+	 *
+	 * @param value - the value, which is clamped to the range of the histogram.
+	 * @return The bucket index.
+	 */
+	static int indexOf(long value) {
+		long clamped = Math.max(0, Math.min(MAX_VALUE, value));
+
+		// values below twice the sub bucket count are counted exactly, every further power of two is shifted
+		int shift = Math.max(0, 63 - Long.numberOfLeadingZeros(clamped) - SUB_BUCKET_BITS);
+		return (shift << SUB_BUCKET_BITS) + (int) (clamped >>> shift);
+	}
+
 	/**
-	 * Construct a new histogram stream.
-	 * @param bins - list of bins.
-	 * @param current - the current selected bin. This will be added to the list if it is not already present.
-	 * @param binWidth - the desired number of observations in each bin.
+	 * Retrieve the smallest value counted by the given bucket.
+	 *
+	 * @param index - the bucket index.
+	 * @return The smallest value.
 	 */
-	protected HistogramStream(List<StatisticsStream> bins, StatisticsStream current, int binWidth) {
-		if (binWidth < 1)
-			throw new IllegalArgumentException("binWidth cannot be less than 1");
-		this.bins =  Preconditions.checkNotNull(bins, "bins cannot be NULL");
-		this.current = Preconditions.checkNotNull(current, "current cannot be NULL");
-		this.binWidth = binWidth;
-		
-		if (!this.bins.contains(current)) {
-			this.bins.add(current);
+	static long lowestValue(int index) {
+		if (index < 2 * SUB_BUCKET_COUNT) {
+			return index;
 		}
+
+		int shift = (index >>> SUB_BUCKET_BITS) - 1;
+		return (long) (index - (shift << SUB_BUCKET_BITS)) << shift;
 	}
-	
+
+	/**
+	 * Retrieve the largest value counted by the given bucket.
+	 *
+	 * @param index - the bucket index.
+	 * @return The largest value.
+	 */
+	static long highestValue(int index) {
+		return lowestValue(index + 1) - 1;
+	}
+
 	@Override
 	public HistogramStream copy() {
 		return new HistogramStream(this);
 	}
-	
+
+	@Override
+	public void observe(double value) {
+		this.buckets[indexOf((long) value)]++;
+		this.addMoments(1, value, value * value, value, value);
+	}
+
 	/**
-	 * Retrieve an immutable view of every bin in the histogram.
-	 * @return Every bin in the histogram.
+	 * Add every observation of the given histogram to this histogram.
+	 *
+	 * @param other - the other histogram.
 	 */
-	public ImmutableList<StatisticsStream> getBins() {
-		return ImmutableList.copyOf(bins);
+	public void merge(HistogramStream other) {
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			this.buckets[i] += other.buckets[i];
+		}
+		this.addMoments(other.count, other.sum, other.sumOfSquares, other.minimum, other.maximum);
 	}
-	
-	@Override
-	public void observe(double value) {
-		checkOverflow();
-		count++;
-		current.observe(value);
+
+	/**
+	 * Add the given number of observations to a bucket, without updating the moments.
+	 *
+	 * @param index - the bucket index.
+	 * @param observations - the number of observations.
+	 */
+	void addToBucket(int index, long observations) {
+		this.buckets[index] += observations;
 	}
-	
+
 	/**
-	 * See if the current bin has overflowed. If so, construct a new bin and set it as the current.
+	 * Add the moments of the given observations, without updating the buckets.
+	 *
+	 * @param observations - the number of observations.
+	 * @param sum - the sum of the observations.
+	 * @param sumOfSquares - the sum of the squared observations.
+	 * @param minimum - the smallest observation.
+	 * @param maximum - the largest observation.
 	 */
-	protected void checkOverflow() {
-		if (current.getCount() >= binWidth) {
-			bins.add(current = new StatisticsStream());
+	void addMoments(long observations, double sum, double sumOfSquares, double minimum, double maximum) {
+		if (observations > 0) {
+			this.count += observations;
+			this.sum += sum;
+			this.sumOfSquares += sumOfSquares;
+			this.minimum = Math.min(this.minimum, minimum);
+			this.maximum = Math.max(this.maximum, maximum);
 		}
 	}
-	
+
 	/**
-	 * Retrieve the total statistics of every bin in the histogram.
+	 * Retrieve the value below which the given percentage of the observations fall.
 	 * <p>
-	 * This method is not thread safe.
-	 * @return The total statistics.
+	 * The value is the midpoint of the bucket the percentile falls in, but never outside the observed extremes.
+	 *
+	 * @param percentile - the percentile, between 0 and 100.
+	 * @return The value at the given percentile.
 	 */
-	public StatisticsStream getTotal() {
-		StatisticsStream sum = null;
-		
-		for (StatisticsStream stream : bins) {
-			sum = sum != null ? stream.add(sum) : stream;
+	public double getPercentile(double percentile) {
+		this.checkCount();
+		if (percentile < 0 || percentile > 100) {
+			throw new IllegalArgumentException("percentile must be between 0 and 100, got " + percentile);
+		}
+
+		// the rank of the observation we're looking for, starting at one
+		long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * this.count));
+		if (rank >= this.count) {
+			return this.maximum;
 		}
-		return sum;
+
+		long seen = 0;
+
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			seen += this.buckets[i];
+			if (seen >= rank) {
+				double midpoint = (lowestValue(i) + highestValue(i)) / 2.0;
+				return Math.max(this.minimum, Math.min(this.maximum, midpoint));
+			}
+		}
+		return this.maximum;
 	}
-		
+
+	/**
+	 * Retrieve the mean, standard deviation and extremes of every observation.
+	 *
+	 * @return The statistics.
+	 */
+	public StatisticsStream getStatistics() {
+		if (this.count == 0) {
+			return new StatisticsStream();
+		}
+
+		double mean = this.sum / this.count;
+		double m2 = Math.max(0, this.sumOfSquares - this.sum * mean);
+		return new StatisticsStream(this.getCount(), mean, m2, this.minimum, this.maximum);
+	}
+
+	/**
+	 * Retrieve the number of observations in every bucket, indexed by bucket.
+	 *
+	 * @return Copy of every bucket.
+	 */
+	public long[] getBuckets() {
+		return Arrays.copyOf(this.buckets, this.buckets.length);
+	}
+
 	@Override
 	public int getCount() {
-		return count;
+		return (int) Math.min(Integer.MAX_VALUE, this.count);
+	}
+
+	private void checkCount() {
+		if (this.count == 0) {
+			throw new IllegalStateException("No observations in stream.");
+		}
+	}
+
+	@Override
+	public String toString() {
+		if (this.count == 0) {
+			return "HistogramStream [Nothing recorded]";
+		}
+
+		return String.format("HistogramStream [P50: %.3f, P99: %.3f, P99.9: %.3f, Count: %s]",
+				this.getPercentile(50), this.getPercentile(99), this.getPercentile(99.9), this.getCount());
 	}
 }
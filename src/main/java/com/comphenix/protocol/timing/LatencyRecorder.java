@@ -0,0 +1,95 @@
+package com.comphenix.protocol.timing;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Records observations into a histogram, written by a single thread and read by any thread.
+ * <p>
+ * The owning thread publishes every update with an ordered store instead of a lock or a compare and set, which is
+ * about as cheap as a plain store. Buckets are allocated in segments of one power of two at a time, as observed
+ * latencies usually span only a few of them. A reader may see an observation in the buckets before it is included in
+ * the moments, but never a torn value.
+ */
+final class LatencyRecorder {
+
+	private static final int SEGMENT_COUNT = (HistogramStream.BUCKET_COUNT + HistogramStream.SUB_BUCKET_COUNT - 1)
+			>>> HistogramStream.SUB_BUCKET_BITS;
+	private static final int SEGMENT_MASK = HistogramStream.SUB_BUCKET_COUNT - 1;
+
+	// indices into the moments array
+	private static final int COUNT = 0;
+	private static final int SUM = 1;
+	private static final int SUM_OF_SQUARES = 2;
+	private static final int MINIMUM = 3;
+	private static final int MAXIMUM = 4;
+
+	private final AtomicReferenceArray<AtomicLongArray> segments = new AtomicReferenceArray<>(SEGMENT_COUNT);
+	private final AtomicLongArray moments = new AtomicLongArray(5);
+
+	LatencyRecorder() {
+		this.moments.set(MINIMUM, Long.MAX_VALUE);
+	}
+
+	/**
+	 * Record the given value. Must only be called by the owning thread.
+	 *
+	 * @param value - the value.
+	 */
+	void record(long value) {
+		int index = HistogramStream.indexOf(value);
+		int segmentIndex = index >>> HistogramStream.SUB_BUCKET_BITS;
+
+		AtomicLongArray segment = this.segments.get(segmentIndex);
+		if (segment == null) {
+			segment = new AtomicLongArray(HistogramStream.SUB_BUCKET_COUNT);
+			this.segments.set(segmentIndex, segment);
+		}
+
+		// we are the only writer, so a read followed by an ordered write is sufficient
+		int offset = index & SEGMENT_MASK;
+		segment.lazySet(offset, segment.get(offset) + 1);
+
+		double sum = Double.longBitsToDouble(this.moments.get(SUM)) + value;
+		double sumOfSquares = Double.longBitsToDouble(this.moments.get(SUM_OF_SQUARES)) + (double) value * value;
+
+		this.moments.lazySet(SUM, Double.doubleToRawLongBits(sum));
+		this.moments.lazySet(SUM_OF_SQUARES, Double.doubleToRawLongBits(sumOfSquares));
+		if (value < this.moments.get(MINIMUM)) {
+			this.moments.lazySet(MINIMUM, value);
+		}
+		if (value > this.moments.get(MAXIMUM)) {
+			this.moments.lazySet(MAXIMUM, value);
+		}
+		this.moments.lazySet(COUNT, this.moments.get(COUNT) + 1);
+	}
+
+	/**
+	 * Add every observation recorded so far to the given histogram.
+	 *
+	 * @param histogram - the histogram.
+	 */
+	void addTo(HistogramStream histogram) {
+		for (int segmentIndex = 0; segmentIndex < SEGMENT_COUNT; segmentIndex++) {
+			AtomicLongArray segment = this.segments.get(segmentIndex);
+			if (segment == null) {
+				continue;
+			}
+
+			int first = segmentIndex << HistogramStream.SUB_BUCKET_BITS;
+			for (int offset = 0; offset < HistogramStream.SUB_BUCKET_COUNT && first + offset < HistogramStream.BUCKET_COUNT; offset++) {
+				long observations = segment.get(offset);
+				if (observations > 0) {
+					histogram.addToBucket(first + offset, observations);
+				}
+			}
+		}
+
+		histogram.addMoments(
+				this.moments.get(COUNT),
+				Double.longBitsToDouble(this.moments.get(SUM)),
+				Double.longBitsToDouble(this.moments.get(SUM_OF_SQUARES)),
+				this.moments.get(MINIMUM),
+				this.moments.get(MAXIMUM));
+	}
+}
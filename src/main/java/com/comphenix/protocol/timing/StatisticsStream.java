@@ -37,6 +37,23 @@ public class StatisticsStream extends OnlineComputation {
 		this.maximum = other.maximum;
 	}
 
+	/**
+	 * Construct a stream from the given moments.
+	 *
+	 * @param count   - the number of observations.
+	 * @param mean    - the mean of the observations.
+	 * @param m2      - the sum of the squared differences from the mean.
+	 * @param minimum - the smallest observation.
+	 * @param maximum - the largest observation.
+	 */
+	StatisticsStream(int count, double mean, double m2, double minimum, double maximum) {
+		this.count = count;
+		this.mean = mean;
+		this.m2 = m2;
+		this.minimum = minimum;
+		this.maximum = maximum;
+	}
+
 	@Override
 	public StatisticsStream copy() {
 		return new StatisticsStream(this);
@@ -10,7 +10,6 @@ import java.util.concurrent.atomic.AtomicBoolean;
 import org.bukkit.plugin.Plugin;
 
 import com.comphenix.protocol.events.PacketListener;
-import com.google.common.collect.ImmutableMap;
 
 /**
  * Represents a system for recording the time spent by each packet listener.
@@ -32,8 +31,8 @@ public class TimedListenerManager {
 	private volatile Date started;
 	private volatile Date stopped;
 	
-	// The map of time trackers
-	private final ConcurrentMap<String, ImmutableMap<ListenerType, TimedTracker>> map = new ConcurrentHashMap<>();
+	// The map of time trackers, indexed by the ordinal of the listener type
+	private final ConcurrentMap<String, TimedTracker[]> map = new ConcurrentHashMap<>();
 
 	/**
 	 * Retrieve the shared listener manager.
@@ -144,20 +143,20 @@ public class TimedListenerManager {
 	 * @return The timed tracker.
 	 */
 	public TimedTracker getTracker(String pluginName, ListenerType type) {
-		return getTrackers(pluginName).get(type);
+		return getTrackers(pluginName)[type.ordinal()];
 	}
 	
 	/**
-	 * Retrieve the map of timed trackers for a specific plugin.
+	 * Retrieve the timed trackers for a specific plugin.
 	 * @param pluginName - the plugin name.
-	 * @return Map of timed trackers.
+	 * @return Timed trackers, indexed by the ordinal of the listener type.
 	 */
-	private ImmutableMap<ListenerType, TimedTracker> getTrackers(String pluginName) {
-		ImmutableMap<ListenerType, TimedTracker> trackers = map.get(pluginName);
+	private TimedTracker[] getTrackers(String pluginName) {
+		TimedTracker[] trackers = map.get(pluginName);
 		
 		// Atomic pattern
 		if (trackers == null) {
-			ImmutableMap<ListenerType, TimedTracker> created = newTrackerMap();
+			TimedTracker[] created = newTrackers();
 			trackers = map.putIfAbsent(pluginName, created);
 			
 			// Success!
@@ -169,16 +168,16 @@ public class TimedListenerManager {
 	}
 	
 	/**
-	 * Retrieve a new map of trackers for an unspecified plugin.
-	 * @return A map of listeners and timed trackers.
+	 * Retrieve new trackers for an unspecified plugin.
+	 * @return The timed trackers, indexed by the ordinal of the listener type.
 	 */
-	private ImmutableMap<ListenerType, TimedTracker> newTrackerMap() {
-		ImmutableMap.Builder<ListenerType, TimedTracker> builder = ImmutableMap.builder();
+	private TimedTracker[] newTrackers() {
+		TimedTracker[] trackers = new TimedTracker[ListenerType.values().length];
 		
-		// Construct a map with every listener type
-		for (ListenerType type : ListenerType.values()) {
-			builder.put(type, new TimedTracker());
+		// Construct a tracker for every listener type
+		for (int i = 0; i < trackers.length; i++) {
+			trackers[i] = new TimedTracker();
 		}
-		return builder.build();
+		return trackers;
 	}
 }
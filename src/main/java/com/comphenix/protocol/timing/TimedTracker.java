@@ -1,21 +1,42 @@
 package com.comphenix.protocol.timing;
 
 import com.comphenix.protocol.PacketType;
+import java.lang.ref.WeakReference;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Tracks the invocation time for a particular plugin against a list of packets.
+ * <p>
+ * Every thread records into its own histograms without acquiring a lock, the histograms of all threads are merged
+ * when the statistics are retrieved. The histograms of threads that have terminated are folded into a shared set of
+ * histograms, so short-lived threads don't keep their histograms alive.
  *
  * @author Kristian
  */
 public class TimedTracker {
 
-	// Table of packets and invocations
-	private final AtomicInteger observations = new AtomicInteger();
-	private final Map<PacketType, StatisticsStream> packets = new HashMap<>();
+	// The recorders of every live thread that has recorded an observation
+	private final Queue<ThreadRecorders> threadRecorders = new ConcurrentLinkedQueue<>();
+	private final ThreadLocal<Map<PacketType, LatencyRecorder>> localRecorders = ThreadLocal.withInitial(() -> {
+		this.retireTerminatedThreads();
+
+		// Only the owning thread adds recorders, but any thread may read them
+		ThreadRecorders recorders = new ThreadRecorders(Thread.currentThread());
+		this.threadRecorders.add(recorders);
+		return recorders.recorders;
+	});
+
+	// The observations of every terminated thread, indexed by packet type. Also guards retiring threads
+	private final Map<PacketType, HistogramStream> retired = new HashMap<>();
+
+	private final LongAdder observations = new LongAdder();
 
 	/**
 	 * Begin tracking an execution time.
@@ -32,16 +53,18 @@ public class TimedTracker {
 	 * @param trackingToken - the tracking token.
 	 * @param type          - the packet type.
 	 */
-	public synchronized void endTracking(long trackingToken, PacketType type) {
-		StatisticsStream stream = this.packets.get(type);
+	public void endTracking(long trackingToken, PacketType type) {
+		long elapsed = System.nanoTime() - trackingToken;
+		Map<PacketType, LatencyRecorder> recorders = this.localRecorders.get();
+		LatencyRecorder recorder = recorders.get(type);
 
-		// Lazily create a stream
-		if (stream == null) {
-			this.packets.put(type, stream = new StatisticsStream());
+		// Lazily create a recorder
+		if (recorder == null) {
+			recorders.put(type, recorder = new LatencyRecorder());
 		}
 		// Store this observation
-		stream.observe(System.nanoTime() - trackingToken);
-		this.observations.incrementAndGet();
+		recorder.record(elapsed);
+		this.observations.increment();
 	}
 
 	/**
@@ -50,7 +73,53 @@ public class TimedTracker {
 	 * @return Total number of observations.
 	 */
 	public int getObservations() {
-		return this.observations.get();
+		return (int) Math.min(Integer.MAX_VALUE, this.observations.sum());
+	}
+
+	/**
+	 * Retrieve a map (indexed by packet type) of the histograms of every thread, merged into one per packet type.
+	 *
+	 * @return The map of histograms.
+	 */
+	public Map<PacketType, HistogramStream> getHistograms() {
+		final Map<PacketType, HistogramStream> merged = new HashMap<>();
+
+		// a thread must not be retired while its recorders are merged, or it would be missed
+		synchronized (this.retired) {
+			this.retireTerminatedThreads();
+			for (Entry<PacketType, HistogramStream> entry : this.retired.entrySet()) {
+				merged.put(entry.getKey(), entry.getValue().copy());
+			}
+
+			for (ThreadRecorders recorders : this.threadRecorders) {
+				addTo(merged, recorders.recorders);
+			}
+		}
+		return merged;
+	}
+
+	private static void addTo(Map<PacketType, HistogramStream> histograms, Map<PacketType, LatencyRecorder> recorders) {
+		for (Entry<PacketType, LatencyRecorder> entry : recorders.entrySet()) {
+			entry.getValue().addTo(histograms.computeIfAbsent(entry.getKey(), type -> new HistogramStream()));
+		}
+	}
+
+	/**
+	 * Fold the recorders of every terminated thread into the retired histograms.
+	 */
+	private void retireTerminatedThreads() {
+		synchronized (this.retired) {
+			Iterator<ThreadRecorders> iterator = this.threadRecorders.iterator();
+			while (iterator.hasNext()) {
+				ThreadRecorders recorders = iterator.next();
+
+				// a terminated thread never records again, and its last observations are visible once it's dead
+				if (recorders.isTerminated()) {
+					iterator.remove();
+					addTo(this.retired, recorders.recorders);
+				}
+			}
+		}
 	}
 
 	/**
@@ -58,15 +127,30 @@ public class TimedTracker {
 	 *
 	 * @return The map of statistics.
 	 */
-	public synchronized Map<PacketType, StatisticsStream> getStatistics() {
-		final Map<PacketType, StatisticsStream> clone = new HashMap<>();
-
-		for (Entry<PacketType, StatisticsStream> entry : this.packets.entrySet()) {
-			clone.put(
-					entry.getKey(),
-					new StatisticsStream(entry.getValue())
-			);
+	public Map<PacketType, StatisticsStream> getStatistics() {
+		final Map<PacketType, StatisticsStream> statistics = new HashMap<>();
+
+		for (Entry<PacketType, HistogramStream> entry : this.getHistograms().entrySet()) {
+			statistics.put(entry.getKey(), entry.getValue().getStatistics());
+		}
+		return statistics;
+	}
+
+	/**
+	 * The recorders of a single thread, indexed by packet type.
+	 */
+	private static final class ThreadRecorders {
+
+		private final WeakReference<Thread> owner;
+		private final Map<PacketType, LatencyRecorder> recorders = new ConcurrentHashMap<>();
+
+		ThreadRecorders(Thread owner) {
+			this.owner = new WeakReference<>(owner);
+		}
+
+		boolean isTerminated() {
+			Thread thread = this.owner.get();
+			return thread == null || !thread.isAlive();
 		}
-		return clone;
 	}
 }
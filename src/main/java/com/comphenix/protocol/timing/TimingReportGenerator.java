@@ -20,11 +20,12 @@ public class TimingReportGenerator {
 	private static final String META_STOPPED = "Stopped: %s (after %s seconds)" + NEWLINE;
 	private static final String PLUGIN_HEADER = "=== PLUGIN %s ===" + NEWLINE;
 	private static final String LISTENER_HEADER = " TYPE: %s " + NEWLINE;
-	private static final String SEPERATION_LINE = " " + Strings.repeat("-", 139) + NEWLINE;
+	private static final String SEPERATION_LINE = " " + Strings.repeat("-", 187) + NEWLINE;
 	private static final String STATISTICS_HEADER =
 		" Protocol:      Name:                         ID:                 Count:       Min (ms):       " +
-		"Max (ms):       Mean (ms):      Std (ms): " + NEWLINE;
-	private static final String STATISTICS_ROW =    " %-15s %-29s %-19s %-12d %-15.6f %-15.6f %-15.6f %.6f " + NEWLINE;
+		"Max (ms):       Mean (ms):      Std (ms):       P50 (ms):       P99 (ms):       P99.9 (ms): " + NEWLINE;
+	private static final String STATISTICS_ROW =
+		" %-15s %-29s %-19s %-12d %-15.6f %-15.6f %-15.6f %-15.6f %-15.6f %-15.6f %.6f " + NEWLINE;
 	private static final String SUM_MAIN_THREAD = " => Time on main thread: %.6f ms" + NEWLINE;
 
 	public void saveTo(File destination, TimedListenerManager manager) throws IOException {
@@ -60,8 +61,8 @@ public class TimingReportGenerator {
 	}
 
 	private void saveStatistics(Writer destination, TimedTracker tracker, ListenerType type) throws IOException {
-		Map<PacketType, StatisticsStream> streams = tracker.getStatistics();
-		StatisticsStream sum = new StatisticsStream();
+		Map<PacketType, HistogramStream> streams = tracker.getHistograms();
+		HistogramStream sum = new HistogramStream();
 		int count = 0;
 
 		destination.write(STATISTICS_HEADER);
@@ -69,14 +70,14 @@ public class TimingReportGenerator {
 
 		// Write every packet ID that we care about
 		for (PacketType key : new TreeSet<>(streams.keySet())) {
-			final StatisticsStream stream = streams.get(key);
+			final HistogramStream stream = streams.get(key);
 
 			if (stream != null && stream.getCount() > 0) {
 				printStatistic(destination, key, stream);
 
 				// Add it
 				count++;
-				sum = sum.add(stream);
+				sum.merge(stream);
 			}
 		}
 
@@ -85,14 +86,17 @@ public class TimingReportGenerator {
 			printStatistic(destination, null, sum);
 		}
 		// These are executed on the main thread
-		if (type == ListenerType.SYNC_SERVER_SIDE) {
+		if (type == ListenerType.SYNC_SERVER_SIDE && sum.getCount() > 0) {
+			StatisticsStream total = sum.getStatistics();
 			destination.write(String.format(SUM_MAIN_THREAD,
-				toMilli(sum.getCount() * sum.getMean())
+				toMilli(total.getCount() * total.getMean())
 			));
 		}
 	}
 
-	private void printStatistic(Writer destination, PacketType key, final StatisticsStream stream) throws IOException {
+	private void printStatistic(Writer destination, PacketType key, final HistogramStream histogram) throws IOException {
+		final StatisticsStream stream = histogram.getStatistics();
+
 		destination.write(String.format(STATISTICS_ROW,
 			key != null ? key.getProtocol() : "SUM",
 			key != null ? key.name() : "-",
@@ -101,7 +105,10 @@ public class TimingReportGenerator {
 			toMilli(stream.getMinimum()),
 			toMilli(stream.getMaximum()),
 			toMilli(stream.getMean()),
-			toMilli(stream.getStandardDeviation())
+			toMilli(stream.getCount() > 1 ? stream.getStandardDeviation() : 0),
+			toMilli(histogram.getPercentile(50)),
+			toMilli(histogram.getPercentile(99)),
+			toMilli(histogram.getPercentile(99.9))
 		));
 	}
 
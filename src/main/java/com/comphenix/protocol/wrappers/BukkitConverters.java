@@ -81,6 +81,7 @@ import org.jetbrains.annotations.NotNull;
 
 import static com.comphenix.protocol.utility.MinecraftReflection.getCraftBukkitClass;
 import static com.comphenix.protocol.utility.MinecraftReflection.getMinecraftClass;
+import static com.comphenix.protocol.wrappers.Converters.cached;
 import static com.comphenix.protocol.wrappers.Converters.handle;
 import static com.comphenix.protocol.wrappers.Converters.ignoreNull;
 
@@ -856,8 +857,17 @@ public class BukkitConverters {
 
 	private static MethodAccessor getEntityTypeName;
 	private static MethodAccessor entityTypeFromName;
+	private static EquivalentConverter<EntityType> entityTypeConverter;
 
 	public static EquivalentConverter<EntityType> getEntityTypeConverter() {
+		// entity types are interned on both sides, so every caller shares the same cache
+		if (entityTypeConverter == null) {
+			entityTypeConverter = cached(createEntityTypeConverter());
+		}
+		return entityTypeConverter;
+	}
+
+	private static EquivalentConverter<EntityType> createEntityTypeConverter() {
 		return ignoreNull(new EquivalentConverter<EntityType>() {
 			@Override
 			public Object getGeneric(EntityType specific) {
@@ -943,12 +953,20 @@ public class BukkitConverters {
 
 	private static MethodAccessor BLOCK_FROM_MATERIAL;
 	private static MethodAccessor MATERIAL_FROM_BLOCK;
+	private static EquivalentConverter<Material> blockConverter;
 
 	/**
 	 * Retrieve a converter for block instances.
 	 * @return A converter for block instances.
 	 */
 	public static EquivalentConverter<Material> getBlockConverter() {
+		if (blockConverter == null) {
+			blockConverter = cached(createBlockConverter());
+		}
+		return blockConverter;
+	}
+
+	private static EquivalentConverter<Material> createBlockConverter() {
 		if (BLOCK_FROM_MATERIAL == null || MATERIAL_FROM_BLOCK == null) {
 			Class<?> magicNumbers = MinecraftReflection.getCraftBukkitClass("util.CraftMagicNumbers");
 			Class<?> block = MinecraftReflection.getBlockClass();
@@ -1120,8 +1138,16 @@ public class BukkitConverters {
 	static MethodAccessor getSoundByEffect = null;
 
 	static Map<String, Sound> soundIndex = null;
+	private static EquivalentConverter<Sound> soundConverter;
 
 	public static EquivalentConverter<Sound> getSoundConverter() {
+		if (soundConverter == null) {
+			soundConverter = cached(createSoundConverter());
+		}
+		return soundConverter;
+	}
+
+	private static EquivalentConverter<Sound> createSoundConverter() {
 		// Try to create sound converter for new versions greater 1.16.4
 		if (MinecraftVersion.NETHER_UPDATE_4.atOrAbove()) {
 			if (getSoundEffectByKey == null || getSoundEffectBySound == null || getSoundByEffect == null) {
@@ -1350,8 +1376,16 @@ public class BukkitConverters {
 
 	private static MethodAccessor getMobEffectId = null;
 	private static MethodAccessor getMobEffect = null;
+	private static EquivalentConverter<PotionEffectType> effectTypeConverter;
 
 	public static EquivalentConverter<PotionEffectType> getEffectTypeConverter() {
+		if (effectTypeConverter == null) {
+			effectTypeConverter = cached(createEffectTypeConverter());
+		}
+		return effectTypeConverter;
+	}
+
+	private static EquivalentConverter<PotionEffectType> createEffectTypeConverter() {
 		return ignoreNull(new EquivalentConverter<PotionEffectType>() {
 
 			@Override
@@ -20,6 +20,8 @@ import com.comphenix.protocol.reflect.accessors.Accessors;
 import com.comphenix.protocol.reflect.accessors.MethodAccessor;
 import com.comphenix.protocol.reflect.fuzzy.FuzzyMethodContract;
 import com.comphenix.protocol.utility.MinecraftReflection;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 
 import java.lang.reflect.Array;
 import java.lang.reflect.Modifier;
@@ -62,6 +64,78 @@ public class Converters {
 		};
 	}
 
+	/**
+	 * The default number of values each direction of a {@link #cached(EquivalentConverter) cached} converter keeps.
+	 */
+	public static final int DEFAULT_CACHE_SIZE = 1024;
+
+	/**
+	 * Returns a converter that remembers the result of the underlying converter for the most recently converted values.
+	 * @param converter Underlying converter
+	 * @param <T> Element type
+	 * @return A caching converter
+	 * @see #cached(EquivalentConverter, int)
+	 */
+	public static <T> EquivalentConverter<T> cached(final EquivalentConverter<T> converter) {
+		return cached(converter, DEFAULT_CACHE_SIZE);
+	}
+
+	/**
+	 * Returns a converter that remembers the result of the underlying converter for the most recently converted values.
+	 * <p>
+	 * Values are looked up by identity, and the same result is returned every time a value is converted. This is only
+	 * safe for converters whose generic values are interned or immutable, like block states or entity types, and whose
+	 * specific values are immutable, like enums. NULL values and results are never cached.
+	 * @param converter Underlying converter
+	 * @param maximumSize The maximum number of values to keep in each direction
+	 * @param <T> Element type
+	 * @return A caching converter
+	 */
+	public static <T> EquivalentConverter<T> cached(final EquivalentConverter<T> converter, final int maximumSize) {
+		// weak keys are compared by identity, and don't keep unloaded values alive
+		final Cache<Object, T> specificCache = CacheBuilder.newBuilder().weakKeys().maximumSize(maximumSize).build();
+		final Cache<T, Object> genericCache = CacheBuilder.newBuilder().weakKeys().maximumSize(maximumSize).build();
+
+		return new EquivalentConverter<T>() {
+			@Override
+			public T getSpecific(Object generic) {
+				if (generic == null) {
+					return converter.getSpecific(null);
+				}
+
+				T specific = specificCache.getIfPresent(generic);
+				if (specific == null) {
+					specific = converter.getSpecific(generic);
+					if (specific != null) {
+						specificCache.put(generic, specific);
+					}
+				}
+				return specific;
+			}
+
+			@Override
+			public Object getGeneric(T specific) {
+				if (specific == null) {
+					return converter.getGeneric(null);
+				}
+
+				Object generic = genericCache.getIfPresent(specific);
+				if (generic == null) {
+					generic = converter.getGeneric(specific);
+					if (generic != null) {
+						genericCache.put(specific, generic);
+					}
+				}
+				return generic;
+			}
+
+			@Override
+			public Class<T> getSpecificType() {
+				return converter.getSpecificType();
+			}
+		};
+	}
+
 	/**
 	 * Returns a converter that passes generic and specific values through without converting.
 	 * @param clazz Element class
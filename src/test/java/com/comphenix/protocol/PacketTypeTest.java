@@ -16,6 +16,7 @@ package com.comphenix.protocol;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import com.comphenix.protocol.PacketType.Protocol;
@@ -277,6 +278,25 @@ public class PacketTypeTest {
 				PacketType.findCurrent(Protocol.PLAY, Sender.CLIENT, "SteerVehicle"));
 	}
 
+	@Test
+	public void testPacketTypeIds() {
+		Set<Integer> ids = new HashSet<>();
+		for (PacketType type : PacketRegistry.getServerPacketTypes()) {
+			int id = PacketRegistry.getPacketTypeId(type);
+
+			assertTrue(ids.add(id), "Duplicate id for " + type);
+			assertEquals(type, PacketRegistry.getPacketTypeById(id));
+			assertEquals(id, PacketRegistry.getPacketTypeId(type.getPacketClass()));
+		}
+
+		// the ids are dense
+		for (int id : ids) {
+			assertTrue(id < PacketRegistry.getPacketTypeCount());
+		}
+		assertSame(PacketType.Login.Client.START, PacketRegistry.getPacketType(PacketLoginInStart.class));
+		assertEquals(-1, PacketRegistry.getPacketTypeId(String.class));
+	}
+
 	@Test
 	public void testLoginStart() {
 		// This packet is critical for handleLoin
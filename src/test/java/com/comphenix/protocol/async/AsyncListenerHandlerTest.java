@@ -0,0 +1,205 @@
+package com.comphenix.protocol.async;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.comphenix.protocol.events.ListeningWhitelist;
+import com.comphenix.protocol.events.PacketEvent;
+import com.comphenix.protocol.events.PacketListener;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitScheduler;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class AsyncListenerHandlerTest {
+
+	private AsyncWorkerPool pool;
+	private AsyncFilterManager filterManager;
+
+	@BeforeEach
+	public void setUp() {
+		this.pool = new AsyncWorkerPool(2);
+		this.filterManager = mock(AsyncFilterManager.class);
+		when(this.filterManager.getScheduler()).thenReturn(mock(BukkitScheduler.class));
+		when(this.filterManager.getWorkerPool()).thenReturn(this.pool);
+	}
+
+	@AfterEach
+	public void tearDown() {
+		this.pool.shutdown();
+	}
+
+	private static PacketListener createListener(CountDownLatch processed) {
+		PacketListener listener = mock(PacketListener.class);
+		when(listener.getPlugin()).thenReturn(mock(Plugin.class));
+		when(listener.getReceivingWhitelist()).thenReturn(ListeningWhitelist.EMPTY_WHITELIST);
+		doAnswer(invocation -> {
+			processed.countDown();
+			return null;
+		}).when(listener).onPacketReceiving(any());
+		return listener;
+	}
+
+	private static PacketEvent createPacket() {
+		AsyncMarker marker = mock(AsyncMarker.class);
+		when(marker.getProcessingLock()).thenReturn(new Object());
+		when(marker.getListenerTraversal()).thenReturn(Collections.emptyIterator());
+
+		PacketEvent packet = mock(PacketEvent.class);
+		when(packet.getAsyncMarker()).thenReturn(marker);
+		return packet;
+	}
+
+	@Test
+	public void testPooledWorkers() throws InterruptedException {
+		CountDownLatch processed = new CountDownLatch(200);
+		AsyncListenerHandler handler = new AsyncListenerHandler(Thread.currentThread(), this.filterManager,
+				createListener(processed));
+
+		// packets queued before the workers are started must be processed too
+		for (int i = 0; i < 100; i++) {
+			handler.enqueuePacket(createPacket());
+		}
+		handler.start(2);
+		for (int i = 0; i < 100; i++) {
+			handler.enqueuePacket(createPacket());
+		}
+
+		assertTrue(processed.await(10, TimeUnit.SECONDS));
+		assertEquals(2, handler.getWorkers());
+
+		handler.setWorkers(1);
+		assertEquals(1, handler.getWorkers());
+		handler.cancel();
+		assertEquals(0, handler.getWorkers());
+	}
+
+	@Test
+	public void testBlockingListener() throws InterruptedException {
+		CountDownLatch release = new CountDownLatch(1);
+		CountDownLatch blocked = new CountDownLatch(2);
+
+		// occupies every thread of the pool until it's released
+		PacketListener blocking = createListener(new CountDownLatch(0));
+		doAnswer(invocation -> {
+			blocked.countDown();
+			release.await();
+			return null;
+		}).when(blocking).onPacketReceiving(any());
+
+		AsyncListenerHandler blockingHandler = new AsyncListenerHandler(Thread.currentThread(), this.filterManager, blocking);
+		blockingHandler.start(2);
+		blockingHandler.enqueuePacket(createPacket());
+		blockingHandler.enqueuePacket(createPacket());
+		assertTrue(blocked.await(10, TimeUnit.SECONDS));
+
+		// the pool must start another thread for the other listener
+		CountDownLatch processed = new CountDownLatch(10);
+		AsyncListenerHandler handler = new AsyncListenerHandler(Thread.currentThread(), this.filterManager,
+				createListener(processed));
+		handler.start();
+		for (int i = 0; i < 10; i++) {
+			handler.enqueuePacket(createPacket());
+		}
+
+		try {
+			assertTrue(processed.await(10, TimeUnit.SECONDS));
+		} finally {
+			release.countDown();
+			blockingHandler.cancel();
+			handler.cancel();
+		}
+	}
+
+	@Test
+	public void testListenerLoop() throws InterruptedException {
+		CountDownLatch processed = new CountDownLatch(50);
+		AsyncListenerHandler handler = new AsyncListenerHandler(Thread.currentThread(), this.filterManager,
+				createListener(processed));
+
+		AsyncRunnable loop = handler.getListenerLoop();
+		Thread thread = new Thread(loop);
+		thread.start();
+
+		for (int i = 0; i < 50; i++) {
+			handler.enqueuePacket(createPacket());
+		}
+		assertTrue(processed.await(10, TimeUnit.SECONDS));
+
+		// the loop is waiting for the next packet, and must wake up to stop
+		assertTrue(loop.stop());
+		thread.join(TimeUnit.SECONDS.toMillis(10));
+		assertFalse(thread.isAlive());
+		assertEquals(0, handler.getWorkers());
+	}
+
+	@Test
+	public void testVirtualWorkers() throws InterruptedException {
+		CountDownLatch processed = new CountDownLatch(100);
+		AsyncListenerHandler handler = new AsyncListenerHandler(Thread.currentThread(), this.filterManager,
+				createListener(processed));
+
+		if (!AsyncListenerHandler.isVirtualThreadSupported()) {
+			assertThrows(IllegalStateException.class, handler::startVirtual);
+			assertEquals(0, handler.getWorkers());
+			return;
+		}
+
+		handler.startVirtual();
+		for (int i = 0; i < 100; i++) {
+			handler.enqueuePacket(createPacket());
+		}
+
+		assertTrue(processed.await(10, TimeUnit.SECONDS));
+		assertEquals(1, handler.getWorkers());
+		handler.cancel();
+		assertEquals(0, handler.getWorkers());
+	}
+
+	@Test
+	public void testVirtualWorkerLimits() throws InterruptedException {
+		if (!AsyncListenerHandler.isVirtualThreadSupported()) {
+			return;
+		}
+
+		CountDownLatch processed = new CountDownLatch(20);
+		AtomicInteger running = new AtomicInteger();
+		AtomicBoolean violated = new AtomicBoolean();
+
+		PacketListener listener = createListener(processed);
+		doAnswer(invocation -> {
+			PacketEvent packet = invocation.getArgument(0);
+
+			// a single worker runs the listener serially, and always holds the processing lock
+			if (running.incrementAndGet() > 1 || !Thread.holdsLock(packet.getAsyncMarker().getProcessingLock())) {
+				violated.set(true);
+			}
+			Thread.sleep(1);
+			running.decrementAndGet();
+			processed.countDown();
+			return null;
+		}).when(listener).onPacketReceiving(any());
+
+		AsyncListenerHandler handler = new AsyncListenerHandler(Thread.currentThread(), this.filterManager, listener);
+		handler.startVirtual();
+		for (int i = 0; i < 20; i++) {
+			handler.enqueuePacket(createPacket());
+		}
+
+		assertTrue(processed.await(10, TimeUnit.SECONDS));
+		assertFalse(violated.get());
+		handler.cancel();
+	}
+}
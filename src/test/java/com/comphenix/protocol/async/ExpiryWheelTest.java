@@ -0,0 +1,60 @@
+package com.comphenix.protocol.async;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class ExpiryWheelTest {
+
+	@Test
+	public void testAdvance() {
+		ExpiryWheel<String> wheel = new ExpiryWheel<>(50, 8, 1000);
+		List<String> expired = new ArrayList<>();
+
+		wheel.schedule("soon", 1120);
+		wheel.schedule("later", 1400);
+		// more than one rotation ahead
+		wheel.schedule("next rotation", 1000 + 50 * 8 + 120);
+		// already due
+		wheel.schedule("due", 900);
+
+		wheel.advance(1060, expired::add);
+		assertEquals(Arrays.asList("due"), expired);
+
+		wheel.advance(1160, expired::add);
+		assertEquals(Arrays.asList("due", "soon"), expired);
+
+		wheel.advance(1450, expired::add);
+		assertEquals(Arrays.asList("due", "soon", "later"), expired);
+		assertEquals(1, wheel.size());
+
+		wheel.advance(1560, expired::add);
+		assertEquals("next rotation", expired.get(3));
+		assertEquals(0, wheel.size());
+	}
+
+	@Test
+	public void testLongPause() {
+		ExpiryWheel<Integer> wheel = new ExpiryWheel<>(50, 8, 0);
+		for (int i = 0; i < 100; i++) {
+			wheel.schedule(i, i * 10L);
+		}
+
+		List<Integer> expired = new ArrayList<>();
+		wheel.advance(100_000, expired::add);
+		assertEquals(100, expired.size());
+		assertEquals(0, wheel.size());
+
+		// elements that are due within the current slot are reported by the next slot
+		expired.clear();
+		wheel.schedule(1, 100_020);
+		wheel.advance(100_040, expired::add);
+		assertTrue(expired.isEmpty());
+		wheel.advance(100_050, expired::add);
+		assertEquals(Arrays.asList(1), expired);
+	}
+}
@@ -0,0 +1,77 @@
+package com.comphenix.protocol.async;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.comphenix.protocol.PacketStream;
+import com.comphenix.protocol.events.PacketEvent;
+import java.util.ArrayList;
+import java.util.List;
+import org.bukkit.entity.Player;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+
+public class PacketSendingQueueTest {
+
+	private static PacketEvent createPacket(PacketStream stream, Player player, long sendingIndex) {
+		AsyncMarker marker = new AsyncMarker(stream, sendingIndex, System.currentTimeMillis(),
+				AsyncMarker.DEFAULT_TIMEOUT_DELTA);
+		marker.setQueuedSendingIndex(sendingIndex);
+
+		PacketEvent packet = mock(PacketEvent.class);
+		when(packet.getAsyncMarker()).thenReturn(marker);
+		when(packet.getPlayer()).thenReturn(player);
+		when(packet.isServerPacket()).thenReturn(true);
+		return packet;
+	}
+
+	@Test
+	public void testSendOnCompletion() {
+		PacketStream stream = mock(PacketStream.class);
+		// a player for each packet, to tell them apart
+		Player firstPlayer = mock(Player.class);
+		Player secondPlayer = mock(Player.class);
+		when(firstPlayer.isOnline()).thenReturn(true);
+		when(secondPlayer.isOnline()).thenReturn(true);
+
+		List<Long> scheduledTimeouts = new ArrayList<>();
+		PacketSendingQueue queue = new PacketSendingQueue(false) {
+			@Override
+			protected void onPacketTimeout(PacketEvent event) {
+			}
+
+			@Override
+			protected void onTimeoutScheduled(long timeout) {
+				scheduledTimeouts.add(timeout);
+			}
+
+			@Override
+			protected void onMainThreadRequired() {
+			}
+		};
+
+		PacketEvent first = createPacket(stream, firstPlayer, 1);
+		PacketEvent second = createPacket(stream, secondPlayer, 2);
+		queue.enqueue(first);
+		queue.enqueue(second);
+
+		// the second packet must wait for the first
+		queue.signalPacketUpdate(second, false);
+		verify(stream, never()).sendServerPacket(any(), any(), any(), eq(false));
+		assertEquals(1, scheduledTimeouts.size());
+		assertEquals(first.getAsyncMarker().getTimeout(), (long) scheduledTimeouts.get(0));
+
+		// both are sent as soon as the first has been processed
+		queue.signalPacketUpdate(first, false);
+		InOrder order = inOrder(stream);
+		order.verify(stream).sendServerPacket(firstPlayer, null, null, false);
+		order.verify(stream).sendServerPacket(secondPlayer, null, null, false);
+		assertEquals(0, queue.size());
+	}
+}
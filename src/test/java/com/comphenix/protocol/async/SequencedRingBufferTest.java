@@ -0,0 +1,86 @@
+package com.comphenix.protocol.async;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+public class SequencedRingBufferTest {
+
+	@Test
+	public void testOrdering() {
+		SequencedRingBuffer<String> buffer = new SequencedRingBuffer<>(2);
+		buffer.add("b", 2);
+		buffer.add("d", 4);
+		buffer.add("a", 1);
+		buffer.add("c", 3);
+		buffer.add("c2", 3);
+		buffer.add("e", 5);
+
+		assertEquals(6, buffer.size());
+		assertEquals(1, buffer.peekSequence());
+		assertEquals("a", buffer.peek());
+
+		List<String> polled = new ArrayList<>();
+		while (!buffer.isEmpty()) {
+			polled.add(buffer.poll());
+		}
+		assertEquals(Arrays.asList("a", "b", "c", "c2", "d", "e"), polled);
+		assertNull(buffer.poll());
+	}
+
+	@Test
+	public void testAddFirst() {
+		SequencedRingBuffer<String> buffer = new SequencedRingBuffer<>(2);
+		buffer.add("a", 1);
+		buffer.add("a2", 1);
+		buffer.add("b", 2);
+
+		// a polled element goes back in front of the elements with the same sequence number
+		long sequence = buffer.peekSequence();
+		String head = buffer.poll();
+		buffer.addFirst(head, sequence);
+		assertEquals("a", buffer.peek());
+
+		buffer.addFirst("first", 0);
+		buffer.addFirst("late", 2);
+
+		List<String> polled = new ArrayList<>();
+		while (!buffer.isEmpty()) {
+			polled.add(buffer.poll());
+		}
+		assertEquals(Arrays.asList("first", "a", "a2", "b", "late"), polled);
+	}
+
+	@Test
+	public void testWrapAround() {
+		SequencedRingBuffer<Long> buffer = new SequencedRingBuffer<>(8);
+		Random random = new Random(1);
+		long next = 0;
+
+		// keep the buffer partially filled, so the head wraps around many times
+		for (int round = 0; round < 1000; round++) {
+			for (int i = 0; i < 5; i++) {
+				buffer.add(next, next++);
+			}
+
+			// an out of order packet, such as one with a changed sending index
+			long late = next - 1 - random.nextInt(3);
+			buffer.add(late, late);
+
+			long previous = Long.MIN_VALUE;
+			for (int i = 0; i < 6; i++) {
+				long value = buffer.poll();
+				assertTrue(value >= previous);
+				previous = value;
+			}
+		}
+
+		assertTrue(buffer.isEmpty());
+	}
+}
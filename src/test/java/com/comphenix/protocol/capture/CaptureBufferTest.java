@@ -0,0 +1,135 @@
+package com.comphenix.protocol.capture;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.comphenix.protocol.PacketType.Protocol;
+import com.comphenix.protocol.PacketType.Sender;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class CaptureBufferTest {
+
+	private static final byte[] PLAYER = "Notch".getBytes(StandardCharsets.UTF_8);
+
+	private static byte[] frame(int packetId, int length) {
+		byte[] frame = new byte[length];
+		frame[0] = (byte) packetId;
+		for (int i = 1; i < length; i++) {
+			frame[i] = (byte) (packetId + i);
+		}
+		return frame;
+	}
+
+	@Test
+	public void testRoundTrip() throws IOException {
+		CaptureBuffer buffer = new CaptureBuffer(1024);
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		DataOutputStream data = new DataOutputStream(output);
+		data.writeInt(CaptureReader.MAGIC);
+		data.writeShort(CaptureReader.VERSION);
+		data.writeInt(42);
+
+		// enough records to wrap around the buffer several times
+		byte[] target = new byte[CaptureBuffer.MAX_RECORD_LENGTH];
+		for (int i = 0; i < 100; i++) {
+			ByteBuf frame = Unpooled.wrappedBuffer(frame(i, 10 + i));
+			assertTrue(buffer.offer(i, (byte) Sender.SERVER.ordinal(), (byte) Protocol.PLAY.ordinal(), i, PLAYER, frame));
+			// the frame is only copied
+			assertEquals(10 + i, frame.readableBytes());
+
+			if (i % 3 == 2) {
+				data.write(target, 0, buffer.drainTo(target));
+			}
+		}
+		data.write(target, 0, buffer.drainTo(target));
+		assertEquals(0, buffer.getPendingBytes());
+		assertEquals(100, buffer.getCapturedRecords());
+
+		try (CaptureReader reader = new CaptureReader(new ByteArrayInputStream(output.toByteArray()))) {
+			assertEquals(42, reader.getProtocolVersion());
+
+			for (int i = 0; i < 100; i++) {
+				CaptureReader.Record record = reader.next();
+				assertEquals(i, record.getTimestamp());
+				assertEquals(Sender.SERVER, record.getSender());
+				assertEquals(Protocol.PLAY, record.getProtocol());
+				assertEquals(i, record.getPacketId());
+				assertEquals("Notch", record.getPlayer());
+				assertArrayEquals(frame(i, 10 + i), record.getFrame());
+			}
+			assertNull(reader.next());
+		}
+	}
+
+	@Test
+	public void testDropWhenFull() {
+		CaptureBuffer buffer = new CaptureBuffer(1024);
+		ByteBuf frame = Unpooled.wrappedBuffer(frame(1, 400));
+
+		assertTrue(buffer.offer(0, (byte) 0, (byte) 0, 1, PLAYER, frame));
+		assertTrue(buffer.offer(0, (byte) 0, (byte) 0, 1, PLAYER, frame));
+		assertFalse(buffer.offer(0, (byte) 0, (byte) 0, 1, PLAYER, frame));
+		assertEquals(2, buffer.getCapturedRecords());
+		assertEquals(1, buffer.getDroppedRecords());
+
+		// only whole records are drained
+		byte[] target = new byte[CaptureBuffer.MAX_RECORD_LENGTH];
+		int recordLength = CaptureBuffer.HEADER_SIZE + PLAYER.length + 400;
+		assertEquals(2 * recordLength, buffer.drainTo(target));
+		assertTrue(buffer.offer(0, (byte) 0, (byte) 0, 1, PLAYER, frame));
+	}
+
+	@Test
+	public void testCaptureFiles(@TempDir File directory) throws Exception {
+		PacketCapture capture = new PacketCapture(directory, 4096, 1024, 2, true, 42);
+		capture.setFilter(Collections.emptyList());
+		capture.start();
+
+		try {
+			assertFalse(capture.capture(Sender.CLIENT, Protocol.PLAY, 1, PLAYER, Unpooled.wrappedBuffer(frame(1, 100))));
+			capture.setFilter(null);
+
+			// every batch is larger than a file, so each one starts a new file
+			for (int batch = 0; batch < 6; batch++) {
+				for (int i = 0; i < 10; i++) {
+					assertTrue(capture.capture(Sender.CLIENT, Protocol.PLAY, 1, PLAYER, Unpooled.wrappedBuffer(frame(1, 100))));
+				}
+				while (capture.getPendingBytes() > 0) {
+					Thread.sleep(1);
+				}
+			}
+		} finally {
+			capture.stop();
+		}
+
+		assertNull(capture.getFailure());
+		assertNull(PacketCapture.getActive());
+
+		// older files are deleted
+		File[] files = directory.listFiles();
+		assertEquals(2, files.length);
+
+		for (File file : files) {
+			assertTrue(file.getName().endsWith(".plcap.gz"));
+			try (CaptureReader reader = new CaptureReader(file)) {
+				CaptureReader.Record record = reader.next();
+				assertEquals(Sender.CLIENT, record.getSender());
+				assertTrue(Arrays.equals(frame(1, 100), record.getFrame()));
+			}
+		}
+	}
+}
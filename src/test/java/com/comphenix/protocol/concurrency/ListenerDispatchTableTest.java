@@ -0,0 +1,90 @@
+package com.comphenix.protocol.concurrency;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import com.comphenix.protocol.BukkitInitialization;
+import com.comphenix.protocol.PacketType;
+import com.comphenix.protocol.events.ConnectionSide;
+import com.comphenix.protocol.events.ListenerOptions;
+import com.comphenix.protocol.events.ListenerPriority;
+import com.comphenix.protocol.events.PacketAdapter;
+import com.comphenix.protocol.events.PacketListener;
+import com.comphenix.protocol.injector.SortedPacketListenerList;
+import org.bukkit.plugin.Plugin;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+public class ListenerDispatchTableTest {
+
+	private static Plugin plugin;
+
+	@BeforeAll
+	public static void initializeBukkit() {
+		BukkitInitialization.initializeAll();
+		plugin = mock(Plugin.class);
+	}
+
+	@Test
+	public void testEntryOrder() {
+		SortedPacketListenerList list = new SortedPacketListenerList(ConnectionSide.SERVER_SIDE);
+		ListenerDispatchTable<PacketListener> table = list.getDispatchTable();
+		PacketType explosion = PacketType.Play.Server.EXPLOSION;
+		Class<?> packetClass = explosion.getPacketClass();
+		assertFalse(table.hasListener(packetClass));
+
+		PacketListener monitor = new PacketAdapter(plugin, ListenerPriority.MONITOR, explosion) {};
+		PacketListener low = new PacketAdapter(plugin, ListenerPriority.LOW, explosion) {};
+		list.addListener(monitor, monitor.getSendingWhitelist());
+		list.addListener(low, low.getSendingWhitelist());
+
+		// the listeners are sorted by priority, and every priority is a slice of the listener array
+		ListenerDispatchTable.Entry<PacketListener> entry = table.getEntry(packetClass);
+		assertEquals(explosion, entry.getType());
+		assertEquals(2, entry.getListeners().length);
+		assertSame(low, entry.getListeners()[0].getListener());
+		assertSame(monitor, entry.getListeners()[1].getListener());
+		assertEquals(0, entry.getStartIndex(ListenerPriority.LOW));
+		assertEquals(1, entry.getEndIndex(ListenerPriority.LOW));
+		assertEquals(1, entry.getStartIndex(ListenerPriority.MONITOR));
+		assertEquals(2, entry.getEndIndex(ListenerPriority.MONITOR));
+		assertTrue(entry.hasListeners(ListenerPriority.MONITOR));
+		assertFalse(entry.hasListeners(ListenerPriority.NORMAL));
+		assertFalse(entry.hasListeners(ListenerPriority.HIGHEST));
+
+		// published entries are never changed, a removal publishes a new table
+		list.removeListener(low, low.getSendingWhitelist());
+		assertEquals(2, entry.getListeners().length);
+		assertEquals(1, table.getEntry(packetClass).getListeners().length);
+
+		list.removeListener(monitor, monitor.getSendingWhitelist());
+		assertNull(table.getEntry(packetClass));
+		assertFalse(table.hasListener(packetClass));
+	}
+
+	@Test
+	public void testMainThread() {
+		SortedPacketListenerList list = new SortedPacketListenerList(ConnectionSide.SERVER_SIDE);
+		ListenerDispatchTable<PacketListener> table = list.getDispatchTable();
+		Class<?> packetClass = PacketType.Play.Server.EXPLOSION.getPacketClass();
+
+		PacketListener async = new PacketAdapter(PacketAdapter.params(plugin, PacketType.Play.Server.EXPLOSION)
+				.options(ListenerOptions.ASYNC)) {};
+		list.addListener(async, async.getSendingWhitelist());
+		assertFalse(table.hasMainThreadListener(packetClass));
+
+		// a single sending listener without the async option moves the whole class to the main thread
+		PacketListener sync = new PacketAdapter(plugin, PacketType.Play.Server.EXPLOSION) {};
+		list.addListener(sync, sync.getSendingWhitelist());
+		assertTrue(table.hasMainThreadListener(packetClass));
+		assertTrue(table.getEntry(packetClass).isMainThread());
+
+		list.removeListener(sync, sync.getSendingWhitelist());
+		assertFalse(table.hasMainThreadListener(packetClass));
+		assertTrue(table.hasListener(packetClass));
+	}
+}
@@ -0,0 +1,44 @@
+package com.comphenix.protocol.concurrency;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.comphenix.protocol.BukkitInitialization;
+import com.comphenix.protocol.PacketType;
+import java.util.Arrays;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+public class PacketTypeSetTest {
+
+	@BeforeAll
+	public static void initializeBukkit() {
+		BukkitInitialization.initializeAll();
+	}
+
+	@Test
+	public void testAddRemove() {
+		PacketType chat = PacketType.Play.Client.CHAT;
+		PacketType explosion = PacketType.Play.Server.EXPLOSION;
+
+		PacketTypeSet set = new PacketTypeSet(Arrays.asList(chat, explosion));
+		assertTrue(set.contains(chat));
+		assertTrue(set.contains(explosion.getPacketClass()));
+
+		// a snapshot is not affected by later changes
+		Set<PacketType> snapshot = set.values();
+		set.removeType(explosion);
+
+		assertFalse(set.contains(explosion));
+		assertFalse(set.contains(explosion.getPacketClass()));
+		assertTrue(set.contains(chat.getPacketClass()));
+		assertEquals(1, set.size());
+		assertEquals(2, snapshot.size());
+
+		set.clear();
+		assertFalse(set.containsPacket(null));
+		assertFalse(set.contains(chat));
+	}
+}
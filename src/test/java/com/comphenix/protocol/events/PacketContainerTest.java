@@ -90,6 +90,7 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -171,6 +172,22 @@ public class PacketContainerTest {
 		this.testPrimitive(updateSign.getIntegers(), 0, 0, 1);
 	}
 
+	@Test
+	public void testGetView() {
+		PacketContainer first = new PacketContainer(PacketType.Play.Client.CLOSE_WINDOW);
+		PacketContainer second = new PacketContainer(PacketType.Play.Client.CLOSE_WINDOW);
+
+		// views are shared by every packet of the same class
+		StructureModifier<Integer> view = first.getView(int.class);
+		assertSame(view, second.getView(int.class));
+
+		view.write(first.getHandle(), 0, 5);
+		view.write(second.getHandle(), 0, 7);
+		assertEquals(5, first.getIntegers().read(0));
+		assertEquals(7, (int) view.read(second.getHandle(), 0));
+		assertNull(view.readSafely(first.getHandle(), 100));
+	}
+
 	@Test
 	public void testGetLongs() {
 		PacketContainer updateTime = new PacketContainer(PacketType.Play.Server.UPDATE_TIME);
@@ -189,6 +206,39 @@ public class PacketContainerTest {
 		this.testPrimitive(explosion.getDoubles(), 0, (double) 0, 0.8);
 	}
 
+	@Test
+	public void testPrimitiveAccess() {
+		PacketContainer explosion = new PacketContainer(PacketType.Play.Server.EXPLOSION);
+		explosion.writeDouble(0, 0.8);
+		explosion.writeFloat(0, 1.5F);
+
+		assertEquals(0.8, explosion.readDouble(0));
+		assertEquals(0.8, explosion.getDoubles().read(0));
+		assertEquals(1.5F, explosion.readFloat(0));
+	}
+
+	@Test
+	public void testCopyOnWrite() {
+		PacketContainer explosion = new PacketContainer(PacketType.Play.Server.EXPLOSION);
+		explosion.writeDouble(0, 0.8);
+
+		PacketContainer view = explosion.copyOnWrite();
+		StructureModifier<Double> doubles = view.getDoubles();
+		assertSame(explosion.getHandle(), view.getHandle());
+		assertEquals(0.8, doubles.read(0));
+		assertTrue(view.isSharedHandle());
+
+		// the first write copies the packet, including for modifiers retrieved before the write
+		doubles.write(0, 1.6);
+		view.writeFloat(0, 2.5F);
+		assertNotSame(explosion.getHandle(), view.getHandle());
+		assertFalse(view.isSharedHandle());
+		assertEquals(1.6, doubles.read(0));
+		assertEquals(1.6, view.readDouble(0));
+		assertEquals(2.5F, view.getFloat().read(0));
+		assertEquals(0.8, explosion.readDouble(0));
+	}
+
 	@Test
 	public void testGetStrings() {
 		PacketContainer explosion = new PacketContainer(PacketType.Play.Client.CHAT);
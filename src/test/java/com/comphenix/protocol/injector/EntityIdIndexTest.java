@@ -0,0 +1,71 @@
+package com.comphenix.protocol.injector;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import org.bukkit.World;
+import org.bukkit.entity.Entity;
+import org.junit.jupiter.api.Test;
+
+public class EntityIdIndexTest {
+
+	private static Entity createEntity(World world, int id) {
+		Entity entity = mock(Entity.class);
+		when(entity.getWorld()).thenReturn(world);
+		when(entity.getEntityId()).thenReturn(id);
+		when(entity.isValid()).thenReturn(true);
+		return entity;
+	}
+
+	@Test
+	public void testLookup() {
+		World world = mock(World.class);
+		World other = mock(World.class);
+
+		Entity first = createEntity(world, 1);
+		Entity second = createEntity(world, 2);
+		Entity elsewhere = createEntity(other, 3);
+
+		EntityIdIndex index = new EntityIdIndex();
+		index.addAll(Arrays.asList(first, second, elsewhere));
+
+		assertSame(first, index.getEntity(world, 1));
+		assertSame(second, index.getEntity(world, 2));
+		assertSame(elsewhere, index.getEntity(other, 3));
+		assertNull(index.getEntity(world, 3));
+		assertNull(index.getEntity(other, 1));
+
+		index.remove(second);
+		assertNull(index.getEntity(world, 2));
+
+		index.removeWorld(other);
+		assertNull(index.getEntity(other, 3));
+	}
+
+	@Test
+	public void testSweep() {
+		World world = mock(World.class);
+		World other = mock(World.class);
+
+		Entity removed = createEntity(world, 1);
+		Entity moved = createEntity(world, 2);
+		Entity valid = createEntity(world, 3);
+
+		EntityIdIndex index = new EntityIdIndex();
+		index.addAll(Arrays.asList(removed, moved, valid));
+
+		// neither entity has been removed from the index through an event
+		when(removed.isValid()).thenReturn(false);
+		when(moved.getWorld()).thenReturn(other);
+
+		assertNull(index.getEntity(world, 1));
+		assertNull(index.getEntity(world, 2));
+		assertEquals(2, index.sweep());
+		assertEquals(1, index.size());
+		assertSame(valid, index.getEntity(world, 3));
+	}
+}
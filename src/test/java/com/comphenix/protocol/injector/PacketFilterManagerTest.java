@@ -0,0 +1,145 @@
+package com.comphenix.protocol.injector;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.comphenix.protocol.BukkitInitialization;
+import com.comphenix.protocol.PacketType;
+import com.comphenix.protocol.error.ErrorReporter;
+import com.comphenix.protocol.events.PacketAdapter;
+import com.comphenix.protocol.events.PacketContainer;
+import com.comphenix.protocol.events.PacketEvent;
+import com.comphenix.protocol.injector.netty.SharedWirePacket;
+import com.comphenix.protocol.injector.player.PlayerInjectionHandler;
+import io.netty.channel.embedded.EmbeddedChannel;
+import java.lang.reflect.Field;
+import java.util.Arrays;
+import org.bukkit.Server;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitScheduler;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+public class PacketFilterManagerTest {
+
+	private Plugin plugin;
+	private PlayerInjectionHandler injectionHandler;
+	private PacketFilterManager manager;
+
+	@BeforeAll
+	public static void initializeBukkit() {
+		BukkitInitialization.initializeAll();
+	}
+
+	@BeforeEach
+	public void setUp() throws ReflectiveOperationException {
+		this.plugin = mock(Plugin.class);
+		Server server = mock(Server.class);
+		when(server.getScheduler()).thenReturn(mock(BukkitScheduler.class));
+		when(server.isPrimaryThread()).thenReturn(true);
+
+		this.manager = (PacketFilterManager) PacketFilterManager.newBuilder()
+				.server(server)
+				.library(this.plugin)
+				.reporter(mock(ErrorReporter.class))
+				.build();
+
+		// record the packets which are sent on their own instead of injecting real players
+		this.injectionHandler = mock(PlayerInjectionHandler.class);
+		Field field = PacketFilterManager.class.getDeclaredField("playerInjectionHandler");
+		field.setAccessible(true);
+		field.set(this.manager, this.injectionHandler);
+	}
+
+	private Player addPlayer(EmbeddedChannel channel) {
+		Player player = mock(Player.class);
+		when(this.injectionHandler.getChannel(player)).thenReturn(channel);
+		return player;
+	}
+
+	@Test
+	public void testBatchBroadcastShared() {
+		PacketContainer packet = new PacketContainer(PacketType.Play.Server.UPDATE_TIME);
+		packet.getLongs().write(0, 5L);
+
+		// a listener which only reads the packet
+		this.manager.addPacketListener(new PacketAdapter(this.plugin, PacketType.Play.Server.UPDATE_TIME) {
+			@Override
+			public void onPacketSending(PacketEvent event) {
+				event.getPacket().getLongs().read(0);
+			}
+		});
+
+		EmbeddedChannel first = new EmbeddedChannel();
+		EmbeddedChannel second = new EmbeddedChannel();
+		this.manager.batchBroadcastServerPacket(packet, Arrays.asList(this.addPlayer(first), this.addPlayer(second)));
+
+		// both receivers get a duplicate of the same serialized packet
+		SharedWirePacket firstPacket = first.readOutbound();
+		SharedWirePacket secondPacket = second.readOutbound();
+		assertNotNull(firstPacket);
+		assertNotNull(secondPacket);
+		assertEquals(firstPacket.content(), secondPacket.content());
+		verify(this.injectionHandler, never()).sendServerPacket(any(), any(), any(), anyBoolean());
+
+		firstPacket.release();
+		secondPacket.release();
+	}
+
+	@Test
+	public void testBatchBroadcastDiverged() {
+		PacketContainer packet = new PacketContainer(PacketType.Play.Server.UPDATE_TIME);
+		packet.getLongs().write(0, 5L);
+
+		EmbeddedChannel unchangedChannel = new EmbeddedChannel();
+		EmbeddedChannel changedChannel = new EmbeddedChannel();
+		EmbeddedChannel cancelledChannel = new EmbeddedChannel();
+		Player unchanged = this.addPlayer(unchangedChannel);
+		Player changed = this.addPlayer(changedChannel);
+		Player cancelled = this.addPlayer(cancelledChannel);
+		Player disconnected = this.addPlayer(null);
+
+		this.manager.addPacketListener(new PacketAdapter(this.plugin, PacketType.Play.Server.UPDATE_TIME) {
+			@Override
+			public void onPacketSending(PacketEvent event) {
+				if (event.getPlayer() == changed) {
+					event.getPacket().getLongs().write(0, 10L);
+				} else if (event.getPlayer() == cancelled) {
+					event.setCancelled(true);
+				}
+			}
+		});
+		this.manager.batchBroadcastServerPacket(packet, Arrays.asList(unchanged, changed, cancelled, disconnected));
+
+		// only the receiver whose packet was left unchanged gets the serialized packet
+		SharedWirePacket shared = unchangedChannel.readOutbound();
+		assertNotNull(shared);
+		shared.release();
+		assertNull(changedChannel.readOutbound());
+		assertNull(cancelledChannel.readOutbound());
+
+		// the changed packet is a copy, and the listeners aren't invoked again
+		ArgumentCaptor<PacketContainer> captor = ArgumentCaptor.forClass(PacketContainer.class);
+		verify(this.injectionHandler).sendServerPacket(eq(changed), captor.capture(), isNull(), eq(false));
+		assertNotSame(packet.getHandle(), captor.getValue().getHandle());
+		assertEquals(10L, captor.getValue().getLongs().read(0));
+		assertEquals(5L, packet.getLongs().read(0));
+
+		verify(this.injectionHandler).sendServerPacket(disconnected, packet, null, false);
+		verify(this.injectionHandler, never()).sendServerPacket(eq(unchanged), any(), any(), anyBoolean());
+		verify(this.injectionHandler, never()).sendServerPacket(eq(cancelled), any(), any(), anyBoolean());
+	}
+}
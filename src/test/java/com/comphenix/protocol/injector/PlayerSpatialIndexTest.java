@@ -0,0 +1,147 @@
+package com.comphenix.protocol.injector;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.bukkit.util.BoundingBox;
+import org.junit.jupiter.api.Test;
+
+public class PlayerSpatialIndexTest {
+
+	private static Player createPlayer(World world, double x, double y, double z) {
+		return createPlayer(new Location(world, x, y, z));
+	}
+
+	// the player follows every change to the given location
+	private static Player createPlayer(Location position) {
+		Player player = mock(Player.class);
+		when(player.isOnline()).thenReturn(true);
+		when(player.getLocation(any(Location.class))).thenAnswer(invocation -> {
+			Location location = invocation.getArgument(0);
+			location.setWorld(position.getWorld());
+			location.setX(position.getX());
+			location.setY(position.getY());
+			location.setZ(position.getZ());
+			return location;
+		});
+		return player;
+	}
+
+	private static Set<Player> inRange(PlayerSpatialIndex index, World world, double x, double y, double z, double radius) {
+		Set<Player> result = new HashSet<>();
+		index.forEachPlayer(world, x, y, z, radius, result::add);
+		return result;
+	}
+
+	@Test
+	public void testRadius() {
+		World world = mock(World.class);
+		World other = mock(World.class);
+
+		Player origin = createPlayer(world, 0, 64, 0);
+		Player near = createPlayer(world, 10, 64, -10);
+		Player negative = createPlayer(world, -17, 60, -1);
+		Player far = createPlayer(world, 200, 64, 0);
+		Player above = createPlayer(world, 0, 120, 0);
+		Player elsewhere = createPlayer(other, 0, 64, 0);
+
+		PlayerSpatialIndex index = new PlayerSpatialIndex();
+		index.update(Arrays.asList(origin, near, negative, far, above, elsewhere));
+
+		assertEquals(new HashSet<>(Arrays.asList(origin, near, negative)), inRange(index, world, 0, 64, 0, 20));
+		assertEquals(new HashSet<>(Arrays.asList(origin, near, negative, above)), inRange(index, world, 0, 64, 0, 60));
+		assertEquals(new HashSet<>(Arrays.asList(far)), inRange(index, world, 190, 64, 0, 10));
+		assertEquals(new HashSet<>(Arrays.asList(elsewhere)), inRange(index, other, 0, 64, 0, 5));
+	}
+
+	@Test
+	public void testMatchesLinearScan() {
+		World world = mock(World.class);
+		List<Player> players = new ArrayList<>();
+
+		// a deterministic spread of players over a large area
+		for (int i = 0; i < 200; i++) {
+			players.add(createPlayer(world, (i * 7919 % 2000) - 1000, (i * 31 % 300) - 64, (i * 104729 % 2000) - 1000));
+		}
+
+		PlayerSpatialIndex index = new PlayerSpatialIndex();
+		index.update(players);
+
+		double[][] queries = {{0, 64, 0, 100}, {-500, 0, 500, 300}, {999, 200, -999, 48}, {0, 0, 0, 5000}};
+		for (double[] query : queries) {
+			Set<Player> expected = new HashSet<>();
+			Location location = new Location(null, 0, 0, 0);
+			for (Player player : players) {
+				player.getLocation(location);
+
+				double dx = location.getX() - query[0];
+				double dy = location.getY() - query[1];
+				double dz = location.getZ() - query[2];
+				if (dx * dx + dy * dy + dz * dz <= query[3] * query[3]) {
+					expected.add(player);
+				}
+			}
+
+			assertEquals(expected, inRange(index, world, query[0], query[1], query[2], query[3]));
+		}
+	}
+
+	@Test
+	public void testBoundingBox() {
+		World world = mock(World.class);
+
+		Player inside = createPlayer(world, 5, 70, 5);
+		Player outside = createPlayer(world, 5, 70, 40);
+
+		PlayerSpatialIndex index = new PlayerSpatialIndex();
+		index.update(Arrays.asList(inside, outside));
+
+		Set<Player> result = new HashSet<>();
+		index.forEachPlayer(world, new BoundingBox(0, 64, 0, 16, 80, 16), result::add);
+		assertEquals(new HashSet<>(Arrays.asList(inside)), result);
+
+		index.clear();
+		result.clear();
+		index.forEachPlayer(world, new BoundingBox(0, 64, 0, 16, 80, 16), result::add);
+		assertEquals(0, result.size());
+	}
+
+	@Test
+	public void testIncrementalUpdate() {
+		World world = mock(World.class);
+		World other = mock(World.class);
+
+		Location walking = new Location(world, 0, 64, 0);
+		Location travelling = new Location(world, 8, 64, 8);
+		Player walker = createPlayer(walking);
+		Player traveller = createPlayer(travelling);
+		Player leaving = createPlayer(world, 4, 64, 4);
+
+		PlayerSpatialIndex index = new PlayerSpatialIndex();
+		index.update(Arrays.asList(walker, traveller, leaving));
+		assertEquals(new HashSet<>(Arrays.asList(walker, traveller, leaving)), inRange(index, world, 0, 64, 0, 16));
+
+		// within the same section, into another section, into another world and offline
+		walking.setX(3);
+		index.update(Arrays.asList(walker, traveller));
+		assertEquals(new HashSet<>(Arrays.asList(walker, traveller)), inRange(index, world, 0, 64, 0, 16));
+		assertEquals(new HashSet<>(Arrays.asList(walker)), inRange(index, world, 0, 64, 0, 3));
+
+		walking.setX(100);
+		travelling.setWorld(other);
+		index.update(Arrays.asList(walker, traveller));
+		assertEquals(0, inRange(index, world, 0, 64, 0, 16).size());
+		assertEquals(new HashSet<>(Arrays.asList(walker)), inRange(index, world, 100, 64, 0, 1));
+		assertEquals(new HashSet<>(Arrays.asList(traveller)), inRange(index, other, 8, 64, 8, 1));
+	}
+}
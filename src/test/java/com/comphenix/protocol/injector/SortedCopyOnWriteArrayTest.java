@@ -17,15 +17,19 @@
 
 package com.comphenix.protocol.injector;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import com.comphenix.protocol.concurrency.SortedCopyOnWriteArray;
 import com.comphenix.protocol.events.ListenerPriority;
 import com.google.common.primitives.Ints;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
 import org.junit.jupiter.api.Test;
 
 public class SortedCopyOnWriteArrayTest {
@@ -78,6 +82,83 @@ public class SortedCopyOnWriteArrayTest {
 		assertFalse(test.contains(b));
 	}
 
+	@Test
+	public void testDuplicates() {
+		PriorityStuff a = new PriorityStuff(ListenerPriority.LOW, 1);
+		PriorityStuff b = new PriorityStuff(ListenerPriority.MONITOR, 2);
+		PriorityStuff c = new PriorityStuff(ListenerPriority.LOW, 3);
+		SortedCopyOnWriteArray<PriorityStuff> test = new SortedCopyOnWriteArray<PriorityStuff>();
+
+		test.add(b);
+		test.add(a);
+		test.add(c);
+		test.add(a);
+
+		// Equal priorities are kept in insertion order, duplicates are kept as well
+		assertArrayEquals(new Object[]{a, c, a, b}, test.getSnapshot());
+
+		// Removing an element removes every occurrence
+		assertTrue(test.remove(a));
+		assertArrayEquals(new Object[]{c, b}, test.getSnapshot());
+		assertFalse(test.remove(a));
+	}
+
+	@Test
+	public void testSnapshotIsolation() {
+		SortedCopyOnWriteArray<Integer> test = new SortedCopyOnWriteArray<Integer>();
+		test.add(2);
+		test.add(1);
+
+		Object[] snapshot = test.getSnapshot();
+		test.add(0);
+
+		// Earlier snapshots are never modified
+		assertArrayEquals(new Object[]{1, 2}, snapshot);
+
+		List<Integer> visited = new ArrayList<Integer>();
+		test.forEach(visited::add);
+		assertEquals(Arrays.asList(0, 1, 2), visited);
+	}
+
+	@Test
+	public void testConcurrentInsertion() throws InterruptedException {
+		final int THREADS = 4;
+		final int PER_THREAD = 500;
+
+		SortedCopyOnWriteArray<Integer> test = new SortedCopyOnWriteArray<Integer>();
+		CountDownLatch start = new CountDownLatch(1);
+		List<Thread> threads = new ArrayList<Thread>();
+
+		for (int i = 0; i < THREADS; i++) {
+			final int offset = i;
+			Thread thread = new Thread(() -> {
+				try {
+					start.await();
+				} catch (InterruptedException e) {
+					return;
+				}
+
+				for (int j = 0; j < PER_THREAD; j++) {
+					test.add(j * THREADS + offset);
+				}
+			});
+
+			thread.start();
+			threads.add(thread);
+		}
+
+		start.countDown();
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		// No insertion may be lost and the order must be intact
+		assertEquals(THREADS * PER_THREAD, test.size());
+		for (int i = 0; i < test.size(); i++) {
+			assertEquals((Integer) i, test.get(i));
+		}
+	}
+
 	private static class PriorityStuff implements Comparable<PriorityStuff> {
 
 		public ListenerPriority priority;
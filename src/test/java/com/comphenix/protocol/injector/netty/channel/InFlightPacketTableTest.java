@@ -0,0 +1,114 @@
+package com.comphenix.protocol.injector.netty.channel;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.comphenix.protocol.events.ConnectionSide;
+import com.comphenix.protocol.events.NetworkMarker;
+import org.junit.jupiter.api.Test;
+
+public class InFlightPacketTableTest {
+
+	// a packet which considers every other packet of the same class equal, identity must still be used
+	private static final class EqualPacket {
+
+		@Override
+		public boolean equals(Object obj) {
+			return obj instanceof EqualPacket;
+		}
+
+		@Override
+		public int hashCode() {
+			return 1;
+		}
+	}
+
+	@Test
+	public void testIdentity() {
+		InFlightPacketTable table = new InFlightPacketTable();
+		NetworkMarker marker = new NetworkMarker(ConnectionSide.SERVER_SIDE, null);
+
+		Object first = new EqualPacket();
+		Object second = new EqualPacket();
+		table.put(first, marker, true);
+
+		assertNull(table.getMarker(second));
+		assertNull(table.remove(second));
+
+		InFlightPacketTable.InFlightPacket inFlight = table.remove(first);
+		assertSame(marker, inFlight.getMarker());
+		assertTrue(inFlight.isSkipped());
+		assertTrue(table.isEmpty());
+	}
+
+	@Test
+	public void testMerge() {
+		InFlightPacketTable table = new InFlightPacketTable();
+		NetworkMarker marker = new NetworkMarker(ConnectionSide.SERVER_SIDE, null);
+
+		Object packet = new Object();
+		table.put(packet, null, true);
+		table.put(packet, marker, false);
+
+		InFlightPacketTable.InFlightPacket inFlight = table.remove(packet);
+		assertSame(marker, inFlight.getMarker());
+		assertTrue(inFlight.isSkipped());
+		assertNull(table.remove(packet));
+	}
+
+	@Test
+	public void testGrowAndOrder() {
+		InFlightPacketTable table = new InFlightPacketTable();
+		Object[] packets = new Object[100];
+
+		for (int i = 0; i < packets.length; i++) {
+			packets[i] = new Object();
+			table.put(packets[i], null, i % 2 == 0);
+		}
+
+		// remove in reverse order to exercise the shifting of the remaining slots
+		for (int i = packets.length - 1; i >= 0; i--) {
+			assertFalse(table.isEmpty());
+			assertEquals(i % 2 == 0, table.remove(packets[i]).isSkipped());
+		}
+		assertTrue(table.isEmpty());
+	}
+
+	@Test
+	public void testWrapAround() {
+		InFlightPacketTable table = new InFlightPacketTable();
+		Object[] packets = new Object[1000];
+
+		// keep a few packets in flight, so the oldest packet moves around the ring
+		for (int i = 0; i < packets.length; i++) {
+			packets[i] = new Object();
+			table.put(packets[i], null, i % 3 == 0);
+
+			if (i >= 5) {
+				assertEquals((i - 5) % 3 == 0, table.remove(packets[i - 5]).isSkipped());
+			}
+		}
+
+		// remove from the middle, then from both ends
+		int[] order = {packets.length - 3, packets.length - 4, packets.length - 1, packets.length - 5, packets.length - 2};
+		for (int index : order) {
+			assertSame(packets[index], table.remove(packets[index]).get());
+		}
+		assertTrue(table.isEmpty());
+	}
+
+	@Test
+	public void testClear() {
+		InFlightPacketTable table = new InFlightPacketTable();
+		Object packet = new Object();
+
+		table.put(packet, new NetworkMarker(ConnectionSide.SERVER_SIDE, null), false);
+		table.clear();
+
+		assertTrue(table.isEmpty());
+		assertNull(table.getMarker(packet));
+	}
+}
@@ -0,0 +1,123 @@
+package com.comphenix.protocol.injector.netty.channel;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.comphenix.protocol.error.ErrorReporter;
+import com.comphenix.protocol.error.Report;
+import io.netty.channel.ChannelHandlerContext;
+import org.bukkit.Server;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitScheduler;
+import org.bukkit.scheduler.BukkitTask;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+
+public class MainThreadHandoffTest {
+
+	private BukkitScheduler scheduler;
+	private BukkitTask task;
+	private ErrorReporter reporter;
+	private NettyChannelInjector injector;
+	private MainThreadHandoff handoff;
+
+	@BeforeEach
+	public void setUp() {
+		Plugin plugin = mock(Plugin.class);
+		Server server = mock(Server.class);
+		this.scheduler = mock(BukkitScheduler.class);
+		this.task = mock(BukkitTask.class);
+		this.reporter = mock(ErrorReporter.class);
+		this.injector = mock(NettyChannelInjector.class);
+
+		when(server.getScheduler()).thenReturn(this.scheduler);
+		when(this.scheduler.runTaskTimer(any(Plugin.class), any(Runnable.class), anyLong(), anyLong()))
+				.thenReturn(this.task);
+		this.handoff = new MainThreadHandoff(plugin, server, this.reporter);
+	}
+
+	@Test
+	public void testDrainInOrder() {
+		ChannelHandlerContext ctx = mock(ChannelHandlerContext.class);
+		Object first = new Object();
+		Object second = new Object();
+		Object third = new Object();
+
+		this.handoff.handOffOutbound(this.injector, first);
+		this.handoff.handOffInbound(this.injector, ctx, second);
+		this.handoff.handOffOutbound(this.injector, third);
+
+		// a single task drains every packet
+		verify(this.scheduler, times(1)).runTaskTimer(any(Plugin.class), any(Runnable.class), anyLong(), anyLong());
+		this.handoff.drain();
+
+		InOrder order = inOrder(this.injector);
+		order.verify(this.injector).sendServerPacket(first, null, true);
+		order.verify(this.injector).processInboundPacket(ctx, second);
+		order.verify(this.injector).sendServerPacket(third, null, true);
+		verify(this.task).cancel();
+
+		// the next packet starts a new task
+		this.handoff.handOffOutbound(this.injector, first);
+		verify(this.scheduler, times(2)).runTaskTimer(any(Plugin.class), any(Runnable.class), anyLong(), anyLong());
+	}
+
+	@Test
+	public void testDrainBudget() {
+		Object first = new Object();
+		Object second = new Object();
+
+		// a packet handed off while draining is left for the next tick
+		doAnswer(invocation -> {
+			this.handoff.handOffOutbound(this.injector, second);
+			return null;
+		}).when(this.injector).sendServerPacket(first, null, true);
+
+		this.handoff.handOffOutbound(this.injector, first);
+		this.handoff.drain();
+		verify(this.injector, never()).sendServerPacket(second, null, true);
+		verify(this.task, never()).cancel();
+
+		this.handoff.drain();
+		verify(this.injector).sendServerPacket(second, null, true);
+		verify(this.task).cancel();
+	}
+
+	@Test
+	public void testFailingPacket() {
+		Object first = new Object();
+		Object second = new Object();
+		doThrow(new IllegalStateException("failed")).when(this.injector).sendServerPacket(first, null, true);
+
+		this.handoff.handOffOutbound(this.injector, first);
+		this.handoff.handOffOutbound(this.injector, second);
+		this.handoff.drain();
+
+		verify(this.reporter).reportWarning(any(), any(Report.class));
+		verify(this.injector).sendServerPacket(second, null, true);
+	}
+
+	@Test
+	public void testClose() {
+		this.handoff.handOffOutbound(this.injector, new Object());
+		this.handoff.close();
+		verify(this.task).cancel();
+
+		// packets are discarded once closed
+		this.handoff.handOffOutbound(this.injector, new Object());
+		this.handoff.drain();
+		verify(this.injector, never()).sendServerPacket(any(), isNull(), anyBoolean());
+		verify(this.scheduler, times(1)).runTaskTimer(any(Plugin.class), any(Runnable.class), anyLong(), anyLong());
+	}
+}
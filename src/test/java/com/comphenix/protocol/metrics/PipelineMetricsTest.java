@@ -0,0 +1,66 @@
+package com.comphenix.protocol.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.comphenix.protocol.BukkitInitialization;
+import com.comphenix.protocol.PacketType;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+public class PipelineMetricsTest {
+
+	@BeforeAll
+	public static void initializeBukkit() {
+		BukkitInitialization.initializeAll();
+	}
+
+	@Test
+	public void testCountersByDirection() {
+		PipelineMetrics metrics = new PipelineMetrics();
+
+		metrics.recordIntercepted(PacketType.Play.Server.ENTITY_METADATA);
+		metrics.recordIntercepted(PacketType.Play.Server.ENTITY_METADATA);
+		metrics.recordCancelled(PacketType.Play.Server.ENTITY_METADATA);
+		metrics.recordRescheduled(PacketType.Play.Client.CHAT);
+		metrics.recordDeferred(PacketType.Play.Server.ENTITY_METADATA);
+		metrics.recordInjected(PacketType.Play.Client.CHAT.getPacketClass());
+
+		assertEquals(2, metrics.getCounters(PacketType.Play.Server.ENTITY_METADATA).getIntercepted());
+		assertEquals(2, metrics.getServerPacketsIntercepted());
+		assertEquals(0, metrics.getClientPacketsIntercepted());
+		assertEquals(1, metrics.getServerPacketsCancelled());
+		assertEquals(1, metrics.getClientPacketsRescheduled());
+		assertEquals(1, metrics.getServerPacketsDeferred());
+		assertEquals(0, metrics.getClientPacketsDeferred());
+		assertEquals(1, metrics.getClientPacketsInjected());
+
+		metrics.reset();
+		assertEquals(0, metrics.getServerPacketsIntercepted());
+		assertEquals(0, metrics.getClientPacketsRescheduled());
+		assertEquals(0, metrics.getServerPacketsDeferred());
+		assertEquals(0, metrics.getClientPacketsInjected());
+	}
+
+	@Test
+	public void testDispatchTimes() {
+		PipelineMetrics metrics = new PipelineMetrics();
+
+		for (int i = 0; i < 10_000; i++) {
+			metrics.endDispatch(metrics.beginDispatch(), i % 4 == 0);
+		}
+
+		assertEquals(2_500, metrics.getMainThreadDispatches());
+		assertEquals(7_500, metrics.getNetworkThreadDispatches());
+		assertEquals(0, metrics.getServerProcessingQueueDepth());
+
+		metrics.setQueueDepths(() -> 1, () -> 2, () -> 3, () -> 4);
+		assertEquals(3, metrics.getServerSendingQueueDepth());
+		metrics.clearQueueDepths();
+		assertEquals(0, metrics.getServerSendingQueueDepth());
+
+		metrics.recordProcessingQueueFull();
+		assertEquals(1, metrics.getProcessingQueueRejections());
+		metrics.reset();
+		assertEquals(0, metrics.getProcessingQueueRejections());
+	}
+}
@@ -0,0 +1,106 @@
+package com.comphenix.protocol.reflect;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import com.comphenix.protocol.BukkitInitialization;
+import com.comphenix.protocol.reflect.accessors.FieldAccessor;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+public class ObjectWriterTest {
+
+	@BeforeAll
+	public static void initializeBukkit() {
+		BukkitInitialization.initializeAll();
+	}
+
+	@Test
+	public void testCopyPlanMatchesFieldCopy() {
+		Derived source = new Derived();
+		source.setBase(42, 1234567890123L, "base");
+		source.derivedValue = 3.5;
+		source.derivedPublic = 7;
+		source.basePublic = "public";
+
+		// a subclass copies every field through transformField, which is the copy without a plan
+		Derived planned = new Derived();
+		Derived copied = new Derived();
+		new ObjectWriter().copyTo(source, planned, Derived.class);
+		new ObjectWriter() {}.copyTo(source, copied, Derived.class);
+
+		assertEquals(copied.toString(), planned.toString());
+		assertEquals(42, planned.getBaseValue());
+		assertEquals(1234567890123L, planned.getBaseLong());
+		assertSame(source.getBaseObject(), planned.getBaseObject());
+		assertEquals(3.5, planned.derivedValue);
+		assertEquals(7, planned.derivedPublic);
+	}
+
+	@Test
+	public void testCopyPlanVisitsSameFields() {
+		List<Field> visited = new ArrayList<>();
+		ObjectWriter counting = new ObjectWriter() {
+			@Override
+			protected void transformField(StructureModifier<Object> modifierSource, StructureModifier<Object> modifierDest,
+					int fieldIndex) {
+				visited.add(modifierSource.getField(fieldIndex));
+				super.transformField(modifierSource, modifierDest, fieldIndex);
+			}
+		};
+		counting.copyTo(new Derived(), new Derived(), Derived.class);
+
+		// public fields of the superclasses are skipped once the copy reaches them
+		List<Field> planned = new ArrayList<>();
+		for (FieldAccessor accessor : new ObjectWriter().getCopiedFields(Derived.class)) {
+			planned.add(accessor.getField());
+		}
+		assertEquals(visited, planned);
+	}
+
+	private static class Base {
+
+		public String basePublic;
+		private int baseValue;
+		private long baseLong;
+		private Object baseObject;
+
+		void setBase(int value, long longValue, Object object) {
+			this.baseValue = value;
+			this.baseLong = longValue;
+			this.baseObject = object;
+		}
+
+		int getBaseValue() {
+			return this.baseValue;
+		}
+
+		long getBaseLong() {
+			return this.baseLong;
+		}
+
+		Object getBaseObject() {
+			return this.baseObject;
+		}
+	}
+
+	private static class Middle extends Base {
+
+		private short middleValue = 1;
+	}
+
+	private static class Derived extends Middle {
+
+		public int derivedPublic;
+		private double derivedValue;
+
+		@Override
+		public String toString() {
+			return this.basePublic + "," + this.getBaseValue() + "," + this.getBaseLong() + "," + this.getBaseObject()
+					+ "," + this.derivedPublic + "," + this.derivedValue;
+		}
+	}
+}
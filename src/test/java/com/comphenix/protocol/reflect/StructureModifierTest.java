@@ -0,0 +1,50 @@
+package com.comphenix.protocol.reflect;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import com.comphenix.protocol.BukkitInitialization;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+public class StructureModifierTest {
+
+	@BeforeAll
+	public static void initializeBukkit() {
+		BukkitInitialization.initializeAll();
+	}
+
+	@Test
+	public void testParamTypes() {
+		Holder holder = new Holder();
+		StructureModifier<Object> modifier = new StructureModifier<>(Holder.class).withTarget(holder);
+
+		// the first lookup must not hide the fields with other type parameters
+		StructureModifier<List<String>> strings = modifier.withParamType(List.class, null, String.class);
+		StructureModifier<List<Integer>> integers = modifier.withParamType(List.class, null, Integer.class);
+
+		assertEquals(1, strings.size());
+		assertEquals(1, integers.size());
+		assertEquals(holder.strings, strings.read(0));
+		assertEquals(holder.integers, integers.read(0));
+		assertEquals(2, modifier.withType(List.class).size());
+	}
+
+	@Test
+	public void testSharedFields() {
+		StructureModifier<Object> first = new StructureModifier<>(Holder.class);
+		StructureModifier<Object> second = new StructureModifier<>(Holder.class);
+
+		// the fields are only looked up once, regardless of the thread
+		assertSame(first.getFields().get(0), second.getFields().get(0));
+	}
+
+	private static class Holder {
+
+		private List<String> strings = Collections.singletonList("a");
+		private List<Integer> integers = Arrays.asList(1, 2);
+	}
+}
@@ -2,6 +2,7 @@ package com.comphenix.protocol.reflect.accessors;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 
 import com.comphenix.protocol.reflect.ExactReflection;
 import java.lang.reflect.Field;
@@ -23,6 +24,22 @@ public class AccessorsTest {
 		assertEquals("MODIFIED", player.getName());
 	}
 
+	@Test
+	public void testPrimitiveField() {
+		Player player = new Player(123, "ABC");
+
+		Field id = assertDoesNotThrow(() -> ExactReflection.fromClass(Player.class, true).getField("id"));
+		FieldAccessor accessor = Accessors.getFieldAccessor(id);
+		assertInstanceOf(IntFieldAccessor.class, accessor);
+
+		IntFieldAccessor intAccessor = (IntFieldAccessor) accessor;
+		assertEquals(123, intAccessor.getInt(player));
+
+		intAccessor.setInt(player, 42);
+		assertEquals(42, player.getId());
+		assertEquals(42, accessor.get(player));
+	}
+
 	@Test
 	public void testMethod() {
 		Player player = new Player(123, "ABC");
@@ -1,10 +1,13 @@
 package com.comphenix.protocol.reflect.cloning;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
 
 import com.comphenix.protocol.BukkitInitialization;
 import com.comphenix.protocol.PacketType;
 import com.comphenix.protocol.events.PacketContainer;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import net.minecraft.core.NonNullList;
@@ -26,6 +29,30 @@ public class AggregateClonerTest {
 		assertEquals(input, AggregateCloner.DEFAULT.clone(input));
 	}
 
+	@Test
+	public void testFields() {
+		Holder source = new Holder();
+		source.number = 5;
+		source.name = "test";
+		source.values = new ArrayList<>(Arrays.asList("a", "b"));
+
+		// the same class is cloned through its cached plan the second time
+		for (int i = 0; i < 2; i++) {
+			Holder copy = (Holder) AggregateCloner.DEFAULT.clone(source);
+
+			assertEquals(5, copy.number);
+			assertSame(source.name, copy.name);
+			assertEquals(source.values, copy.values);
+			assertNotSame(source.values, copy.values);
+		}
+	}
+
+	public static class Holder {
+		private int number;
+		private String name;
+		private List<String> values;
+	}
+
 	// @Test
 	// Usages of NonNullList were removed in 1.17.1
 	public void testNonNullList() {
@@ -0,0 +1,108 @@
+package com.comphenix.protocol.timing;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import org.junit.jupiter.api.Test;
+
+public class HistogramStreamTest {
+
+	@Test
+	public void testBucketBoundaries() {
+		long previousHighest = -1;
+
+		// every bucket must start right after the previous one
+		for (int i = 0; i < HistogramStream.BUCKET_COUNT; i++) {
+			assertEquals(previousHighest + 1, HistogramStream.lowestValue(i));
+			assertEquals(i, HistogramStream.indexOf(HistogramStream.lowestValue(i)));
+			assertEquals(i, HistogramStream.indexOf(HistogramStream.highestValue(i)));
+			previousHighest = HistogramStream.highestValue(i);
+		}
+
+		assertEquals(HistogramStream.MAX_VALUE, previousHighest);
+		assertEquals(0, HistogramStream.indexOf(-5));
+		assertEquals(HistogramStream.BUCKET_COUNT - 1, HistogramStream.indexOf(Long.MAX_VALUE));
+	}
+
+	@Test
+	public void testPercentiles() {
+		HistogramStream histogram = new HistogramStream();
+
+		for (int i = 1; i <= 100000; i++) {
+			histogram.observe(i * 1000);
+		}
+
+		assertEquals(100000, histogram.getCount());
+		assertRelative(50000 * 1000, histogram.getPercentile(50));
+		assertRelative(99000 * 1000, histogram.getPercentile(99));
+		assertRelative(99900 * 1000, histogram.getPercentile(99.9));
+		assertEquals(100000 * 1000, histogram.getPercentile(100), 0);
+
+		StatisticsStream statistics = histogram.getStatistics();
+		assertEquals(50000.5 * 1000, statistics.getMean(), 1);
+		assertEquals(1000, statistics.getMinimum(), 0);
+		assertEquals(100000 * 1000, statistics.getMaximum(), 0);
+	}
+
+	@Test
+	public void testConcurrentRecording() throws InterruptedException {
+		final int threadCount = 4;
+		final int observations = 20000;
+
+		List<LatencyRecorder> recorders = new ArrayList<>();
+		List<Thread> threads = new ArrayList<>();
+		CountDownLatch start = new CountDownLatch(1);
+
+		for (int i = 0; i < threadCount; i++) {
+			LatencyRecorder recorder = new LatencyRecorder();
+			Random random = new Random(i);
+			recorders.add(recorder);
+
+			threads.add(new Thread(() -> {
+				try {
+					start.await();
+				} catch (InterruptedException e) {
+					throw new RuntimeException(e);
+				}
+				for (int j = 0; j < observations; j++) {
+					recorder.record(random.nextInt(1000000));
+				}
+			}));
+		}
+
+		threads.forEach(Thread::start);
+		start.countDown();
+
+		// reading while recording must never fail
+		HistogramStream partial = new HistogramStream();
+		for (LatencyRecorder recorder : recorders) {
+			recorder.addTo(partial);
+		}
+
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		HistogramStream merged = new HistogramStream();
+		for (LatencyRecorder recorder : recorders) {
+			recorder.addTo(merged);
+		}
+
+		long total = 0;
+		for (long bucket : merged.getBuckets()) {
+			total += bucket;
+		}
+
+		assertEquals(threadCount * observations, merged.getCount());
+		assertEquals(threadCount * observations, total);
+		assertTrue(partial.getCount() <= merged.getCount());
+	}
+
+	private static void assertRelative(double expected, double actual) {
+		assertEquals(expected, actual, expected * 0.02);
+	}
+}
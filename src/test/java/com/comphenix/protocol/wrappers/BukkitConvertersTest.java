@@ -11,12 +11,14 @@ import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
 import org.bukkit.Material;
 import org.bukkit.enchantments.Enchantment;
+import org.bukkit.entity.EntityType;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.ItemMeta;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 
 import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -91,4 +93,34 @@ public class BukkitConvertersTest {
 		assertEquals(wrappedRemoteChatSessionData, specific);
 
     }
+
+    @Test
+    public void testCachedConverter() {
+        AtomicInteger conversions = new AtomicInteger();
+        EquivalentConverter<String> converter = Converters.cached(Converters.handle(
+                specific -> specific.toUpperCase(),
+                generic -> {
+                    conversions.incrementAndGet();
+                    return generic.toString().toLowerCase();
+                }, String.class));
+
+        Object generic = "ENTITY";
+        assertEquals("entity", converter.getSpecific(generic));
+        assertEquals("entity", converter.getSpecific(generic));
+        assertEquals(1, conversions.get());
+
+        // the values are cached by identity, not equality
+        assertEquals("entity", converter.getSpecific(new String("ENTITY")));
+        assertEquals(2, conversions.get());
+    }
+
+    @Test
+    public void testEntityTypeConverter() {
+        EquivalentConverter<EntityType> converter = BukkitConverters.getEntityTypeConverter();
+        Object generic = converter.getGeneric(EntityType.ZOMBIE);
+
+        assertSame(generic, converter.getGeneric(EntityType.ZOMBIE));
+        assertEquals(EntityType.ZOMBIE, converter.getSpecific(generic));
+        assertSame(converter, BukkitConverters.getEntityTypeConverter());
+    }
 }